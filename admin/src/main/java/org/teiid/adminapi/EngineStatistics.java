@@ -65,6 +65,25 @@ public interface EngineStatistics extends AdminObject, DomainAware {
 	 */
 	long getCacheWriteCount();
 	
+	/**
+	 * Number of reads served from the buffer manager memory buffer rather than from disk
+	 * @return
+	 */
+	long getMemoryBufferHitCount();
+	
+	/**
+	 * Number of reads that were not admitted to a normal position in the buffer manager caches
+	 * because they were accessed less frequently than the eviction candidate
+	 * @return
+	 */
+	long getAdmissionRejectionCount();
+	
+	/**
+	 * Direct memory used by the buffer manager to hold storage that would otherwise be on disk
+	 * @return
+	 */
+	long getOffHeapStorageUsedInKB();
+	
 	/**
 	 * Disk space used by buffer manager to save overflowed memory contents
 	 * @return
@@ -89,4 +108,22 @@ public interface EngineStatistics extends AdminObject, DomainAware {
 	 */
 	int getMaxWaitPlanWaterMark();
 	
+	/**
+	 * Number of full loads of internal materialized views
+	 * @return
+	 */
+	long getMatViewLoadCount();
+	
+	/**
+	 * Number of incremental refreshes of internal materialized views
+	 * @return
+	 */
+	long getMatViewIncrementalRefreshCount();
+	
+	/**
+	 * Number of rows applied by incremental refreshes of internal materialized views
+	 * @return
+	 */
+	long getMatViewIncrementalRefreshRowCount();
+	
 }
@@ -33,10 +33,16 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 	private long diskReadCount;
 	private long cacheWriteCount;
 	private long cacheReadCount;	
+	private long memoryBufferHitCount;
+	private long admissionRejectionCount;
+	private long offHeapStorageUsedInKB;
 	private long diskSpaceUsedInMB;
 	private int activePlanCount;
 	private int waitPlanCount;
 	private int maxWaitPlanCount;
+	private long matViewLoadCount;
+	private long matViewIncrementalRefreshCount;
+	private long matViewIncrementalRefreshRowCount;
 	
 	@Override
 	public int getSessionCount() {
@@ -73,6 +79,21 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 		return cacheWriteCount;
 	}
 
+	@Override
+	public long getMemoryBufferHitCount() {
+		return memoryBufferHitCount;
+	}
+	
+	@Override
+	public long getAdmissionRejectionCount() {
+		return admissionRejectionCount;
+	}
+
+	@Override
+	public long getOffHeapStorageUsedInKB() {
+		return offHeapStorageUsedInKB;
+	}
+
 	@Override
 	public long getDiskSpaceUsedInMB() {
 		return diskSpaceUsedInMB;
@@ -92,6 +113,21 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 	public int getMaxWaitPlanWaterMark() {
 		return maxWaitPlanCount;
 	}
+	
+	@Override
+	public long getMatViewLoadCount() {
+		return matViewLoadCount;
+	}
+	
+	@Override
+	public long getMatViewIncrementalRefreshCount() {
+		return matViewIncrementalRefreshCount;
+	}
+	
+	@Override
+	public long getMatViewIncrementalRefreshRowCount() {
+		return matViewIncrementalRefreshRowCount;
+	}
 
 	public void setSessionCount(int sessionCount) {
 		this.sessionCount = sessionCount;
@@ -121,6 +157,18 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 		this.cacheReadCount = cacheReadCount;
 	}
 
+	public void setMemoryBufferHitCount(long memoryBufferHitCount) {
+		this.memoryBufferHitCount = memoryBufferHitCount;
+	}
+	
+	public void setAdmissionRejectionCount(long admissionRejectionCount) {
+		this.admissionRejectionCount = admissionRejectionCount;
+	}
+
+	public void setOffHeapStorageUsedInKB(long offHeapStorageUsedInKB) {
+		this.offHeapStorageUsedInKB = offHeapStorageUsedInKB;
+	}
+
 	public void setDiskSpaceUsedInMB(long diskSpaceUsedInMB) {
 		this.diskSpaceUsedInMB = diskSpaceUsedInMB;
 	}
@@ -136,6 +184,18 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 	public void setMaxWaitPlanWaterMark(int maxWaitPlanCount) {
 		this.maxWaitPlanCount = maxWaitPlanCount;
 	}
+	
+	public void setMatViewLoadCount(long matViewLoadCount) {
+		this.matViewLoadCount = matViewLoadCount;
+	}
+	
+	public void setMatViewIncrementalRefreshCount(long matViewIncrementalRefreshCount) {
+		this.matViewIncrementalRefreshCount = matViewIncrementalRefreshCount;
+	}
+	
+	public void setMatViewIncrementalRefreshRowCount(long matViewIncrementalRefreshRowCount) {
+		this.matViewIncrementalRefreshRowCount = matViewIncrementalRefreshRowCount;
+	}
 
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -147,10 +207,16 @@ public class EngineStatisticsMetadata extends AdminObjectImpl implements EngineS
 		sb.append("; diskReadCount").append(diskReadCount); //$NON-NLS-1$
 		sb.append("; cacheWriteCount").append(cacheWriteCount); //$NON-NLS-1$
 		sb.append("; cacheReadCount").append(cacheReadCount); //$NON-NLS-1$	
+		sb.append("; memoryBufferHitCount").append(memoryBufferHitCount); //$NON-NLS-1$
+		sb.append("; admissionRejectionCount").append(admissionRejectionCount); //$NON-NLS-1$
+		sb.append("; offHeapStorageUsedInKB").append(offHeapStorageUsedInKB); //$NON-NLS-1$
 		sb.append("; diskSpaceUsedInMB").append(diskSpaceUsedInMB); //$NON-NLS-1$
 		sb.append("; activePlanCount").append(activePlanCount); //$NON-NLS-1$
 		sb.append("; waitPlanCount").append(waitPlanCount); //$NON-NLS-1$
 		sb.append("; maxWaitPlanCount").append(maxWaitPlanCount); //$NON-NLS-1$
+		sb.append("; matViewLoadCount").append(matViewLoadCount); //$NON-NLS-1$
+		sb.append("; matViewIncrementalRefreshCount").append(matViewIncrementalRefreshCount); //$NON-NLS-1$
+		sb.append("; matViewIncrementalRefreshRowCount").append(matViewIncrementalRefreshRowCount); //$NON-NLS-1$
 		return sb.toString();
 	}
 }
@@ -1142,10 +1142,16 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 		private static final String DISK_READ_COUNT = "buffermgr-disk-read-count"; //$NON-NLS-1$
 		private static final String CACHE_WRITE_COUNT = "buffermgr-cache-write-count"; //$NON-NLS-1$
 		private static final String CACHE_READ_COUNT = "buffermgr-cache-read-count"; //$NON-NLS-1$
+		private static final String MEMORY_BUFFER_HIT_COUNT = "buffermgr-memory-buffer-hit-count"; //$NON-NLS-1$
+		private static final String ADMISSION_REJECTION_COUNT = "buffermgr-admission-rejection-count"; //$NON-NLS-1$
+		private static final String OFF_HEAP_STORAGE_USED = "buffermgr-offheap-storage-used-kb"; //$NON-NLS-1$
 		private static final String DISK_SPACE_USED = "buffermgr-diskspace-used-mb"; //$NON-NLS-1$
 		private static final String ACTIVE_PLAN_COUNT = "active-plans-count"; //$NON-NLS-1$
 		private static final String WAITING_PLAN_COUNT = "waiting-plans-count"; //$NON-NLS-1$
 		private static final String MAX_WAIT_PLAN_COUNT = "max-waitplan-watermark"; //$NON-NLS-1$
+		private static final String MATVIEW_LOAD_COUNT = "matview-load-count"; //$NON-NLS-1$
+		private static final String MATVIEW_INCREMENTAL_REFRESH_COUNT = "matview-incremental-refresh-count"; //$NON-NLS-1$
+		private static final String MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT = "matview-incremental-refresh-row-count"; //$NON-NLS-1$
 		
 		public static EngineStatisticsMetadataMapper INSTANCE = new EngineStatisticsMetadataMapper();
 		
@@ -1160,10 +1166,16 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			node.get(DISK_READ_COUNT).set(object.getDiskReadCount());
 			node.get(CACHE_WRITE_COUNT).set(object.getCacheWriteCount());	
 			node.get(CACHE_READ_COUNT).set(object.getCacheReadCount());
+			node.get(MEMORY_BUFFER_HIT_COUNT).set(object.getMemoryBufferHitCount());
+			node.get(ADMISSION_REJECTION_COUNT).set(object.getAdmissionRejectionCount());
+			node.get(OFF_HEAP_STORAGE_USED).set(object.getOffHeapStorageUsedInKB());
 			node.get(DISK_SPACE_USED).set(object.getDiskSpaceUsedInMB());
 			node.get(ACTIVE_PLAN_COUNT).set(object.getActivePlanCount());
 			node.get(WAITING_PLAN_COUNT).set(object.getWaitPlanCount());
 			node.get(MAX_WAIT_PLAN_COUNT).set(object.getMaxWaitPlanWaterMark());
+			node.get(MATVIEW_LOAD_COUNT).set(object.getMatViewLoadCount());
+			node.get(MATVIEW_INCREMENTAL_REFRESH_COUNT).set(object.getMatViewIncrementalRefreshCount());
+			node.get(MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT).set(object.getMatViewIncrementalRefreshRowCount());
 			
 			wrapDomain(object, node);
 			return node;
@@ -1181,10 +1193,30 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			stats.setDiskReadCount(node.get(DISK_READ_COUNT).asLong());
 			stats.setCacheReadCount(node.get(CACHE_READ_COUNT).asLong());
 			stats.setCacheWriteCount(node.get(CACHE_WRITE_COUNT).asLong());
+			//not present from older servers
+			if (node.has(MEMORY_BUFFER_HIT_COUNT)) {
+				stats.setMemoryBufferHitCount(node.get(MEMORY_BUFFER_HIT_COUNT).asLong());
+			}
+			if (node.has(ADMISSION_REJECTION_COUNT)) {
+				stats.setAdmissionRejectionCount(node.get(ADMISSION_REJECTION_COUNT).asLong());
+			}
+			if (node.has(OFF_HEAP_STORAGE_USED)) {
+				stats.setOffHeapStorageUsedInKB(node.get(OFF_HEAP_STORAGE_USED).asLong());
+			}
 			stats.setDiskSpaceUsedInMB(node.get(DISK_SPACE_USED).asLong());
 			stats.setActivePlanCount(node.get(ACTIVE_PLAN_COUNT).asInt());
 			stats.setWaitPlanCount(node.get(WAITING_PLAN_COUNT).asInt());
 			stats.setMaxWaitPlanWaterMark(node.get(MAX_WAIT_PLAN_COUNT).asInt());
+			//not present from older servers
+			if (node.has(MATVIEW_LOAD_COUNT)) {
+				stats.setMatViewLoadCount(node.get(MATVIEW_LOAD_COUNT).asLong());
+			}
+			if (node.has(MATVIEW_INCREMENTAL_REFRESH_COUNT)) {
+				stats.setMatViewIncrementalRefreshCount(node.get(MATVIEW_INCREMENTAL_REFRESH_COUNT).asLong());
+			}
+			if (node.has(MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT)) {
+				stats.setMatViewIncrementalRefreshRowCount(node.get(MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT).asLong());
+			}
 			
 			unwrapDomain(stats, node);
 			return stats;
@@ -1198,10 +1230,16 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 			addAttribute(node, DISK_READ_COUNT, ModelType.LONG, true);
 			addAttribute(node, CACHE_READ_COUNT, ModelType.LONG, true);
 			addAttribute(node, CACHE_WRITE_COUNT, ModelType.LONG, true);
+			addAttribute(node, MEMORY_BUFFER_HIT_COUNT, ModelType.LONG, true);
+			addAttribute(node, ADMISSION_REJECTION_COUNT, ModelType.LONG, true);
+			addAttribute(node, OFF_HEAP_STORAGE_USED, ModelType.LONG, true);
 			addAttribute(node, DISK_SPACE_USED, ModelType.LONG, true);
 			addAttribute(node, ACTIVE_PLAN_COUNT, ModelType.INT, true);
 			addAttribute(node, WAITING_PLAN_COUNT, ModelType.INT, true);
 			addAttribute(node, MAX_WAIT_PLAN_COUNT, ModelType.INT, true);
+			addAttribute(node, MATVIEW_LOAD_COUNT, ModelType.LONG, true);
+			addAttribute(node, MATVIEW_INCREMENTAL_REFRESH_COUNT, ModelType.LONG, true);
+			addAttribute(node, MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT, ModelType.LONG, true);
 			return node;
 		}
 		
@@ -1214,10 +1252,16 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
 					new SimpleAttributeDefinition(DISK_READ_COUNT, ModelType.LONG, false),
 					new SimpleAttributeDefinition(CACHE_READ_COUNT, ModelType.LONG, false),
 					new SimpleAttributeDefinition(CACHE_WRITE_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(MEMORY_BUFFER_HIT_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(ADMISSION_REJECTION_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(OFF_HEAP_STORAGE_USED, ModelType.LONG, false),
 					new SimpleAttributeDefinition(DISK_SPACE_USED, ModelType.LONG, false),
 					new SimpleAttributeDefinition(ACTIVE_PLAN_COUNT, ModelType.INT, false),
 					new SimpleAttributeDefinition(WAITING_PLAN_COUNT, ModelType.INT, false),
-					new SimpleAttributeDefinition(MAX_WAIT_PLAN_COUNT, ModelType.INT, false)
+					new SimpleAttributeDefinition(MAX_WAIT_PLAN_COUNT, ModelType.INT, false),
+					new SimpleAttributeDefinition(MATVIEW_LOAD_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(MATVIEW_INCREMENTAL_REFRESH_COUNT, ModelType.LONG, false),
+					new SimpleAttributeDefinition(MATVIEW_INCREMENTAL_REFRESH_ROW_COUNT, ModelType.LONG, false)
 			};
 		}		
 	}	
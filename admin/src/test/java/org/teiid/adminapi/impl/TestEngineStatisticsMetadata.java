@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.adminapi.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TestEngineStatisticsMetadata {
+	
+	@Test public void testMapping() {
+		EngineStatisticsMetadata stats = new EngineStatisticsMetadata();
+		stats.setSessionCount(2);
+		stats.setMemoryBufferHitCount(10);
+		stats.setOffHeapStorageUsedInKB(20);
+		stats.setMatViewIncrementalRefreshRowCount(30);
+		
+		ModelNode node = VDBMetadataMapper.EngineStatisticsMetadataMapper.INSTANCE.wrap(stats, new ModelNode());
+		
+		EngineStatisticsMetadata stats1 = VDBMetadataMapper.EngineStatisticsMetadataMapper.INSTANCE.unwrap(node);
+		
+		assertEquals(2, stats1.getSessionCount());
+		assertEquals(10, stats1.getMemoryBufferHitCount());
+		assertEquals(20, stats1.getOffHeapStorageUsedInKB());
+		assertEquals(30, stats1.getMatViewIncrementalRefreshRowCount());
+	}
+	
+	@Test public void testUnwrapWithoutNewStatistics() {
+		ModelNode node = VDBMetadataMapper.EngineStatisticsMetadataMapper.INSTANCE.wrap(new EngineStatisticsMetadata(), new ModelNode());
+		node.remove("buffermgr-memory-buffer-hit-count");
+		node.remove("buffermgr-admission-rejection-count");
+		node.remove("buffermgr-offheap-storage-used-kb");
+		node.remove("matview-load-count");
+		
+		EngineStatisticsMetadata stats = VDBMetadataMapper.EngineStatisticsMetadataMapper.INSTANCE.unwrap(node);
+		
+		assertEquals(0, stats.getMemoryBufferHitCount());
+		assertEquals(0, stats.getMatViewLoadCount());
+	}
+
+}
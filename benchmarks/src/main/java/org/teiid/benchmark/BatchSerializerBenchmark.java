@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.client.BatchSerializer;
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+
+/**
+ * {@link BatchSerializer#writeBatch(java.io.ObjectOutput, String[], List)} and 
+ * {@link BatchSerializer#readBatch(java.io.ObjectInput, String[])} of a single 
+ * column batch per type, for both row and columnar batches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchSerializerBenchmark {
+	
+	@Param({"integer", "long", "double", "string", "bigdecimal", "timestamp", "boolean"})
+	public String type;
+	
+	@Param({"512", "2048"})
+	public int rows;
+	
+	@Param({"0", "0.1"})
+	public double nullFraction;
+	
+	@Param({"true", "false"})
+	public boolean columnar;
+	
+	private String[] types;
+	private List<List<?>> batch;
+	private AccessibleByteArrayOutputStream baos;
+	private byte[] serialized;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Class<?> typeClass = DataTypeManager.getDataTypeClass(type);
+		types = new String[] {type};
+		List<List<?>> data = new DataGenerator().setNullFraction(nullFraction).rows(rows, typeClass);
+		if (columnar) {
+			ColumnarBatch columns = new ColumnarBatch(new Class<?>[] {typeClass}, rows);
+			columns.addAll(data);
+			batch = columns;
+		} else {
+			batch = data;
+		}
+		baos = new AccessibleByteArrayOutputStream(1 << 16);
+		write();
+		serialized = baos.toByteArray();
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		baos.reset();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		BatchSerializer.writeBatch(oos, types, batch);
+		oos.flush();
+		return baos.getCount();
+	}
+	
+	@Benchmark
+	public List<List<Object>> read() throws IOException, ClassNotFoundException {
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized));
+		return BatchSerializer.readBatch(ois, types);
+	}
+
+}
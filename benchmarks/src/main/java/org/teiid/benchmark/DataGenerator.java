@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Generates reproducible rows for the benchmarks.
+ * <br/>
+ * All values are derived from a seeded {@link Random} so that the same parameters
+ * always produce the same data.  Key columns can be skewed to approximate
+ * the distributions seen in fact tables.
+ */
+public class DataGenerator {
+	
+	public static final long DEFAULT_SEED = 20140301L;
+	
+	private static final String[] WORDS = new String[] {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+		"hotel", "india", "juliet", "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+		"sierra", "tango", "uniform", "victor", "whiskey", "xray", "yankee", "zulu"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+	
+	private static final long BASE_TIME = Timestamp.valueOf("2014-01-01 00:00:00").getTime(); //$NON-NLS-1$
+	
+	private Random random;
+	private double nullFraction;
+	private double skew;
+	
+	public DataGenerator() {
+		this(DEFAULT_SEED);
+	}
+	
+	public DataGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+	
+	/**
+	 * Set the fraction of non-key values that will be null
+	 */
+	public DataGenerator setNullFraction(double nullFraction) {
+		this.nullFraction = nullFraction;
+		return this;
+	}
+	
+	/**
+	 * Set the skew of generated keys.  0 is uniform, larger values concentrate
+	 * keys toward the low end of the range.
+	 */
+	public DataGenerator setSkew(double skew) {
+		this.skew = skew;
+		return this;
+	}
+	
+	/**
+	 * Create a key in [0, cardinality)
+	 */
+	public int nextKey(int cardinality) {
+		if (skew <= 0) {
+			return random.nextInt(cardinality);
+		}
+		return (int)(Math.pow(random.nextDouble(), 1 + skew) * cardinality);
+	}
+	
+	/**
+	 * Create a value of the given runtime type
+	 */
+	public Object nextValue(Class<?> type) {
+		if (nullFraction > 0 && random.nextDouble() < nullFraction) {
+			return null;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+			return random.nextInt(1 << 20);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.LONG) {
+			return random.nextLong();
+		}
+		if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+			return random.nextDouble() * 10000;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.FLOAT) {
+			return random.nextFloat() * 10000;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.SHORT) {
+			return (short)random.nextInt(Short.MAX_VALUE);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.BYTE) {
+			return (byte)random.nextInt(Byte.MAX_VALUE);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.BOOLEAN) {
+			return random.nextBoolean();
+		}
+		if (type == DataTypeManager.DefaultDataClasses.CHAR) {
+			return (char)('a' + random.nextInt(26));
+		}
+		if (type == DataTypeManager.DefaultDataClasses.BIG_DECIMAL) {
+			return BigDecimal.valueOf(random.nextInt(10000000), 2);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.TIMESTAMP) {
+			return new Timestamp(BASE_TIME + random.nextInt(365*24*60*60)*1000l);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.DATE) {
+			return new Date(BASE_TIME + random.nextInt(365)*24*60*60*1000l);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.STRING) {
+			return nextString();
+		}
+		throw new IllegalArgumentException(type.getName());
+	}
+
+	/**
+	 * Create a short string composed of one to three words with a numeric suffix
+	 */
+	public String nextString() {
+		StringBuilder sb = new StringBuilder();
+		int words = 1 + random.nextInt(3);
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		sb.append(random.nextInt(1000));
+		return sb.toString();
+	}
+	
+	/**
+	 * Create rows where the first column is an integer key with the given cardinality 
+	 * and the remaining columns are of the given types
+	 */
+	public List<List<?>> keyedRows(int rowCount, int cardinality, Class<?>... types) {
+		List<List<?>> result = new ArrayList<List<?>>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			Object[] row = new Object[types.length + 1];
+			row[0] = nextKey(cardinality);
+			for (int j = 0; j < types.length; j++) {
+				row[j + 1] = nextValue(types[j]);
+			}
+			result.add(Arrays.asList(row));
+		}
+		return result;
+	}
+	
+	/**
+	 * Create rows of the given types
+	 */
+	public List<List<?>> rows(int rowCount, Class<?>... types) {
+		List<List<?>> result = new ArrayList<List<?>>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			Object[] row = new Object[types.length];
+			for (int j = 0; j < types.length; j++) {
+				row[j] = nextValue(types[j]);
+			}
+			result.add(Arrays.asList(row));
+		}
+		return result;
+	}
+	
+	/**
+	 * Create resolved element symbols e1...en for the given types
+	 */
+	public static List<ElementSymbol> elements(String group, Class<?>... types) {
+		List<ElementSymbol> result = new ArrayList<ElementSymbol>(types.length);
+		for (int i = 0; i < types.length; i++) {
+			ElementSymbol es = new ElementSymbol(group + ".e" + (i + 1)); //$NON-NLS-1$
+			es.setType(types[i]);
+			result.add(es);
+		}
+		return result;
+	}
+	
+	/**
+	 * Prepend the integer type for the key column
+	 */
+	public static Class<?>[] keyed(Class<?>... types) {
+		Class<?>[] result = new Class<?>[types.length + 1];
+		result[0] = DataTypeManager.DefaultDataClasses.INTEGER;
+		System.arraycopy(types, 0, result, 1, types.length);
+		return result;
+	}
+
+}
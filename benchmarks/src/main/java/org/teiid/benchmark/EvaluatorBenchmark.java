@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.core.TeiidException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.resolver.util.ResolverVisitor;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * {@link Evaluator} on typical filter criteria against pm1.g1, both interpreted and compiled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EvaluatorBenchmark {
+	
+	private static final int ROWS = 1024;
+	
+	private static final String[] COLUMNS = new String[] {"e1", "e2", "e3", "e4"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	
+	@Param({"pm1.g1.e2 = 5",
+		"pm1.g1.e2 > 100 and pm1.g1.e4 < 5000.0",
+		"pm1.g1.e2 >= 1000 and pm1.g1.e2 < 500000 or pm1.g1.e3 = true",
+		"pm1.g1.e1 like 'alpha%'",
+		"pm1.g1.e2 in (1, 2, 3, 5, 8, 13, 21, 34)",
+		"upper(substring(pm1.g1.e1, 1, 3)) = 'DEL' and pm1.g1.e1 is not null",
+		"pm1.g1.e2 + 1 > pm1.g1.e4 * 2"})
+	public String criteria;
+	
+	@Param({"true", "false"})
+	public boolean compiled;
+	
+	private Criteria crit;
+	private Evaluator evaluator;
+	private CompiledExpression compiledCriteria;
+	private List<List<?>> data;
+	
+	@Setup(Level.Trial)
+	public void setup() throws TeiidException {
+		crit = QueryParser.getQueryParser().parseCriteria(criteria);
+		ResolverVisitor.resolveLanguageObject(crit, RealMetadataFactory.example1Cached());
+		Map<ElementSymbol, Integer> elements = new HashMap<ElementSymbol, Integer>();
+		for (ElementSymbol es : ElementCollectorVisitor.getElements(crit, true)) {
+			for (int i = 0; i < COLUMNS.length; i++) {
+				if (COLUMNS[i].equalsIgnoreCase(es.getShortName())) {
+					elements.put(es, i);
+				}
+			}
+		}
+		evaluator = new Evaluator(elements, null, new CommandContext());
+		compiledCriteria = evaluator.compile(crit);
+		data = new DataGenerator().setNullFraction(.02).rows(ROWS, DataTypeManager.DefaultDataClasses.STRING, 
+				DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.BOOLEAN, DataTypeManager.DefaultDataClasses.DOUBLE);
+	}
+	
+	@Benchmark
+	public int evaluate() throws TeiidException {
+		int matches = 0;
+		if (compiled) {
+			for (int i = 0; i < ROWS; i++) {
+				if (compiledCriteria.evaluateCriteria(data.get(i))) {
+					matches++;
+				}
+			}
+		} else {
+			for (int i = 0; i < ROWS; i++) {
+				if (evaluator.evaluate(crit, data.get(i))) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+}
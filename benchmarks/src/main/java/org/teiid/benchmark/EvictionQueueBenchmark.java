@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
+import org.teiid.common.buffer.impl.LrfuEvictionQueue;
+
+/**
+ * Concurrent access to a shared {@link LrfuEvictionQueue} as performed by the buffer manager
+ * on each batch read: advancing the clock, checking admission, and touching the entry.
+ * <br>
+ * Runs with all available processors by default.  Use -t to compare scaling at other thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(Threads.MAX)
+@Fork(1)
+public class EvictionQueueBenchmark {
+	
+	@State(Scope.Thread)
+	public static class ThreadState {
+		Random random = new Random(DataGenerator.DEFAULT_SEED + Thread.currentThread().getId());
+	}
+	
+	@Param({"1024", "131072"})
+	public int entries;
+	
+	/**
+	 * The number of stripes, where 0 uses the default of one per processor
+	 */
+	@Param({"0", "1"})
+	public int stripes;
+	
+	private LrfuEvictionQueue<BaseCacheEntry> queue;
+	private BaseCacheEntry[] values;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		AtomicLong clock = new AtomicLong();
+		if (stripes == 0) {
+			queue = new LrfuEvictionQueue<BaseCacheEntry>(clock);
+		} else {
+			queue = new LrfuEvictionQueue<BaseCacheEntry>(clock, stripes);
+		}
+		values = new BaseCacheEntry[entries];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new BaseCacheEntry(new CacheKey((long)i, 0, 0));
+			queue.add(values[i]);
+		}
+	}
+	
+	@Benchmark
+	public long tick() {
+		return queue.tick();
+	}
+	
+	@Benchmark
+	public boolean admit(ThreadState state) {
+		return queue.admit(values[state.random.nextInt(values.length)]);
+	}
+	
+	@Benchmark
+	public void touch(ThreadState state) {
+		queue.tick();
+		BaseCacheEntry entry = values[state.random.nextInt(values.length)];
+		synchronized (entry) {
+			queue.touch(entry);
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teiid.core.TeiidException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Common system functions invoked through {@link FunctionDescriptor#invokeFunction(Object[], CommandContext, Object)}
+ * compared with a direct call to the same {@link FunctionMethods} method, which bounds the 
+ * invocation overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FunctionBenchmark {
+	
+	private static final int ROWS = 1024;
+	
+	@Param({"concat", "substring", "convert", "+", "*"})
+	public String function;
+	
+	private FunctionDescriptor descriptor;
+	private CommandContext context;
+	private Object[][] args;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		Class<?>[] types = null;
+		Class<?>[] dataTypes = null;
+		if (function.equals("concat")) { //$NON-NLS-1$
+			types = new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.STRING};
+			dataTypes = types;
+		} else if (function.equals("substring")) { //$NON-NLS-1$
+			types = new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER};
+			dataTypes = new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING};
+		} else if (function.equals("convert")) { //$NON-NLS-1$
+			types = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.STRING};
+			dataTypes = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER};
+		} else if (function.equals("+")) { //$NON-NLS-1$
+			types = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER};
+			dataTypes = types;
+		} else {
+			types = new Class<?>[] {DataTypeManager.DefaultDataClasses.DOUBLE, DataTypeManager.DefaultDataClasses.DOUBLE};
+			dataTypes = types;
+		}
+		descriptor = RealMetadataFactory.SFM.getSystemFunctionLibrary().findFunction(function, types);
+		context = new CommandContext();
+		List<List<?>> data = new DataGenerator().rows(ROWS, dataTypes);
+		args = new Object[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			List<?> row = data.get(i);
+			if (function.equals("substring")) { //$NON-NLS-1$
+				args[i] = new Object[] {row.get(0), 2, 4};
+			} else if (function.equals("convert")) { //$NON-NLS-1$
+				args[i] = new Object[] {row.get(0), DataTypeManager.DefaultDataTypes.STRING};
+			} else {
+				args[i] = row.toArray();
+			}
+		}
+	}
+	
+	@Benchmark
+	public void descriptor(Blackhole bh) throws TeiidException {
+		for (int i = 0; i < ROWS; i++) {
+			Object[] values = args[i];
+			if (descriptor.requiresContext()) {
+				Object[] withContext = new Object[values.length + 1];
+				withContext[0] = context;
+				System.arraycopy(values, 0, withContext, 1, values.length);
+				values = withContext;
+			} else {
+				values = values.clone();
+			}
+			bh.consume(descriptor.invokeFunction(values, context, null));
+		}
+	}
+	
+	@Benchmark
+	public void direct(Blackhole bh) throws TeiidException {
+		for (int i = 0; i < ROWS; i++) {
+			Object[] values = args[i];
+			Object result = null;
+			if (function.equals("concat")) { //$NON-NLS-1$
+				result = FunctionMethods.concat((String)values[0], (String)values[1]);
+			} else if (function.equals("substring")) { //$NON-NLS-1$
+				result = FunctionMethods.substring((String)values[0], (Integer)values[1], (Integer)values[2]);
+			} else if (function.equals("convert")) { //$NON-NLS-1$
+				result = FunctionMethods.convert(values[0], (String)values[1]);
+			} else if (function.equals("+")) { //$NON-NLS-1$
+				result = FunctionMethods.plus((Integer)values[0], (Integer)values[1]);
+			} else {
+				result = FunctionMethods.multiply((Double)values[0], (Double)values[1]);
+			}
+			bh.consume(result);
+		}
+	}
+
+}
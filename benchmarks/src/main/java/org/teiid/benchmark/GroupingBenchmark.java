@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.AggregateSymbol;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * End to end {@link GroupingNode} processing of a keyed source with count, sum, and max 
+ * aggregates, using either sort or hash grouping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GroupingBenchmark {
+	
+	private static final Class<?>[] TYPES = DataGenerator.keyed(DataTypeManager.DefaultDataClasses.DOUBLE, DataTypeManager.DefaultDataClasses.STRING);
+	
+	@Param({"100000", "1000000"})
+	public int rows;
+	
+	/**
+	 * Distinct grouping keys
+	 */
+	@Param({"100", "10000", "100000"})
+	public int groups;
+	
+	@Param({"true", "false"})
+	public boolean hash;
+	
+	@Param({"0", "1"})
+	public double skew;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> elements;
+	private List<List<?>> data;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		elements = DataGenerator.elements("t", TYPES); //$NON-NLS-1$
+		data = new DataGenerator().setSkew(skew).setNullFraction(.01).keyedRows(rows, groups, TYPES[1], TYPES[2]);
+	}
+	
+	@Benchmark
+	public int group() throws TeiidComponentException, TeiidProcessingException {
+		GroupingNode node = new GroupingNode(0);
+		List<Expression> outputElements = new ArrayList<Expression>();
+		outputElements.add(elements.get(0));
+		outputElements.add(new AggregateSymbol(AggregateSymbol.Type.COUNT.name(), false, null));
+		outputElements.add(new AggregateSymbol(AggregateSymbol.Type.SUM.name(), false, elements.get(1)));
+		outputElements.add(new AggregateSymbol(AggregateSymbol.Type.MAX.name(), false, elements.get(2)));
+		node.setElements(outputElements);
+		node.setOrderBy(new OrderBy(elements.subList(0, 1)).getOrderByItems());
+		node.setHashGrouping(hash);
+		node.addChild(NodeRunner.source(elements, data, bufferManager.getProcessorBatchSize()));
+		return NodeRunner.run(node, bufferManager);
+	}
+
+}
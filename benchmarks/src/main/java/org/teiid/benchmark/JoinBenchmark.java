@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
+import org.teiid.query.processor.relational.HashJoinStrategy;
+import org.teiid.query.processor.relational.JoinNode;
+import org.teiid.query.processor.relational.JoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy.SortOption;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * End to end {@link JoinNode} processing of a fact to dimension style equi-join
+ * with each of the join strategies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JoinBenchmark {
+	
+	private static final Class<?>[] LEFT_TYPES = DataGenerator.keyed(DataTypeManager.DefaultDataClasses.DOUBLE, DataTypeManager.DefaultDataClasses.TIMESTAMP);
+	private static final Class<?>[] RIGHT_TYPES = DataGenerator.keyed(DataTypeManager.DefaultDataClasses.STRING);
+	
+	@Param({"100000", "1000000"})
+	public int leftRows;
+	
+	@Param({"1000", "100000"})
+	public int rightRows;
+	
+	@Param({"merge", "enhanced", "hash"})
+	public String strategy;
+	
+	@Param({"true", "false"})
+	public boolean outer;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> leftElements;
+	private List<ElementSymbol> rightElements;
+	private List<List<?>> leftData;
+	private List<List<?>> rightData;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		leftElements = DataGenerator.elements("l", LEFT_TYPES); //$NON-NLS-1$
+		rightElements = DataGenerator.elements("r", RIGHT_TYPES); //$NON-NLS-1$
+		DataGenerator generator = new DataGenerator().setSkew(1);
+		//fact rows reference slightly more keys than the dimension has to produce some outer rows
+		leftData = generator.keyedRows(leftRows, rightRows + rightRows/10, LEFT_TYPES[1], LEFT_TYPES[2]);
+		rightData = new ArrayList<List<?>>(rightRows);
+		for (List<?> row : generator.setSkew(0).keyedRows(rightRows, rightRows, RIGHT_TYPES[1])) {
+			//make the dimension key unique
+			((List<Object>)row).set(0, rightData.size());
+			rightData.add(row);
+		}
+	}
+	
+	private JoinStrategy createStrategy() {
+		if (strategy.equals("hash")) { //$NON-NLS-1$
+			return new HashJoinStrategy();
+		}
+		if (strategy.equals("enhanced")) { //$NON-NLS-1$
+			return new EnhancedSortMergeJoinStrategy(SortOption.SORT, SortOption.SORT);
+		}
+		return new MergeJoinStrategy(SortOption.SORT, SortOption.SORT, false);
+	}
+	
+	@Benchmark
+	public int join() throws TeiidComponentException, TeiidProcessingException {
+		JoinNode join = new JoinNode(0);
+		List<ElementSymbol> joinElements = new ArrayList<ElementSymbol>(leftElements);
+		joinElements.addAll(rightElements);
+		join.setElements(joinElements);
+		join.setJoinType(outer?JoinType.JOIN_LEFT_OUTER:JoinType.JOIN_INNER);
+		join.setJoinStrategy(createStrategy());
+		join.setJoinExpressions(leftElements.subList(0, 1), rightElements.subList(0, 1));
+		join.addChild(NodeRunner.source(leftElements, leftData, bufferManager.getProcessorBatchSize()));
+		join.addChild(NodeRunner.source(rightElements, rightData, bufferManager.getProcessorBatchSize()));
+		return NodeRunner.run(join, bufferManager);
+	}
+
+}
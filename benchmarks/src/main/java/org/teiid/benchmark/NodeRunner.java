@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.List;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.processor.relational.FakeRelationalNode;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Drives a {@link RelationalNode} plan over in memory sources
+ */
+class NodeRunner {
+	
+	private static int nodeId;
+	
+	static RelationalNode source(List<? extends Expression> elements, List<List<?>> rows, int batchSize) {
+		FakeRelationalNode node = new FakeRelationalNode(++nodeId, rows.toArray(new List[rows.size()]), batchSize);
+		node.setElements(elements);
+		return node;
+	}
+	
+	/**
+	 * Initialize the node tree and process it to completion.
+	 * @return the number of rows produced
+	 */
+	static int run(RelationalNode node, BufferManager bufferManager) throws TeiidComponentException, TeiidProcessingException {
+		CommandContext context = new CommandContext("pid", "bench", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+		initialize(node, context, bufferManager);
+		node.open();
+		int rowCount = 0;
+		try {
+			while (true) {
+				try {
+					TupleBatch batch = node.nextBatch();
+					rowCount += batch.getRowCount();
+					if (batch.getTerminationFlag()) {
+						break;
+					}
+				} catch (BlockedException e) {
+					//in memory sources don't block for long
+				}
+			}
+		} finally {
+			node.close();
+		}
+		return rowCount;
+	}
+
+	private static void initialize(RelationalNode node, CommandContext context, BufferManager bufferManager) {
+		for (RelationalNode child : node.getChildren()) {
+			if (child != null) {
+				initialize(child, context, bufferManager);
+			}
+		}
+		node.initialize(context, bufferManager, null);
+	}
+
+}
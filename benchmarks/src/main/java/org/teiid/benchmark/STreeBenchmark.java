@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.STree;
+import org.teiid.common.buffer.STree.InsertMode;
+import org.teiid.common.buffer.TupleBrowser;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Insert, point lookup, and range browsing of an {@link STree} keyed by an integer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class STreeBenchmark {
+	
+	private static final Class<?>[] TYPES = DataGenerator.keyed(DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.DOUBLE);
+	
+	@Param({"10000", "100000", "1000000"})
+	public int rows;
+	
+	/**
+	 * Insert in key order (the common index build case) or in random order
+	 */
+	@Param({"true", "false"})
+	public boolean ordered;
+	
+	private BufferManager bufferManager;
+	private List<ElementSymbol> elements;
+	private List<List<?>> data;
+	private STree tree;
+	private List<?>[] probes;
+	
+	@Setup(Level.Trial)
+	public void setupData() throws TeiidComponentException {
+		bufferManager = BufferManagerFactory.createBufferManager();
+		elements = DataGenerator.elements("t", TYPES); //$NON-NLS-1$
+		DataGenerator generator = new DataGenerator();
+		data = generator.keyedRows(rows, rows, TYPES[1], TYPES[2]);
+		for (int i = 0; i < rows; i++) {
+			List<Object> row = (List<Object>)data.get(i);
+			row.set(0, i);
+		}
+		if (!ordered) {
+			Collections.shuffle(data, new Random(DataGenerator.DEFAULT_SEED));
+		}
+		tree = createTree();
+		insertAll(tree);
+		probes = new List<?>[1024];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = Collections.singletonList(generator.nextKey(rows));
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void teardown() {
+		tree.remove();
+	}
+	
+	private STree createTree() {
+		return bufferManager.createSTree(elements, "bench", 1); //$NON-NLS-1$
+	}
+
+	private void insertAll(STree target) throws TeiidComponentException {
+		int sizeHint = target.getExpectedHeight(rows);
+		for (List<?> row : data) {
+			target.insert(row, ordered?InsertMode.ORDERED:InsertMode.NEW, sizeHint);
+		}
+	}
+	
+	@Benchmark
+	public int insert() throws TeiidComponentException {
+		STree target = createTree();
+		try {
+			insertAll(target);
+			return target.getRowCount();
+		} finally {
+			target.remove();
+		}
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void find(Blackhole bh) throws TeiidComponentException {
+		for (List<?> probe : probes) {
+			bh.consume(tree.find(probe));
+		}
+	}
+	
+	@Benchmark
+	public void browse(Blackhole bh) throws TeiidComponentException, TeiidProcessingException {
+		TupleBrowser browser = new TupleBrowser(tree, null, null, true);
+		List<?> tuple = null;
+		while ((tuple = browser.nextTuple()) != null) {
+			bh.consume(tuple);
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * {@link SortUtility} over generated rows at various sizes and processing memory limits.
+ * Smaller limits force more sublists and merge passes through the storage layer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SortBenchmark {
+	
+	private static final Class<?>[] TYPES = DataGenerator.keyed(DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.TIMESTAMP, DataTypeManager.DefaultDataClasses.BIG_DECIMAL);
+
+	@Param({"10000", "100000", "1000000"})
+	public int rows;
+	
+	/**
+	 * Processing memory in KB available to the sort
+	 */
+	@Param({"1024", "16384", "262144"})
+	public int memoryKB;
+	
+	@Param({"SORT", "DUP_REMOVE"})
+	public SortUtility.Mode mode;
+	
+	private BufferManagerImpl bufferManager;
+	private List<ElementSymbol> elements;
+	private TupleBuffer input;
+	
+	@Setup(Level.Trial)
+	public void setup() throws TeiidComponentException {
+		bufferManager = BufferManagerFactory.getTestBufferManager(memoryKB * 1024l, 256);
+		elements = DataGenerator.elements("t", TYPES); //$NON-NLS-1$
+		input = bufferManager.createTupleBuffer(elements, "bench", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		DataGenerator generator = new DataGenerator().setNullFraction(.05);
+		//sort on the key and a string to exercise the comparator with some duplication
+		for (List<?> row : generator.keyedRows(rows, rows / 4, TYPES[1], TYPES[2], TYPES[3])) {
+			input.addTuple(row);
+		}
+		input.close();
+	}
+	
+	@TearDown(Level.Trial)
+	public void teardown() {
+		input.remove();
+	}
+	
+	@Benchmark
+	public int sort() throws TeiidComponentException, TeiidProcessingException {
+		SortUtility su = new SortUtility(input.createIndexedTupleSource(), elements.subList(0, 2), Arrays.asList(Boolean.TRUE, Boolean.FALSE), mode, bufferManager, "bench", elements); //$NON-NLS-1$
+		TupleBuffer result = su.sort();
+		try {
+			return result.getRowCount();
+		} finally {
+			result.remove();
+		}
+	}
+	
+}
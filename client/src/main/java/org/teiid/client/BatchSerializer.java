@@ -70,6 +70,26 @@ public class BatchSerializer {
     static final byte CURRENT_VERSION = (byte)3;
 
 	private BatchSerializer() {} // Uninstantiable
+	
+	/**
+	 * Implemented by batches that hold fixed width columns in primitive arrays, 
+	 * so that those columns may be written without accessing each row.
+	 */
+	public interface PrimitiveColumnBatch {
+		
+		/**
+		 * @return the int[], long[], double[], float[], short[], byte[] or char[] holding 
+		 * the column values, or null if the column values are held as objects
+		 */
+		Object getPrimitiveColumn(int col);
+		
+		boolean isNull(int row, int col);
+		
+		/**
+		 * @return the boxed value, or null
+		 */
+		Object getValue(int row, int col);
+	}
 
     private static ColumnSerializer defaultSerializer = new ColumnSerializer();
 
@@ -453,6 +473,25 @@ public class BatchSerializer {
         }
     }
 
+    static void writeIsNullData(ObjectOutput out, int col, int rows, PrimitiveColumnBatch batch) throws IOException {
+        int currentByte = 0;
+        int mask = 0x80;
+        for (int row = 0; row < rows; row++) {
+            if (batch.isNull(row, col)) {
+				currentByte |= mask;
+			}
+            mask >>= 1;
+            if (mask == 0) {
+                out.write(currentByte);
+                currentByte = 0;
+                mask = 0x80;
+            }
+        }
+        if (mask != 0x80) {
+            out.write(currentByte);
+        }
+    }
+
     static void writeIsNullData(ObjectOutput out, int offset, Object[] batch) throws IOException {
         int currentByte = 0;
         for (int mask = 0x80; offset < batch.length; offset++, mask >>= 1) {
@@ -508,6 +547,15 @@ public class BatchSerializer {
             }
         }
 
+        public void writeColumn(ObjectOutput out, int col, int rows, PrimitiveColumnBatch batch, Object values) throws IOException {
+            writeIsNullData(out, col, rows, batch);
+            for (int i = 0; i < rows; i++) {
+                if (!batch.isNull(i, col)) {
+                    writePrimitive(out, batch, col, values, i);
+                }
+            }
+        }
+
         public void readColumn(ObjectInput in, int col, List<List<Object>> batch, byte[] isNull, List<Object> cache) throws IOException, ClassNotFoundException {
             readIsNullData(in, isNull);
             for (int i = 0; i < batch.size(); i++) {
@@ -524,12 +572,23 @@ public class BatchSerializer {
         	return in.readObject();
         }
         
+        /**
+         * Write the value of a primitive array.  By default it is boxed and written as an object.
+         */
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+        	writeObject(out, batch.getValue(row, col), null);
+        }
+        
         public boolean usesCache(byte version) {
         	return false;
         }
     }
 
     private static class IntColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeInt(((int[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeInt(((Integer)obj).intValue());
@@ -541,6 +600,10 @@ public class BatchSerializer {
     }
 
     private static class LongColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeLong(((long[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeLong(((Long)obj).longValue());
@@ -552,6 +615,10 @@ public class BatchSerializer {
     }
 
     private static class FloatColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeFloat(((float[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeFloat(((Float)obj).floatValue());
@@ -563,6 +630,10 @@ public class BatchSerializer {
     }
 
     private static class DoubleColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeDouble(((double[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeDouble(((Double)obj).doubleValue());
@@ -574,6 +645,10 @@ public class BatchSerializer {
     }
 
     private static class ShortColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeShort(((short[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeShort(((Short)obj).shortValue());
@@ -654,6 +729,10 @@ public class BatchSerializer {
     }
 
     private static class ByteColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeByte(((byte[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeByte(((Byte)obj).byteValue());
@@ -665,6 +744,10 @@ public class BatchSerializer {
     }
 
     private static class CharColumnSerializer extends ColumnSerializer {
+        @Override
+		protected void writePrimitive(ObjectOutput out, PrimitiveColumnBatch batch, int col, Object values, int row) throws IOException {
+            out.writeChar(((char[])values)[row]);
+        }
         @Override
 		protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache) throws IOException {
             out.writeChar(((Character)obj).charValue());
@@ -837,7 +920,15 @@ public class BatchSerializer {
 	            		cache = new HashMap<Object, Integer>();
 	            	}
 	                try {
-	                    serializer.writeColumn(out, i, batch, cache);
+	                	Object values = null;
+	                	if (batch instanceof PrimitiveColumnBatch) {
+	                		values = ((PrimitiveColumnBatch)batch).getPrimitiveColumn(i);
+	                	}
+	                	if (values != null) {
+	                		serializer.writeColumn(out, i, batch.size(), (PrimitiveColumnBatch)batch, values);
+	                	} else {
+	                		serializer.writeColumn(out, i, batch, cache);
+	                	}
 	                } catch (ClassCastException e) {
 	                    Object obj = null;
 	                    String objectClass = null;
@@ -96,6 +96,7 @@ public class RequestMessage implements Externalizable {
     private boolean noExec;
     private boolean autoGeneratedKeys;
     private boolean delaySerialization;
+    private int streamingWindow;
     
     /*
      * Used by embedded connections, could change if we add support
@@ -406,6 +407,8 @@ public class RequestMessage implements Externalizable {
 			this.autoGeneratedKeys = (options & 1) == 1;
 			//8.4 property
 			this.delaySerialization = (options & 2) == 2;
+			//8.7 property
+			this.streamingWindow = in.readInt();
 		} catch (OptionalDataException e) {
 		} catch (EOFException e) {
 		}
@@ -441,6 +444,7 @@ public class RequestMessage implements Externalizable {
 			options |= 2;
 		}
 		out.writeByte(options);
+		out.writeInt(streamingWindow);
 	}
 
 	public RequestOptions getRequestOptions() {
@@ -462,6 +466,18 @@ public class RequestMessage implements Externalizable {
 		return this.autoGeneratedKeys;
 	}
 	
+	/**
+	 * The number of cursor requests the client will keep outstanding for a forward only result.
+	 * Each is answered with the next batch as soon as it is available.  Values less than 2 disable streaming.
+	 */
+	public int getStreamingWindow() {
+		return streamingWindow;
+	}
+	
+	public void setStreamingWindow(int streamingWindow) {
+		this.streamingWindow = streamingWindow;
+	}
+	
 	public boolean isDelaySerialization() {
 		return delaySerialization;
 	}
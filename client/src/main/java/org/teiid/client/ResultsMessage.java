@@ -92,6 +92,8 @@ public class ResultsMessage implements Externalizable {
     private boolean isUpdateResult;
     private int updateCount = -1;
     
+    private int streamingWindow;
+    
     private boolean delayDeserialization;
     byte[] resultBytes;
 
@@ -296,12 +298,14 @@ public class ResultsMessage implements Externalizable {
         debugLog = (String)in.readObject();
         annotations = ExternalizeUtil.readList(in, Annotation.class);
         isUpdateResult = in.readBoolean();
-        if (isUpdateResult) {
-        	try {
+        try {
+        	if (isUpdateResult) {
         		updateCount = in.readInt();
-        	} catch (OptionalDataException e) {
-        	} catch (EOFException e) {
         	}
+        	//8.7 property
+        	streamingWindow = in.readInt();
+        } catch (OptionalDataException e) {
+        } catch (EOFException e) {
         }
     }
 
@@ -354,6 +358,7 @@ public class ResultsMessage implements Externalizable {
         if (isUpdateResult) {
         	out.writeInt(updateCount);
         }
+        out.writeInt(streamingWindow);
     }
 
     /**
@@ -423,5 +428,17 @@ public class ResultsMessage implements Externalizable {
 	public void setDelayDeserialization(boolean delayDeserialization) {
 		this.delayDeserialization = delayDeserialization;
 	}
+	
+	/**
+	 * @return the number of outstanding cursor requests the server will queue, 
+	 * or 0 if streaming was not granted
+	 */
+	public int getStreamingWindow() {
+		return streamingWindow;
+	}
+	
+	public void setStreamingWindow(int streamingWindow) {
+		this.streamingWindow = streamingWindow;
+	}
 }
 
@@ -117,6 +117,14 @@ public interface ExecutionProperties {
     
     public static final String JDBC4COLUMNNAMEANDLABELSEMANTICS = "useJDBC4ColumnNameAndLabelSemantics"; //$NON-NLS-1$
     
+    /**
+     * The number of batch requests to keep outstanding for forward only results, 
+     * so that the server may send successive batches without waiting on the client.
+     * The default of 0 uses a single prefetch.
+     * @since 8.7
+     */
+    public static final String RESULT_STREAMING_WINDOW = "resultStreamingWindow"; //$NON-NLS-1$
+    
     
 }
     
\ No newline at end of file
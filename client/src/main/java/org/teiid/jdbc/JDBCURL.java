@@ -64,7 +64,8 @@ public class JDBCURL {
 	            ExecutionProperties.PROP_XML_VALIDATION,
 	            EmbeddedProfile.USE_CALLING_THREAD,
 	            ExecutionProperties.DISABLE_LOCAL_TRANSACTIONS,
-	            ExecutionProperties.JDBC4COLUMNNAMEANDLABELSEMANTICS}) {
+	            ExecutionProperties.JDBC4COLUMNNAMEANDLABELSEMANTICS,
+	            ExecutionProperties.RESULT_STREAMING_WINDOW}) {
 			result.put(key, key);
 		}
 		return result;
@@ -29,6 +29,7 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
@@ -99,7 +100,7 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 	private ResultsFuture<ResultsMessage> asynchResults;
     boolean asynch;
     
-    private ResultsFuture<ResultsMessage> prefetch;
+    private LinkedList<ResultsFuture<ResultsMessage>> prefetch = new LinkedList<ResultsFuture<ResultsMessage>>();
     private boolean usePrefetch;
 
 	private int skipTo;
@@ -368,12 +369,12 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
     public Batch requestBatch(int beginRow) throws SQLException{
     	checkClosed();
         try {
-        	if (prefetch != null) {
+        	if (!prefetch.isEmpty()) {
     			//TODO: this is not efficient if the user is skipping around the results
     			//but the server logic at this point basically requires us
-    			//to read what we have requested before requesting more (no queuing)
-    			ResultsMessage result = getResults(prefetch);
-    			prefetch = null;
+    			//to read what we have requested before requesting more
+    			ResultsMessage result = getResults(prefetch.getFirst());
+    			prefetch.removeFirst();
     			Batch nextBatch = processBatch(result);
 				return nextBatch;
         	}
@@ -444,10 +445,19 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 
 	private Batch getCurrentBatch(ResultsMessage currentResultMsg) throws TeiidSQLException {
 		this.updatedPlanDescription = currentResultMsg.getPlanDescription();
-		if (usePrefetch && !asynch 
-				&& prefetch == null && currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
-			//fetch before processing the results
-			prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
+		if (usePrefetch && !asynch) {
+			if (currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
+				//fetch before processing the results
+				//if the server granted a streaming window, keep that many requests outstanding 
+				//- the server will answer them with successive batches 
+				int window = Math.max(1, currentResultMsg.getStreamingWindow());
+				while (prefetch.size() < window) {
+					prefetch.add(submitRequestBatch(currentResultMsg.getLastRow() + 1));
+				}
+			} else {
+				//any remaining streaming requests will be answered with empty results
+				prefetch.clear();
+			}
 		}
 		currentResultMsg.processResults();
 		List<?> lastTuple = null;
@@ -1769,7 +1779,7 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchF
 	}
 	
 	ResultsFuture<ResultsMessage> getPrefetch() {
-		return prefetch;
+		return prefetch.peek();
 	}
 
 }
@@ -908,6 +908,14 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         if (noExec != null) {
     		res.setNoExec(noExec.equalsIgnoreCase("ON")); //$NON-NLS-1$
         }
+        String streamingWindow = getExecutionProperty(ExecutionProperties.RESULT_STREAMING_WINDOW);
+        if (streamingWindow != null) {
+        	try {
+        		res.setStreamingWindow(Integer.parseInt(streamingWindow));
+        	} catch (NumberFormatException e) {
+        		
+        	}
+        }
     }
 
     /**
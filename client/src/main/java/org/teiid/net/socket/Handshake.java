@@ -43,6 +43,7 @@ public class Handshake implements Externalizable {
     private String version = ApplicationInfo.getInstance().getReleaseNumber();
     private byte[] publicKey;
     private AuthenticationType authType = AuthenticationType.USERPASSWORD;
+    private boolean compress;
     
     public Handshake() {
     	
@@ -104,6 +105,18 @@ public class Handshake implements Externalizable {
 		this.authType = authType;
 	}
     
+    /**
+     * From the server indicates that message compression is supported,
+     * from the client that it should be used for the rest of the connection.
+     */
+    public boolean isCompress() {
+		return compress;
+	}
+    
+    public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+    
     @Override
     public void readExternal(ObjectInput in) throws IOException,
     		ClassNotFoundException {
@@ -111,6 +124,7 @@ public class Handshake implements Externalizable {
     	publicKey = (byte[])in.readObject();
     	try {
     		authType = AuthenticationType.values()[in.readByte()];
+    		compress = in.readBoolean();
     	} catch (EOFException e) {
     		
     	}
@@ -121,6 +135,7 @@ public class Handshake implements Externalizable {
     	out.writeObject(version);
     	out.writeObject(publicKey);
     	out.writeByte(authType.ordinal());
+    	out.writeBoolean(compress);
     }
     
 }
@@ -0,0 +1,558 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.net.socket;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.teiid.client.util.ResultsFuture;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.net.CommunicationException;
+import org.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
+import org.teiid.netty.handler.codec.serialization.ObjectFrameDecoder;
+
+/**
+ * An {@link ObjectChannelFactory} that multiplexes all of its channels over a small
+ * number of selector threads.  Inbound messages are decoded by the selector threads and 
+ * queued until read, so no thread is held per connection.
+ * <br>
+ * Reading from a channel is suspended while its queue is full.  Stream values, such as lobs, 
+ * are written to temporary files by spool threads so that the selector threads do not block 
+ * on file I/O.
+ * <br>
+ * SSL connections are delegated to the {@link OioOjbectChannelFactory}.
+ */
+public final class NioObjectChannelFactory implements ObjectChannelFactory {
+	
+	private final static int STREAM_BUFFER_SIZE = 1<<15;
+	
+	private static Logger log = Logger.getLogger("org.teiid.client.sockets"); //$NON-NLS-1$
+	
+	private static final class ReadFailure {
+		final Exception failure;
+		
+		ReadFailure(Exception failure) {
+			this.failure = failure;
+		}
+	}
+	
+	/**
+	 * Performs the reads and the pending writes for a set of channels
+	 */
+	static final class SelectorThread extends Thread {
+		private final Selector selector;
+		private final ConcurrentLinkedQueue<NioObjectChannel> updates = new ConcurrentLinkedQueue<NioObjectChannel>();
+		
+		SelectorThread(String name) throws IOException {
+			super(name);
+			setDaemon(true);
+			this.selector = Selector.open();
+		}
+		
+		/**
+		 * Request that the interest of the channel be updated by the selector thread 
+		 */
+		void update(NioObjectChannel channel) {
+			updates.add(channel);
+			selector.wakeup();
+		}
+		
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					selector.select();
+					NioObjectChannel channel = null;
+					while ((channel = updates.poll()) != null) {
+						try {
+							channel.updateInterest(selector);
+						} catch (ClosedChannelException e) {
+							//already closed
+						} catch (CancelledKeyException e) {
+							//already closed
+						} catch (Throwable e) {
+							channel.failed(e);
+						}
+					}
+					for (Iterator<SelectionKey> iter = selector.selectedKeys().iterator(); iter.hasNext();) {
+						SelectionKey key = iter.next();
+						iter.remove();
+						channel = (NioObjectChannel)key.attachment();
+						try {
+							if (key.isReadable()) {
+								channel.readAvailable();
+							}
+							if (key.isValid() && key.isWritable()) {
+								channel.writePending();
+							}
+						} catch (CancelledKeyException e) {
+							//closed by another thread
+						} catch (Throwable e) {
+							//fail only this channel so that the others on the thread are still serviced
+							channel.failed(e);
+						}
+					}
+				} catch (IOException e) {
+					log.log(Level.WARNING, "Unexpected selector exception", e); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+	
+	final class NioObjectChannel implements ObjectChannel {
+		private final SocketChannel socketChannel;
+		private final SelectorThread selectorThread;
+		private final ObjectFrameDecoder decoder;
+		//unbounded so that failures can always be added, reading is suspended when there are maxQueuedMessages
+		private final LinkedBlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+		private final LinkedList<ByteBuffer> writes = new LinkedList<ByteBuffer>();
+		private final ObjectEncoderOutputStream outputStream;
+		private final boolean compress;
+		
+		//accessed only by the selector thread
+		private SelectionKey key;
+		//accessed by the selector thread, or the spool thread while spooling
+		private ByteBuffer readBuffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+		
+		private volatile boolean spooling;
+		private volatile boolean readSuspended;
+		
+		private Runnable spoolTask = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					decodeAvailable(true);
+				} catch (Throwable e) {
+					failed(e);
+					return;
+				} 
+				//return the buffer to the selector thread to read more
+				spooling = false;
+				selectorThread.update(NioObjectChannel.this);
+			}
+		};
+		
+		//guarded by writes
+		private IOException writeFailure;
+		
+		private volatile boolean compressionOffered;
+		
+		private NioObjectChannel(SocketChannel socketChannel, SelectorThread selectorThread) throws IOException {
+			log.fine("creating new NioObjectChannel"); //$NON-NLS-1$
+			this.socketChannel = socketChannel;
+			this.selectorThread = selectorThread;
+			this.compress = oioFactory.isCompress();
+			this.decoder = new ObjectFrameDecoder(this.getClass().getClassLoader(), oioFactory.getMaxObjectSize());
+			OutputStream out = new BufferedOutputStream(new OutputStream() {
+				
+				@Override
+				public void write(int b) throws IOException {
+					write(new byte[] {(byte)b}, 0, 1);
+				}
+				
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					//no copy is needed as writeDirect does not return until the bytes are written
+					writeDirect(ByteBuffer.wrap(b, off, len));
+				}
+				
+			}, STREAM_BUFFER_SIZE);
+			this.outputStream = new ObjectEncoderOutputStream(new DataOutputStream(out), STREAM_BUFFER_SIZE);
+		}
+		
+		/**
+		 * Write the buffer to the socket, waiting for the selector thread if the
+		 * socket cannot accept all of the bytes immediately.
+		 */
+		private void writeDirect(ByteBuffer buffer) throws IOException {
+			synchronized (writes) {
+				if (writeFailure != null) {
+					throw writeFailure;
+				}
+				if (writes.isEmpty()) {
+					socketChannel.write(buffer);
+					if (!buffer.hasRemaining()) {
+						return;
+					}
+				}
+				writes.add(buffer);
+			}
+			selectorThread.update(this);
+			synchronized (writes) {
+				while (!writes.isEmpty() && writeFailure == null) {
+					try {
+						writes.wait();
+					} catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+				}
+				if (writeFailure != null) {
+					throw writeFailure;
+				}
+			}
+		}
+		
+		void updateInterest(Selector selector) throws ClosedChannelException {
+			if (!socketChannel.isOpen()) {
+				return;
+			}
+			if (key == null) {
+				key = socketChannel.register(selector, SelectionKey.OP_READ, this);
+			}
+			if (!spooling && readSuspended && received.size() < maxQueuedMessages) {
+				//resume with the frames that are already buffered
+				readSuspended = false;
+				try {
+					decodeAvailable(false);
+				} catch (IOException e) {
+					failed(e);
+					return;
+				} catch (ClassNotFoundException e) {
+					failed(e);
+					return;
+				}
+			}
+			setInterestOps();
+		}
+		
+		/**
+		 * Called by the selector thread to read only if the buffer is not being spooled and 
+		 * the queue has room, and to write only if there are pending writes
+		 */
+		private void setInterestOps() {
+			if (!key.isValid()) {
+				return;
+			}
+			int ops = 0;
+			if (!spooling && !readSuspended) {
+				ops |= SelectionKey.OP_READ;
+			}
+			synchronized (writes) {
+				if (!writes.isEmpty()) {
+					ops |= SelectionKey.OP_WRITE;
+				}
+			}
+			key.interestOps(ops);
+		}
+		
+		void writePending() {
+			synchronized (writes) {
+				try {
+					while (!writes.isEmpty()) {
+						ByteBuffer buffer = writes.getFirst();
+						socketChannel.write(buffer);
+						if (buffer.hasRemaining()) {
+							return;
+						}
+						writes.removeFirst();
+					}
+				} catch (IOException e) {
+					writeFailure = e;
+					writes.clear();
+				} finally {
+					if (writes.isEmpty()) {
+						writes.notifyAll();
+					}
+				}
+			}
+			setInterestOps();
+		}
+		
+		void readAvailable() {
+			if (spooling || readSuspended) {
+				setInterestOps();
+				return;
+			}
+			try {
+				if (socketChannel.read(readBuffer) < 0) {
+					throw new EOFException();
+				}
+				decodeAvailable(false);
+			} catch (IOException e) {
+				failed(e);
+				return;
+			} catch (ClassNotFoundException e) {
+				failed(e);
+				return;
+			}
+			if (spooling || readSuspended) {
+				setInterestOps();
+			}
+		}
+		
+		/**
+		 * Decode the buffered frames until more bytes are needed or the queue is full.
+		 * When not called by the spool thread, an object with stream values hands 
+		 * the buffer off to the spool thread.
+		 */
+		private void decodeAvailable(boolean spool) throws IOException, ClassNotFoundException {
+			readBuffer.flip();
+			while (true) {
+				if (received.size() >= maxQueuedMessages) {
+					readSuspended = true;
+					//recheck as a reader may have missed the suspension
+					if (received.size() >= maxQueuedMessages) {
+						break;
+					}
+					readSuspended = false;
+				}
+				Object obj = decoder.decode(readBuffer, spool);
+				if (obj == null) {
+					break;
+				}
+				if (compress && obj instanceof Handshake && ((Handshake)obj).isCompress()) {
+					compressionOffered = true;
+				}
+				received.add(obj);
+			}
+			int required = decoder.getRequiredLength(readBuffer);
+			if (required > readBuffer.capacity()) {
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(required, readBuffer.capacity() << 1));
+				larger.put(readBuffer);
+				readBuffer = larger;
+			} else if (readBuffer.capacity() > STREAM_BUFFER_SIZE && required <= STREAM_BUFFER_SIZE && readBuffer.remaining() <= STREAM_BUFFER_SIZE) {
+				//release the space used by a large frame
+				ByteBuffer smaller = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+				smaller.put(readBuffer);
+				readBuffer = smaller;
+			} else {
+				readBuffer.compact();
+			}
+			if (!spool && !readSuspended && decoder.hasPendingStreams()) {
+				spooling = true;
+				spoolExecutor.execute(spoolTask);
+			}
+		}
+
+		void failed(Throwable t) {
+			Exception e = null;
+			if (t instanceof IOException || t instanceof ClassNotFoundException) {
+				e = (Exception)t;
+			} else {
+				log.log(Level.WARNING, "Unexpected channel failure", t); //$NON-NLS-1$
+				e = new IOException(t);
+			}
+			received.add(new ReadFailure(e));
+			close();
+		}
+		
+		@Override
+		public void close() {
+			log.finer("closing socket"); //$NON-NLS-1$
+			try {
+				socketChannel.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			synchronized (writes) {
+				if (writeFailure == null) {
+					writeFailure = new ClosedChannelException();
+				}
+				writes.clear();
+				writes.notifyAll();
+			}
+			received.add(new ReadFailure(new SocketException("Socket closed"))); //$NON-NLS-1$
+		}
+		
+		@Override
+		public SocketAddress getRemoteAddress() {
+			return socketChannel.socket().getRemoteSocketAddress();
+		}
+		
+		@Override
+		public InetAddress getLocalAddress() {
+			return socketChannel.socket().getLocalAddress();
+		}
+		
+		@Override
+		public boolean isOpen() {
+			return socketChannel.isOpen();
+		}
+		
+		@Override
+		public Object read() throws IOException, ClassNotFoundException {
+			log.finer("reading message from socket"); //$NON-NLS-1$
+			Object result = null;
+			try {
+				if (oioFactory.getSoTimeout() > 0) {
+					result = received.poll(oioFactory.getSoTimeout(), TimeUnit.MILLISECONDS);
+				} else {
+					result = received.take();
+				}
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			if (result == null) {
+				throw new SocketTimeoutException();
+			}
+			if (readSuspended) {
+				selectorThread.update(this);
+			}
+			if (result instanceof ReadFailure) {
+				//leave the failure for any subsequent reads
+				received.add(result);
+				Exception e = ((ReadFailure)result).failure;
+				if (e instanceof ClassNotFoundException) {
+					throw (ClassNotFoundException)e;
+				}
+				throw (IOException)e;
+			}
+			return result;
+		}
+		
+		@Override
+		public synchronized Future<?> write(Object msg) {
+			log.finer("writing message to socket"); //$NON-NLS-1$
+		    ResultsFuture<Void> result = new ResultsFuture<Void>();
+		    try {
+		    	boolean enableCompression = false;
+		    	if (msg instanceof Handshake) {
+		    		//accept the server offer, the server will not write again until it has read our handshake
+		    		enableCompression = compressionOffered;
+		    		((Handshake)msg).setCompress(enableCompression);
+		    		decoder.setCompress(enableCompression);
+		    	}
+		        outputStream.writeObject(msg);
+		        outputStream.flush();     
+		        outputStream.reset();
+		        if (enableCompression) {
+		        	log.fine("using message compression"); //$NON-NLS-1$
+		        	outputStream.setCompress(true);
+		        }
+		    	result.getResultsReceiver().receiveResults(null);
+		    } catch (IOException e) {
+		        close();
+		    	result.getResultsReceiver().exceptionOccurred(e);
+		    }
+		    return result;
+		}
+	}
+	
+	private OioOjbectChannelFactory oioFactory;
+	private int selectorThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+	private SelectorThread[] threads;
+	private Executor spoolExecutor;
+	private AtomicInteger nextThread = new AtomicInteger();
+	private int maxQueuedMessages = 16;
+	
+	public NioObjectChannelFactory(Properties props) {
+		this.oioFactory = new OioOjbectChannelFactory(props);
+		PropertiesUtils.setBeanProperties(this, props, "org.teiid.sockets"); //$NON-NLS-1$
+	}
+	
+	@Override
+	public ObjectChannel createObjectChannel(SocketAddress address, boolean ssl)
+			throws IOException, CommunicationException {
+		if (ssl) {
+			return oioFactory.createObjectChannel(address, ssl);
+		}
+		SocketChannel channel = SocketChannel.open();
+		try {
+			Socket socket = channel.socket();
+			if (oioFactory.getReceiveBufferSize() > 0) {
+				socket.setReceiveBufferSize(oioFactory.getReceiveBufferSize());
+			}
+			if (oioFactory.getSendBufferSize() > 0) {
+				socket.setSendBufferSize(oioFactory.getSendBufferSize());
+			}
+		    socket.setTcpNoDelay(!oioFactory.isConserveBandwidth()); // enable Nagle's algorithm to conserve bandwidth
+		    channel.connect(address);
+		    channel.configureBlocking(false);
+		    SelectorThread thread = getSelectorThread();
+		    NioObjectChannel result = new NioObjectChannel(channel, thread);
+		    thread.update(result);
+		    return result;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private synchronized SelectorThread getSelectorThread() throws IOException {
+		if (threads == null) {
+			threads = new SelectorThread[selectorThreads];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new SelectorThread("TeiidClientSelector" + i); //$NON-NLS-1$
+				threads[i].start();
+			}
+			spoolExecutor = ExecutorUtils.newFixedThreadPool(selectorThreads, "TeiidClientSpooler"); //$NON-NLS-1$
+		}
+		return threads[(nextThread.getAndIncrement() & Integer.MAX_VALUE) % threads.length];
+	}
+	
+	@Override
+	public int getSoTimeout() {
+		return oioFactory.getSoTimeout();
+	}
+	
+	public int getSelectorThreads() {
+		return selectorThreads;
+	}
+	
+	/**
+	 * The number of threads servicing all of the non-ssl channels
+	 */
+	public void setSelectorThreads(int selectorThreads) {
+		this.selectorThreads = Math.max(1, selectorThreads);
+	}
+	
+	public int getMaxQueuedMessages() {
+		return maxQueuedMessages;
+	}
+	
+	/**
+	 * The number of received messages that may be queued for each channel before 
+	 * reading from the channel is suspended
+	 */
+	public void setMaxQueuedMessages(int maxQueuedMessages) {
+		this.maxQueuedMessages = Math.max(1, maxQueuedMessages);
+	}
+
+}
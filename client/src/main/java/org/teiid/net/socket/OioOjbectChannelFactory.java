@@ -24,8 +24,6 @@ package org.teiid.net.socket;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
@@ -54,13 +52,16 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 	
 	final static class OioObjectChannel implements ObjectChannel {
 		private final Socket socket;
-		private ObjectOutputStream outputStream;
-		private ObjectInputStream inputStream;
+		private ObjectEncoderOutputStream outputStream;
+		private ObjectDecoderInputStream inputStream;
 		private Object readLock = new Object();
+		private boolean compress;
+		private volatile boolean compressionOffered;
 
-		private OioObjectChannel(Socket socket, int maxObjectSize) throws IOException {
+		private OioObjectChannel(Socket socket, int maxObjectSize, boolean compress) throws IOException {
 			log.fine("creating new OioObjectChannel"); //$NON-NLS-1$
 			this.socket = socket;
+			this.compress = compress;
 			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
             outputStream = new ObjectEncoderOutputStream(out, STREAM_BUFFER_SIZE);
             final ClassLoader cl = this.getClass().getClassLoader();
@@ -112,7 +113,11 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 			log.finer("reading message from socket"); //$NON-NLS-1$
 			synchronized (readLock) {
 				try {
-					return inputStream.readObject();
+					Object result = inputStream.readObject();
+					if (compress && result instanceof Handshake && ((Handshake)result).isCompress()) {
+						compressionOffered = true;
+					}
+					return result;
 				} catch (SocketTimeoutException e) {
 					throw e;
 		        } catch (IOException e) {
@@ -127,9 +132,22 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 			log.finer("writing message to socket"); //$NON-NLS-1$
 		    ResultsFuture<Void> result = new ResultsFuture<Void>();
 		    try {
+		    	boolean enableCompression = false;
+		    	if (msg instanceof Handshake) {
+		    		//accept the server offer, the server will not write again until it has read our handshake
+		    		enableCompression = compressionOffered;
+		    		((Handshake)msg).setCompress(enableCompression);
+		    	}
 		        outputStream.writeObject(msg);
 		        outputStream.flush();     
 		        outputStream.reset();
+		        if (enableCompression) {
+		        	log.fine("using message compression"); //$NON-NLS-1$
+		        	outputStream.setCompress(true);
+		        	synchronized (readLock) {
+		        		inputStream.setCompress(true);
+		        	}
+		        }
 		    	result.getResultsReceiver().receiveResults(null);
 		    } catch (IOException e) {
 		        close();
@@ -146,6 +164,7 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 	private int soTimeout = 3000;
 	private volatile SSLSocketFactory sslSocketFactory;
 	private int maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
+	private boolean compress;
 
 	public OioOjbectChannelFactory(Properties props) {
 		this.props = props;
@@ -177,7 +196,7 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 	    socket.setTcpNoDelay(!conserveBandwidth); // enable Nagle's algorithm to conserve bandwidth
 	    socket.connect(address);
 	    socket.setSoTimeout(soTimeout);
-	    return new OioObjectChannel(socket, maxObjectSize);
+	    return new OioObjectChannel(socket, maxObjectSize, compress);
 	}
 	
 	public int getSendBufferSize() {
@@ -211,8 +230,23 @@ public final class OioOjbectChannelFactory implements ObjectChannelFactory {
 	public void setMaxObjectSize(int maxObjectSize) {
 		this.maxObjectSize = maxObjectSize;
 	}
+	
+	public int getMaxObjectSize() {
+		return maxObjectSize;
+	}
 
 	public int getSoTimeout() {
 		return soTimeout;
 	}
+	
+	public boolean isCompress() {
+		return compress;
+	}
+	
+	/**
+	 * Request message compression if the server supports it
+	 */
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
 }
\ No newline at end of file
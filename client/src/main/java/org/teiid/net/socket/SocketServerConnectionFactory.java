@@ -148,6 +148,7 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 	//config properties
 	private long synchronousTtl = 240000l;
 	private int maxCachedInstances=16;
+	private boolean nio;
 
 	public static synchronized SocketServerConnectionFactory getInstance() {
 		if (INSTANCE == null) {
@@ -223,7 +224,11 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 				}
 			}
 		}, ServerConnection.PING_INTERVAL, ServerConnection.PING_INTERVAL);
-		this.channelFactory = new OioOjbectChannelFactory(info);
+		if (nio) {
+			this.channelFactory = new NioObjectChannelFactory(info);
+		} else {
+			this.channelFactory = new OioOjbectChannelFactory(info);
+		}
 	}
 	
 	@Override
@@ -322,6 +327,17 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 		this.maxCachedInstances = maxCachedInstances;
 	}
 	
+	public boolean isNio() {
+		return nio;
+	}
+	
+	/**
+	 * Use the selector based {@link NioObjectChannelFactory} rather than blocking sockets
+	 */
+	public void setNio(boolean nio) {
+		this.nio = nio;
+	}
+	
 	@Override
 	public void connected(SocketServerInstance instance, SessionToken session) {
 		synchronized (sessions) {
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.netty.handler.codec.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Utilities for the optional message compression negotiated during the handshake.
+ * <br>
+ * Once negotiated each message payload is prefixed by a flag byte indicating if 
+ * the rest of the payload is deflated.  Only messages above the threshold are compressed.
+ * Streamed lob chunks that follow a message are not compressed.
+ */
+public final class CompressionUtil {
+	
+	public static final int DEFAULT_THRESHOLD = 1 << 13;
+	public static final byte UNCOMPRESSED = 0;
+	public static final byte DEFLATED = 1;
+	
+	/**
+	 * An {@link InflaterInputStream} that fails once more than the max bytes have been inflated,
+	 * since the frame length only bounds the compressed size.
+	 */
+	static class BoundedInflaterInputStream extends InflaterInputStream {
+		
+		private final int maxSize;
+		private long inflated;
+		
+		BoundedInflaterInputStream(InputStream in, int maxSize) {
+			super(in);
+			this.maxSize = maxSize;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = super.read(b, off, len);
+			if (count > 0) {
+				inflated += count;
+				if (inflated > maxSize) {
+					throw new StreamCorruptedException("inflated data length exceeds the max of " + maxSize); //$NON-NLS-1$
+				}
+			}
+			return count;
+		}
+		
+	}
+	
+	private CompressionUtil() {
+		
+	}
+	
+	/**
+	 * Create a {@link Deflater} favoring speed over compression ratio.
+	 */
+	public static Deflater createDeflater() {
+		return new Deflater(Deflater.BEST_SPEED);
+	}
+	
+	/**
+	 * Inflate the payload, allowing at most maxSize bytes.  Closing the returned stream releases the inflater. 
+	 */
+	public static InputStream inflate(InputStream payload, int maxSize) {
+		return new BoundedInflaterInputStream(payload, maxSize);
+	}
+	
+	/**
+	 * Deflate the given bytes to the output. Call {@link #finish(Deflater, OutputStream, byte[])} after all input has been given. 
+	 */
+	public static void deflate(Deflater deflater, byte[] b, int off, int len, OutputStream out, byte[] buffer) throws IOException {
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) {
+			int count = deflater.deflate(buffer, 0, buffer.length);
+			if (count > 0) {
+				out.write(buffer, 0, count);
+			}
+		}
+	}
+	
+	public static void finish(Deflater deflater, OutputStream out, byte[] buffer) throws IOException {
+		deflater.finish();
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer, 0, buffer.length);
+			if (count > 0) {
+				out.write(buffer, 0, count);
+			}
+		}
+	}
+
+}
@@ -75,6 +75,7 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
 		}
 	};
 
+    private boolean compress;
     private Object result;
     private int streamIndex;
     private OutputStream stream;
@@ -104,9 +105,21 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
 	    		}
 	        }
 	        foundLength = false;
-	        CompactObjectInputStream cois = new CompactObjectInputStream(subStream, classLoader);
+	        InputStream payload = subStream;
+	        if (compress) {
+	        	int flag = subStream.read();
+	        	if (flag == CompressionUtil.DEFLATED) {
+	        		payload = CompressionUtil.inflate(subStream, maxObjectSize);
+	        	} else if (flag != CompressionUtil.UNCOMPRESSED) {
+	        		throw new StreamCorruptedException("invalid compression flag: " + flag); //$NON-NLS-1$
+	        	}
+	        }
+	        CompactObjectInputStream cois = new CompactObjectInputStream(payload, classLoader);
 	        result = cois.readObject();
 	        streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
+	        if (payload != subStream) {
+	        	payload.close(); //releases the inflater
+	        }
 	        streamIndex = 0;
     	}
     	while (streamIndex < streams.size()) {
@@ -119,23 +132,7 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
 		        }
     		}
 	        if (stream == null) {
-	        	final File f = File.createTempFile("teiid", null); //$NON-NLS-1$
-		        StreamFactoryReference sfr = streams.get(streamIndex);
-		        sfr.setStreamFactory(new InputStreamFactory() {
-					
-					@Override
-					public InputStream getInputStream() throws IOException {
-						return new BufferedInputStream(new FileInputStream(f)) {
-							@Override
-							protected void finalize() throws Throwable {
-								super.finalize();
-								f.delete();
-							}
-						};
-					}
-					
-				});
-		        this.stream = new FileOutputStream(f);
+		        this.stream = createTempStream(streams.get(streamIndex));
 	        }
         	foundLength = false;
 	        if (remaining != 0) {
@@ -161,6 +158,36 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
         return toReturn;
     }
     
+    /**
+     * Create a temporary file to hold the streamed value and set it as the reference's stream factory
+     * @return the {@link OutputStream} for writing the value
+     */
+    static OutputStream createTempStream(StreamFactoryReference sfr) throws IOException {
+    	final File f = File.createTempFile("teiid", null); //$NON-NLS-1$
+        sfr.setStreamFactory(new InputStreamFactory() {
+			
+			@Override
+			public InputStream getInputStream() throws IOException {
+				return new BufferedInputStream(new FileInputStream(f)) {
+					@Override
+					protected void finalize() throws Throwable {
+						super.finalize();
+						f.delete();
+					}
+				};
+			}
+			
+		});
+        return new FileOutputStream(f);
+    }
+    
+    /**
+     * Set after compression has been negotiated to expect a compression flag with each message
+     */
+    public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+    
     void clearRemaining() throws IOException {
     	while (remaining > 0) {
     		remaining -= in.skip(remaining);
@@ -27,7 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.util.zip.Deflater;
 
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.ExternalizeUtil;
 import org.teiid.core.util.MultiArrayOutputStream;
 
@@ -45,6 +47,8 @@ public class ObjectEncoderOutputStream extends ObjectOutputStream {
 
     private final DataOutputStream out;
 	private MultiArrayOutputStream baos;
+	private boolean compress;
+	private int compressionThreshold = CompressionUtil.DEFAULT_THRESHOLD;
     
     public ObjectEncoderOutputStream(DataOutputStream out, int initialBufferSize) throws SecurityException, IOException {
     	super();
@@ -52,22 +56,38 @@ public class ObjectEncoderOutputStream extends ObjectOutputStream {
         baos = new MultiArrayOutputStream(initialBufferSize);
     }
     
+    /**
+     * Set after compression has been negotiated to prefix each message with a compression flag
+     */
+    public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+    
+    public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+    
     @Override
     final protected void writeObjectOverride(Object obj) throws IOException {
-        baos.reset(4);
+    	int headerLength = compress?5:4;
+        baos.reset(headerLength);
         CompactObjectOutputStream oout = new CompactObjectOutputStream(baos);
         oout.writeObject(obj);
         ExternalizeUtil.writeCollection(oout, oout.getReferences());
         oout.flush();
         oout.close();
         
-        int val = baos.getCount()-4;
         byte[] b = baos.getBuffers()[0];
-        b[3] = (byte) (val >>> 0);
-    	b[2] = (byte) (val >>> 8);
-    	b[1] = (byte) (val >>> 16);
-    	b[0] = (byte) (val >>> 24);
-    	baos.writeTo(out);
+        if (compress && baos.getCount() - headerLength >= compressionThreshold) {
+        	writeDeflated(b);
+        } else {
+	        int val = baos.getCount()-4;
+	        writeLength(b, val);
+	        if (compress) {
+	        	b[4] = CompressionUtil.UNCOMPRESSED;
+	        }
+	    	baos.writeTo(out);
+        }
         
     	if (!oout.getStreams().isEmpty()) {
     		baos.reset(0);
@@ -99,6 +119,36 @@ public class ObjectEncoderOutputStream extends ObjectOutputStream {
     	}
     }
     
+	private void writeLength(byte[] b, int val) {
+		b[3] = (byte) (val >>> 0);
+    	b[2] = (byte) (val >>> 8);
+    	b[1] = (byte) (val >>> 16);
+    	b[0] = (byte) (val >>> 24);
+	}
+
+	private void writeDeflated(byte[] first) throws IOException {
+		AccessibleByteArrayOutputStream deflated = new AccessibleByteArrayOutputStream(baos.getCount() >> 1);
+		deflated.write(first, 0, 5);
+		byte[] buffer = new byte[1 << 13];
+		Deflater deflater = CompressionUtil.createDeflater();
+		try {
+			byte[][] bufs = baos.getBuffers();
+			for (int i = 0; i < bufs.length && bufs[i] != null; i++) {
+				boolean last = i + 1 == bufs.length || bufs[i + 1] == null;
+				int start = i == 0?5:0;
+				int end = last?baos.getIndex():bufs[i].length;
+				CompressionUtil.deflate(deflater, bufs[i], start, end - start, deflated, buffer);
+			}
+			CompressionUtil.finish(deflater, deflated, buffer);
+		} finally {
+			deflater.end();
+		}
+		byte[] b = deflated.getBuffer();
+		writeLength(b, deflated.getCount() - 4);
+		b[4] = CompressionUtil.DEFLATED;
+		out.write(b, 0, deflated.getCount());
+	}
+    
     @Override
     public void close() throws IOException {
     	out.close();
@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.netty.handler.codec.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.teiid.core.types.InputStreamFactory.StreamFactoryReference;
+import org.teiid.core.util.ExternalizeUtil;
+import org.teiid.jdbc.JDBCPlugin;
+
+/**
+ * A non-blocking decoder of the {@link ObjectEncoderOutputStream} format.
+ * <br>
+ * Bytes are accumulated by the caller in a heap {@link ByteBuffer} and objects are
+ * only decoded once their full frame is available, so the decoder may be driven from
+ * a selector thread.  Like the server side decoder, null messages are not supported.
+ */
+public class ObjectFrameDecoder {
+	
+	private final ClassLoader classLoader;
+	private final int maxObjectSize;
+	private volatile boolean compress;
+	
+	private Object result;
+	private int streamIndex;
+	private OutputStream stream;
+	private List<StreamFactoryReference> streams;
+	
+	public ObjectFrameDecoder(ClassLoader classLoader, int maxObjectSize) {
+		this.classLoader = classLoader;
+		this.maxObjectSize = maxObjectSize;
+	}
+	
+	/**
+	 * Decode the next object from the buffer, which should be ready for reading.
+	 * @return the object or null if more bytes are needed 
+	 */
+	public Object decode(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+		return decode(buffer, true);
+	}
+	
+	/**
+	 * Decode the next object from the buffer, which should be ready for reading.
+	 * @param writeStreams if false, stop before writing any stream values of the object - 
+	 * see {@link #hasPendingStreams()}.  Stream values are written to temporary files 
+	 * directly from the buffer.
+	 * @return the object or null if more bytes are needed or stream values are pending
+	 */
+	public Object decode(ByteBuffer buffer, boolean writeStreams) throws IOException, ClassNotFoundException {
+		if (result == null) {
+			if (buffer.remaining() < 4) {
+				return null;
+			}
+			int length = buffer.getInt(buffer.position());
+			if (length <= 0) {
+			    throw new StreamCorruptedException("invalid data length: " + length); //$NON-NLS-1$
+			}
+			if (length > maxObjectSize) {
+			    throw new StreamCorruptedException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20028, length, maxObjectSize));
+			}
+			if (buffer.remaining() - 4 < length) {
+				return null;
+			}
+			int start = buffer.position() + 4;
+			buffer.position(start + length);
+			InputStream payload = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + start, length);
+			if (compress) {
+				int flag = payload.read();
+				if (flag == CompressionUtil.DEFLATED) {
+	        		payload = CompressionUtil.inflate(payload, maxObjectSize);
+	        	} else if (flag != CompressionUtil.UNCOMPRESSED) {
+	        		throw new StreamCorruptedException("invalid compression flag: " + flag); //$NON-NLS-1$
+	        	}
+			}
+	        CompactObjectInputStream cois = new CompactObjectInputStream(payload, classLoader);
+	        Object obj = cois.readObject();
+	        streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
+	        payload.close();
+	        result = obj;
+	        streamIndex = 0;
+		}
+		while (streamIndex < streams.size()) {
+			if (!writeStreams) {
+				return null;
+			}
+			if (buffer.remaining() < 2) {
+				return null;
+			}
+			int dataLen = buffer.getShort(buffer.position()) & 0xffff;
+			if (buffer.remaining() - 2 < dataLen) {
+				return null;
+			}
+			buffer.position(buffer.position() + 2);
+			if (stream == null) {
+				stream = ObjectDecoderInputStream.createTempStream(streams.get(streamIndex));
+			}
+			if (dataLen == 0) {
+				stream.close();
+				stream = null;
+				streamIndex++;
+				continue;
+			}
+			stream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), dataLen);
+			buffer.position(buffer.position() + dataLen);
+		}
+		Object toReturn = result;
+		result = null;
+		streams = null;
+		return toReturn;
+	}
+	
+	/**
+	 * @return true if an object has been decoded, but its stream values have not yet been written
+	 */
+	public boolean hasPendingStreams() {
+		return result != null;
+	}
+	
+	/**
+	 * The minimum number of buffered bytes needed to make progress
+	 */
+	public int getRequiredLength(ByteBuffer buffer) {
+		if (result == null) {
+			if (buffer.remaining() < 4) {
+				return 4;
+			}
+			return 4 + buffer.getInt(buffer.position());
+		}
+		if (buffer.remaining() < 2) {
+			return 2;
+		}
+		return 2 + (buffer.getShort(buffer.position()) & 0xffff);
+	}
+	
+	/**
+	 * Set after compression has been negotiated to expect a compression flag with each message
+	 */
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+}
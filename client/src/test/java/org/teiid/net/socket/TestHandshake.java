@@ -22,10 +22,13 @@
 
 package org.teiid.net.socket;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 
 import org.junit.Test;
 import org.teiid.core.util.UnitTestUtil;
@@ -37,6 +40,19 @@ public class TestHandshake {
 		ObjectInputStream ois = new ObjectInputStream(new FileInputStream(UnitTestUtil.getTestDataFile("handshake.ser")));
 		Handshake hs = (Handshake)ois.readObject();
 		assertEquals(AuthenticationType.USERPASSWORD, hs.getAuthType());
+		assertFalse(hs.isCompress());
+	}
+	
+	@Test public void testCompress() throws Exception {
+		Handshake hs = new Handshake();
+		hs.setCompress(true);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(hs);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		hs = (Handshake)ois.readObject();
+		assertTrue(hs.isCompress());
 	}
 	
 	@Test public void testVersionNormalization() throws Exception {
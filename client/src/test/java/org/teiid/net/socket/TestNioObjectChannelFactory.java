@@ -0,0 +1,289 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.net.socket;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.teiid.core.types.ClobImpl;
+import org.teiid.core.types.InputStreamFactory;
+import org.teiid.core.types.Streamable;
+import org.teiid.core.util.AccessibleBufferedInputStream;
+import org.teiid.core.util.ReaderInputStream;
+import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
+import org.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
+
+@SuppressWarnings("nls")
+public class TestNioObjectChannelFactory {
+	
+	/**
+	 * Fails to deserialize with a runtime exception
+	 */
+	static class Poison implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private void readObject(ObjectInputStream in) {
+			throw new IllegalStateException("poison");
+		}
+	}
+	
+	private ServerSocket server;
+	private volatile Throwable serverFailure;
+	private volatile boolean compressionAccepted;
+	
+	@Before public void setup() throws IOException {
+		server = new ServerSocket(0);
+	}
+	
+	@After public void teardown() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * Start a server that sends a handshake offering compression, then echoes a single message
+	 */
+	private Thread startEchoServer() {
+		Thread t = new Thread() {
+			public void run() {
+				try {
+					Socket s = server.accept();
+					try {
+						ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(s.getOutputStream()), 512);
+						ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(s.getInputStream(), 1024), getClass().getClassLoader(), 1 << 25);
+						Handshake hs = new Handshake();
+						hs.setCompress(true);
+						out.writeObject(hs);
+						out.flush();
+						hs = (Handshake)in.readObject();
+						compressionAccepted = hs.isCompress();
+						in.setCompress(hs.isCompress());
+						out.setCompress(hs.isCompress());
+						out.writeObject(in.readObject());
+						out.flush();
+					} finally {
+						s.close();
+					}
+				} catch (Throwable e) {
+					serverFailure = e;
+				}
+			}
+		};
+		t.start();
+		return t;
+	}
+	
+	private ObjectChannel connect(Properties props) throws Exception {
+		NioObjectChannelFactory factory = new NioObjectChannelFactory(props);
+		return factory.createObjectChannel(new InetSocketAddress("localhost", server.getLocalPort()), false);
+	}
+	
+	@Test public void testRoundTrip() throws Exception {
+		Thread t = startEchoServer();
+		Properties props = new Properties();
+		props.setProperty("org.teiid.sockets.compress", "true");
+		props.setProperty("org.teiid.sockets.soTimeout", "10000");
+		ObjectChannel channel = connect(props);
+		try {
+			Handshake hs = (Handshake)channel.read();
+			assertTrue(hs.isCompress());
+			channel.write(hs).get();
+			
+			//larger than the socket and read buffers
+			List<String> large = new ArrayList<String>();
+			for (int i = 0; i < 100000; i++) {
+				large.add("value " + i);
+			}
+			channel.write(large).get();
+			assertEquals(large, channel.read());
+			t.join();
+			assertNull(serverFailure);
+			assertTrue(compressionAccepted);
+			try {
+				channel.read();
+				fail("expected the channel to be closed");
+			} catch (IOException e) {
+				
+			}
+			assertFalse(channel.isOpen());
+		} finally {
+			channel.close();
+		}
+	}
+	
+	@Test public void testFailureIsolated() throws Exception {
+		Thread t = new Thread() {
+			public void run() {
+				try {
+					Socket bad = server.accept();
+					Socket good = server.accept();
+					try {
+						ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(bad.getOutputStream()), 512);
+						out.writeObject(new Poison());
+						out.flush();
+						out = new ObjectEncoderOutputStream(new DataOutputStream(good.getOutputStream()), 512);
+						ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(good.getInputStream(), 1024), getClass().getClassLoader(), 1 << 25);
+						out.writeObject(in.readObject());
+						out.flush();
+					} finally {
+						bad.close();
+						good.close();
+					}
+				} catch (Throwable e) {
+					serverFailure = e;
+				}
+			}
+		};
+		t.start();
+		Properties props = new Properties();
+		props.setProperty("org.teiid.sockets.soTimeout", "10000");
+		//both channels are serviced by the same selector thread
+		props.setProperty("org.teiid.sockets.selectorThreads", "1");
+		NioObjectChannelFactory factory = new NioObjectChannelFactory(props);
+		InetSocketAddress address = new InetSocketAddress("localhost", server.getLocalPort());
+		ObjectChannel bad = factory.createObjectChannel(address, false);
+		ObjectChannel good = factory.createObjectChannel(address, false);
+		try {
+			try {
+				bad.read();
+				fail("expected the deserialization failure");
+			} catch (IOException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			good.write("hello").get();
+			assertEquals("hello", good.read());
+			t.join();
+			assertNull(serverFailure);
+		} finally {
+			bad.close();
+			good.close();
+		}
+	}
+	
+	/**
+	 * Start a server that writes the given messages then closes
+	 */
+	private Thread startWriteServer(final Object... messages) {
+		Thread t = new Thread() {
+			public void run() {
+				try {
+					Socket s = server.accept();
+					try {
+						ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(s.getOutputStream()), 512);
+						for (Object message : messages) {
+							out.writeObject(message);
+						}
+						out.flush();
+					} finally {
+						s.close();
+					}
+				} catch (Throwable e) {
+					serverFailure = e;
+				}
+			}
+		};
+		t.start();
+		return t;
+	}
+	
+	@Test public void testQueueBound() throws Exception {
+		Object[] messages = new Object[100];
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = "message " + i;
+		}
+		Thread t = startWriteServer(messages);
+		Properties props = new Properties();
+		props.setProperty("org.teiid.sockets.soTimeout", "10000");
+		props.setProperty("org.teiid.sockets.maxQueuedMessages", "1");
+		ObjectChannel channel = connect(props);
+		try {
+			//reading is suspended and resumed for each message
+			for (int i = 0; i < messages.length; i++) {
+				assertEquals(messages[i], channel.read());
+			}
+			t.join();
+			assertNull(serverFailure);
+		} finally {
+			channel.close();
+		}
+	}
+	
+	@Test public void testSpoolStreams() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append("clob value ").append(i);
+		}
+		final String value = sb.toString();
+		//larger than the read buffer, so the stream spans several reads
+		ClobImpl clob = new ClobImpl(new InputStreamFactory() {
+			@Override
+			public InputStream getInputStream() throws IOException {
+				return new ReaderInputStream(new StringReader(value), Charset.forName(Streamable.ENCODING));
+			}
+		}, -1);
+		Thread t = startWriteServer(Arrays.asList(clob, "a"), "b");
+		Properties props = new Properties();
+		props.setProperty("org.teiid.sockets.soTimeout", "10000");
+		ObjectChannel channel = connect(props);
+		try {
+			List<?> result = (List<?>)channel.read();
+			assertEquals("a", result.get(1));
+			ClobImpl received = (ClobImpl)result.get(0);
+			assertEquals(value, received.getSubString(1, (int)received.length()));
+			assertEquals("b", channel.read());
+			t.join();
+			assertNull(serverFailure);
+		} finally {
+			channel.close();
+		}
+	}
+	
+	@Test(expected=SocketTimeoutException.class) public void testReadTimeout() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("org.teiid.sockets.soTimeout", "10");
+		ObjectChannel channel = connect(props);
+		try {
+			channel.read();
+		} finally {
+			channel.close();
+		}
+	}
+	
+}
@@ -29,9 +29,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StreamCorruptedException;
 import java.io.StringReader;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -90,5 +93,57 @@ public class TestObjectDecoderInputStream {
 		ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1024);
 		Object result = in.readObject();
 		assertTrue(result instanceof ClobImpl);
-	}	
+	}
+	
+	@Test public void testCompression() throws Exception {
+		List<String> large = new ArrayList<String>();
+		for (int i = 0; i < 2000; i++) {
+			large.add("some repetitive value " + i); //$NON-NLS-1$
+		}
+		List<Integer> small = Arrays.asList(1, 2, 3);
+		
+		ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+		ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(uncompressed), 512);
+		out.writeObject(large);
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+		out.setCompress(true);
+		out.writeObject(large);
+		assertTrue(baos.size() < uncompressed.size() / 2);
+		out.writeObject(small);
+		
+		ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 20);
+		in.setCompress(true);
+		assertEquals(large, in.readObject());
+		assertEquals(small, in.readObject());
+	}
+	
+	@Test public void testCompressionMaxObjectSize() throws Exception {
+		//small when compressed, but inflates beyond the max
+		String value = new String(new char[1 << 20]);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+		out.setCompress(true);
+		out.writeObject(value);
+		assertTrue(baos.size() < 1 << 16);
+		
+		ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+		in.setCompress(true);
+		try {
+			in.readObject();
+			fail("expected the inflated size to be limited"); //$NON-NLS-1$
+		} catch (StreamCorruptedException e) {
+			
+		}
+		
+		ObjectFrameDecoder decoder = new ObjectFrameDecoder(Thread.currentThread().getContextClassLoader(), 1 << 16);
+		decoder.setCompress(true);
+		try {
+			decoder.decode(ByteBuffer.wrap(baos.toByteArray()));
+			fail("expected the inflated size to be limited"); //$NON-NLS-1$
+		} catch (StreamCorruptedException e) {
+			
+		}
+	}
 }
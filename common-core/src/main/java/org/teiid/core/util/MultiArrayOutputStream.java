@@ -35,7 +35,7 @@ public class MultiArrayOutputStream extends OutputStream {
 	private byte bufferIndex;
 	private int index;
 	private int count;
-	private byte[][] bufs = new byte[15][];
+	private byte[][] bufs = new byte[20][];
 	
 	public MultiArrayOutputStream(int initialSize) {
 		bufs[0] = new byte[initialSize];
@@ -49,4 +49,9 @@ public interface BatchManager {
 	String[] getTypes();
 	
 	int getRowSizeEstimate();
+	
+	/**
+	 * @param compressed true if batches read from storage should be held as a {@link CompressedBatch}
+	 */
+	void setCompressed(boolean compressed);
 }
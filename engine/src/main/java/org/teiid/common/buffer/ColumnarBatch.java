@@ -0,0 +1,483 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.teiid.client.BatchSerializer;
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * A batch that stores its values by column rather than by row.  Fixed width types 
+ * are held in primitive arrays with a null bitmap per column, all other types are held
+ * in an Object[].
+ * <br/>
+ * The batch may be consumed as a regular List of tuples.  {@link #get(int)} returns a copy
+ * of the row values, so that a retained row does not pin the column storage, while 
+ * {@link #cursor()} provides a read only view for transient access.  A column that is given 
+ * a value of an unexpected type is converted to object storage.
+ * <br/>
+ * Rows may be appended, replaced or removed, but not inserted.  {@link #snapshot()} and 
+ * {@link #project(int[])} return batches that share the column arrays.  Both the source and 
+ * the new batch copy the arrays before they are next modified.
+ */
+public class ColumnarBatch extends AbstractList<List<?>> implements RandomAccess, BatchSerializer.PrimitiveColumnBatch {
+	
+	private static final byte OBJECT = 0;
+	private static final byte INT = 1;
+	private static final byte LONG = 2;
+	private static final byte DOUBLE = 3;
+	private static final byte FLOAT = 4;
+	private static final byte SHORT = 5;
+	private static final byte BYTE = 6;
+	private static final byte CHAR = 7;
+	
+	/**
+	 * A read only view of a single row.  The view may be moved, see {@link ColumnarBatch#cursor()}
+	 */
+	public final class Row extends AbstractList<Object> implements RandomAccess {
+		private int row;
+		
+		Row(int row) {
+			this.row = row;
+		}
+		
+		public Row moveTo(int index) {
+			this.row = index;
+			return this;
+		}
+		
+		@Override
+		public Object get(int index) {
+			return getValue(row, index);
+		}
+		
+		@Override
+		public int size() {
+			return kinds.length;
+		}
+	}
+
+	private byte[] kinds;
+	private Object[] columns;
+	private long[][] nulls;
+	private int size;
+	private int capacity;
+	private boolean shared;
+	
+	public ColumnarBatch(Class<?>[] types, int initialCapacity) {
+		this.kinds = new byte[types.length];
+		for (int i = 0; i < types.length; i++) {
+			this.kinds[i] = getKind(types[i]);
+		}
+		this.columns = new Object[types.length];
+		this.nulls = new long[types.length][];
+		allocate(Math.max(1, initialCapacity));
+	}
+	
+	private ColumnarBatch(byte[] kinds, Object[] columns, long[][] nulls, int size) {
+		this.kinds = kinds;
+		this.columns = columns;
+		this.nulls = nulls;
+		this.size = size;
+		this.capacity = size;
+		this.shared = true;
+	}
+	
+	/**
+	 * @return true if any of the types would be stored as primitive values
+	 */
+	public static boolean hasPrimitiveColumns(Class<?>[] types) {
+		for (Class<?> type : types) {
+			if (getKind(type) != OBJECT) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static byte getKind(Class<?> type) {
+		if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+			return INT;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.LONG) {
+			return LONG;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+			return DOUBLE;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.FLOAT) {
+			return FLOAT;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.SHORT) {
+			return SHORT;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.BYTE) {
+			return BYTE;
+		}
+		if (type == DataTypeManager.DefaultDataClasses.CHAR) {
+			return CHAR;
+		}
+		return OBJECT;
+	}
+	
+	private void allocate(int newCapacity) {
+		for (int col = 0; col < kinds.length; col++) {
+			switch (kinds[col]) {
+			case INT:
+				columns[col] = new int[newCapacity];
+				break;
+			case LONG:
+				columns[col] = new long[newCapacity];
+				break;
+			case DOUBLE:
+				columns[col] = new double[newCapacity];
+				break;
+			case FLOAT:
+				columns[col] = new float[newCapacity];
+				break;
+			case SHORT:
+				columns[col] = new short[newCapacity];
+				break;
+			case BYTE:
+				columns[col] = new byte[newCapacity];
+				break;
+			case CHAR:
+				columns[col] = new char[newCapacity];
+				break;
+			default:
+				columns[col] = new Object[newCapacity];
+				break;
+			}
+			if (kinds[col] != OBJECT) {
+				nulls[col] = new long[(newCapacity + 63) >> 6];
+			}
+		}
+		this.capacity = newCapacity;
+	}
+	
+	/**
+	 * Copy the column storage if it is shared, prior to modifying an existing row
+	 */
+	private void unshare() {
+		if (shared) {
+			shared = false;
+			resize(capacity);
+		}
+	}
+	
+	private void ensureCapacity(int minCapacity) {
+		if (shared) {
+			shared = false;
+			resize(Math.max(minCapacity, (size * 3)/2 + 1));
+		} else if (minCapacity > capacity) {
+			resize(Math.max(minCapacity, (capacity * 3)/2 + 1));
+		}
+	}
+	
+	private void resize(int newCapacity) {
+		for (int col = 0; col < kinds.length; col++) {
+			Object values = columns[col];
+			Object newValues = Array.newInstance(values.getClass().getComponentType(), newCapacity);
+			System.arraycopy(values, 0, newValues, 0, size);
+			columns[col] = newValues;
+			if (nulls[col] != null) {
+				nulls[col] = Arrays.copyOf(nulls[col], (newCapacity + 63) >> 6);
+			}
+		}
+		this.capacity = newCapacity;
+	}
+	
+	@Override
+	public boolean add(List<?> tuple) {
+		if (tuple.size() != kinds.length) {
+			throw new IllegalArgumentException();
+		}
+		ensureCapacity(size + 1);
+		for (int col = 0; col < kinds.length; col++) {
+			setValue(size, col, tuple.get(col));
+		}
+		size++;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Replace the values of the given row.
+	 * @return a copy of the previous row
+	 */
+	@Override
+	public List<?> set(int index, List<?> tuple) {
+		if (tuple.size() != kinds.length) {
+			throw new IllegalArgumentException();
+		}
+		List<?> result = get(index);
+		unshare();
+		for (int col = 0; col < kinds.length; col++) {
+			setValue(index, col, tuple.get(col));
+		}
+		return result;
+	}
+	
+	/**
+	 * Removing the last row is constant time, otherwise the following rows are shifted.
+	 * @return a copy of the removed row
+	 */
+	@Override
+	public List<?> remove(int index) {
+		List<?> result = get(index);
+		if (index < size - 1) {
+			unshare();
+			int count = size - index - 1;
+			for (int col = 0; col < kinds.length; col++) {
+				System.arraycopy(columns[col], index + 1, columns[col], index, count);
+				long[] bits = nulls[col];
+				if (bits != null) {
+					for (int row = index; row < size - 1; row++) {
+						int next = row + 1;
+						if ((bits[next >> 6] & (1L << next)) != 0) {
+							bits[row >> 6] |= 1L << row;
+						} else {
+							bits[row >> 6] &= ~(1L << row);
+						}
+					}
+				}
+			}
+		}
+		//the values of the last row are left in place as they may be shared by a snapshot
+		size--;
+		modCount++;
+		return result;
+	}
+	
+	/**
+	 * Replaces the column storage rather than clearing the values, since the arrays
+	 * may be shared by a snapshot.
+	 */
+	@Override
+	public void clear() {
+		allocate(Math.max(1, capacity));
+		shared = false;
+		size = 0;
+		modCount++;
+	}
+	
+	/**
+	 * Get a copy of the values of the given row, which may be retained without 
+	 * referencing the column storage.  Modifications to the copy do not affect the batch.  
+	 */
+	@Override
+	public List<?> get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		ArrayList<Object> result = new ArrayList<Object>(kinds.length);
+		for (int col = 0; col < kinds.length; col++) {
+			result.add(getValue(index, col));
+		}
+		return result;
+	}
+	
+	/**
+	 * Get a movable row view for transient access, such as expression evaluation.  
+	 * The view should not be retained.
+	 */
+	public Row cursor() {
+		return new Row(0);
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	public int getColumnCount() {
+		return kinds.length;
+	}
+	
+	@Override
+	public Object getValue(int row, int col) {
+		Object values = columns[col];
+		switch (kinds[col]) {
+		case OBJECT:
+			return ((Object[])values)[row];
+		}
+		if (isNull(row, col)) {
+			return null;
+		}
+		switch (kinds[col]) {
+		case INT:
+			return Integer.valueOf(((int[])values)[row]);
+		case LONG:
+			return Long.valueOf(((long[])values)[row]);
+		case DOUBLE:
+			return Double.valueOf(((double[])values)[row]);
+		case FLOAT:
+			return Float.valueOf(((float[])values)[row]);
+		case SHORT:
+			return Short.valueOf(((short[])values)[row]);
+		case BYTE:
+			return Byte.valueOf(((byte[])values)[row]);
+		default:
+			return Character.valueOf(((char[])values)[row]);
+		}
+	}
+	
+	void setValue(int row, int col, Object value) {
+		if (kinds[col] == OBJECT) {
+			((Object[])columns[col])[row] = value;
+			return;
+		}
+		long[] bits = nulls[col];
+		if (value == null) {
+			bits[row >> 6] |= 1L << row;
+			return;
+		}
+		bits[row >> 6] &= ~(1L << row);
+		Object values = columns[col];
+		switch (kinds[col]) {
+		case INT:
+			if (value instanceof Integer) {
+				((int[])values)[row] = ((Integer)value).intValue();
+				return;
+			}
+			break;
+		case LONG:
+			if (value instanceof Long) {
+				((long[])values)[row] = ((Long)value).longValue();
+				return;
+			}
+			break;
+		case DOUBLE:
+			if (value instanceof Double) {
+				((double[])values)[row] = ((Double)value).doubleValue();
+				return;
+			}
+			break;
+		case FLOAT:
+			if (value instanceof Float) {
+				((float[])values)[row] = ((Float)value).floatValue();
+				return;
+			}
+			break;
+		case SHORT:
+			if (value instanceof Short) {
+				((short[])values)[row] = ((Short)value).shortValue();
+				return;
+			}
+			break;
+		case BYTE:
+			if (value instanceof Byte) {
+				((byte[])values)[row] = ((Byte)value).byteValue();
+				return;
+			}
+			break;
+		case CHAR:
+			if (value instanceof Character) {
+				((char[])values)[row] = ((Character)value).charValue();
+				return;
+			}
+			break;
+		}
+		toObjectColumn(col);
+		((Object[])columns[col])[row] = value;
+	}
+
+	private void toObjectColumn(int col) {
+		Object[] values = new Object[capacity];
+		for (int i = 0; i < size; i++) {
+			values[i] = getValue(i, col);
+		}
+		columns[col] = values;
+		kinds[col] = OBJECT;
+		nulls[col] = null;
+	}
+	
+	@Override
+	public boolean isNull(int row, int col) {
+		if (kinds[col] == OBJECT) {
+			return ((Object[])columns[col])[row] == null;
+		}
+		return (nulls[col][row >> 6] & (1L << row)) != 0;
+	}
+	
+	@Override
+	public Object getPrimitiveColumn(int col) {
+		if (kinds[col] == OBJECT) {
+			return null;
+		}
+		return columns[col];
+	}
+	
+	/**
+	 * @return the number of bytes used per value for a primitive column, or 0 for an object column
+	 */
+	public int getPrimitiveWidth(int col) {
+		switch (kinds[col]) {
+		case LONG:
+		case DOUBLE:
+			return 8;
+		case INT:
+		case FLOAT:
+			return 4;
+		case SHORT:
+		case CHAR:
+			return 2;
+		case BYTE:
+			return 1;
+		default:
+			return 0;
+		}
+	}
+	
+	/**
+	 * Get a batch of the current rows that shares the column storage.
+	 */
+	public ColumnarBatch snapshot() {
+		this.shared = true;
+		return new ColumnarBatch(kinds.clone(), columns.clone(), nulls.clone(), size);
+	}
+	
+	/**
+	 * Get a batch of the given columns that shares the column storage.
+	 */
+	public ColumnarBatch project(int[] indexes) {
+		byte[] newKinds = new byte[indexes.length];
+		Object[] newColumns = new Object[indexes.length];
+		long[][] newNulls = new long[indexes.length][];
+		for (int i = 0; i < indexes.length; i++) {
+			newKinds[i] = kinds[indexes[i]];
+			newColumns[i] = columns[indexes[i]];
+			newNulls[i] = nulls[indexes[i]];
+		}
+		this.shared = true;
+		return new ColumnarBatch(newKinds, newColumns, newNulls, size);
+	}
+	
+}
@@ -0,0 +1,388 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.teiid.common.buffer.impl.SizeUtility;
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * An immutable batch that encodes each column independently to reduce the memory 
+ * footprint of mostly read STree leaf pages.
+ * <br/>
+ * The encoding is chosen per column from:
+ * <ul>
+ * <li>run-length, for columns with long runs of repeated values</li>
+ * <li>frame of reference, for non-null integer and long columns with a small range, such as sorted keys</li>
+ * <li>dictionary, for columns with few distinct values</li>
+ * <li>plain, otherwise</li>
+ * </ul>
+ * Each applicable encoding is tried and the one holding the fewest bytes is kept.
+ * Rows are presented as lightweight views that decode only the values accessed.
+ */
+public class CompressedBatch extends AbstractList<List<?>> implements RandomAccess {
+	
+	private static final byte PLAIN = 0;
+	private static final byte RUN_LENGTH = 1;
+	private static final byte FRAME_OF_REFERENCE = 2;
+	private static final byte DICTIONARY = 3;
+	
+	private static final int MIN_RUN_LENGTH = 4;
+	
+	/**
+	 * A view of a single row
+	 */
+	private final class Row extends AbstractList<Object> implements RandomAccess {
+		private final int row;
+		
+		Row(int row) {
+			this.row = row;
+		}
+		
+		@Override
+		public Object get(int index) {
+			return getValue(row, index);
+		}
+		
+		@Override
+		public int size() {
+			return encodings.length;
+		}
+	}
+	
+	private byte[] encodings;
+	/**
+	 * Per column the plain values, the run values, or the dictionary
+	 */
+	private Object[][] values;
+	/**
+	 * Per column the run ends, the offsets, or the dictionary codes
+	 */
+	private Object[] codes;
+	private long[] bases;
+	private boolean[] longs;
+	private int size;
+	
+	private CompressedBatch(int columns, int size) {
+		this.encodings = new byte[columns];
+		this.values = new Object[columns][];
+		this.codes = new Object[columns];
+		this.bases = new long[columns];
+		this.longs = new boolean[columns];
+		this.size = size;
+	}
+	
+	/**
+	 * Encode the batch
+	 * @param batch
+	 * @param types the type names of the columns
+	 * @return the encoded batch or null if no column benefits from encoding
+	 */
+	public static CompressedBatch compress(List<? extends List<?>> batch, String[] types) {
+		if (batch instanceof CompressedBatch) {
+			return (CompressedBatch)batch;
+		}
+		int rows = batch.size();
+		if (rows < MIN_RUN_LENGTH) {
+			return null;
+		}
+		CompressedBatch result = new CompressedBatch(types.length, rows);
+		boolean encoded = false;
+		for (int col = 0; col < types.length; col++) {
+			Class<?> type = DataTypeManager.getDataTypeClass(types[col]);
+			if (DataTypeManager.isLOB(type) || type == DataTypeManager.DefaultDataClasses.OBJECT) {
+				result.encodePlain(batch, col);
+				continue;
+			}
+			boolean isInteger = type == DataTypeManager.DefaultDataClasses.INTEGER || type == DataTypeManager.DefaultDataClasses.LONG;
+			//try each applicable encoding and keep the smallest
+			int bestSize = rows * SizeUtility.REFERENCE_SIZE;
+			byte bestEncoding = PLAIN;
+			Object[] bestValues = null;
+			Object bestCodes = null;
+			long bestBase = 0;
+			for (byte encoding = RUN_LENGTH; encoding <= DICTIONARY; encoding++) {
+				result.values[col] = null;
+				result.codes[col] = null;
+				boolean applicable = false;
+				switch (encoding) {
+				case RUN_LENGTH:
+					applicable = result.encodeRunLength(batch, col);
+					break;
+				case FRAME_OF_REFERENCE:
+					applicable = isInteger && result.encodeFrameOfReference(batch, col, type == DataTypeManager.DefaultDataClasses.LONG);
+					break;
+				case DICTIONARY:
+					applicable = result.encodeDictionary(batch, col);
+					break;
+				}
+				if (!applicable) {
+					continue;
+				}
+				int encodedSize = result.getEncodedSize(col);
+				if (encodedSize < bestSize) {
+					bestSize = encodedSize;
+					bestEncoding = encoding;
+					bestValues = result.values[col];
+					bestCodes = result.codes[col];
+					bestBase = result.bases[col];
+				}
+			}
+			if (bestEncoding == PLAIN) {
+				result.encodings[col] = PLAIN;
+				result.codes[col] = null;
+				result.encodePlain(batch, col);
+				continue;
+			}
+			encoded = true;
+			result.encodings[col] = bestEncoding;
+			result.values[col] = bestValues;
+			result.codes[col] = bestCodes;
+			result.bases[col] = bestBase;
+		}
+		if (!encoded) {
+			return null;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the approximate bytes held by the current encoding of the column, 
+	 * counting a reference for each object value
+	 */
+	private int getEncodedSize(int col) {
+		int encodedSize = getEncodedBytes(col);
+		if (values[col] != null) {
+			encodedSize += values[col].length * SizeUtility.REFERENCE_SIZE;
+		}
+		return encodedSize;
+	}
+	
+	private void encodePlain(List<? extends List<?>> batch, int col) {
+		Object[] plain = new Object[size];
+		for (int row = 0; row < size; row++) {
+			plain[row] = batch.get(row).get(col);
+		}
+		this.values[col] = plain;
+	}
+	
+	private boolean encodeRunLength(List<? extends List<?>> batch, int col) {
+		int runs = 1;
+		Object last = batch.get(0).get(col);
+		for (int row = 1; row < size; row++) {
+			Object value = batch.get(row).get(col);
+			if (!equals(last, value)) {
+				if (++runs * MIN_RUN_LENGTH > size) {
+					return false;
+				}
+				last = value;
+			}
+		}
+		Object[] runValues = new Object[runs];
+		int[] runEnds = new int[runs];
+		int run = 0;
+		runValues[0] = batch.get(0).get(col);
+		for (int row = 1; row < size; row++) {
+			Object value = batch.get(row).get(col);
+			if (!equals(runValues[run], value)) {
+				runEnds[run++] = row;
+				runValues[run] = value;
+			}
+		}
+		runEnds[run] = size;
+		this.encodings[col] = RUN_LENGTH;
+		this.values[col] = runValues;
+		this.codes[col] = runEnds;
+		return true;
+	}
+	
+	private boolean encodeFrameOfReference(List<? extends List<?>> batch, int col, boolean isLong) {
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int row = 0; row < size; row++) {
+			Object value = batch.get(row).get(col);
+			if (!(value instanceof Number)) {
+				return false;
+			}
+			long val = ((Number)value).longValue();
+			min = Math.min(min, val);
+			max = Math.max(max, val);
+		}
+		long range = max - min;
+		if (range < 0 || range > 0xffffffffL) {
+			return false;
+		}
+		Object offsets = null;
+		if (range <= 0xff) {
+			byte[] bytes = new byte[size];
+			for (int row = 0; row < size; row++) {
+				bytes[row] = (byte)(((Number)batch.get(row).get(col)).longValue() - min);
+			}
+			offsets = bytes;
+		} else if (range <= 0xffff) {
+			char[] chars = new char[size];
+			for (int row = 0; row < size; row++) {
+				chars[row] = (char)(((Number)batch.get(row).get(col)).longValue() - min);
+			}
+			offsets = chars;
+		} else {
+			int[] ints = new int[size];
+			for (int row = 0; row < size; row++) {
+				ints[row] = (int)(((Number)batch.get(row).get(col)).longValue() - min);
+			}
+			offsets = ints;
+		}
+		this.encodings[col] = FRAME_OF_REFERENCE;
+		this.codes[col] = offsets;
+		this.bases[col] = min;
+		this.longs[col] = isLong;
+		return true;
+	}
+	
+	private boolean encodeDictionary(List<? extends List<?>> batch, int col) {
+		int maxEntries = Math.min(size/2, 0xffff + 1);
+		HashMap<Object, Integer> entries = new HashMap<Object, Integer>();
+		for (int row = 0; row < size; row++) {
+			Object value = batch.get(row).get(col);
+			if (!entries.containsKey(value)) {
+				if (entries.size() == maxEntries) {
+					return false;
+				}
+				entries.put(value, entries.size());
+			}
+		}
+		Object[] dictionary = new Object[entries.size()];
+		Object dictionaryCodes = null;
+		if (dictionary.length <= 0xff + 1) {
+			byte[] bytes = new byte[size];
+			for (int row = 0; row < size; row++) {
+				Object value = batch.get(row).get(col);
+				int code = entries.get(value);
+				dictionary[code] = value;
+				bytes[row] = (byte)code;
+			}
+			dictionaryCodes = bytes;
+		} else {
+			char[] chars = new char[size];
+			for (int row = 0; row < size; row++) {
+				Object value = batch.get(row).get(col);
+				int code = entries.get(value);
+				dictionary[code] = value;
+				chars[row] = (char)code;
+			}
+			dictionaryCodes = chars;
+		}
+		this.encodings[col] = DICTIONARY;
+		this.values[col] = dictionary;
+		this.codes[col] = dictionaryCodes;
+		return true;
+	}
+	
+	private static boolean equals(Object o1, Object o2) {
+		if (o1 == o2) {
+			return true;
+		}
+		return o1 != null && o1.equals(o2);
+	}
+	
+	Object getValue(int row, int col) {
+		switch (encodings[col]) {
+		case RUN_LENGTH:
+			int[] runEnds = (int[])codes[col];
+			int run = Arrays.binarySearch(runEnds, row);
+			if (run >= 0) {
+				run++;
+			} else {
+				run = -run - 1;
+			}
+			return values[col][run];
+		case FRAME_OF_REFERENCE:
+			long offset = 0;
+			Object offsets = codes[col];
+			if (offsets instanceof byte[]) {
+				offset = ((byte[])offsets)[row] & 0xff;
+			} else if (offsets instanceof char[]) {
+				offset = ((char[])offsets)[row];
+			} else {
+				offset = ((int[])offsets)[row] & 0xffffffffL;
+			}
+			if (longs[col]) {
+				return Long.valueOf(bases[col] + offset);
+			}
+			return Integer.valueOf((int)(bases[col] + offset));
+		case DICTIONARY:
+			Object dictionaryCodes = codes[col];
+			if (dictionaryCodes instanceof byte[]) {
+				return values[col][((byte[])dictionaryCodes)[row] & 0xff];
+			}
+			return values[col][((char[])dictionaryCodes)[row]];
+		default:
+			return values[col][row];
+		}
+	}
+	
+	@Override
+	public List<?> get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return new Row(index);
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return the size in bytes of the primitive array used by the column encoding 
+	 */
+	public int getEncodedBytes(int col) {
+		Object columnCodes = codes[col];
+		if (columnCodes instanceof byte[]) {
+			return ((byte[])columnCodes).length;
+		}
+		if (columnCodes instanceof char[]) {
+			return ((char[])columnCodes).length * 2;
+		}
+		if (columnCodes instanceof int[]) {
+			return ((int[])columnCodes).length * 4;
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return the object values held for the column, which may be the plain values, 
+	 * the run values, the dictionary, or null
+	 */
+	public Object[] getObjects(int col) {
+		return values[col];
+	}
+	
+}
@@ -97,6 +97,7 @@ class SPage implements Cloneable {
 	protected Object trackingObject;
 	protected List<List<?>> values;
 	protected List<SPage> children;
+	private boolean pinned;
 	
 	SPage(STree stree, boolean leaf) {
 		this.stree = stree;
@@ -117,6 +118,7 @@ class SPage implements Cloneable {
 			}
 			SPage clone = (SPage) super.clone();
 			clone.stree = tree;
+			clone.pinned = false;
 			if (children != null) {
 				clone.children = new ResizingArrayList<SPage>(children);
 			}
@@ -185,7 +187,7 @@ class SPage implements Cloneable {
 		if (values instanceof LightWeightCopyOnWriteList<?>) {
 			values = ((LightWeightCopyOnWriteList<List<?>>)values).getList();
 		}
-		if (values.size() < stree.minPageSize) {
+		if (pinned || values.size() < stree.minPageSize) {
 			setDirectValues(values);
 			return;
 		} else if (stree.batchInsert && children == null && values.size() < stree.leafSize) {
@@ -199,6 +201,9 @@ class SPage implements Cloneable {
 	}
 
 	private void setDirectValues(List<List<?>> values) {
+		if (values instanceof CompressedBatch) {
+			values = new ResizingArrayList<List<?>>(values);
+		}
 		if (managedBatch != null && trackingObject == null) {
 			stree.getBatchManager(children == null).remove(managedBatch);
 			managedBatch = null;
@@ -207,6 +212,23 @@ class SPage implements Cloneable {
 		this.values = values;
 	}
 	
+	/**
+	 * Hold the values directly rather than through the batch manager, so that
+	 * a modifying {@link TupleBrowser} and the tree always operate on the same list 
+	 * even if the managed batch would have been evicted and read back.
+	 */
+	void pin(List<List<?>> pinnedValues) {
+		setDirectValues(pinnedValues);
+		this.pinned = true;
+	}
+	
+	void unpin() throws TeiidComponentException {
+		this.pinned = false;
+		if (values != null) {
+			setValues(values);
+		}
+	}
+	
 	protected void remove(boolean force) {
 		if (managedBatch != null) {
 			if (force || trackingObject == null) {
@@ -235,12 +257,33 @@ class SPage implements Cloneable {
 			ref.cleanup();
 		}
 		List<List<?>> result = stree.getBatchManager(children == null).getBatch(managedBatch, true);
-		if (trackingObject != null) {
+		if (trackingObject != null || result instanceof CompressedBatch) {
 			return new LightWeightCopyOnWriteList<List<?>>(result);
 		}
 		return result;
 	}
 	
+	/**
+	 * Replace the managed leaf batch with a {@link CompressedBatch} if beneficial.
+	 * The page will be held uncompressed again once modified. 
+	 */
+	void compress() throws TeiidComponentException {
+		if (managedBatch == null || children != null) {
+			return;
+		}
+		BatchManager manager = stree.getBatchManager(true);
+		List<List<?>> current = manager.getBatch(managedBatch, true);
+		if (current instanceof CompressedBatch) {
+			return;
+		}
+		CompressedBatch compressed = CompressedBatch.compress(current, manager.getTypes());
+		if (compressed == null) {
+			return;
+		}
+		managedBatch = manager.createManagedBatch(compressed, managedBatch, trackingObject == null);
+		trackingObject = null;
+	}
+	
 	static void merge(LinkedList<SearchResult> places, List<List<?>> nextValues, SPage current, List<List<?>> currentValues)
 	throws TeiidComponentException {
 		SearchResult parent = places.peekLast();
@@ -155,6 +155,7 @@ public class STree implements Cloneable {
 			if (page.next == null) {
 				break;
 			}
+			page = page.next;
 		}
 	}
 	
@@ -564,6 +565,25 @@ public class STree implements Cloneable {
 		}
 	}
 
+	/**
+	 * Encode the leaf pages to reduce their memory footprint.  Intended for trees
+	 * that are mostly read, since modified pages are held uncompressed until the next call.
+	 */
+	public void compressLeaves() throws TeiidComponentException {
+		if (lobManager != null) {
+			return;
+		}
+		updateLock.lock();
+		try {
+			leafManager.setCompressed(true);
+			for (SPage page = header[0]; page != null; page = page.next) {
+				page.compress();
+			}
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
 	public void removeRowIdFromKey() {
 		this.keyLength--;
 		int[] sortParameters = this.comparator.getSortParameters();
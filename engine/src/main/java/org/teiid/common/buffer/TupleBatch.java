@@ -43,6 +43,7 @@ public class TupleBatch {
 	
 	private int rowOffset;    
     protected List<List<?>> tuples;
+    private ColumnarBatch.Row cursor;
     
     // Optional state
     private byte terminationFlag = NOT_TERMINATED;
@@ -68,11 +69,15 @@ public class TupleBatch {
      * @param beginRow indicates the row of the tuple source which is the
      * first row contained in this batch
      * @param listOfTupleLists List containing List objects, each of which is
-     * a single tuple
+     * a single tuple.  A {@link ColumnarBatch} is referenced as a snapshot rather than copied. 
      */
     public TupleBatch(int beginRow, List<? extends List<?>> listOfTupleLists) {
         this.rowOffset = beginRow;
-        this.tuples = new ArrayList<List<?>>(listOfTupleLists);
+        if (listOfTupleLists instanceof ColumnarBatch) {
+        	this.tuples = ((ColumnarBatch)listOfTupleLists).snapshot();
+        } else {
+        	this.tuples = new ArrayList<List<?>>(listOfTupleLists);
+        }
     }
 
     /**
@@ -109,6 +114,21 @@ public class TupleBatch {
         return tuples.get(rowIndex-rowOffset);
     }
     
+    /**
+     * Return the tuple at the given index (one-based) for transient use, such as
+     * expression evaluation.  For a columnar batch the same view is repositioned on each call, 
+     * so the result must not be retained.
+     */
+    public List<?> getTransientTuple(int rowIndex) {
+    	if (tuples instanceof ColumnarBatch) {
+    		if (cursor == null) {
+    			cursor = ((ColumnarBatch)tuples).cursor();
+    		}
+    		return cursor.moveTo(rowIndex-rowOffset);
+    	}
+        return tuples.get(rowIndex-rowOffset);
+    }
+    
     public List<List<?>> getTuples() {
 		return tuples;
 	}
@@ -52,6 +52,8 @@ public class TupleBrowser implements TupleSource {
 	private boolean direction;
 	
 	private boolean inPartial;
+	private boolean readOnly;
+	private SPage pinned;
 	
 	private List<Object> cachedBound;
 	
@@ -65,7 +67,16 @@ public class TupleBrowser implements TupleSource {
 	 * @param direction
 	 */
 	public TupleBrowser(STree sTree, TupleSource valueSet, boolean direction) {
+		this(sTree, valueSet, direction, true);
+	}
+	
+	/**
+	 * Construct a value based browser.
+	 * @param readOnly false if the tree will be modified while browsing
+	 */
+	public TupleBrowser(STree sTree, TupleSource valueSet, boolean direction, boolean readOnly) {
 		this.tree = sTree;
+		this.readOnly = readOnly;
 		this.direction = direction;
 		this.valueSet = valueSet;
 	}
@@ -79,7 +90,16 @@ public class TupleBrowser implements TupleSource {
 	 * @throws TeiidComponentException
 	 */
 	public TupleBrowser(STree sTree, List<Object> lowerBound, List<Object> upperBound, boolean direction) throws TeiidComponentException {
+		this(sTree, lowerBound, upperBound, direction, true);
+	}
+	
+	/**
+	 * Construct a range based browser
+	 * @param readOnly false if the tree will be modified while browsing
+	 */
+	public TupleBrowser(STree sTree, List<Object> lowerBound, List<Object> upperBound, boolean direction, boolean readOnly) throws TeiidComponentException {
 		this.tree = sTree;
+		this.readOnly = readOnly;
 		this.direction = direction;
 		
 		init(lowerBound, upperBound, false);
@@ -111,7 +131,7 @@ public class TupleBrowser implements TupleSource {
 				boundIndex = Math.min(upper.values.size(), -boundIndex -1) - 1;
 			}
 			if (!direction) {
-				values = upper.values;
+				values = getValues(upper.page, upper.values);
 			}
 			if (lowerBound != null && page == bound) {
 				valid = index<=boundIndex;
@@ -122,7 +142,7 @@ public class TupleBrowser implements TupleSource {
 			}
 			if (!direction) {
 				if (page != bound || values == null) {
-					values = bound.getValues();
+					values = getValues(bound, bound.getValues());
 				}
 				boundIndex = values.size() - 1;
 			}
@@ -153,10 +173,35 @@ public class TupleBrowser implements TupleSource {
 			result = false;
 			index = -index - 1;
 		}
-		values = sr.values;
+		values = getValues(page, sr.values);
 		return result;
 	}
 	
+	/**
+	 * A modifying browser must see the same values as the tree, so the page 
+	 * is pinned to the list being browsed until the browser moves off of it.
+	 * A page that is shared with a clone is copied first.
+	 */
+	private List<List<?>> getValues(SPage p, List<List<?>> v) throws TeiidComponentException {
+		if (readOnly) {
+			return v;
+		}
+		unpin();
+		if (v instanceof LightWeightCopyOnWriteList<?>) {
+			v = new ArrayList<List<?>>(v);
+		}
+		p.pin(v);
+		pinned = p;
+		return v;
+	}
+	
+	private void unpin() throws TeiidComponentException {
+		if (pinned != null) {
+			pinned.unpin();
+			pinned = null;
+		}
+	}
+	
 	private ArrayList<SearchResult> getPlaces() {
 		places.clear();
 		return places;
@@ -220,7 +265,7 @@ public class TupleBrowser implements TupleSource {
 				return null;
 			}
 			if (values == null) {
-				values = page.getValues();
+				values = getValues(page, page.getValues());
 				if (direction) {
 					index = 0;
 				} else {
@@ -257,6 +302,7 @@ public class TupleBrowser implements TupleSource {
 		}
 		updated = false;
 		values = null;
+		unpin();
 	}
 	
 	private int getOffset() {
@@ -286,7 +332,11 @@ public class TupleBrowser implements TupleSource {
 	
 	@Override
 	public void closeSource() {
-		
+		try {
+			unpin();
+		} catch (TeiidComponentException e) {
+			//the values are still held directly by the page
+		}
 	}
 	
 }
\ No newline at end of file
@@ -133,6 +133,7 @@ public class TupleBuffer {
 
 	private LobManager lobManager;
 	private String uuid;
+	private Class<?>[] columnarTypes;
 	
 	public TupleBuffer(BatchManager manager, String id, List<? extends Expression> schema, LobManager lobManager, int batchSize) {
 		this.manager = manager;
@@ -140,6 +141,16 @@ public class TupleBuffer {
 		this.schema = schema;
 		this.lobManager = lobManager;
 		this.batchSize = batchSize;		
+		if (lobManager == null && schema != null) {
+			//hold primitive values in arrays rather than as boxed values in row lists
+			Class<?>[] types = new Class<?>[schema.size()];
+			for (int i = 0; i < types.length; i++) {
+				types[i] = schema.get(i).getType();
+			}
+			if (ColumnarBatch.hasPrimitiveColumns(types)) {
+				this.columnarTypes = types;
+			}
+		}
 	}
 	
 	public void setInlineLobs(boolean inline) {
@@ -175,8 +186,19 @@ public class TupleBuffer {
 			lobManager.updateReferences(tuple, ReferenceMode.CREATE);
 		}
 		this.rowCount++;
+		if (columnarTypes != null && tuple.size() != columnarTypes.length) {
+			//unexpected tuple shape, fall back to row storage
+			columnarTypes = null;
+			if (batchBuffer != null) {
+				batchBuffer = new ResizingArrayList<List<?>>(batchBuffer);
+			}
+		}
 		if (batchBuffer == null) {
-			batchBuffer = new ResizingArrayList<List<?>>(batchSize/4);
+			if (columnarTypes != null) {
+				batchBuffer = new ColumnarBatch(columnarTypes, batchSize/4);
+			} else {
+				batchBuffer = new ResizingArrayList<List<?>>(batchSize/4);
+			}
 		}
 		batchBuffer.add(tuple);
 		if (batchBuffer.size() == batchSize) {
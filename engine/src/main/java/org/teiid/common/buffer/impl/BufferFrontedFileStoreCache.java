@@ -22,6 +22,7 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
@@ -59,6 +60,7 @@ import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.logging.LogConstants;
@@ -554,6 +556,8 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	
 	private AtomicLong storageWrites = new AtomicLong();
 	private AtomicLong storageReads = new AtomicLong();
+	private AtomicLong memoryBufferHits = new AtomicLong();
+	private AtomicLong admissionRejections = new AtomicLong();
 	
 	private long minDefrag = DEFAULT_MIN_DEFRAG;
 	private BufferManagerImpl bufferManager;
@@ -569,6 +573,8 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		//ensure that we'll run out of blocks first
 		this.inodeByteBuffer = new BlockByteBuffer(30, blocks+1, LOG_INODE_SIZE, direct);
 		memoryWritePermits = new Semaphore(blocks);
+		//each entry uses at least one block
+		memoryBufferEntries.setMaximumEntries(blocks);
 		maxMemoryBlocks = Math.min(MAX_DOUBLE_INDIRECT, blocks);
 		maxMemoryBlocks = Math.min(maxMemoryBlocks, maxStorageObjectSize>>LOG_BLOCK_SIZE + ((maxStorageObjectSize&BufferFrontedFileStoreCache.BLOCK_MASK)>0?1:0));
 		//try to maintain enough freespace so that writers don't block in cleaning
@@ -752,12 +758,14 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		Lock lock = null;
 		ExtensibleBufferedInputStream eis = null;
 		int memoryBlocks = 0;
+		boolean admit = true;
 		try {
 			synchronized (info) {
 				assert !info.pinned && info.loading; //load should be locked
 				info.await(true, false); //not necessary, but should make things safer
 				if (info.inode != EMPTY_ADDRESS) {
 					info.pinned = true;
+					memoryBufferHits.getAndIncrement();
 					memoryBufferEntries.touch(info); 
 					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
 						LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Getting object at inode", info.inode, serializer.getId(), oid); //$NON-NLS-1$
@@ -766,6 +774,8 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 					is = new BlockInputStream(manager, info.memoryBlockCount);
 				} else if (info.block != EMPTY_ADDRESS) {
 					info.pinned = true;
+					//when the memory buffer is full, only displace entries that are used less frequently
+					admit = !lowBlocks(false) || memoryBufferEntries.admit(info);
 					memoryBufferEntries.recordAccess(info);
 					storageReads.incrementAndGet();
 					if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
@@ -783,7 +793,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 				}
 			}
 			if (lock != null) {
-				is = readIntoMemory(info, eis, lock, memoryBlocks);
+				if (admit) {
+					is = readIntoMemory(info, eis, lock, memoryBlocks);
+				} else {
+					admissionRejections.getAndIncrement();
+					is = readIntoHeap(eis, lock);
+				}
 			}
 			for (int i = 0; i < HEADER_BYTES; i++) {
 				is.read();
@@ -859,6 +874,24 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return is;
 	}
 
+	/**
+	 * Transfer into a heap buffer to release the file lock without using the memory buffer
+	 */
+	private InputStream readIntoHeap(ExtensibleBufferedInputStream is, Lock fileLock) throws IOException {
+		AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream();
+		fileLock.lock();
+		try {
+			ByteBuffer bb = null;
+			while ((bb = is.getBuffer()) != null) {
+				baos.write(bb.array(), bb.position() + bb.arrayOffset(), bb.remaining());
+				bb.position(bb.position()+bb.remaining());
+			}
+		} finally {
+			fileLock.unlock();
+		}
+		return new ByteArrayInputStream(baos.getBuffer(), 0, baos.getCount());
+	}
+
 	/**
 	 * Determine if an object should be in the memory buffer.
 	 * Adds are indicated by a current time of 0.
@@ -1179,6 +1212,18 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 		return storageWrites.get();
 	}
 	
+	public long getMemoryBufferHits() {
+		return memoryBufferHits.get();
+	}
+	
+	/**
+	 * @return the number of storage reads that bypassed the memory buffer 
+	 * rather than displace more frequently used entries
+	 */
+	public long getAdmissionRejections() {
+		return admissionRejections.get();
+	}
+	
 	public long getMemoryBufferSpace() {
 		return memoryBufferSpace;
 	}
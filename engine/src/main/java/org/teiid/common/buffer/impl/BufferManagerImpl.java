@@ -157,6 +157,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		private LobManager lobManager;
 		private long totalSize;
 		private long rowsSampled;
+		private volatile boolean compressed;
 
 		private BatchManagerImpl(Long newID, Class<?>[] types) {
 			this.id = newID;
@@ -192,6 +193,11 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			this.prefersMemory.set(prefers);
 		}
 		
+		@Override
+		public void setCompressed(boolean compressed) {
+			this.compressed = compressed;
+		}
+		
 		@Override
 		public boolean useSoftCache() {
 			return prefersMemory.get();
@@ -250,15 +256,22 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 					}
 				}
 			}
+			if (compressed) {
+				//keep the size consistent with the estimate taken when the batch was added
+				CompressedBatch result = CompressedBatch.compress(batch, types);
+				if (result != null) {
+					return result;
+				}
+			}
 			return batch;
 		}
 		
 		@Override
 		public void serialize(List<? extends List<?>> obj,
 				ObjectOutput oos) throws IOException {
-			ResizingArrayList<?> list = null;
-			if (obj instanceof ResizingArrayList<?>) {
-				list = (ResizingArrayList<?>)obj;
+			List<?> list = null;
+			if (obj instanceof ResizingArrayList<?> || obj instanceof ColumnarBatch || obj instanceof CompressedBatch) {
+				list = obj;
 			}
 			try {
 				//it's expected that the containing structure has updated the lob manager
@@ -285,7 +298,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		public List<List<?>> getBatch(Long batch, boolean retain)
 				throws TeiidComponentException {
 			cleanSoftReferences();
-			long reads = readAttempts.incrementAndGet();
+			long reads = evictionQueue.tick();
 			if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.TRACE)) {
 				LogManager.logTrace(LogConstants.CTX_BUFFER_MGR, id, "getting batch", batch, "total reads", reads, "reference hits", referenceHit.get()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			}
@@ -417,6 +430,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private AtomicLong readCount = new AtomicLong();
 	private AtomicLong writeCount = new AtomicLong();
 	private AtomicLong referenceHit = new AtomicLong();
+	private AtomicLong admissionRejections = new AtomicLong();
 	
 	//TODO: this does not scale well with multiple embedded instances
 	private static final Timer timer = new Timer("BufferManager Cleaner", true); //$NON-NLS-1$
@@ -454,10 +468,23 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		return writeCount.get();
 	}
 	
+	/**
+	 * The read attempts are counted by {@link LrfuEvictionQueue#tick()}, which batches 
+	 * the updates per thread.  The value is therefore approximate and may trail the actual 
+	 * count by less than the batch size for each thread that has read.
+	 */
 	public long getReadAttempts() {
 		return readAttempts.get();
 	}
 	
+	/**
+	 * @return the number of batches read back into memory that were not admitted 
+	 * ahead of more frequently used batches
+	 */
+	public long getAdmissionRejections() {
+		return admissionRejections.get();
+	}
+	
 	@Override
 	public int getMaxProcessingSize() {
 		return maxProcessingBytes;
@@ -1013,7 +1040,13 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			if (initial) {
 				initialEvictionQueue.add(ce);
 			} else if (added) {
-				evictionQueue.recordAccess(ce);
+				if (evictionQueue.admit(ce)) {
+					evictionQueue.recordAccess(ce);
+				} else {
+					//likely a one time read, so don't let it displace more frequently used entries
+					evictionQueue.recordProbationaryAccess(ce);
+					admissionRejections.getAndIncrement();
+				}
 				evictionQueue.add(ce);
 			} else {
 				evictionQueue.touch(ce);
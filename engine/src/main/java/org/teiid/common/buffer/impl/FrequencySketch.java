@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+/**
+ * A count-min sketch of 4-bit access frequencies used for TinyLFU style admission.
+ * <br>
+ * Counters are halved once the number of additions reaches the sample size so that
+ * the estimates favor recent history.
+ * <br>
+ * Updates are not synchronized, lost increments under contention only reduce the accuracy of the estimates.
+ */
+final class FrequencySketch {
+	
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	
+	private final long[] table;
+	private final int sampleSize;
+	private int additions;
+	
+	/**
+	 * @param size the number of longs, must be a power of 2
+	 */
+	FrequencySketch(int size) {
+		this.table = new long[size];
+		this.sampleSize = 10*size;
+	}
+	
+	/**
+	 * Estimate the frequency of the id, a value between 0 and 15
+	 */
+	int frequency(long id) {
+		int hash = spread(id);
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+	
+	void increment(long id) {
+		int hash = spread(id);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int offset = (start + i) << 2;
+			long mask = 0xfL << offset;
+			if ((table[index] & mask) != mask) {
+				table[index] += 1L << offset;
+				added = true;
+			}
+		}
+		if (added && ++additions >= sampleSize) {
+			reset();
+		}
+	}
+	
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions >>>= 1;
+	}
+	
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int)h & (table.length - 1);
+	}
+	
+	private static int spread(long id) {
+		int h = (int)(id ^ (id >>> 32));
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		return (h >>> 16) ^ h;
+	}
+
+}
@@ -22,9 +22,11 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -35,38 +37,196 @@ import org.teiid.common.buffer.CacheKey;
 /**
  * A Concurrent LRFU eviction queue.  Has assumptions that match buffermanager usage.
  * Null values are not allowed.
+ * <br>
+ * Entries are striped by id across several ordered maps so that concurrent touches, which 
+ * remove and re-insert, do not contend on a single map.  The first entry is the lowest of 
+ * the stripe heads, so the eviction order is the same as with a single map except for
+ * concurrent modifications.
+ * <br>
+ * Access frequencies are also tracked in a {@link FrequencySketch} so that callers may
+ * use {@link #admit(BaseCacheEntry)} to keep one time reads from displacing frequently used entries.
+ * <br>
+ * The clock may be advanced with {@link #tick()}, which batches the updates per thread.
+ * <br>
+ * The half-life is adapted to the observed reuse interval of entries unless set explicitly.
  * @param <V>
  */
 public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	
 	private static final long DEFAULT_HALF_LIFE = 1<<17;
 	private static final long MIN_INTERVAL = 1<<10;
-	//TODO: until Java 7 ConcurrentSkipListMap has a scaling bug in that
-	//the level function limits the effective map size to ~ 2^16
-	//above which it performs comparably under multi-threaded load to a synchronized LinkedHashMap
-	//just with more CPU overhead vs. wait time.
-	protected NavigableMap<CacheKey, V> evictionQueue = new ConcurrentSkipListMap<CacheKey, V>();
+	private static final long MIN_HALF_LIFE = MIN_INTERVAL<<2;
+	private static final long MAX_HALF_LIFE = DEFAULT_HALF_LIFE<<3;
+	private static final int ADAPT_INTERVAL = 1<<12;
+	private static final int SKETCH_SIZE = 1<<12;
+	private static final int MIN_SKETCH_SIZE = 1<<6;
+	private static final int MAX_SKETCH_SIZE = 1<<20;
+	private static final int MAX_STRIPES = 16;
+	private static final int CLOCK_BATCH = 1<<4;
+	private static final int DEFAULT_STRIPES = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())));
+	
+	//ConcurrentSkipListMap prior to Java 7 limits the effective map size to ~ 2^16
+	//striping also keeps each map under that size for larger caches
+	private final ConcurrentSkipListMap<CacheKey, V>[] stripes;
+	private final AtomicInteger[] sizes;
+	private final int stripeMask;
 	protected AtomicLong clock;
-	protected long maxInterval;
-	protected long halfLife;
-	private AtomicInteger size = new AtomicInteger();
+	protected volatile long maxInterval;
+	protected volatile long halfLife;
+	private volatile FrequencySketch sketch = new FrequencySketch(SKETCH_SIZE);
+	private volatile boolean adaptive = true;
+	//reuse is tracked per stripe so that accesses to different stripes do not contend
+	private final ReuseStats[] reuseStats;
+	private final int adaptInterval;
+	
+	private static class ReuseStats {
+		long interval = DEFAULT_HALF_LIFE;
+		int count;
+	}
+	
+	private ThreadLocal<int[]> pendingTicks = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+	
+	private Collection<V> values = new AbstractCollection<V>() {
+		
+		@Override
+		public Iterator<V> iterator() {
+			return new MergingIterator();
+		}
+		
+		@Override
+		public int size() {
+			return getSize();
+		}
+		
+		@Override
+		public void clear() {
+			for (int i = 0; i < stripes.length; i++) {
+				stripes[i].clear();
+				sizes[i].set(0);
+			}
+		}
+	};
+	
+	/**
+	 * Iterates the stripes in ascending order.  Like the underlying maps the
+	 * iteration is weakly consistent.
+	 */
+	private class MergingIterator implements Iterator<V> {
+		private Iterator<Map.Entry<CacheKey, V>>[] iters;
+		private Map.Entry<CacheKey, V>[] heads;
+		
+		@SuppressWarnings("unchecked")
+		MergingIterator() {
+			iters = new Iterator[stripes.length];
+			heads = new Map.Entry[stripes.length];
+			for (int i = 0; i < stripes.length; i++) {
+				iters[i] = stripes[i].entrySet().iterator();
+				if (iters[i].hasNext()) {
+					heads[i] = iters[i].next();
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			for (int i = 0; i < heads.length; i++) {
+				if (heads[i] != null) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public V next() {
+			int min = -1;
+			for (int i = 0; i < heads.length; i++) {
+				if (heads[i] != null && (min == -1 || heads[i].getKey().compareTo(heads[min].getKey()) < 0)) {
+					min = i;
+				}
+			}
+			if (min == -1) {
+				throw new NoSuchElementException();
+			}
+			V result = heads[min].getValue();
+			heads[min] = iters[min].hasNext()?iters[min].next():null;
+			return result;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
 	
 	public LrfuEvictionQueue(AtomicLong clock) {
+		this(clock, DEFAULT_STRIPES);
+	}
+	
+	/**
+	 * @param stripeCount the number of stripes, rounded down to a power of 2
+	 */
+	@SuppressWarnings("unchecked")
+	public LrfuEvictionQueue(AtomicLong clock, int stripeCount) {
 		this.clock = clock;
-		setHalfLife(DEFAULT_HALF_LIFE);
+		this.halfLife = DEFAULT_HALF_LIFE;
+		this.maxInterval = 62*DEFAULT_HALF_LIFE;
+		stripeCount = Integer.highestOneBit(Math.max(1, stripeCount));
+		this.stripes = new ConcurrentSkipListMap[stripeCount];
+		this.sizes = new AtomicInteger[stripeCount];
+		this.reuseStats = new ReuseStats[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new ConcurrentSkipListMap<CacheKey, V>();
+			sizes[i] = new AtomicInteger();
+			reuseStats[i] = new ReuseStats();
+		}
+		this.stripeMask = stripeCount - 1;
+		this.adaptInterval = Math.max(1, ADAPT_INTERVAL / stripeCount);
+	}
+	
+	private int stripeFor(CacheKey key) {
+		long id = key.getId();
+		int h = (int)(id ^ (id >>> 32)) * 0x9e3779b9;
+		return (h ^ (h >>> 16)) & stripeMask;
+	}
+
+	/**
+	 * Advance the clock by one access.  To avoid contention on the shared counter each thread 
+	 * advances the clock in batches, so the returned value is approximate.  The lag is 
+	 * well under the minimum interval considered by {@link #touch(BaseCacheEntry)}.
+	 * <br>
+	 * Pending ticks are held by each thread and are not visible to readers of the clock 
+	 * until the batch completes, so the clock may trail the number of ticks by less than 
+	 * the batch size per thread.
+	 * @return the approximate clock value
+	 */
+	public long tick() {
+		int[] pending = pendingTicks.get();
+		if (++pending[0] < CLOCK_BATCH) {
+			return clock.get() + pending[0];
+		}
+		pending[0] = 0;
+		return clock.addAndGet(CLOCK_BATCH);
 	}
 
 	public boolean remove(V value) {
-		if (evictionQueue.remove(value.getKey()) != null) {
-			size.addAndGet(-1);
+		int stripe = stripeFor(value.getKey());
+		if (stripes[stripe].remove(value.getKey()) != null) {
+			sizes[stripe].decrementAndGet();
 			return true;
 		}
 		return false;
 	}
 	
 	public boolean add(V value) {
-		if (evictionQueue.put(value.getKey(), value) == null) {
-			size.addAndGet(1);
+		int stripe = stripeFor(value.getKey());
+		if (stripes[stripe].put(value.getKey(), value) == null) {
+			sizes[stripe].incrementAndGet();
 			return true;
 		}
 		return false;
@@ -75,31 +235,72 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	public void touch(V value) {
 		long tick = clock.get();
 		if (tick - MIN_INTERVAL < value.getKey().getLastAccess()) {
+			sketch.increment(value.getId());
 			return;
 		}
-		evictionQueue.remove(value.getKey());
+		ConcurrentSkipListMap<CacheKey, V> stripe = stripes[stripeFor(value.getKey())];
+		stripe.remove(value.getKey());
 		recordAccess(value);
-		evictionQueue.put(value.getKey(), value);
+		stripe.put(value.getKey(), value);
 	}
 		
 	public Collection<V> getEvictionQueue() {
-		return evictionQueue.values();
+		return values;
 	}
 	
 	public V firstEntry(boolean poll) {
-		Map.Entry<CacheKey, V> entry = null;
-		if (poll) {
-			entry = evictionQueue.pollFirstEntry();
+		while (true) {
+			int min = -1;
+			Map.Entry<CacheKey, V> minEntry = null;
+			for (int i = 0; i < stripes.length; i++) {
+				Map.Entry<CacheKey, V> entry = stripes[i].firstEntry();
+				if (entry != null && (minEntry == null || entry.getKey().compareTo(minEntry.getKey()) < 0)) {
+					min = i;
+					minEntry = entry;
+				}
+			}
+			if (minEntry == null) {
+				return null;
+			}
+			if (!poll) {
+				return minEntry.getValue();
+			}
+			Map.Entry<CacheKey, V> entry = stripes[min].pollFirstEntry();
 			if (entry != null) {
-				size.addAndGet(-1);
+				sizes[min].decrementAndGet();
+				return entry.getValue();
 			}
-		} else {
-			entry = evictionQueue.firstEntry();
+			//the stripe was concurrently emptied
 		}
-		if (entry != null) {
-			return entry.getValue();
+	}
+	
+	/**
+	 * Determine if the value should be given a normal position in the queue rather than
+	 * being placed first for eviction.  TinyLFU style, the value is admitted if it has been
+	 * accessed more frequently than the eviction candidate.
+	 * <br>
+	 * Rather than scanning all of the stripes, the candidate is approximated by the head 
+	 * of the stripe for the value.  Since entries are striped by a hash of the id each head 
+	 * is near the front of the overall eviction order.
+	 */
+	public boolean admit(V value) {
+		Map.Entry<CacheKey, V> victim = stripes[stripeFor(value.getKey())].firstEntry();
+		if (victim == null) {
+			return true;
 		}
-		return null;
+		FrequencySketch current = sketch;
+		return current.frequency(value.getId()) > current.frequency(victim.getValue().getId());
+	}
+	
+	/**
+	 * Record an access for a value that was not admitted, which places it first for eviction
+	 * until it is accessed again.
+	 * Callers should be synchronized on value
+	 */
+	public void recordProbationaryAccess(V value) {
+		CacheKey key = value.getKey();
+		sketch.increment(key.getId());
+		value.setKey(new CacheKey(key.getId(), clock.get(), 0));
 	}
 	
 	/**
@@ -110,6 +311,10 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		long lastAccess = key.getLastAccess();
 		long currentClock = clock.get();
 		long orderingValue = key.getOrderingValue();
+		sketch.increment(key.getId());
+		if (adaptive && lastAccess > 1 && currentClock > lastAccess) {
+			adaptHalfLife(reuseStats[stripeFor(key)], currentClock - lastAccess);
+		}
 		orderingValue = computeNextOrderingValue(currentClock, lastAccess,
 				orderingValue);
 		value.setKey(new CacheKey(key.getId(), currentClock, orderingValue));
@@ -138,13 +343,60 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		return currentTime + increase;
 	}
 	
+	/**
+	 * Track a moving average of the reuse interval and periodically set the half-life
+	 * to twice that value so that frequency information decays on the time scale of actual reuse.
+	 * <br>
+	 * Each stripe keeps its own average, which sees a proportional share of the accesses, 
+	 * so the adapt interval is divided among the stripes.
+	 */
+	private void adaptHalfLife(ReuseStats stats, long interval) {
+		long average = 0;
+		synchronized (stats) {
+			average = stats.interval;
+			average += (interval - average) >> 5;
+			stats.interval = average;
+			if (++stats.count < adaptInterval) {
+				return;
+			}
+			stats.count = 0;
+		}
+		long newHalfLife = Math.max(MIN_HALF_LIFE, Math.min(MAX_HALF_LIFE, average << 1));
+		this.maxInterval = 62*newHalfLife;
+		this.halfLife = newHalfLife;
+	}
+	
+	/**
+	 * Set a fixed half-life, which disables adapting the half-life to the observed reuse interval.
+	 */
 	public void setHalfLife(long halfLife) {
+		this.adaptive = false;
 		this.halfLife = halfLife;
 		this.maxInterval = 62*this.halfLife;
 	}
 	
+	/**
+	 * Size the frequency sketch for the expected maximum number of entries, which resets 
+	 * the tracked frequencies.  The default is sized for 4096 entries.
+	 */
+	public void setMaximumEntries(int entries) {
+		int size = Math.max(MIN_SKETCH_SIZE, Math.min(MAX_SKETCH_SIZE, entries));
+		if (Integer.bitCount(size) != 1) {
+			size = Integer.highestOneBit(size) << 1;
+		}
+		this.sketch = new FrequencySketch(size);
+	}
+	
+	public long getHalfLife() {
+		return halfLife;
+	}
+	
 	public int getSize() {
-		return size.get();
+		int result = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			result += sizes[i].get();
+		}
+		return result;
 	}
 	
 }
@@ -0,0 +1,292 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer.impl;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.teiid.common.buffer.FileStore;
+import org.teiid.common.buffer.StorageManager;
+import org.teiid.core.TeiidComponentException;
+
+/**
+ * A storage manager that holds the leading portion of each file in 
+ * direct memory chunks, up to a fixed total, and places the remainder
+ * in the wrapped storage manager.
+ * <br>
+ * A file may only grow in memory while it has no wrapped storage, so 
+ * the memory portion is always a prefix.  Since the {@link BufferFrontedFileStoreCache}
+ * defrag process compacts blocks toward the beginning of each file and truncates the 
+ * end, memory freed by truncation is made available to other files and compaction
+ * will tend to move blocks from disk into memory.
+ * <br>
+ * Chunks are allocated once and then pooled, since direct memory is otherwise only 
+ * reclaimed by garbage collection.  On {@link #shutdown()} the chunks are released
+ * immediately where the vm allows.
+ */
+public class OffHeapStorageManager implements StorageManager {
+	
+	public static final int DEFAULT_LOG_CHUNK_SIZE = 20;
+	
+	private StorageManager storageManager;
+	private long maxSpace;
+	private int logChunkSize = DEFAULT_LOG_CHUNK_SIZE;
+	private int chunkSize = 1 << logChunkSize;
+	private AtomicLong usedSpace = new AtomicLong();
+	private AtomicLong allocatedSpace = new AtomicLong();
+	private ConcurrentLinkedQueue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<ByteBuffer>();
+	private Set<OffHeapFileStore> stores = Collections.newSetFromMap(new ConcurrentHashMap<OffHeapFileStore, Boolean>());
+	private volatile boolean shutdown;
+	
+	public OffHeapStorageManager(StorageManager storageManager) {
+		this.storageManager = storageManager;
+	}
+	
+	@Override
+	public FileStore createFileStore(String name) {
+		OffHeapFileStore result = new OffHeapFileStore(name);
+		stores.add(result);
+		return result;
+	}
+	
+	@Override
+	public void initialize() throws TeiidComponentException {
+		storageManager.initialize();
+	}
+	
+	public class OffHeapFileStore extends FileStore {
+		private String name;
+		private List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+		private long memoryLength;
+		private FileStore overflow;
+		
+		private volatile long len;
+		
+		public OffHeapFileStore(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public long getLength() {
+			return len;
+		}
+		
+		@Override
+		protected int readWrite(long fileOffset, byte[] b, int offSet,
+				int length, boolean write) throws IOException {
+			FileStore store = null;
+			long storeOffset = 0;
+			synchronized (this) {
+				if (write) {
+					ensureLength(fileOffset + length);
+				} else if (fileOffset >= len) {
+					return -1;
+				}
+				if (fileOffset < memoryLength) {
+					int position = (int)(fileOffset & (chunkSize - 1));
+					length = Math.min(length, chunkSize - position);
+					if (!write) {
+						length = (int)Math.min(length, len - fileOffset);
+					}
+					ByteBuffer bb = chunks.get((int)(fileOffset >> logChunkSize)).duplicate();
+					bb.position(position);
+					if (write) {
+						bb.put(b, offSet, length);
+					} else {
+						bb.get(b, offSet, length);
+					}
+					return length;
+				}
+				store = overflow;
+				storeOffset = fileOffset - memoryLength;
+			}
+			if (!write) {
+				return store.read(storeOffset, b, offSet, length);
+			}
+			store.write(storeOffset, b, offSet, length);
+			return length;
+		}
+		
+		private void ensureLength(long length) throws IOException {
+			if (length <= len) {
+				return;
+			}
+			if (overflow == null || overflow.getLength() == 0) {
+				while (memoryLength < length) {
+					ByteBuffer chunk = allocateChunk();
+					if (chunk == null) {
+						break;
+					}
+					chunks.add(chunk);
+					memoryLength += chunkSize;
+				}
+			}
+			if (length > memoryLength) {
+				if (overflow == null) {
+					overflow = storageManager.createFileStore(name);
+				}
+				overflow.setLength(length - memoryLength);
+			}
+			len = length;
+		}
+		
+		@Override
+		public synchronized void setLength(long length) throws IOException {
+			if (length > len) {
+				ensureLength(length);
+				return;
+			}
+			if (overflow != null) {
+				overflow.setLength(Math.max(0, length - memoryLength));
+			}
+			int neededChunks = (int)(length >> logChunkSize) + ((length & (chunkSize - 1)) > 0?1:0);
+			while (chunks.size() > neededChunks) {
+				freeChunk(chunks.remove(chunks.size() - 1));
+				memoryLength -= chunkSize;
+			}
+			len = length;
+		}
+		
+		@Override
+		protected synchronized void removeDirect() {
+			stores.remove(this);
+			for (int i = chunks.size() - 1; i >= 0; i--) {
+				freeChunk(chunks.remove(i));
+			}
+			memoryLength = 0;
+			if (overflow != null) {
+				overflow.remove();
+			}
+		}
+		
+		long getMemoryLength() {
+			return memoryLength;
+		}
+		
+	}
+	
+	/**
+	 * @return a chunk or null if the max space has been reached
+	 */
+	ByteBuffer allocateChunk() {
+		if (shutdown) {
+			return null;
+		}
+		while (true) {
+			long used = usedSpace.get();
+			if (used + chunkSize > maxSpace) {
+				return null;
+			}
+			if (usedSpace.compareAndSet(used, used + chunkSize)) {
+				break;
+			}
+		}
+		ByteBuffer result = freeChunks.poll();
+		if (result == null) {
+			allocatedSpace.addAndGet(chunkSize);
+			result = BlockByteBuffer.allocate(chunkSize, true);
+		}
+		return result;
+	}
+	
+	void freeChunk(ByteBuffer chunk) {
+		usedSpace.addAndGet(-chunkSize);
+		if (shutdown) {
+			release(chunk);
+		} else {
+			freeChunks.add(chunk);
+		}
+	}
+	
+	private void release(ByteBuffer chunk) {
+		allocatedSpace.addAndGet(-chunkSize);
+		try {
+			Method cleanerMethod = chunk.getClass().getMethod("cleaner"); //$NON-NLS-1$
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(chunk);
+			if (cleaner != null) {
+				Method cleanMethod = cleaner.getClass().getMethod("clean"); //$NON-NLS-1$
+				cleanMethod.setAccessible(true);
+				cleanMethod.invoke(cleaner);
+			}
+		} catch (Exception e) {
+			//not supported by the vm, the memory will be reclaimed by garbage collection
+		}
+	}
+	
+	/**
+	 * Remove all of the files and release the direct memory, including the pooled chunks.
+	 * Reads and writes after shutdown will fail or use only the wrapped storage manager.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (OffHeapFileStore store : stores) {
+			store.remove();
+		}
+		ByteBuffer chunk = null;
+		while ((chunk = freeChunks.poll()) != null) {
+			release(chunk);
+		}
+	}
+	
+	public void setMaxSpace(long maxSpace) {
+		this.maxSpace = maxSpace;
+	}
+	
+	public long getMaxSpace() {
+		return maxSpace;
+	}
+	
+	/**
+	 * @return the bytes of direct memory currently holding file contents
+	 */
+	public long getUsedSpace() {
+		return usedSpace.get();
+	}
+	
+	/**
+	 * @return the bytes of direct memory allocated, including pooled chunks
+	 */
+	public long getAllocatedSpace() {
+		return allocatedSpace.get();
+	}
+	
+	void setLogChunkSize(int logChunkSize) {
+		this.logChunkSize = logChunkSize;
+		this.chunkSize = 1 << logChunkSize;
+	}
+	
+	public StorageManager getStorageManager() {
+		return storageManager;
+	}
+
+}
@@ -38,6 +38,9 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.CompressedBatch;
+
 import org.teiid.core.types.BaseLob;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
@@ -124,27 +127,75 @@ public final class SizeUtility {
     public long getBatchSize(boolean accountForValueCache, List<? extends List<?>> data) {
         int colLength = types.length;
         int rowLength = data.size();
+        if (data instanceof ColumnarBatch) {
+        	ColumnarBatch columnar = (ColumnarBatch)data;
+        	// array overhead for the columns and null bitmaps
+        	long size = 16 + alignMemory(colLength * REFERENCE_SIZE);
+        	for (int col = 0; col < colLength; col++) {
+        		int width = columnar.getPrimitiveWidth(col);
+        		if (width > 0) {
+        			size += 32 + alignMemory(rowLength * width) + alignMemory(rowLength/8 + 1);
+        		} else {
+        			size += 16 + alignMemory(rowLength * REFERENCE_SIZE) + getColumnSize(accountForValueCache, data, col);
+        		}
+        	}
+        	return size;
+        }
+        if (data instanceof CompressedBatch) {
+        	CompressedBatch compressed = (CompressedBatch)data;
+        	long size = 16 + alignMemory(colLength * REFERENCE_SIZE);
+        	for (int col = 0; col < colLength; col++) {
+        		int bytes = compressed.getEncodedBytes(col);
+        		if (bytes > 0) {
+        			size += 16 + alignMemory(bytes);
+        		}
+        		Object[] objects = compressed.getObjects(col);
+        		if (objects != null) {
+        			size += 16 + alignMemory(objects.length * REFERENCE_SIZE) + getObjectsSize(accountForValueCache, objects, col);
+        		}
+        	}
+        	return size;
+        }
     
         // Array overhead for row array
         long size = 16 + alignMemory(rowLength * REFERENCE_SIZE); 
         // array overhead for all the columns ( 8 object overhead + 4 ref + 4 int)
         size += (rowLength * (48 + alignMemory(colLength * REFERENCE_SIZE))); 
         for (int col = 0; col < colLength; col++) {
-            Class<?> type = types[col];
-            int rowsSampled = 0;
-            int estimatedSize = 0;
-			if (VARIABLE_SIZE_TYPES.contains(type)) {
-                for (int row = 0; row < rowLength; row=(row*2)+1) {
-                	rowsSampled++;
-                    estimatedSize += getSize(data.get(row).get(col), types[col], true, accountForValueCache);
-                }
-                size += estimatedSize/(float)rowsSampled * rowLength;
-            } else {
-            	size += getSize(accountForValueCache, type) * rowLength;
-            }
+            size += getColumnSize(accountForValueCache, data, col);
         }
         return size;
     }
+
+	private long getColumnSize(boolean accountForValueCache,
+			List<? extends List<?>> data, int col) {
+		Class<?> type = types[col];
+		int rowLength = data.size();
+		int rowsSampled = 0;
+		int estimatedSize = 0;
+		if (VARIABLE_SIZE_TYPES.contains(type)) {
+		    for (int row = 0; row < rowLength; row=(row*2)+1) {
+		    	rowsSampled++;
+		        estimatedSize += getSize(data.get(row).get(col), types[col], true, accountForValueCache);
+		    }
+		    return (long)(estimatedSize/(float)rowsSampled * rowLength);
+		}
+		return getSize(accountForValueCache, type) * rowLength;
+	}
+    
+	private long getObjectsSize(boolean accountForValueCache, Object[] objects, int col) {
+		Class<?> type = types[col];
+		if (VARIABLE_SIZE_TYPES.contains(type)) {
+			int rowsSampled = 0;
+			int estimatedSize = 0;
+		    for (int i = 0; i < objects.length; i=(i*2)+1) {
+		    	rowsSampled++;
+		        estimatedSize += getSize(objects[i], type, true, accountForValueCache);
+		    }
+		    return (long)(estimatedSize/(float)rowsSampled * objects.length);
+		}
+		return getSize(accountForValueCache, type) * objects.length;
+	}
     
     static int getSize(boolean isValueCacheEnabled,
 			Class<?> type) {
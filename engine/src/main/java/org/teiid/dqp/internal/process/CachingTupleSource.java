@@ -96,7 +96,7 @@ final class CachingTupleSource extends
 		        	cr.setRowLimit(rowNumber);
 		        }
 		        tb.setPrefersMemory(Boolean.TRUE.equals(cd.getPrefersMemory()));
-		    	Determinism determinismLevel = getDeterminismLevel(this.dtts.scope);
+		    	Determinism determinismLevel = getDeterminismLevel(this.dtts.scope != null?this.dtts.scope:cd.getScope());
 		        this.dataTierManagerImpl.requestMgr.getRsCache().put(cid, determinismLevel, cr, cd.getTtl()); 
 		        tb = null;
 			}
@@ -110,10 +110,13 @@ final class CachingTupleSource extends
 			switch (scope) {
 			case VDB:
 				determinismLevel = Determinism.VDB_DETERMINISTIC;
+				break;
 			case SESSION:
 				determinismLevel = Determinism.SESSION_DETERMINISTIC;
+				break;
 			case USER:
 				determinismLevel = Determinism.USER_DETERMINISTIC;
+				break;
 			}
 		}
 		return determinismLevel;
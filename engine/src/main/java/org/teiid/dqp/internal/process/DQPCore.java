@@ -64,6 +64,7 @@ import org.teiid.core.types.Streamable;
 import org.teiid.core.util.ApplicationInfo;
 import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.message.AtomicRequestMessage;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.TransactionContext;
@@ -110,6 +111,7 @@ public class DQPCore implements DQP {
     
 	private Map<RequestID, RequestWorkItem> requests = new ConcurrentHashMap<RequestID, RequestWorkItem>();			
 	private Map<String, ClientState> clientState = new ConcurrentHashMap<String, ClientState>();
+	private ConcurrentHashMap<CacheID, RequestWorkItem> cachableRequests = new ConcurrentHashMap<CacheID, RequestWorkItem>();
     
     private int maxActivePlans = DQPConfiguration.DEFAULT_MAX_ACTIVE_PLANS;
     private int currentlyActivePlans;
@@ -372,6 +374,18 @@ public class DQPCore implements DQP {
     	}
     }
     
+    /**
+     * Register the work item as the one producing the cachable results for the given id.
+     * @return the work item already producing the results, or null if the given work item was registered
+     */
+    RequestWorkItem addCachableRequest(CacheID id, RequestWorkItem workItem) {
+    	return this.cachableRequests.putIfAbsent(id, workItem);
+    }
+    
+    void removeCachableRequest(CacheID id, RequestWorkItem workItem) {
+    	this.cachableRequests.remove(id, workItem);
+    }
+    
     void addWork(Runnable work) {
 		this.processWorkerPool.execute(work);
     }
@@ -79,6 +79,7 @@ import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
 import org.teiid.metadata.*;
+import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.metadata.Table.TriggerEvent;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.metadata.CompositeMetadataStore;
@@ -118,6 +119,16 @@ import org.teiid.translator.TranslatorException;
  */
 public class DataTierManagerImpl implements ProcessorDataManager {
 	
+	/**
+	 * Model property for the ttl in milliseconds of cached source query results
+	 * when the translator does not supply a {@link CacheDirective}
+	 */
+	public static final String FRAGMENT_CACHE_TTL = "fragment-cache-ttl"; //$NON-NLS-1$
+	/**
+	 * Model property for the widest {@link Scope} of cached source query results, defaults to VDB
+	 */
+	public static final String FRAGMENT_CACHE_SCOPE = "fragment-cache-scope"; //$NON-NLS-1$
+	
 	private static final int MAX_VALUE_LENGTH = 1 << 21;
 
 	private static final class ThreadBoundTask implements Callable<Void>, CompletionListener<Void> {
@@ -786,6 +797,9 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 				} catch (TranslatorException e) {
 					throw new TeiidProcessingException(QueryPlugin.Event.TEIID30504, e, aqr.getConnectorName() + ": " + e.getMessage()); //$NON-NLS-1$
 				}
+				if (cd == null) {
+					cd = getFragmentCacheDirective(workItem.getDqpWorkContext().getVDB(), modelName, cv.determinism);
+				}
 				if (cd != null) {
 					if (cd.getScope() == Scope.NONE) {
 						parameterObject.doNotCache = true;
@@ -829,6 +843,48 @@ public class DataTierManagerImpl implements ProcessorDataManager {
 		return result;
 	}
 
+	/**
+	 * Get the default {@link CacheDirective} for the pushed command based upon the model properties.
+	 * The scope is narrowed to match the determinism of the functions in the command.
+	 * @return the directive or null if the results should not be cached
+	 */
+	static CacheDirective getFragmentCacheDirective(VDBMetaData vdb, String modelName, Determinism determinism) {
+		if (determinism.compareTo(Determinism.SESSION_DETERMINISTIC) < 0) {
+			return null;
+		}
+		ModelMetaData model = vdb.getModel(modelName);
+		if (model == null) {
+			return null;
+		}
+		String ttl = model.getPropertyValue(FRAGMENT_CACHE_TTL);
+		if (ttl == null) {
+			return null;
+		}
+		CacheDirective cd = new CacheDirective();
+		Scope scope = Scope.VDB;
+		try {
+			cd.setTtl(Long.valueOf(ttl));
+			String scopeString = model.getPropertyValue(FRAGMENT_CACHE_SCOPE);
+			if (scopeString != null) {
+				scope = Scope.valueOf(scopeString.toUpperCase());
+			}
+		} catch (IllegalArgumentException e) {
+			LogManager.logDetail(LogConstants.CTX_DQP, e, "Invalid fragment cache properties for model", modelName); //$NON-NLS-1$
+			return null;
+		}
+		Scope determinismScope = Scope.VDB;
+		if (determinism == Determinism.SESSION_DETERMINISTIC) {
+			determinismScope = Scope.SESSION;
+		} else if (determinism == Determinism.USER_DETERMINISTIC) {
+			determinismScope = Scope.USER;
+		}
+		if (determinismScope.compareTo(scope) < 0) {
+			scope = determinismScope;
+		}
+		cd.setScope(scope);
+		return cd;
+	}
+
 	/**
 	 * thread bound work is tricky for our execution model
 	 * 
@@ -1125,7 +1181,7 @@ public class DataTierManagerImpl implements ProcessorDataManager {
         aqr.setMaxResultRows(requestMgr.getMaxSourceRows());
         aqr.setExceptionOnMaxRows(requestMgr.isExceptionOnMaxSourceRows());
         aqr.setPartialResults(request.supportsPartialResults());
-        aqr.setSerial(requestMgr.getUserRequestSourceConcurrency() == 1);
+        aqr.setSerial(workItem.getUserRequestSourceConcurrency() == 1);
     	aqr.setTransactionContext(workItem.getTransactionContext());
         aqr.setBufferManager(this.getBufferManager());
         if (connectorBindingId == null) {
@@ -41,6 +41,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.id.IDGenerator;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
@@ -94,6 +95,10 @@ import org.teiid.query.validator.ValidatorReport;
  */
 public class Request {
     
+	public static final String UNION_PARALLELISM = "union_parallelism"; //$NON-NLS-1$
+	public static final String SORT_PARALLELISM = "sort_parallelism"; //$NON-NLS-1$
+	public static final String DEPENDENT_BLOOM_FILTER_THRESHOLD = "dependent_bloom_filter_threshold"; //$NON-NLS-1$
+	
 	// init state
     protected RequestMessage requestMsg;
     private String vdbName;
@@ -234,12 +239,48 @@ public class Request {
         }
         this.context.setOptions(options);
         this.context.setSession(workContext.getSession());
+        Integer unionParallelism = getIntegerOption(UNION_PARALLELISM);
+        if (unionParallelism != null) {
+        	//the user setting may not exceed the configured source concurrency
+        	this.context.setUnionParallelism(Math.min(unionParallelism, this.userRequestConcurrency));
+        }
+        Integer sortParallelism = getIntegerOption(SORT_PARALLELISM);
+        if (sortParallelism != null) {
+        	//the user setting may not exceed the configured source concurrency
+        	this.context.setSortParallelism(Math.min(sortParallelism, this.userRequestConcurrency));
+        }
+        Integer bloomFilterThreshold = getIntegerOption(DEPENDENT_BLOOM_FILTER_THRESHOLD);
+        if (bloomFilterThreshold != null) {
+        	this.context.setDependentBloomFilterThreshold(bloomFilterThreshold);
+        }
         this.context.setRequestId(this.requestId);
         this.context.setDQPWorkContext(this.workContext);
         this.context.setTransactionService(this.transactionService);
         this.context.setVDBClassLoader(workContext.getVDB().getAttachment(ClassLoader.class));
     }
     
+    /**
+     * Get an integer option from the session variables, or if not set from the vdb properties
+     */
+    private Integer getIntegerOption(String name) {
+    	Object value = null;
+        if (workContext.getSession() != null) {
+        	value = workContext.getSession().getSessionVariables().get(name);
+        }
+        if (value == null) {
+        	value = workContext.getVDB().getPropertyValue(name);
+        }
+        if (value == null) {
+        	return null;
+        }
+    	try {
+    		return (Integer)DataTypeManager.transformValue(value, DataTypeManager.DefaultDataClasses.INTEGER);
+		} catch (TransformationException e) {
+			LogManager.logDetail(LogConstants.CTX_DQP, e, "Invalid value for", name); //$NON-NLS-1$
+		}
+    	return null;
+    }
+    
     public void setUserRequestConcurrency(int userRequestConcurrency) {
 		this.userRequestConcurrency = userRequestConcurrency;
 	}
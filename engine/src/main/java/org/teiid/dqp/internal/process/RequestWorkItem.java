@@ -47,11 +47,13 @@ import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleBuffer.TupleBufferTupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
 import org.teiid.dqp.internal.process.DQPCore.CompletionListener;
 import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
@@ -75,10 +77,14 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.QueryProcessor.ExpiredTimeSliceException;
+import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.Limit;
+import org.teiid.query.sql.lang.QueryCommand;
 import org.teiid.query.sql.lang.SPParameter;
 import org.teiid.query.sql.lang.StoredProcedure;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Symbol;
 import org.teiid.query.util.CommandContext;
@@ -89,6 +95,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	//TODO: this could be configurable
 	private static final int OUTPUT_BUFFER_MAX_BATCHES = 8;
 	private static final int CLIENT_FETCH_MAX_BATCHES = 3;
+	private static final int MAX_STREAMING_WINDOW = 16;
 	
 	public static final class MoreWorkTask implements Runnable {
 
@@ -175,6 +182,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     private AnalysisRecord analysisRecord;
     private TransactionContext transactionContext;
     TupleBuffer resultsBuffer;
+    private boolean prefixResults; //the results were copied from cached results and are owned by this request
+    private CacheID coalesceId; //set while other identical requests may wait on this one to populate the cache
+    private List<RequestWorkItem> followers = new LinkedList<RequestWorkItem>();
+    private boolean followersReleased;
+    private boolean coalesced; //set once this request has waited on another
     private boolean returnsUpdateCount;
     
     /*
@@ -191,6 +203,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	private ResultsReceiver<ResultsMessage> resultsReceiver;
 	private int begin;
 	private int end;
+	//streaming - additional outstanding requests that will be answered with successive batches
+	private int streamingWindow = -1;
+	private LinkedList<ResultsReceiver<ResultsMessage>> credits;
+	private int streamedRow;
+	private int streamingCount;
     private TupleBatch savedBatch;
     private Map<Integer, LobWorkItem> lobStreams = Collections.synchronizedMap(new HashMap<Integer, LobWorkItem>(4));    
     
@@ -227,7 +244,19 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	 * @param endRow
 	 */
     synchronized void requestResults(int beginRow, int endRow, ResultsReceiver<ResultsMessage> receiver) {
-		if (this.resultsReceiver != null) {
+		if (this.credits != null) {
+			//streaming - the rows are determined by what has already been sent
+			this.streamingCount = endRow - beginRow + 1;
+			if (this.resultsReceiver != null) {
+				if (this.credits.size() >= this.streamingWindow - 1) {
+					throw new IllegalStateException("Streaming window exceeded"); //$NON-NLS-1$
+				}
+				this.credits.add(receiver);
+				return;
+			}
+			beginRow = this.streamedRow + 1;
+			endRow = beginRow + this.streamingCount - 1;
+		} else if (this.resultsReceiver != null) {
 			throw new IllegalStateException("Results already requested"); //$NON-NLS-1$\
 		}
 		this.resultsReceiver = receiver;
@@ -235,6 +264,22 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		this.end = endRow;
 	}
     
+    /**
+     * Determine the streaming window granted to the client.  Streaming is only 
+     * used for remote forward only results.
+     */
+    private void grantStreamingWindow() {
+    	if (this.streamingWindow >= 0) {
+    		return;
+    	}
+    	this.streamingWindow = 0;
+    	if (this.requestMsg.getStreamingWindow() > 1 && isForwardOnly() 
+    			&& !this.requestMsg.getRequestOptions().isContinuous() && !this.useCallingThread) {
+    		this.streamingWindow = Math.min(this.requestMsg.getStreamingWindow(), MAX_STREAMING_WINDOW);
+    		this.credits = new LinkedList<ResultsReceiver<ResultsMessage>>();
+    	}
+    }
+    
 	@Override
 	protected boolean isDoneProcessing() {
 		return isClosed;
@@ -421,7 +466,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	protected void processMore() throws BlockedException, TeiidException {
 		if (!doneProducingBatches) {
 			synchronized (queue) {
-				while (!queue.isEmpty() && totalThreads < dqpCore.getUserRequestSourceConcurrency()) {
+				while (!queue.isEmpty() && totalThreads < getUserRequestSourceConcurrency()) {
 					WorkWrapper<?> w = queue.removeFirst();
 	        		dqpCore.addWork(w.work);
 	        		w.submitted = true;
@@ -498,6 +543,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 					
 					CommandContext cc = this.processor.getContext();
 					cc.close();
+				} else if (this.prefixResults) {
+					rowcount = resultsBuffer.getRowCount();
+					resultsBuffer.remove();
 				}
 	
 				this.resultsBuffer = null;
@@ -527,8 +575,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 			}
 			
 	        synchronized (this) {
-		        if (this.processingException == null && this.resultsReceiver != null) {
-		        	//sanity check to ensure that something will be sent to the client
+		        if (this.processingException == null && (this.resultsReceiver != null || (this.credits != null && !this.credits.isEmpty()))) {
+		        	//sanity check to ensure that something will be sent to the client, including any outstanding credits
 		        	setCanceledException();
 		        }
 			}
@@ -536,6 +584,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 			handleThrowable(t);
 		} finally {
 			isClosed = true;
+			releaseFollowers();
 			
 			dqpCore.removeRequest(this);
 		    
@@ -590,7 +639,14 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 							return;
 						}
 						LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", cacheId); //$NON-NLS-1$
-					} 
+					} else if (cr == null) {
+						if (useCachedPrefix(rsCache, pi)) {
+							return;
+						}
+						if (!rsCache.isTransactional()) {
+							coalesceCachableRequest(pi);
+						}
+					}
 				} else {
 					LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Parameters are not serializable - cache cannot be used for", cacheId); //$NON-NLS-1$
 				}
@@ -606,6 +662,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         	this.cid = cacheId;
         	//turn on the collection of data objects used
         	request.processor.getContext().setDataObjects(new HashSet<Object>(4));
+        } else {
+        	releaseFollowers();
         }
         request.processor.getContext().setWorkItem(this);
 		processor = request.processor;
@@ -712,6 +770,139 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		request = null;
 	}
 
+	/**
+	 * Check for cached results of the same query without its limit.  If found, the 
+	 * limited rows are copied from the cached results rather than executing the query.
+	 * @return true if the cached results were used
+	 */
+	private boolean useCachedPrefix(SessionAwareCache<CachedResults> rsCache, ParseInfo pi) throws TeiidProcessingException, TeiidComponentException {
+		String sql = requestMsg.getCommandString();
+		if (requestMsg.getCommand() != null || sql == null 
+				|| (StringUtil.indexOfIgnoreCase(sql, "limit") < 0 && StringUtil.indexOfIgnoreCase(sql, "fetch") < 0 && StringUtil.indexOfIgnoreCase(sql, "offset") < 0)) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return false;
+		}
+		Command command = QueryParser.getQueryParser().parseCommand(sql, pi);
+		if (!(command instanceof QueryCommand) || ((QueryCommand)command).getLimit() == null) {
+			return false;
+		}
+		QueryCommand limited = (QueryCommand)command;
+		Limit limit = limited.getLimit();
+		long offset = getLimitValue(limit.getOffset(), 0);
+		long rowLimit = getLimitValue(limit.getRowLimit(), Integer.MAX_VALUE);
+		if (offset < 0 || rowLimit < 0) {
+			return false;
+		}
+		QueryCommand full = (QueryCommand)limited.clone();
+		full.setLimit(null);
+		CacheID prefixId = new CacheID(this.dqpWorkContext, pi, full.toString());
+		if (!prefixId.setParameters(requestMsg.getParameterValues())) {
+			return false;
+		}
+		CachedResults cr = rsCache.get(prefixId);
+		if (cr == null || cr.getRowLimit() != 0 || cr.getResults().isLobs()) {
+			return false;
+		}
+		request.initMetadata();
+		QueryResolver.resolveCommand(limited, request.metadata);
+		if (request.validateAccess(requestMsg.getCommands(), limited, CommandType.CACHED)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", prefixId); //$NON-NLS-1$
+			return false;
+		}
+		TupleBuffer cached = cr.getResults();
+		long end = Math.min(cached.getRowCount(), offset + rowLimit);
+		if (requestMsg.getRowLimit() > 0) {
+			end = Math.min(end, offset + requestMsg.getRowLimit());
+		}
+		LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Using rows", offset + 1, "to", end, "of the cached results", prefixId); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		TupleBuffer prefix = dqpCore.getBufferManager().createTupleBuffer(cached.getSchema(), request.context.getConnectionId(), TupleSourceType.FINAL);
+		TupleBufferTupleSource ts = cached.createIndexedTupleSource();
+		try {
+			ts.setPosition((int)offset + 1);
+			for (long i = offset; i < end; i++) {
+				prefix.addTuple(ts.nextTuple());
+			}
+		} finally {
+			ts.closeSource();
+		}
+		prefix.close();
+		this.resultsBuffer = prefix;
+		this.prefixResults = true;
+		this.originalCommand = limited;
+		doneProducingBatches();
+		return true;
+	}
+	
+	/**
+	 * Wait for an identical cachable request that is already executing to populate the cache, 
+	 * rather than executing the same command concurrently.  Otherwise register this request 
+	 * as the one that others will wait on.
+	 * <br>
+	 * A request only waits once, since the results may not be shareable, e.g. session scoped.
+	 */
+	private void coalesceCachableRequest(ParseInfo pi) throws BlockedException {
+		if (coalesced || isCanceled) {
+			return;
+		}
+		CacheID key = new CacheID(this.dqpWorkContext, pi, requestMsg.getCommandString());
+		if (!key.setParameters(requestMsg.getParameterValues())) {
+			return;
+		}
+		RequestWorkItem leader = dqpCore.addCachableRequest(key, this);
+		if (leader == null) {
+			this.coalesceId = key;
+			return;
+		}
+		coalesced = true;
+		if (!leader.addFollower(this)) {
+			//the leader has already finished, so check the cache again
+			moreWork();
+		}
+		LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Waiting for the identical request", leader.requestID); //$NON-NLS-1$
+		this.state = ProcessingState.NEW;
+		throw BlockedException.block(requestID, "Waiting for the identical request", leader.requestID); //$NON-NLS-1$
+	}
+	
+	private boolean addFollower(RequestWorkItem follower) {
+		synchronized (followers) {
+			if (followersReleased) {
+				return false;
+			}
+			followers.add(follower);
+			return true;
+		}
+	}
+	
+	/**
+	 * Allow waiting requests to proceed, which should happen once the results are cached or 
+	 * it is known that they will not be.
+	 */
+	private void releaseFollowers() {
+		if (coalesceId == null) {
+			return;
+		}
+		dqpCore.removeCachableRequest(coalesceId, this);
+		coalesceId = null;
+		List<RequestWorkItem> toRelease = null;
+		synchronized (followers) {
+			followersReleased = true;
+			toRelease = new ArrayList<RequestWorkItem>(followers);
+			followers.clear();
+		}
+		for (RequestWorkItem follower : toRelease) {
+			follower.moreWork();
+		}
+	}
+	
+	private static long getLimitValue(Expression expr, long defaultValue) {
+		if (expr == null) {
+			return defaultValue;
+		}
+		if (expr instanceof Constant && ((Constant)expr).getValue() instanceof Integer) {
+			return (Integer)((Constant)expr).getValue();
+		}
+		return -1;
+	}
+
 	private void initTransactionState(TransactionContext tc) {
 		transactionContext = tc;
 		if (this.transactionContext != null && this.transactionContext.getTransactionType() != Scope.NONE) {
@@ -757,7 +948,42 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         if (determinismLevel.compareTo(Determinism.SESSION_DETERMINISTIC) <= 0) {
 			LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30008, originalCommand));
 		}
-        dqpCore.getRsCache().put(cid, determinismLevel, cr, originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null);
+        Long ttl = originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null;
+        dqpCore.getRsCache().put(cid, determinismLevel, cr, ttl);
+        if (cr.getRowLimit() == 0 && originalCommand instanceof QueryCommand && ((QueryCommand)originalCommand).getLimit() == null && !resultsBuffer.isLobs()) {
+        	addPrefixEntry(determinismLevel, cr, ttl);
+        }
+	}
+
+	/**
+	 * Make the full results available to limited forms of the same query, 
+	 * which will use the normalized string form of the command as the key
+	 * @see #useCachedPrefix(SessionAwareCache, ParseInfo)
+	 */
+	private void addPrefixEntry(Determinism determinismLevel, CachedResults cr, Long ttl) {
+		String sql = requestMsg.getCommandString();
+		if (requestMsg.getCommand() != null || sql == null) {
+			return;
+		}
+		ParseInfo pi = Request.createParseInfo(requestMsg);
+		String normalized = null;
+		try {
+			Command command = QueryParser.getQueryParser().parseCommand(sql, pi);
+			if (!(command instanceof QueryCommand) || ((QueryCommand)command).getLimit() != null) {
+				return;
+			}
+			normalized = command.toString();
+		} catch (TeiidProcessingException e) {
+			LogManager.logDetail(LogConstants.CTX_DQP, e, requestID, "Could not normalize the cached command"); //$NON-NLS-1$
+			return;
+		}
+		if (normalized.equals(sql)) {
+			return;
+		}
+		CacheID prefixId = new CacheID(this.dqpWorkContext, pi, normalized);
+		if (prefixId.setParameters(requestMsg.getParameterValues())) {
+			dqpCore.getRsCache().put(prefixId, determinismLevel, cr, ttl);
+		}
 	}
 	
 	public SessionAwareCache<CachedResults> getRsCache() {
@@ -770,6 +996,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	protected boolean sendResultsIfNeeded(TupleBatch batch) throws TeiidComponentException {
 		ResultsMessage response = null;
 		ResultsReceiver<ResultsMessage> receiver = null;
+		List<ResultsReceiver<ResultsMessage>> unused = null;
+		boolean more = false;
 		boolean result = true;
 		synchronized (this) {
 			if (this.resultsReceiver == null) {
@@ -879,6 +1107,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	        }
 	        // set final row
 	        response.setFinalRow(finalRowCount);
+	        grantStreamingWindow();
+	        response.setStreamingWindow(this.streamingWindow);
 	        if (response.getLastRow() == finalRowCount) {
 	        	response.setDelayDeserialization(false);
 	        }
@@ -898,9 +1128,37 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	         */
             receiver = this.resultsReceiver;
             this.resultsReceiver = null;    
+            if (this.credits != null) {
+            	this.streamedRow = response.getLastRow();
+            	if (finalRowCount >= 0 && this.streamedRow >= finalRowCount) {
+            		if (!this.credits.isEmpty()) {
+	            		unused = new ArrayList<ResultsReceiver<ResultsMessage>>(this.credits);
+	            		this.credits.clear();
+            		}
+            	} else if (!this.credits.isEmpty()) {
+            		//immediately start on the next outstanding request
+            		this.resultsReceiver = this.credits.removeFirst();
+            		this.begin = this.streamedRow + 1;
+            		this.end = this.begin + this.streamingCount - 1;
+            		more = true;
+            	}
+            }
 		}
 		cancelCancelTask();
         receiver.receiveResults(response);
+        if (unused != null) {
+        	for (ResultsReceiver<ResultsMessage> credit : unused) {
+        		ResultsMessage empty = createResultsMessage(Collections.<List<?>>emptyList(), this.originalCommand.getProjectedSymbols());
+        		empty.setFirstRow(response.getFinalRow() + 1);
+        		empty.setLastRow(response.getFinalRow());
+        		empty.setFinalRow(response.getFinalRow());
+        		empty.setStreamingWindow(this.streamingWindow);
+        		credit.receiveResults(empty);
+			}
+        }
+        if (more) {
+        	moreWork();
+        }
         return result;
 	}
 
@@ -952,13 +1210,21 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 
     private void sendError() {
     	ResultsReceiver<ResultsMessage> receiver = null;
+    	List<ResultsReceiver<ResultsMessage>> unused = null;
     	synchronized (this) {
     		receiver = this.resultsReceiver;
     		this.resultsReceiver = null;
+    		if (receiver == null && this.credits != null && !this.credits.isEmpty()) {
+    			receiver = this.credits.removeFirst();
+    		}
     		if (receiver == null) {
     			LogManager.logDetail(LogConstants.CTX_DQP, processingException, "Unable to send error to client as results were already sent.", requestID); //$NON-NLS-1$
     			return;
     		}
+    		if (this.credits != null && !this.credits.isEmpty()) {
+    			unused = new ArrayList<ResultsReceiver<ResultsMessage>>(this.credits);
+    			this.credits.clear();
+    		}
     	}
 		LogManager.logDetail(LogConstants.CTX_DQP, processingException, "Sending error to client", requestID); //$NON-NLS-1$
         ResultsMessage response = new ResultsMessage();
@@ -970,6 +1236,13 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         response.setException(exception);
         setAnalysisRecords(response);
         receiver.receiveResults(response);
+        if (unused != null) {
+        	for (ResultsReceiver<ResultsMessage> credit : unused) {
+        		ResultsMessage error = new ResultsMessage();
+        		error.setException(exception);
+        		credit.receiveResults(error);
+			}
+        }
     }
 
 	private Throwable addCancelCode(Throwable exception) {
@@ -1081,6 +1354,19 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     
     public void requestMore(int batchFirst, int batchLast, ResultsReceiver<ResultsMessage> receiver) {
     	this.requestResults(batchFirst, batchLast, receiver);
+    	if (this.isClosed) {
+    		/*
+    		 * a closed item will not process again, so answer the request 
+    		 * and any outstanding credits here
+    		 */
+    		synchronized (this) {
+	    		if (this.processingException == null) {
+	    			this.processingException = new IllegalStateException("Request is already closed"); //$NON-NLS-1$
+	    		}
+    		}
+    		sendError();
+    		return;
+    	}
     	this.doMoreWork(); 
     }
     
@@ -1157,6 +1443,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		    }
 		}
 		addToCache();
+		releaseFollowers();
 	}
 
 	private void doneProducingBatches() {
@@ -1183,19 +1470,31 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		return work;
 	}
 	
+    /**
+     * @return the number of source queries that may execute at once for this request,
+     * which may have been raised above the engine default by the request options
+     */
+    int getUserRequestSourceConcurrency() {
+    	QueryProcessor qp = this.processor;
+    	if (qp != null && qp.getContext().getUserRequestSourceConcurrency() > 0) {
+    		return qp.getContext().getUserRequestSourceConcurrency();
+    	}
+    	return dqpCore.getUserRequestSourceConcurrency();
+    }
+    
     <T> FutureWork<T> addWork(Callable<T> callable, CompletionListener<T> listener, int priority) {
     	FutureWork<T> work = new FutureWork<T>(callable, priority);
     	WorkWrapper<T> wl = new WorkWrapper<T>(work);
     	work.addCompletionListener(wl);
     	work.addCompletionListener(listener);
     	synchronized (queue) {
-        	if (totalThreads < dqpCore.getUserRequestSourceConcurrency()) {
+        	if (totalThreads < getUserRequestSourceConcurrency()) {
         		dqpCore.addWork(work);
         		totalThreads++;
         		wl.submitted = true;
         	} else {
     	    	queue.add(wl);
-    	    	LogManager.logDetail(LogConstants.CTX_DQP, this.requestID, " reached max source concurrency of ", dqpCore.getUserRequestSourceConcurrency()); //$NON-NLS-1$
+    	    	LogManager.logDetail(LogConstants.CTX_DQP, this.requestID, " reached max source concurrency of ", getUserRequestSourceConcurrency()); //$NON-NLS-1$
         	}
     	}
     	return work;
@@ -34,12 +34,15 @@ import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.RegisterRequestParameter;
 import org.teiid.query.sql.LanguageVisitor;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.DependentSetCriteria;
 import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.util.CommandContext;
 
 public class TupleSourceCache {
@@ -47,6 +50,7 @@ public class TupleSourceCache {
 	final static class CachableVisitor extends LanguageVisitor {
 		boolean cacheable = true;
 		List<Object> parameters;
+		Determinism determinism = Determinism.DETERMINISTIC;
 
 		@Override
 		public void visit(Constant c) {
@@ -60,6 +64,14 @@ public class TupleSourceCache {
 			}
 		}
 
+		@Override
+		public void visit(Function obj) {
+			FunctionDescriptor fd = obj.getFunctionDescriptor();
+			if (fd != null && fd.getDeterministic().compareTo(determinism) < 0) {
+				determinism = fd.getDeterministic();
+			}
+		}
+
 		private void notCachable() {
 			cacheable = false;
 			setAbort(true);
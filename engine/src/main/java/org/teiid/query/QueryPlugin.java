@@ -562,6 +562,13 @@ public class QueryPlugin { // extends Plugin {
     	TEIID31148, 
     	TEIID31149, 
     	TEIID31150,
-    	TEIID31151
+    	TEIID31151,
+    	TEIID31152,
+    	TEIID31153,
+    	TEIID31154,
+    	TEIID31155,
+    	TEIID31156,
+    	TEIID31157,
+    	TEIID31158
 	}
 }
@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.eval;
+
+import java.util.List;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+
+/**
+ * An expression or criteria that has been compiled against the element map 
+ * of an {@link Evaluator}, see {@link Evaluator#compile(org.teiid.query.sql.symbol.Expression)}.
+ * <br/>
+ * Element references are resolved to tuple indexes and the expression tree dispatch is 
+ * done once at compile time rather than for each row.
+ */
+public abstract class CompiledExpression {
+	
+	/**
+	 * Evaluate against the given tuple.  Compiled criteria return the three valued 
+	 * logic result, which may be null.
+	 */
+	public abstract Object evaluate(List<?> tuple) 
+	throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+	
+	/**
+	 * Evaluate compiled criteria, with an unknown result treated as false.
+	 */
+	public boolean evaluateCriteria(List<?> tuple) 
+	throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+		return Boolean.TRUE.equals(evaluate(tuple));
+	}
+
+}
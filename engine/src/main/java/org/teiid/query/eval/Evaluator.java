@@ -59,6 +59,7 @@ import org.teiid.core.types.*;
 import org.teiid.core.types.XMLType.Type;
 import org.teiid.core.types.basic.StringToSQLXMLTransform;
 import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.jdbc.TeiidSQLException;
 import org.teiid.language.Like.MatchMode;
 import org.teiid.metadata.FunctionMethod.PushDown;
@@ -176,6 +177,11 @@ public class Evaluator {
     		new String[] {"([a]|[^a])*", "(", ")", "*", "?", "+", //$NON-NLS-1$ //$NON-NLS-2$  //$NON-NLS-3$ //$NON-NLS-4$  //$NON-NLS-5$ //$NON-NLS-6$
     				"[", "]", "([a]|[^a])", "{", "|", "}"},  SIMILAR_REGEX_RESERVED, '\\', 0);  //$NON-NLS-1$ //$NON-NLS-2$  //$NON-NLS-3$ //$NON-NLS-4$  //$NON-NLS-5$ //$NON-NLS-6$  
     
+    /**
+     * Set to false to always interpret rather than compile expressions, see {@link #compile(Expression)}
+     */
+    public static final boolean COMPILE_EXPRESSIONS = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.compileExpressions", true); //$NON-NLS-1$
+    
     private Map elements;
     
     protected ProcessorDataManager dataMgr;
@@ -200,6 +206,24 @@ public class Evaluator {
 		this.dataMgr = dataMgr;
 	}
 
+    /**
+     * Compile the criteria against the element map of this evaluator.  The result is bound to
+     * this evaluator and has the same semantics as {@link #evaluateTVL(Criteria, List)}.
+     * Constructs that cannot be compiled are interpreted.
+     */
+    public CompiledExpression compile(Criteria criteria) {
+    	return new ExpressionCompiler(this, elements, COMPILE_EXPRESSIONS).compileCriteria(criteria);
+    }
+    
+    /**
+     * Compile the expression against the element map of this evaluator.  The result is bound to
+     * this evaluator and has the same semantics as {@link #evaluate(Expression, List)}.
+     * Constructs that cannot be compiled are interpreted.
+     */
+    public CompiledExpression compile(Expression expression) {
+    	return new ExpressionCompiler(this, elements, COMPILE_EXPRESSIONS).compile(expression);
+    }
+
 	public boolean evaluate(Criteria criteria, List<?> tuple)
         throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
 
@@ -0,0 +1,452 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.eval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.ExpressionCriteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.CaseExpression;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.SearchedCaseExpression;
+
+/**
+ * Compiles expressions and criteria into a tree of {@link CompiledExpression}s that 
+ * mirror the {@link Evaluator} logic, including its exception wrapping.  
+ * Anything that is not directly supported is delegated back to the {@link Evaluator}.
+ */
+final class ExpressionCompiler {
+	
+	private static class ElementValue extends CompiledExpression {
+		private int index;
+		
+		ElementValue(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple) {
+			return tuple.get(index);
+		}
+	}
+	
+	private static class ConstantValue extends CompiledExpression {
+		private Object value;
+		
+		ConstantValue(Object value) {
+			this.value = value;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple) {
+			return value;
+		}
+	}
+	
+	private static class Interpreted extends CompiledExpression {
+		private Evaluator eval;
+		private Expression expression;
+		
+		Interpreted(Evaluator eval, Expression expression) {
+			this.eval = eval;
+			this.expression = expression;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return eval.internalEvaluate(expression, tuple);
+		}
+	}
+	
+	private static class InterpretedCriteria extends CompiledExpression {
+		private Evaluator eval;
+		private Criteria criteria;
+		
+		InterpretedCriteria(Evaluator eval, Criteria criteria) {
+			this.eval = eval;
+			this.criteria = criteria;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return eval.evaluateTVL(criteria, tuple);
+		}
+	}
+	
+	/**
+	 * Adds the top level exception context that {@link Evaluator#evaluate(Expression, List)} adds  
+	 */
+	private static class Wrapped extends CompiledExpression {
+		private CompiledExpression compiled;
+		private Expression expression;
+		
+		Wrapped(CompiledExpression compiled, Expression expression) {
+			this.compiled = compiled;
+			this.expression = expression;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			try {
+				return compiled.evaluate(tuple);
+			} catch (ExpressionEvaluationException e) {
+				throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30328, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30328, new Object[] {expression, e.getMessage()}));
+			}
+		}
+	}
+	
+	private static class FunctionValue extends CompiledExpression {
+		private Evaluator eval;
+		private FunctionDescriptor fd;
+		private CompiledExpression[] args;
+		
+		FunctionValue(Evaluator eval, FunctionDescriptor fd, CompiledExpression[] args) {
+			this.eval = eval;
+			this.fd = fd;
+			this.args = args;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object[] values = null;
+		    int start = 0;
+		    if (fd.requiresContext()) {
+				values = new Object[args.length+1];
+		        values[0] = eval.context;
+		        start = 1;
+		    } else {
+		        values = new Object[args.length];
+		    }
+		    for(int i=0; i < args.length; i++) {
+		        values[i+start] = args[i].evaluate(tuple);
+		    }            
+			return fd.invokeFunction(values, eval.context, null);
+		}
+	}
+	
+	private static class CaseValue extends CompiledExpression {
+		private CompiledExpression expression;
+		private CompiledExpression[] whens;
+		private CompiledExpression[] thens;
+		private CompiledExpression elseExpression;
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object exprVal = expression == null ? null : expression.evaluate(tuple);
+			for (int i = 0; i < whens.length; i++) {
+				if (expression == null) {
+					if (whens[i].evaluateCriteria(tuple)) {
+						return thens[i].evaluate(tuple);
+					}
+				} else if (EquivalenceUtil.areEqual(exprVal, whens[i].evaluate(tuple))) {
+					return thens[i].evaluate(tuple);
+				}
+			}
+			if (elseExpression != null) {
+				return elseExpression.evaluate(tuple);
+			}
+			return null;
+		}
+	}
+	
+	private static class CriteriaValue extends CompiledExpression {
+		private CompiledExpression criteria;
+		
+		CriteriaValue(CompiledExpression criteria) {
+			this.criteria = criteria;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return Boolean.valueOf(criteria.evaluateCriteria(tuple));
+		}
+	}
+	
+	private static class Compound extends CompiledExpression {
+		private boolean and;
+		private CompiledExpression[] criteria;
+		
+		Compound(boolean and, CompiledExpression[] criteria) {
+			this.and = and;
+			this.criteria = criteria;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+	        Boolean result = and?Boolean.TRUE:Boolean.FALSE;
+			for (int i = 0; i < criteria.length; i++) {
+				Boolean value = (Boolean)criteria[i].evaluate(tuple);
+	            if (value == null) {
+					result = null;
+				} else if (!value.booleanValue()) {
+					if (and) {
+						return Boolean.FALSE;
+					}
+	            } else if (!and) {
+	            	return Boolean.TRUE;
+	            }
+			}
+			return result;
+		}
+	}
+	
+	private static class Not extends CompiledExpression {
+		private CompiledExpression criteria;
+		
+		Not(CompiledExpression criteria) {
+			this.criteria = criteria;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Boolean result = (Boolean)criteria.evaluate(tuple);
+	        if (result == null) {
+	            return null;
+	        }
+	        return Boolean.valueOf(!result.booleanValue());
+		}
+	}
+	
+	private static class Compare extends CompiledExpression {
+		private CompareCriteria criteria;
+		private CompiledExpression left;
+		private CompiledExpression right;
+		
+		Compare(CompareCriteria criteria, CompiledExpression left, CompiledExpression right) {
+			this.criteria = criteria;
+			this.left = left;
+			this.right = right;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object leftValue = null;
+			try {
+				leftValue = left.evaluate(tuple);
+			} catch(ExpressionEvaluationException e) {
+	             throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "left", criteria)); //$NON-NLS-1$
+			}
+			if(leftValue == null) {
+				return null;
+			}
+			Object rightValue = null;
+			try {
+				rightValue = right.evaluate(tuple);
+			} catch(ExpressionEvaluationException e) {
+	             throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "right", criteria)); //$NON-NLS-1$
+			}
+			if(rightValue == null) {
+				return null;
+			}
+			return Evaluator.compare(criteria, leftValue, rightValue);
+		}
+	}
+	
+	private static class IsNull extends CompiledExpression {
+		private IsNullCriteria criteria;
+		private CompiledExpression expression;
+		
+		IsNull(IsNullCriteria criteria, CompiledExpression expression) {
+			this.criteria = criteria;
+			this.expression = expression;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			Object value = null;
+			try {
+				value = expression.evaluate(tuple);
+			} catch(ExpressionEvaluationException e) {
+	             throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30323, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30323, criteria));
+			}
+			return Boolean.valueOf(value == null ^ criteria.isNegated());
+		}
+	}
+	
+	private static class Cast extends CompiledExpression {
+		private CompiledExpression expression;
+		
+		Cast(CompiledExpression expression) {
+			this.expression = expression;
+		}
+		
+		@Override
+		public Object evaluate(List<?> tuple)
+				throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+			return (Boolean)expression.evaluate(tuple);
+		}
+	}
+	
+	private Evaluator eval;
+	private Map<?, ?> elements;
+	private boolean enabled;
+	
+	ExpressionCompiler(Evaluator eval, Map<?, ?> elements, boolean enabled) {
+		this.eval = eval;
+		this.elements = elements;
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Compile with the semantics of {@link Evaluator#evaluate(Expression, List)}
+	 */
+	CompiledExpression compile(Expression expression) {
+		CompiledExpression result = compileInternal(expression);
+		if (result instanceof ElementValue || result instanceof ConstantValue) {
+			return result;
+		}
+		return new Wrapped(result, expression);
+	}
+	
+	/**
+	 * Compile with the semantics of {@link Evaluator#internalEvaluate(Expression, List)}
+	 */
+	private CompiledExpression compileInternal(Expression expression) {
+		if (!enabled) {
+			return new Interpreted(eval, expression);
+		}
+		if (expression instanceof DerivedExpression) {
+			if (elements != null) {
+				Integer index = (Integer) elements.get(expression);
+				if (index != null) {
+					return new ElementValue(index);
+				}
+			}
+			if (expression instanceof ExpressionSymbol) {
+				return compileInternal(((ExpressionSymbol)expression).getExpression());
+			}
+			return new Interpreted(eval, expression);
+		}
+		if (expression instanceof Constant) {
+			return new ConstantValue(((Constant)expression).getValue());
+		}
+		if (expression instanceof Function) {
+			Function function = (Function)expression;
+			FunctionDescriptor fd = function.getFunctionDescriptor();
+			if (fd == null || fd.getPushdown() == PushDown.MUST_PUSHDOWN || function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+				return new Interpreted(eval, expression);
+			}
+			Expression[] args = function.getArgs();
+			CompiledExpression[] compiledArgs = new CompiledExpression[args.length];
+			for (int i = 0; i < args.length; i++) {
+				compiledArgs[i] = compileInternal(args[i]);
+			}
+			return new FunctionValue(eval, fd, compiledArgs);
+		}
+		if (expression instanceof CaseExpression) {
+			CaseExpression expr = (CaseExpression)expression;
+			CaseValue result = new CaseValue();
+			result.expression = compileInternal(expr.getExpression());
+			result.whens = new CompiledExpression[expr.getWhenCount()];
+			result.thens = new CompiledExpression[expr.getWhenCount()];
+			for (int i = 0; i < expr.getWhenCount(); i++) {
+				result.whens[i] = compileInternal(expr.getWhenExpression(i));
+				result.thens[i] = compileInternal(expr.getThenExpression(i));
+			}
+			if (expr.getElseExpression() != null) {
+				result.elseExpression = compileInternal(expr.getElseExpression());
+			}
+			return result;
+		}
+		if (expression instanceof SearchedCaseExpression) {
+			SearchedCaseExpression expr = (SearchedCaseExpression)expression;
+			CaseValue result = new CaseValue();
+			result.whens = new CompiledExpression[expr.getWhenCount()];
+			result.thens = new CompiledExpression[expr.getWhenCount()];
+			for (int i = 0; i < expr.getWhenCount(); i++) {
+				result.whens[i] = compileCriteria(expr.getWhenCriteria(i));
+				result.thens[i] = compileInternal(expr.getThenExpression(i));
+			}
+			if (expr.getElseExpression() != null) {
+				result.elseExpression = compileInternal(expr.getElseExpression());
+			}
+			return result;
+		}
+		if (expression instanceof Criteria) {
+			return new CriteriaValue(compileCriteria((Criteria)expression));
+		}
+		return new Interpreted(eval, expression);
+	}
+	
+	/**
+	 * Compile with the semantics of {@link Evaluator#evaluateTVL(Criteria, List)}
+	 */
+	CompiledExpression compileCriteria(Criteria criteria) {
+		if (!enabled) {
+			return new InterpretedCriteria(eval, criteria);
+		}
+		if (criteria instanceof CompoundCriteria) {
+			CompoundCriteria compound = (CompoundCriteria)criteria;
+			List<Criteria> subCrits = compound.getCriteria();
+			CompiledExpression[] compiled = new CompiledExpression[subCrits.size()];
+			for (int i = 0; i < compiled.length; i++) {
+				compiled[i] = compileCriteria(subCrits.get(i));
+			}
+			return new Compound(compound.getOperator() == CompoundCriteria.AND, compiled);
+		} 
+		if (criteria instanceof NotCriteria) {
+			return new Not(compileCriteria(((NotCriteria)criteria).getCriteria()));
+		} 
+		if (criteria instanceof CompareCriteria) {
+			CompareCriteria compare = (CompareCriteria)criteria;
+			return new Compare(compare, compile(compare.getLeftExpression()), compile(compare.getRightExpression()));
+		} 
+		if (criteria instanceof IsNullCriteria) {
+			IsNullCriteria isNull = (IsNullCriteria)criteria;
+			return new IsNull(isNull, compile(isNull.getExpression()));
+		} 
+		if (criteria instanceof ExpressionCriteria) {
+			return new Cast(compile(((ExpressionCriteria)criteria).getExpression()));
+		}
+		return new InterpretedCriteria(eval, criteria);
+	}
+
+}
@@ -66,6 +66,17 @@ public class FunctionDescriptor implements Serializable, Cloneable {
     // a different VM.  This function descriptor can be used to look up 
     // the real VM descriptor for execution.
     private transient Method invocationMethod;
+    // Derived from the invocation method so that the per row call path does not
+    // need to clone the parameter types or reflectively inspect the method
+    private transient int parameterCount;
+    private transient Class<?> varArgType;
+    private transient Class<?> varArgComponentType;
+    // the reference array type that var args can be packed into without reflection 
+    private transient Class<? extends Object[]> varArgArrayType;
+    // the positions before the last argument that are wrapped varbinary values
+    private transient int[] binaryArgs;
+    // true if the last argument, and so any additional var args, are wrapped varbinary values
+    private transient boolean binaryVarArgs;
 	
     FunctionDescriptor() {
     }
@@ -78,6 +89,23 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         this.invocationMethod = invocationMethod;
         this.requiresContext = requiresContext;
         this.method = method;
+        if (invocationMethod != null) {
+        	Class<?>[] parameterTypes = invocationMethod.getParameterTypes();
+        	this.parameterCount = parameterTypes.length;
+        	if (method.isVarArgs() && parameterCount > 0) {
+        		this.varArgType = parameterTypes[parameterCount - 1];
+        		this.varArgComponentType = varArgType.getComponentType();
+        		if (!varArgComponentType.isPrimitive()) {
+        			this.varArgArrayType = varArgType.asSubclass(Object[].class);
+        		}
+        	}
+        	try {
+        		//skip the access check on each invocation
+        		invocationMethod.setAccessible(true);
+        	} catch (SecurityException e) {
+        		//just use the checked invocation
+        	}
+        }
 	}
 	
 	public Object newInstance() {
@@ -92,6 +120,23 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 	
 	public void setHasWrappedArgs(boolean hasWrappedArgs) {
 		this.hasWrappedArgs = hasWrappedArgs;
+		this.binaryArgs = null;
+		this.binaryVarArgs = false;
+		if (!hasWrappedArgs) {
+			return;
+		}
+		int last = types.length - 1;
+		int count = 0;
+		int[] positions = new int[types.length];
+		for (int i = 0; i < last; i++) {
+			if (types[i] == DataTypeManager.DefaultDataClasses.VARBINARY) {
+				positions[count++] = i;
+			}
+		}
+		if (count > 0) {
+			this.binaryArgs = Arrays.copyOf(positions, count);
+		}
+		this.binaryVarArgs = last >= 0 && types[last] == DataTypeManager.DefaultDataClasses.VARBINARY;
 	}
 	
 	public String getSchema() {
@@ -208,53 +253,38 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         
         // Invoke the method and return the result
         try {
-        	if (hasWrappedArgs) {
-        		for (int i = 0; i < values.length; i++) {
-        			Object val = values[i];
-        			if (val != null && types[i] == DataTypeManager.DefaultDataClasses.VARBINARY) {
-            			values[i] = ((BinaryType)val).getBytesDirect();
-        			}
+        	if (binaryArgs != null) {
+        		for (int i : binaryArgs) {
+        			unwrapBinary(values, i);
+        		}
+        	}
+        	if (binaryVarArgs && !calledWithVarArgArrayParam) {
+        		for (int i = types.length - 1; i < values.length; i++) {
+        			unwrapBinary(values, i);
         		}
         	}
-        	if (method.isVarArgs()) {
+        	if (varArgType != null) {
         		if (calledWithVarArgArrayParam) {
         			ArrayImpl av = (ArrayImpl)values[values.length -1];
         			if (av != null) {
         				Object[] vals = av.getValues();
-        				values[values.length - 1] = vals;
-	    				if (hasWrappedArgs && types[types.length - 1] == DataTypeManager.DefaultDataClasses.VARBINARY) {
+	    				if (binaryVarArgs) {
 	    					vals = Arrays.copyOf(vals, vals.length);
 	        				for (int i = 0; i < vals.length; i++) {
-	        					if (vals[i] != null) {
-	        						vals[i] = ((BinaryType)vals[i]).getBytesDirect();
-	        					}
+	        					unwrapBinary(vals, i);
 	        				}
-	        				values[values.length - 1] = vals;
 	        			}
-	    				Class<?> arrayType = invocationMethod.getParameterTypes()[types.length - 1];
-						if (arrayType.getComponentType() != Object.class
-	    						&& vals.getClass() != arrayType) {
-	    					Object varArgs = Array.newInstance(arrayType.getComponentType(), vals.length);
-	    					for (int i = 0; i < vals.length; i++) {
-			        			Array.set(varArgs, i, vals[i]);
-			        		}
-	        				values[values.length -1] = varArgs;
+	    				if (varArgComponentType == Object.class || vals.getClass() == varArgType) {
+	    					values[values.length - 1] = vals;
+	    				} else {
+	    					values[values.length - 1] = toVarArgs(vals, 0, vals.length);
 	    				}
         			}
         		} else {
-	        		int i = invocationMethod.getParameterTypes().length;
-	        		Object[] newValues = Arrays.copyOf(values, i);
-	        		Object varArgs = null;
-	        		if (invocationMethod.getParameterTypes()[i - 1].getComponentType() != Object.class) {
-		        		int varArgCount = values.length - i + 1;
-		        		varArgs = Array.newInstance(invocationMethod.getParameterTypes()[i - 1].getComponentType(), varArgCount);
-		        		for (int j = 0; j < varArgCount; j++) {
-		        			Array.set(varArgs, j, values[i-1+j]);
-		        		}
-	        		} else {
-	        			varArgs = Arrays.copyOfRange(values, i - 1, values.length);
-	        		}
-	        		newValues[i - 1] = varArgs;
+        			//pack the trailing values into the var arg array
+	        		Object[] newValues = new Object[parameterCount];
+	        		System.arraycopy(values, 0, newValues, 0, parameterCount - 1);
+	        		newValues[parameterCount - 1] = toVarArgs(values, parameterCount - 1, values.length);
 	        		values = newValues;
         		}
         	}
@@ -277,6 +307,30 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 		}
 	}
 
+	private static void unwrapBinary(Object[] values, int index) {
+		if (values[index] != null) {
+			values[index] = ((BinaryType)values[index]).getBytesDirect();
+		}
+	}
+	
+	/**
+	 * Copy the range of values into an array of the var arg type.  Only a
+	 * primitive component type requires reflective element access.
+	 */
+	private Object toVarArgs(Object[] values, int from, int to) {
+		if (varArgComponentType == Object.class) {
+			return Arrays.copyOfRange(values, from, to);
+		}
+		if (varArgArrayType != null) {
+			return Arrays.copyOfRange(values, from, to, varArgArrayType);
+		}
+		Object result = Array.newInstance(varArgComponentType, to - from);
+		for (int i = from; i < to; i++) {
+			Array.set(result, i - from, values[i]);
+		}
+		return result;
+	}
+
 	public static Object importValue(Object result, Class<?> expectedType)
 			throws ArithmeticException, TransformationException {
 		if (!ALLOW_NAN_INFINITY) {
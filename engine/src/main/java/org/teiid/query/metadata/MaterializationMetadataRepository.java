@@ -47,6 +47,12 @@ public class MaterializationMetadataRepository extends MetadataRepository {
 	public static final String MATVIEW_STAGE_TABLE = "{http://www.teiid.org/ext/relational/2012}MATERIALIZED_STAGE_TABLE"; //$NON-NLS-1$
 	public static final String MATVIEW_SHARE_SCOPE = "{http://www.teiid.org/ext/relational/2012}MATVIEW_SHARE_SCOPE"; //$NON-NLS-1$
 	public static final String MATVIEW_ONERROR_ACTION = "{http://www.teiid.org/ext/relational/2012}MATVIEW_ONERROR_ACTION"; //$NON-NLS-1$
+	public static final String MATVIEW_CHANGE_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_CHANGE_COLUMN"; //$NON-NLS-1$
+	public static final String MATVIEW_DELETE_COLUMN = "{http://www.teiid.org/ext/relational/2012}MATVIEW_DELETE_COLUMN"; //$NON-NLS-1$
+	//comma separated column lists for internal materialized views and global temporary tables
+	public static final String HASH_INDEXES = "{http://www.teiid.org/ext/relational/2012}HASH_INDEXES"; //$NON-NLS-1$
+	public static final String BITMAP_INDEXES = "{http://www.teiid.org/ext/relational/2012}BITMAP_INDEXES"; //$NON-NLS-1$
+	public static final String MATVIEW_COMPRESSED = "{http://www.teiid.org/ext/relational/2012}MATVIEW_COMPRESSED"; //$NON-NLS-1$
 	
 	public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
 	public enum Scope {NONE, VDB, SCHEMA};
@@ -41,6 +41,7 @@ public class TempCapabilitiesFinder implements CapabilitiesFinder {
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_COMPARE_ORDERED, true);
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_ONLY_LITERAL_COMPARE, true);
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_ISNULL, true);
+		tempCaps.setCapabilitySupport(Capability.CRITERIA_OR, true);
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_LIKE, true);
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_LIKE_ESCAPE, true);
 		tempCaps.setCapabilitySupport(Capability.CRITERIA_LIKE_REGEX, true);
@@ -56,6 +56,7 @@ import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
 import org.teiid.query.optimizer.relational.rules.CapabilitiesUtil;
 import org.teiid.query.optimizer.relational.rules.FrameUtil;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.optimizer.relational.rules.RuleAssignOutputElements;
 import org.teiid.query.optimizer.relational.rules.RuleChooseJoinStrategy;
 import org.teiid.query.processor.ProcessorPlan;
@@ -267,6 +268,12 @@ public class PlanToProcessConverter {
                     List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
                     jnode.setJoinExpressions(leftExpressions, rightExpressions);
                     joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
+                } else if (stype == JoinStrategyType.HASH) {
+                	HashJoinStrategy hjStrategy = new HashJoinStrategy();
+                	hjStrategy.setBuildLeft(node.hasBooleanProperty(Info.IS_HASH_BUILD_LEFT));
+                	jnode.setJoinStrategy(hjStrategy);
+                	jnode.setJoinExpressions((List) node.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS), (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS));
+                    joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
                 } else if (stype == JoinStrategyType.NESTED_TABLE) {
                 	NestedTableJoinStrategy ntjStrategy = new NestedTableJoinStrategy();
                 	jnode.setJoinStrategy(ntjStrategy);
@@ -467,6 +474,7 @@ public class PlanToProcessConverter {
 				SymbolMap groupingMap = (SymbolMap)node.getProperty(NodeConstants.Info.SYMBOL_MAP);
 				gnode.setOutputMapping(groupingMap);
 				gnode.setRemoveDuplicates(node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL));
+				gnode.setHashGrouping(NewCalculateCostUtil.useHashGrouping(node));
 				List<Expression> gCols = (List) node.getProperty(NodeConstants.Info.GROUP_COLS);
 				orderBy = (OrderBy) node.getProperty(Info.SORT_ORDER);
 				if (orderBy == null) {
@@ -96,6 +96,7 @@ public final class NodeConstants {
         IS_LEFT_DISTINCT, 	// Boolean
         IS_RIGHT_DISTINCT, 	// Boolean
         IS_SEMI_DEP,		// Boolean
+        IS_HASH_BUILD_LEFT,	// Boolean
         PRESERVE,
 
         // Project node properties
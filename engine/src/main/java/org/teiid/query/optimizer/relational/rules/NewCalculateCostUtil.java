@@ -70,6 +70,12 @@ public class NewCalculateCostUtil {
     private final static float compareTime = .0001f; //TODO: a better estimate would be based upon the number of conjuncts
     private final static float readTime = .001f; //TODO: should come from the connector
     private final static float procNewRequestTime = 1; //TODO: should come from the connector
+    private final static float hashTime = 4 * compareTime; //hashing, equality check, and key construction
+    
+    /**
+     * The max estimated number of groups to perform hash grouping
+     */
+    public static final int MAX_HASH_GROUPS = 1 << 16;
     
     enum Stat {
     	NDV,
@@ -1109,6 +1115,51 @@ public class NewCalculateCostUtil {
         return (float)Math.max(1, Math.log(x));
     }
     
+    /**
+     * Determine if hash grouping should be used rather than a sort of the input.
+     * 
+     * The sort path performs roughly n log(n) comparisons on the input, while hashing 
+     * is a constant cost per input row plus a sort of just the groups.  Hashing is 
+     * only considered when the number of groups is known to be small enough to 
+     * reasonably be held in memory.
+     * 
+     * @param groupNode
+     * @return true if hash grouping is expected to be cheaper
+     */
+    public static boolean useHashGrouping(PlanNode groupNode) {
+    	if (!groupNode.hasCollectionProperty(NodeConstants.Info.GROUP_COLS) 
+    			|| groupNode.hasBooleanProperty(Info.ROLLUP) 
+    			|| groupNode.hasBooleanProperty(Info.IS_DUP_REMOVAL)) {
+    		return false;
+    	}
+    	float groups = groupNode.getCardinality();
+    	float input = groupNode.getFirstChild().getCardinality();
+    	if (groups == UNKNOWN_VALUE || input == UNKNOWN_VALUE || groups > MAX_HASH_GROUPS) {
+    		return false;
+    	}
+    	float sortCost = input * safeLog(input) * compareTime;
+    	float hashCost = input * hashTime + groups * safeLog(groups) * compareTime;
+    	return hashCost < sortCost;
+    }
+    
+    /**
+     * Determine if a hash join should be used rather than sorting both sides of a merge join.
+     * 
+     * @param leftCardinality
+     * @param rightCardinality
+     * @return true if the hash join is expected to be cheaper
+     */
+    public static boolean useHashJoin(float leftCardinality, float rightCardinality) {
+    	if (leftCardinality == UNKNOWN_VALUE || rightCardinality == UNKNOWN_VALUE) {
+    		return false;
+    	}
+    	float sortCost = leftCardinality * safeLog(leftCardinality) + rightCardinality * safeLog(rightCardinality);
+    	//the enhanced sort join may instead index the smaller side
+    	sortCost = Math.min(sortCost, (leftCardinality + rightCardinality) * safeLog(Math.min(leftCardinality, rightCardinality))) * compareTime;
+    	float hashCost = (leftCardinality + rightCardinality) * hashTime;
+    	return hashCost < sortCost;
+    }
+    
     /**
      * Computes the cost of a Dependent Join
      * 
@@ -34,6 +34,7 @@ import java.util.Set;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -51,6 +52,7 @@ import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.JoinType;
 import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
@@ -134,6 +136,10 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
             	}
             }
 
+            if (key == null && useHashJoin(joinNode, joinType, leftExpressions, rightExpressions, metadata, capabilitiesFinder, pushLeft, pushRight)) {
+            	continue;
+            }
+
             if (key != null && joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) == null) {
             	//redo the join predicates based upon the key alone
             	List<Object> keyCols = metadata.getElementIDsInKey(key);
@@ -210,6 +216,50 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         return plan;
     }
 
+    /**
+     * Switch to a hash join if neither side can be ordered by the source and 
+     * the cardinality estimates indicate that hashing is cheaper than sorting.
+     */
+    private static boolean useHashJoin(PlanNode joinNode, JoinType joinType, List<Expression> leftExpressions, List<Expression> rightExpressions, 
+    		QueryMetadataInterface metadata, CapabilitiesFinder capFinder, boolean pushLeft, boolean pushRight) throws QueryMetadataException, TeiidComponentException {
+    	if ((joinType != JoinType.JOIN_INNER && joinType != JoinType.JOIN_LEFT_OUTER) 
+    			|| joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null
+    			|| Constant.COLLATION_LOCALE != null) {
+    		return false;
+    	}
+    	for (int i = 0; i < leftExpressions.size(); i++) {
+    		Class<?> type = leftExpressions.get(i).getType();
+    		if (type != rightExpressions.get(i).getType() || !DataTypeManager.isHashable(type)) {
+    			return false;
+    		}
+    	}
+    	if ((pushLeft && canPushSort(joinNode.getFirstChild(), leftExpressions, metadata, capFinder)) 
+    			|| (pushRight && canPushSort(joinNode.getLastChild(), rightExpressions, metadata, capFinder))) {
+    		return false;
+    	}
+    	float leftCardinality = NewCalculateCostUtil.computeCostForTree(joinNode.getFirstChild(), metadata);
+    	float rightCardinality = NewCalculateCostUtil.computeCostForTree(joinNode.getLastChild(), metadata);
+    	if (!NewCalculateCostUtil.useHashJoin(leftCardinality, rightCardinality)) {
+    		return false;
+    	}
+    	joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+    	projectExpressions(joinNode.getFirstChild(), leftExpressions, joinNode);
+    	projectExpressions(joinNode.getLastChild(), rightExpressions, joinNode);
+    	if (joinType == JoinType.JOIN_INNER && leftCardinality < rightCardinality) {
+    		joinNode.setProperty(NodeConstants.Info.IS_HASH_BUILD_LEFT, true);
+    	}
+    	return true;
+    }
+    
+    private static boolean canPushSort(PlanNode childNode, List<Expression> expressions, QueryMetadataInterface metadata, CapabilitiesFinder capFinder) throws QueryMetadataException, TeiidComponentException {
+    	PlanNode sourceNode = FrameUtil.findJoinSourceNode(childNode);
+    	if (sourceNode.getType() == NodeConstants.Types.GROUP) {
+    		return !sourceNode.hasBooleanProperty(Info.ROLLUP);
+    	}
+    	return sourceNode.getType() == NodeConstants.Types.ACCESS 
+    			&& RuleRaiseAccess.canRaiseOverSort(sourceNode, metadata, capFinder, createSortNode(expressions, expressions), null, false);
+    }
+
     /**
      * Insert a sort node under the merge join node.  If necessary, also insert a project
      * node to handle function evaluation.  
@@ -276,14 +326,30 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         }        
         
         if (needsCorrection) {
-            PlanNode projectNode = NodeFactory.getNewNode(NodeConstants.Types.PROJECT);
-            projectNode.setProperty(NodeConstants.Info.PROJECT_COLS, new ArrayList<Expression>(outputSymbols));
-            childNode.addAsParent(projectNode);
-            correctOutputElements(joinNode, outputSymbols, projectNode);
+            insertProject(childNode, outputSymbols, joinNode);
         }        
         return false;
     }
 
+	private static void insertProject(PlanNode childNode, Set<Expression> outputSymbols, PlanNode joinNode) {
+		PlanNode projectNode = NodeFactory.getNewNode(NodeConstants.Types.PROJECT);
+		projectNode.setProperty(NodeConstants.Info.PROJECT_COLS, new ArrayList<Expression>(outputSymbols));
+		childNode.addAsParent(projectNode);
+		correctOutputElements(joinNode, outputSymbols, projectNode);
+	}
+	
+    /**
+     * Add a project node under the hash join node if the child does not already output the join expressions.
+     */
+    private static void projectExpressions(PlanNode childNode, List<Expression> expressions, PlanNode joinNode) {
+        Set<Expression> outputSymbols = new LinkedHashSet<Expression>((List<Expression>)childNode.getProperty(NodeConstants.Info.OUTPUT_COLS));
+        int oldSize = outputSymbols.size();
+        outputSymbols.addAll(expressions);
+        if (outputSymbols.size() > oldSize) {
+        	insertProject(childNode, outputSymbols, joinNode);
+        }
+    }
+
     private static PlanNode createSortNode(List<Expression> orderSymbols,
                                            Collection<Expression> outputElements) {
         PlanNode sortNode = NodeFactory.getNewNode(NodeConstants.Types.SORT);
@@ -91,7 +91,7 @@ public class BatchCollector {
 		        
 		        if(sourceBatch.getRowCount() > 0 && sourceRow <= sourceBatch.getEndRow()) {
 		            // Evaluate expressions needed for grouping
-		            List tuple = sourceBatch.getTuple(sourceRow);
+		            List tuple = getTuple(sourceBatch, sourceRow);
 		            tuple = updateTuple(tuple);
 		            sourceRow++;
 		            return tuple;
@@ -106,6 +106,10 @@ public class BatchCollector {
 			}
 		}
 		
+		protected List<?> getTuple(TupleBatch batch, int row) {
+			return batch.getTuple(row);
+		}
+		
 		@SuppressWarnings("unused")
 		protected List<?> updateTuple(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
 			return tuple;
@@ -22,7 +22,9 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -31,6 +33,7 @@ import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.sql.symbol.Expression;
 
 
 /**
@@ -136,6 +139,9 @@ public class DependentAccessNode extends AccessNode {
         if (this.criteriaProcessor == null) {
             this.criteriaProcessor = new DependentCriteriaProcessor(this.maxSetSize, this.maxPredicates, this, query.getCriteria());
             this.criteriaProcessor.setPushdown(pushdown);
+            //rows are filtered after being projected back to the original select, 
+            //so the select must be captured before it is minimized
+            this.criteriaProcessor.setBloomFilterThreshold(getContext().getDependentBloomFilterThreshold(), new ArrayList<Expression>(query.getSelect().getSymbols()));
         }
         
         if (this.dependentCrit == null) {
@@ -182,6 +188,14 @@ public class DependentAccessNode extends AccessNode {
 		this.pushdown = pushdown;
 	}
 	
+	@Override
+	protected void addBatchRow(List<?> row) {
+		if (criteriaProcessor != null && criteriaProcessor.isFiltered(row)) {
+			return;
+		}
+		super.addBatchRow(row);
+	}
+	
 	@Override
 	public Boolean requiresTransaction(boolean transactionalReads) {
 		if (transactionalReads || !(this.getCommand() instanceof QueryCommand)) {
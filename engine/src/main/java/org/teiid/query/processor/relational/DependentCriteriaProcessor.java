@@ -28,6 +28,7 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.query.QueryPlugin;
@@ -44,8 +45,11 @@ import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.sql.symbol.Array;
 import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.util.SymbolMap;
 import org.teiid.query.sql.util.ValueIterator;
+import org.teiid.query.util.BloomFilter;
 
 
 public class DependentCriteriaProcessor {
@@ -71,6 +75,10 @@ public class DependentCriteriaProcessor {
     	}
         
         long valueCount = 1;
+        
+        BloomFilter bloomFilter;
+        
+        int filterIndex;
 
     }
 
@@ -152,12 +160,16 @@ public class DependentCriteriaProcessor {
     
     private static final int SORT = 2;
     private static final int SET_PROCESSING = 3;
+    
+    private static final double BLOOM_FILTER_FPP = .01;
 
     //constructor state
     private int maxSetSize;
     private int maxPredicates;
     private RelationalNode dependentNode;
     private boolean pushdown;
+    private int bloomFilterThreshold;
+    private List<Expression> projectedSymbols;
 
     //initialization state
     private List<Criteria> queryCriteria;
@@ -174,6 +186,7 @@ public class DependentCriteriaProcessor {
 	
 	private int totalPredicates;
 	private long maxSize;
+	private List<SetState> filteredStates;
 
     public DependentCriteriaProcessor(int maxSetSize, int maxPredicates, RelationalNode dependentNode, Criteria dependentCriteria) throws ExpressionEvaluationException, TeiidComponentException {
         this.maxSetSize = maxSetSize;
@@ -297,6 +310,10 @@ public class DependentCriteriaProcessor {
 				}
 			}
 
+			if (bloomFilterThreshold > 0) {
+				createBloomFilters();
+			}
+
 			//proceed with set based processing
             phase = SET_PROCESSING;
         }
@@ -326,6 +343,75 @@ public class DependentCriteriaProcessor {
         return new CompoundCriteria(CompoundCriteria.AND, crits);
     }
     
+    /**
+     * Replace set criteria that would not restrict the source query, or that would 
+     * require more than the threshold number of values, with bloom filters applied 
+     * to the returned rows.  Only comparisons against projected elements of hashable 
+     * types are eligible, since the filter relies upon hashCode/equals semantics.  
+     * The independent values must also be of the same type as the dependent column, 
+     * since for example an integer and a long with the same value have different hash codes.
+     */
+    private void createBloomFilters() throws TeiidComponentException {
+    	Map<Expression, Integer> elementMap = null;
+    	for (int i = 0; i < queryCriteria.size(); i++) {
+    		SetState state = setStates.get(i);
+    		Criteria criteria = queryCriteria.get(i);
+    		if (state == null || !(criteria instanceof DependentSetCriteria)) {
+    			continue;
+    		}
+    		DependentSetCriteria dsc = (DependentSetCriteria)criteria;
+    		Class<?> type = dsc.getExpression().getType();
+    		if (!(dsc.getExpression() instanceof ElementSymbol) || type != dsc.getValueExpression().getType() || !DataTypeManager.isHashable(type)) {
+    			continue;
+    		}
+    		TupleState ts = dependentState.get(dsc.getContextSymbol());
+    		int distinctCount = ts.dvs.getTupleBuffer().getRowCount();
+    		if (!state.overMax && distinctCount <= bloomFilterThreshold) {
+    			continue;
+    		}
+    		if (elementMap == null) {
+    			elementMap = new HashMap<Expression, Integer>();
+    			for (int j = 0; j < projectedSymbols.size(); j++) {
+    				elementMap.put(SymbolMap.getExpression(projectedSymbols.get(j)), j);
+    			}
+    		}
+    		Integer index = elementMap.get(dsc.getExpression());
+    		if (index == null) {
+    			continue;
+    		}
+    		BloomFilter filter = new BloomFilter(distinctCount, BLOOM_FILTER_FPP);
+    		while (state.valueIterator.hasNext()) {
+    			filter.put(state.valueIterator.next());
+    		}
+    		state.valueIterator.reset();
+    		state.bloomFilter = filter;
+    		state.filterIndex = index;
+    		//the filter is used instead of the set criteria
+    		state.overMax = true;
+    		if (filteredStates == null) {
+    			filteredStates = new ArrayList<SetState>(2);
+    		}
+    		filteredStates.add(state);
+    		LogManager.logDetail(LogConstants.CTX_DQP, "Using a bloom filter of", filter.getBitSize(), "bits for", distinctCount, "dependent values of", dsc.getContextSymbol()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	}
+    }
+    
+    /**
+     * @return true if the tuple from the dependent node cannot satisfy the bloom filtered criteria
+     */
+    public boolean isFiltered(List<?> tuple) {
+    	if (filteredStates == null) {
+    		return false;
+    	}
+    	for (int i = 0; i < filteredStates.size(); i++) {
+    		SetState state = filteredStates.get(i);
+    		if (!state.bloomFilter.mightContain(tuple.get(state.filterIndex))) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+    
     public void consumedCriteria() {
         // flush only the value iterators starting at the restart index
         // it is only safe to do this after the super call to prepare command
@@ -492,5 +578,15 @@ public class DependentCriteriaProcessor {
 	public void setPushdown(boolean pushdown) {
 		this.pushdown = pushdown;
 	}
+	
+	/**
+	 * Enable bloom filtering of the rows returned by the dependent query 
+	 * @param bloomFilterThreshold
+	 * @param projectedSymbols the symbols projected by the dependent query
+	 */
+	public void setBloomFilterThreshold(int bloomFilterThreshold, List<Expression> projectedSymbols) {
+		this.bloomFilterThreshold = bloomFilterThreshold;
+		this.projectedSymbols = projectedSymbols;
+	}
 
 }
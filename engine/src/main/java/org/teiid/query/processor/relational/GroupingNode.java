@@ -27,6 +27,8 @@ import static org.teiid.query.analysis.AnalysisRecord.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -38,6 +40,8 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
@@ -45,6 +49,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.language.SortSpecification.NullOrdering;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.aggregate.*;
 import org.teiid.query.processor.BatchCollector;
@@ -56,6 +61,7 @@ import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.AggregateSymbol.Type;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.TextLine;
@@ -64,27 +70,42 @@ import org.teiid.query.util.CommandContext;
 
 
 public class GroupingNode extends SubqueryAwareRelationalNode {
+	
+	/**
+	 * State for a single group in the hash table
+	 */
+	private static class HashGroup {
+		List<?> tuple;
+		AggregateFunction[] functions;
+	}
 
     static class ProjectingTupleSource extends
 			BatchCollector.BatchProducerTupleSource {
     	
-    	private Evaluator eval;
-    	private List<Expression> collectedExpressions;
+    	private CompiledExpression[] collectedExpressions;
     	
 		ProjectingTupleSource(BatchProducer sourceNode, Evaluator eval, List<Expression> expressions) {
 			super(sourceNode);
-			this.eval = eval;
-			this.collectedExpressions = expressions;
+			this.collectedExpressions = new CompiledExpression[expressions.size()];
+			for (int i = 0; i < this.collectedExpressions.length; i++) {
+				this.collectedExpressions[i] = eval.compile(expressions.get(i));
+			}
+		}
+
+		@Override
+		protected List<?> getTuple(TupleBatch batch, int row) {
+			//the source tuple is only used for evaluation
+			return batch.getTransientTuple(row);
 		}
 
 		@Override
 		protected List<Object> updateTuple(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
-			int columns = collectedExpressions.size();
+			int columns = collectedExpressions.length;
 		    List<Object> exprTuple = new ArrayList<Object>(columns);
 		    for(int col = 0; col<columns; col++) { 
 		        // The following call may throw BlockedException, but all state to this point
 		        // is saved in class variables so we can start over on building this tuple
-		        Object value = eval.evaluate(collectedExpressions.get(col), tuple);
+		        Object value = collectedExpressions[col].evaluate(tuple);
 		        exprTuple.add(value);
 		    }
 		    return exprTuple;
@@ -95,6 +116,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 	private List<OrderByItem> orderBy;
 	private boolean removeDuplicates;
 	private SymbolMap outputMapping;
+	private boolean hashGrouping;
     
     // Collection phase
     private int phase = COLLECTION;
@@ -107,6 +129,18 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private TupleBuffer sortBuffer;
     private TupleSource groupTupleSource;
     
+    // Hash phase
+    private TupleSource hashTupleSource;
+    private HashMap<List<?>, HashGroup> hashGroups;
+    private List<HashGroup> sortedGroups;
+    private int groupIndex;
+    private Comparator<List<?>> groupComparator;
+    private TupleBuffer overflowBuffer;
+    private int hashGroupSize;
+    private int hashGroupCapacity;
+    private int hashReserved;
+    private boolean hashFull;
+    
     // Group phase
     private AggregateFunction[][] functions;
     private List<?> lastRow;
@@ -115,6 +149,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
+    private static final int HASH = 4;
 	private int[] indexes;
 	private boolean rollup;
 	private HashMap<Integer, Integer> indexMap;
@@ -134,6 +169,8 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         lastRow = null;
         currentGroupTuple = null;
         
+        releaseHashState();
+        
         if (this.functions != null) {
 	    	for (AggregateFunction[] functions : this.functions) {
 	    		for (AggregateFunction function : functions) {
@@ -154,6 +191,15 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     public void setOutputMapping(SymbolMap outputMapping) {
 		this.outputMapping = outputMapping;
 	}
+    
+    /**
+     * Request hash rather than sort based grouping.  Hashing will only be used if the
+     * grouping keys and aggregates allow for it, otherwise the sort path is used.
+     * @param hashGrouping
+     */
+    public void setHashGrouping(boolean hashGrouping) {
+		this.hashGrouping = hashGrouping;
+	}
 
 	@Override
 	public void initialize(CommandContext context, BufferManager bufferManager,
@@ -185,25 +231,35 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         // Construct aggregate function state accumulators
         functions = new AggregateFunction[getElements().size()][];
         for(int i=0; i<getElements().size(); i++) {
-            Expression symbol = getElements().get(i);
-            if (this.outputMapping != null) {
-            	symbol = outputMapping.getMappedExpression((ElementSymbol)symbol);
-            }
-            Class<?> outputType = symbol.getType();
+            Expression symbol = getOutputExpression(i);
             if(symbol instanceof AggregateSymbol) {
-            	AggregateSymbol aggSymbol = (AggregateSymbol) symbol;
             	functions[i] = new AggregateFunction[rollup?orderBy.size()+1:1];
             	for (int j = 0; j < functions[i].length; j++) {
-            		functions[i][j] = initAccumulator(aggSymbol, this, this.collectedExpressions);
+            		functions[i][j] = createAccumulator(symbol);
             	}
             } else {
-                AggregateFunction af = new ConstantFunction();
-                af.setArgIndexes(new int[] {this.collectedExpressions.get(symbol)});
-                af.initialize(outputType, new Class<?>[]{symbol.getType()});
-                functions[i] = new AggregateFunction[] {af};
+                functions[i] = new AggregateFunction[] {createAccumulator(symbol)};
             }
         }
     }
+
+	private Expression getOutputExpression(int i) {
+		Expression symbol = getElements().get(i);
+		if (this.outputMapping != null) {
+			symbol = outputMapping.getMappedExpression((ElementSymbol)symbol);
+		}
+		return symbol;
+	}
+	
+	private AggregateFunction createAccumulator(Expression symbol) {
+		if(symbol instanceof AggregateSymbol) {
+			return initAccumulator((AggregateSymbol) symbol, this, this.collectedExpressions);
+		}
+		AggregateFunction af = new ConstantFunction();
+		af.setArgIndexes(new int[] {this.collectedExpressions.get(symbol)});
+		af.initialize(symbol.getType(), new Class<?>[]{symbol.getType()});
+		return af;
+	}
 	
 	static Integer getIndex(Expression ex, LinkedHashMap<Expression, Integer> expressionIndexes) {
 		Integer index = expressionIndexes.get(ex);
@@ -326,6 +382,11 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             collectionPhase();
         }
 
+        // Aggregate into an in-memory hash table keyed by the grouping columns
+        if(this.phase == HASH) {
+        	hashPhase();
+        }
+
         // If necessary, sort to determine groups (if no group cols, no need to sort)
         if(this.phase == SORT) {
             sortPhase();
@@ -383,13 +444,178 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         		for (int i = 0; i < indexes.length; i++) {
         			this.indexMap.put(indexes[i], orderBy.size() - i);
         		}
+        	} else if (canHash()) {
+        		ListNestedSortComparator comparator = new ListNestedSortComparator(this.indexes, sortTypes);
+        		comparator.setNullOrdering(nullOrdering);
+        		this.groupComparator = comparator;
+        		List<Expression> schema = new ArrayList<Expression>(collectedExpressions.keySet());
+        		//the key, representative tuple, and accumulators are roughly twice the collected row size 
+        		this.hashGroupSize = Math.max(1, 2 * getBufferManager().getSchemaSize(schema) / getBufferManager().getProcessorBatchSize(schema));
+        		this.hashGroups = new HashMap<List<?>, HashGroup>();
+        		this.overflowBuffer = null;
+        		this.hashTupleSource = getCollectionTupleSource();
+        		this.phase = HASH;
+        		return;
         	}
             this.sortUtility = new SortUtility(getCollectionTupleSource(), removeDuplicates?Mode.DUP_REMOVE_SORT:Mode.SORT, getBufferManager(),
                     getConnectionID(), new ArrayList<Expression>(collectedExpressions.keySet()), sortTypes, nullOrdering, sortIndexes);
+            this.sortUtility.setParallelism(getContext());
             this.phase = SORT;
         }
     }
 
+    /**
+     * @return true if hash grouping was requested and is allowed by the grouping keys and aggregates.
+     * Only planning information is used so that the result is the same before and during processing.
+     */
+    private boolean canHash() {
+    	if (!this.hashGrouping || this.removeDuplicates || this.rollup || this.orderBy == null || Constant.COLLATION_LOCALE != null) {
+    		return false;
+    	}
+    	for (OrderByItem item : this.orderBy) {
+    		if (!DataTypeManager.isHashable(SymbolMap.getExpression(item.getSymbol()).getType())) {
+    			return false;
+    		}
+    	}
+    	for (int i = 0; i < getElements().size(); i++) {
+    		Expression ex = getOutputExpression(i);
+    		if (ex instanceof AggregateSymbol && (((AggregateSymbol)ex).isDistinct() || ((AggregateSymbol)ex).getOrderBy() != null)) {
+    			return false; //distinct and ordered aggregates maintain buffers per group
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * Accumulate groups in memory until the reserve is exhausted.  Rows for groups that 
+     * do not fit are spilled to an overflow buffer that is then processed by the sort path.
+     * Since the overflow groups are disjoint from the hash groups, the hash groups are 
+     * sorted and merged with the overflow output so that the ordering matches the sort path.
+     */
+    private void hashPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+    	CommandContext context = getContext();
+    	while (true) {
+    		List<?> tuple = this.hashTupleSource.nextTuple();
+    		if (tuple == null) {
+    			break;
+    		}
+    		List<Object> key = new ArrayList<Object>(this.indexes.length);
+    		for (int index : this.indexes) {
+				key.add(tuple.get(index));
+			}
+    		HashGroup group = this.hashGroups.get(key);
+    		if (group == null) {
+    			if (!reserveHashGroup()) {
+    				if (this.overflowBuffer == null) {
+    					this.overflowBuffer = getBufferManager().createTupleBuffer(new ArrayList<Expression>(collectedExpressions.keySet()), getConnectionID(), TupleSourceType.PROCESSOR);
+    					this.overflowBuffer.setForwardOnly(true);
+    				}
+    				this.overflowBuffer.addTuple(tuple);
+    				continue;
+    			}
+    			group = new HashGroup();
+    			group.tuple = tuple;
+    			group.functions = new AggregateFunction[functions.length];
+    			for (int i = 0; i < functions.length; i++) {
+					group.functions[i] = createAccumulator(getOutputExpression(i));
+				}
+    			this.hashGroups.put(key, group);
+    		}
+    		for (AggregateFunction function : group.functions) {
+				function.addInput(tuple, context);
+			}
+    	}
+    	this.hashTupleSource.closeSource();
+    	this.sortedGroups = new ArrayList<HashGroup>(this.hashGroups.values());
+    	this.hashGroups = null;
+    	Collections.sort(this.sortedGroups, new Comparator<HashGroup>() {
+    		@Override
+    		public int compare(HashGroup o1, HashGroup o2) {
+    			return groupComparator.compare(o1.tuple, o2.tuple);
+    		}
+		});
+    	if (this.overflowBuffer == null) {
+    		this.phase = GROUP;
+    		return;
+    	}
+    	List<NullOrdering> nullOrdering = new ArrayList<NullOrdering>(orderBy.size());
+    	List<Boolean> sortTypes = new ArrayList<Boolean>(orderBy.size());
+    	for (OrderByItem item : this.orderBy) {
+			nullOrdering.add(item.getNullOrdering());
+			sortTypes.add(item.isAscending());
+		}
+    	this.overflowBuffer.close();
+    	this.sortUtility = new SortUtility(null, Mode.SORT, getBufferManager(), getConnectionID(), 
+    			this.overflowBuffer.getSchema(), sortTypes, nullOrdering, this.indexes);
+    	this.sortUtility.setWorkingBuffer(this.overflowBuffer);
+    	this.phase = SORT;
+    }
+    
+    private boolean reserveHashGroup() {
+    	if (this.hashGroups.size() < this.hashGroupCapacity) {
+    		return true;
+    	}
+    	if (this.hashFull) {
+    		return false;
+    	}
+    	//reserve roughly a batch worth of groups at a time
+    	int reserved = getBufferManager().reserveBuffers(this.hashGroupSize * getBatchSize(), BufferReserveMode.NO_WAIT);
+    	this.hashReserved += reserved;
+    	this.hashGroupCapacity += reserved / this.hashGroupSize;
+    	if (this.hashGroups.size() < this.hashGroupCapacity) {
+    		return true;
+    	}
+    	//once full, no new groups may be added as their rows may already be in the overflow 
+    	this.hashFull = true;
+    	return false;
+    }
+    
+    /**
+     * Add the rows for the hash groups that sort before the given tuple, or all
+     * remaining hash groups if the tuple is null.
+     * @return true if the batch is full
+     */
+    private boolean addHashGroups(List<?> tuple, CommandContext context) throws FunctionExecutionException,
+    		ExpressionEvaluationException, TeiidComponentException, TeiidProcessingException {
+    	if (this.sortedGroups == null) {
+    		return false;
+    	}
+    	while (this.groupIndex < this.sortedGroups.size()) {
+    		HashGroup group = this.sortedGroups.get(this.groupIndex);
+    		if (tuple != null && this.groupComparator.compare(group.tuple, tuple) > 0) {
+    			return false;
+    		}
+    		if (this.isBatchFull()) {
+    			return true;
+    		}
+    		List<Object> row = new ArrayList<Object>(group.functions.length);
+    		for (AggregateFunction function : group.functions) {
+				row.add(function.getResult(context));
+			}
+    		addBatchRow(row);
+    		//allow the accumulator state to be collected
+    		this.sortedGroups.set(this.groupIndex++, null);
+    	}
+    	return false;
+    }
+    
+    private void releaseHashState() {
+    	this.hashGroups = null;
+    	this.sortedGroups = null;
+    	this.groupIndex = 0;
+    	this.hashGroupCapacity = 0;
+    	this.hashFull = false;
+    	this.hashTupleSource = null;
+    	if (this.hashReserved > 0) {
+    		getBufferManager().releaseBuffers(this.hashReserved);
+    		this.hashReserved = 0;
+    	}
+    	if (this.overflowBuffer != null) {
+    		this.overflowBuffer.remove();
+    		this.overflowBuffer = null;
+    	}
+    }
+
     private void sortPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
         this.sortBuffer = this.sortUtility.sort();
         this.sortBuffer.setForwardOnly(true);
@@ -402,6 +628,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         while(true) {
 
         	if (currentGroupTuple == null) {
+        		if (this.groupTupleSource == null) {
+        			break; //all groups were hashed
+        		}
         		currentGroupTuple = this.groupTupleSource.nextTuple();
         		if (currentGroupTuple == null) {
         			break;
@@ -415,6 +644,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             } else {
             	int colDiff = sameGroup(indexes, currentGroupTuple, lastRow); 
             	if (colDiff != -1) {
+            		if (addHashGroups(lastRow, context)) {
+            			return pullBatch();
+            		}
+            		
                     // Close old group
             		closeGroup(colDiff, true, context);
 
@@ -434,9 +667,17 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             currentGroupTuple = null;
         }
         if(lastRow != null || orderBy == null) {
+        	if (addHashGroups(lastRow, context)) {
+        		return pullBatch();
+        	}
             // Close last group
         	closeGroup(-1, false, context);
+        	lastRow = null;
         } 
+        
+        if (addHashGroups(null, context)) {
+        	return pullBatch();
+        }
 
         this.terminateBatches();
         return pullBatch();
@@ -501,6 +742,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     }
 
     public void closeDirect() {
+    	releaseHashState();
     	if (this.sortBuffer != null) {
     		this.sortBuffer.remove();
     		this.sortBuffer = null;
@@ -526,6 +768,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		clonedNode.outputMapping = outputMapping;
 		clonedNode.orderBy = orderBy;
 		clonedNode.rollup = rollup;
+		clonedNode.hashGrouping = hashGrouping;
 		return clonedNode;
 	}
 
@@ -545,6 +788,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
         	props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (canHash()) {
+        	props.addProperty(PROP_GROUPING_MODE, "HASH"); //$NON-NLS-1$
+        }
         return props;
     }
 
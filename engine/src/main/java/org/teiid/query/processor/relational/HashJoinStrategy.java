@@ -0,0 +1,482 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+
+
+/**
+ * A grace hash join for equi-joins.
+ * 
+ * The build side is fully buffered and loaded into an in-memory hash table if the 
+ * memory can be reserved, then the probe side is streamed against the table.  
+ * Otherwise both sides are split into hash partitions held in {@link TupleBuffer}s 
+ * and each pair of partitions is joined in turn.  The memory for each partition's hash
+ * table is reserved before it is built.  A partition that cannot be reserved is split 
+ * again with a different hash, up to {@link #MAX_LEVELS} deep, after which the reserve 
+ * is forced.
+ * 
+ * Only for use with Inner and Left Outer joins.  The join keys must be of the same
+ * type on each side and have equals/hashCode consistent with comparison - see 
+ * {@link org.teiid.core.types.DataTypeManager#isHashable(Class)}.
+ */
+public class HashJoinStrategy extends JoinStrategy {
+	
+	static final int MAX_PARTITIONS = 64;
+	static final int MAX_LEVELS = 4;
+	
+	private static class Partition {
+		TupleBuffer build;
+		TupleBuffer probe;
+		int level;
+		
+		Partition(TupleBuffer build, TupleBuffer probe, int level) {
+			this.build = build;
+			this.probe = probe;
+			this.level = level;
+		}
+	}
+	
+	private boolean buildLeft;
+	
+	//load time state
+	private SourceState buildSource;
+	private SourceState probeSource;
+	private boolean built;
+	private Map<List<?>, List<List<?>>> table;
+	private TupleBuffer[] buildPartitions;
+	private TupleBuffer[] probePartitions;
+	private int partitionShift;
+	private boolean probePartitioned;
+	private LinkedList<Partition> partitions;
+	private Partition current;
+	private int partitionReserved;
+	private int maxLevel;
+	
+	//probe state
+	private TupleSource probeTs;
+	private List<?> probeTuple;
+	private List<List<?>> matches;
+	private int matchIndex;
+	private boolean matched;
+	
+	/**
+	 * Build the hash table from the left side rather than the right.
+	 * Ignored for left outer joins, which always build from the right.
+	 */
+	public void setBuildLeft(boolean buildLeft) {
+		this.buildLeft = buildLeft;
+	}
+	
+	public boolean isBuildLeft() {
+		return buildLeft;
+	}
+	
+	boolean isPartitioned() {
+		return this.partitionShift != 0;
+	}
+	
+	/**
+	 * @return the deepest level of repartitioning that was needed
+	 */
+	int getMaxLevel() {
+		return maxLevel;
+	}
+	
+	@Override
+	public void initialize(JoinNode joinNode) {
+		super.initialize(joinNode);
+		if (this.buildLeft && joinNode.getJoinType() == JoinType.JOIN_INNER) {
+			this.buildSource = this.leftSource;
+			this.probeSource = this.rightSource;
+		} else {
+			this.buildSource = this.rightSource;
+			this.probeSource = this.leftSource;
+		}
+	}
+	
+	@Override
+	public void close() {
+		if (joinNode == null) {
+			return;
+		}
+		super.close();
+		removePartitions(this.buildPartitions);
+		removePartitions(this.probePartitions);
+		this.buildPartitions = null;
+		this.probePartitions = null;
+		if (this.current != null) {
+			this.partitions.addFirst(this.current);
+			this.current = null;
+		}
+		if (this.partitions != null) {
+			for (Partition p : this.partitions) {
+				p.build.remove();
+				p.probe.remove();
+			}
+			this.partitions = null;
+		}
+		releasePartition();
+		this.matches = null;
+		this.probeTs = null;
+		this.probeTuple = null;
+	}
+
+	private void removePartitions(TupleBuffer[] partitions) {
+		if (partitions == null) {
+			return;
+		}
+		for (TupleBuffer tb : partitions) {
+			if (tb != null) {
+				tb.remove();
+			}
+		}
+	}
+	
+	@Override
+	protected void loadLeft() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.joinNode.isDependent() || this.buildSource == this.leftSource) {
+			this.leftSource.getTupleBuffer();
+		}
+	}
+	
+	@Override
+	protected void loadRight() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (this.built) {
+			return;
+		}
+		if (this.probeSource == this.rightSource) {
+			this.rightSource.setImplicitBuffer(ImplicitBuffer.NONE);
+		}
+		TupleBuffer buffer = this.buildSource.getTupleBuffer();
+		int rowCount = buffer.getRowCount();
+		BufferManager bm = this.joinNode.getBufferManager();
+		int batchSize = this.buildSource.getSource().getBatchSize();
+		int schemaSize = bm.getSchemaSize(this.buildSource.getSource().getOutputElements());
+		long needed = getTableSize(rowCount, batchSize, schemaSize);
+		int toReserve = (int)Math.min(needed, Integer.MAX_VALUE);
+		int granted = bm.reserveBuffers(toReserve, BufferReserveMode.NO_WAIT);
+		if (granted >= toReserve) {
+			this.reserved += granted;
+			TupleSource ts = buffer.createIndexedTupleSource();
+			buildTable(ts);
+			ts.closeSource();
+			this.built = true;
+			return;
+		}
+		//each partition makes its own reservation as it is joined
+		bm.releaseBuffers(granted);
+		int partitionCount = getPartitionCount(needed, granted, schemaSize);
+		this.partitionShift = 32 - Integer.numberOfTrailingZeros(partitionCount);
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "spilling hash join to", partitionCount, "partitions", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		this.buildPartitions = createPartitions(this.buildSource, partitionCount);
+		this.probePartitions = createPartitions(this.probeSource, partitionCount);
+		TupleSource ts = buffer.createIndexedTupleSource();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			List<?> key = getKey(tuple, this.buildSource.getExpressionIndexes());
+			if (key != null) {
+				this.buildPartitions[getPartition(key, 0, this.partitionShift)].addTuple(tuple);
+			}
+		}
+		ts.closeSource();
+		for (TupleBuffer tb : this.buildPartitions) {
+			tb.close();
+		}
+		this.built = true;
+	}
+
+	private TupleBuffer[] createPartitions(SourceState state, int partitionCount) throws TeiidComponentException {
+		TupleBuffer[] partitions = new TupleBuffer[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			partitions[i] = state.createSourceTupleBuffer();
+			partitions[i].setForwardOnly(true);
+		}
+		return partitions;
+	}
+	
+	/**
+	 * allow for the overhead of the table entries
+	 */
+	private static long getTableSize(int rowCount, int batchSize, int schemaSize) {
+		return 2l * schemaSize * (rowCount / batchSize + 1);
+	}
+	
+	private static int getPartitionCount(long needed, int granted, int schemaSize) {
+		long count = Math.min(MAX_PARTITIONS, needed / Math.max(granted, schemaSize) + 1);
+		return Math.max(2, Integer.highestOneBit((int)count - 1) << 1);
+	}
+	
+	/**
+	 * Each level mixes the hash differently, so that a partition split again 
+	 * distributes the keys that collided at the previous level.
+	 */
+	static int getPartition(List<?> key, int level, int shift) {
+		int h = key.hashCode() + level * 0x9E3779B9;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h >>> shift;
+	}
+	
+	/**
+	 * @return the key values or null if any key value is null, since a null key cannot match
+	 */
+	private List<?> getKey(List<?> tuple, int[] indexes) {
+		List<Object> key = new ArrayList<Object>(indexes.length);
+		for (int index : indexes) {
+			Object value = tuple.get(index);
+			if (value == null) {
+				return null;
+			}
+			key.add(value);
+		}
+		return key;
+	}
+	
+	private void buildTable(TupleSource ts) throws TeiidComponentException, TeiidProcessingException {
+		this.table = new HashMap<List<?>, List<List<?>>>();
+		int[] indexes = this.buildSource.getExpressionIndexes();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			List<?> key = getKey(tuple, indexes);
+			if (key == null) {
+				continue;
+			}
+			List<List<?>> tuples = this.table.get(key);
+			if (tuples == null) {
+				tuples = new ArrayList<List<?>>(2);
+				this.table.put(key, tuples);
+			}
+			tuples.add(tuple);
+		}
+	}
+	
+	@Override
+	protected void process() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (!isPartitioned()) {
+			if (this.probeTs == null) {
+				this.probeTs = this.probeSource.getIterator();
+			}
+			probe();
+			return;
+		}
+		if (!this.probePartitioned) {
+			partitionProbe();
+		}
+		while (true) {
+			if (this.probeTs == null) {
+				releasePartition();
+				Partition p = this.partitions.poll();
+				if (p == null) {
+					return;
+				}
+				if (!reservePartition(p)) {
+					split(p);
+					continue;
+				}
+				this.current = p;
+				TupleSource ts = p.build.createIndexedTupleSource(true);
+				buildTable(ts);
+				ts.closeSource();
+				this.probeTs = p.probe.createIndexedTupleSource(true);
+			}
+			probe();
+			this.probeTs.closeSource();
+			this.probeTs = null;
+		}
+	}
+	
+	/**
+	 * Reserve the memory for the hash table of the partition.
+	 * @return false if the partition should instead be split 
+	 */
+	private boolean reservePartition(Partition p) {
+		BufferManager bm = this.joinNode.getBufferManager();
+		int batchSize = this.buildSource.getSource().getBatchSize();
+		int schemaSize = bm.getSchemaSize(this.buildSource.getSource().getOutputElements());
+		int rowCount = p.build.getRowCount();
+		int toReserve = (int)Math.min(getTableSize(rowCount, batchSize, schemaSize), Integer.MAX_VALUE);
+		this.partitionReserved = bm.reserveBuffers(toReserve, BufferReserveMode.NO_WAIT);
+		if (this.partitionReserved >= toReserve) {
+			return true;
+		}
+		if (p.level + 1 < MAX_LEVELS && rowCount > batchSize) {
+			bm.releaseBuffers(this.partitionReserved);
+			this.partitionReserved = 0;
+			return false;
+		}
+		//the keys may be too skewed to split further
+		this.partitionReserved += bm.reserveBuffers(toReserve - this.partitionReserved, BufferReserveMode.FORCE);
+		return true;
+	}
+	
+	/**
+	 * Split both sides of the partition with the hash for the next level and
+	 * queue the resulting partitions to be joined next.
+	 */
+	private void split(Partition p) throws TeiidComponentException, TeiidProcessingException {
+		BufferManager bm = this.joinNode.getBufferManager();
+		int batchSize = this.buildSource.getSource().getBatchSize();
+		int schemaSize = bm.getSchemaSize(this.buildSource.getSource().getOutputElements());
+		long needed = getTableSize(p.build.getRowCount(), batchSize, schemaSize);
+		int partitionCount = getPartitionCount(needed, bm.getMaxProcessingSize(), schemaSize);
+		int shift = 32 - Integer.numberOfTrailingZeros(partitionCount);
+		int level = p.level + 1;
+		this.maxLevel = Math.max(this.maxLevel, level);
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "splitting hash join partition into", partitionCount, "partitions at level", level, this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		TupleBuffer[] builds = createPartitions(this.buildSource, partitionCount);
+		TupleBuffer[] probes = createPartitions(this.probeSource, partitionCount);
+		distribute(p.build, builds, this.buildSource.getExpressionIndexes(), level, shift);
+		distribute(p.probe, probes, this.probeSource.getExpressionIndexes(), level, shift);
+		for (int i = partitionCount - 1; i >= 0; i--) {
+			this.partitions.addFirst(new Partition(builds[i], probes[i], level));
+		}
+	}
+
+	private void distribute(TupleBuffer source, TupleBuffer[] target, int[] indexes, int level, int shift) 
+			throws TeiidComponentException, TeiidProcessingException {
+		TupleSource ts = source.createIndexedTupleSource(true);
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			//null keys were already removed
+			target[getPartition(getKey(tuple, indexes), level, shift)].addTuple(tuple);
+		}
+		ts.closeSource();
+		source.remove();
+		for (TupleBuffer tb : target) {
+			tb.close();
+		}
+	}
+	
+	private void releasePartition() {
+		if (this.current != null) {
+			this.current.build.remove();
+			this.current.probe.remove();
+			this.current = null;
+		}
+		this.table = null;
+		if (this.partitionReserved > 0) {
+			this.joinNode.getBufferManager().releaseBuffers(this.partitionReserved);
+			this.partitionReserved = 0;
+		}
+	}
+	
+	/**
+	 * Split the probe side using the same partitioning as the build side.
+	 * Null keys cannot match, so they are output immediately for outer joins.
+	 */
+	private void partitionProbe() throws TeiidComponentException,
+			TeiidProcessingException {
+		TupleSource ts = this.probeSource.getIterator();
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			List<?> key = getKey(tuple, this.probeSource.getExpressionIndexes());
+			if (key != null) {
+				this.probePartitions[getPartition(key, 0, this.partitionShift)].addTuple(tuple);
+			} else if (this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+		this.partitions = new LinkedList<Partition>();
+		for (int i = 0; i < this.probePartitions.length; i++) {
+			this.probePartitions[i].close();
+			this.partitions.add(new Partition(this.buildPartitions[i], this.probePartitions[i], 0));
+		}
+		this.buildPartitions = null;
+		this.probePartitions = null;
+		this.probePartitioned = true;
+	}
+	
+	private void probe() throws TeiidComponentException,
+			TeiidProcessingException {
+		while (true) {
+			if (this.probeTuple == null) {
+				this.probeTuple = this.probeTs.nextTuple();
+				if (this.probeTuple == null) {
+					return;
+				}
+				List<?> key = getKey(this.probeTuple, this.probeSource.getExpressionIndexes());
+				this.matches = key == null ? null : this.table.get(key);
+				this.matchIndex = 0;
+				this.matched = false;
+			}
+			if (this.matches != null) {
+				while (this.matchIndex < this.matches.size()) {
+					List<?> buildTuple = this.matches.get(this.matchIndex);
+					List outputTuple = this.buildSource == this.leftSource ? outputTuple(buildTuple, this.probeTuple) : outputTuple(this.probeTuple, buildTuple);
+					boolean match = this.joinNode.matchesCriteria(outputTuple);
+					this.matchIndex++;
+					if (match) {
+						this.matched = true;
+						this.joinNode.addBatchRow(outputTuple);
+					}
+				}
+			}
+			List<?> tuple = this.probeTuple;
+			this.probeTuple = null;
+			if (!this.matched && this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+	}
+	
+	@Override
+	public HashJoinStrategy clone() {
+		HashJoinStrategy clone = new HashJoinStrategy();
+		clone.buildLeft = this.buildLeft;
+		return clone;
+	}
+	
+	@Override
+	public String toString() {
+		return "HASH JOIN" + (buildLeft?" [BUILD LEFT]":""); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	
+}
@@ -37,6 +37,8 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
 import org.teiid.query.sql.LanguageObject;
@@ -58,7 +60,8 @@ public class JoinNode extends SubqueryAwareRelationalNode {
 	    MERGE,
 	    ENHANCED_SORT,
 	    NESTED_LOOP,
-	    NESTED_TABLE
+	    NESTED_TABLE,
+	    HASH
 	}
         
     private enum State { LOAD_LEFT, LOAD_RIGHT, EXECUTE }    
@@ -73,6 +76,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
     private boolean leftDistinct;
     private boolean rightDistinct;
     private Criteria joinCriteria;
+    private CompiledExpression compiledCriteria;
     
     private Map combinedElementMap;
     private int[] projectionIndexes;
@@ -118,6 +122,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
     
     public void setJoinCriteria(Criteria joinCriteria) {
         this.joinCriteria = joinCriteria;
+        this.compiledCriteria = null;
     }
     
     @Override
@@ -334,7 +339,14 @@ public class JoinNode extends SubqueryAwareRelationalNode {
     }
     
     boolean matchesCriteria(List outputTuple) throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
-		return (this.joinCriteria == null || getEvaluator(this.combinedElementMap).evaluate(this.joinCriteria, outputTuple));
+		if (this.joinCriteria == null) {
+			return true;
+		}
+		Evaluator eval = getEvaluator(this.combinedElementMap);
+		if (this.compiledCriteria == null) {
+			this.compiledCriteria = eval.compile(this.joinCriteria);
+		}
+		return this.compiledCriteria.evaluateCriteria(outputTuple);
     }
 
     public List getLeftExpressions() {
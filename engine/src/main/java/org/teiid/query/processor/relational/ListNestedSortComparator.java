@@ -112,6 +112,22 @@ public class ListNestedSortComparator<T extends Comparable<? super T>> implement
 		return isDistinct;
 	}
     
+    public void setDistinct(boolean isDistinct) {
+		this.isDistinct = isDistinct;
+	}
+    
+    /**
+     * @return a copy with its own distinct state so that it may be used by another thread 
+     */
+    public ListNestedSortComparator<T> copy() {
+    	ListNestedSortComparator<T> copy = new ListNestedSortComparator<T>(this.sortParameters, this.ascendingOrder);
+    	copy.orderTypes = this.orderTypes;
+    	copy.isDistinct = this.isDistinct;
+    	copy.distinctIndex = this.distinctIndex;
+    	copy.nullOrdering = this.nullOrdering;
+    	return copy;
+    }
+    
     public void setDistinctIndex(int distinctIndex) {
 		this.distinctIndex = distinctIndex;
 	}
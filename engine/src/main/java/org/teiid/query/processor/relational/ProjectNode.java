@@ -34,11 +34,14 @@ import java.util.Map;
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -54,6 +57,8 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private boolean needsProject = true;
     private List<Expression> expressions;
     private int[] projectionIndexes;
+    private boolean columnProjection;
+    private CompiledExpression[] compiledExpressions;
 
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
@@ -84,6 +89,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 
 	public void setSelectSymbols(List<? extends Expression> symbols) {
 		this.selectSymbols = symbols;
+		this.compiledExpressions = null;
 		elementMap = Collections.emptyMap();
 		this.projectionIndexes = new int[this.selectSymbols.size()];
     	Arrays.fill(this.projectionIndexes, -1);
@@ -104,6 +110,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 		List<? extends Expression> childElements = getChildren()[0].getElements();
         // Create element lookup map for evaluating project expressions
         this.elementMap = createLookupMap(childElements);
+        this.compiledExpressions = null;
 
         // Check whether project needed at all - this occurs if:
         // 1. outputMap == null (see previous block)
@@ -126,10 +133,18 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             if(index == null || index.intValue() != i) {
                 // input / output element order is not the same
                 needsProject = true;
-            } else {
+            } 
+            if (index != null) {
             	projectionIndexes[i] = index;
             }
         }
+        columnProjection = true;
+        for (int index : projectionIndexes) {
+        	if (index == -1) {
+        		columnProjection = false;
+        		break;
+        	}
+        }
 	}
 	
 	public TupleBatch nextBatchDirect()
@@ -153,16 +168,36 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
                 return result;
             }
         }
+        
+        // Columns only, project the columnar batch without building rows
+        if (columnProjection && currentRow == currentBatch.getBeginRow() && !hasPendingRows() 
+        		&& currentBatch.getTuples() instanceof ColumnarBatch) {
+        	ColumnarBatch projected = ((ColumnarBatch)currentBatch.getTuples()).project(projectionIndexes);
+        	currentRow = currentBatch.getEndRow() + 1;
+        	if(currentBatch.getTerminationFlag()) {
+	            terminateBatches();
+	        }
+	        currentBatch = null;
+        	return pullBatch(projected);
+        }
 
+        Evaluator eval = getEvaluator(this.elementMap);
+        if (compiledExpressions == null) {
+        	compiledExpressions = new CompiledExpression[expressions.size()];
+        	for (int i = 0; i < compiledExpressions.length; i++) {
+        		if (projectionIndexes[i] == -1) {
+        			compiledExpressions[i] = eval.compile(expressions.get(i));
+        		}
+			}
+        }
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
-    		List<?> tuple = currentBatch.getTuple(currentRow);
+    		List<?> tuple = currentBatch.getTransientTuple(currentRow);
 
 			List<Object> projectedTuple = new ArrayList<Object>(selectSymbols.size());
 
 			// Walk through symbols
             for(int i=0; i<expressions.size(); i++) {
-				Expression symbol = expressions.get(i);
-				updateTuple(symbol, i, tuple, projectedTuple);
+				updateTuple(i, tuple, projectedTuple);
 			}
 
             // Add to batch
@@ -180,14 +215,14 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     	return pullBatch();
 	}
 
-	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
+	private void updateTuple(int projectionIndex, List<?> values, List<Object> tuple)
 		throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
 
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
 			tuple.add(values.get(index));
         } else { 
-			tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
+			tuple.add(compiledExpressions[projectionIndex].evaluate(values));
 		}
 	}
 
@@ -209,6 +244,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         target.elementMap = elementMap;
         target.expressions = expressions;
         target.projectionIndexes = projectionIndexes;
+        target.columnProjection = columnProjection;
     }
 
     public PlanNode getDescriptionProperties() {
@@ -246,6 +246,17 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         return batch;
     }
 
+    /**
+     * Return the given rows as the next batch.  Should only be called when there are no pending rows.
+     */
+    protected TupleBatch pullBatch(List<? extends List<?>> rows) {
+    	TupleBatch batch = new TupleBatch(this.getProcessingState().beginBatch, rows);
+    	getProcessingState().beginBatch += rows.size();
+    	batch.setTerminationFlag(this.getProcessingState().lastBatch);
+    	this.getProcessingState().lastBatch = false;
+    	return batch;
+    }
+
 	public void open()
 		throws TeiidComponentException, TeiidProcessingException {
 
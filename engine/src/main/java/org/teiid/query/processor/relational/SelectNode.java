@@ -36,6 +36,8 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.CompiledExpression;
+import org.teiid.query.eval.Evaluator;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.Criteria;
@@ -46,6 +48,7 @@ import org.teiid.query.util.CommandContext;
 public class SelectNode extends SubqueryAwareRelationalNode {
 
 	private Criteria criteria;
+	private CompiledExpression compiledCriteria;
 	private List<Expression> projectedExpressions;
     
     // Derived element lookup map
@@ -73,6 +76,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
 	public void setCriteria(Criteria criteria) { 
 		this.criteria = criteria;
+		this.compiledCriteria = null;
 	}
 
 	public Criteria getCriteria() { // made public to support change in ProcedurePlanner
@@ -104,10 +108,14 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         	currentBatch = this.getChildren()[0].nextBatch();
         }
 
+        Evaluator eval = getEvaluator(this.elementMap);
+        if (compiledCriteria == null) {
+        	compiledCriteria = eval.compile(this.criteria);
+        }
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
-    		List<?> tuple = currentBatch.getTuple(currentRow);
+    		List<?> tuple = currentBatch.getTransientTuple(currentRow);
 
-            if(getEvaluator(this.elementMap).evaluate(this.criteria, tuple)) {
+            if(compiledCriteria.evaluateCriteria(tuple)) {
                 addBatchRow(projectTuple(this.projectionIndexes, tuple));
             }
             currentRow++;
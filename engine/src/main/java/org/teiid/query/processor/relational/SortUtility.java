@@ -23,11 +23,17 @@
 package org.teiid.query.processor.relational;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -47,6 +53,7 @@ import org.teiid.logging.MessageLevel;
 import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
 
 
 /**
@@ -71,16 +78,28 @@ public class SortUtility {
 	/**
 	 * state holder for the merge algorithm
 	 */
-	private class SortedSublist implements Comparable<SortedSublist> {
+	private static class SortedSublist {
 		List<?> tuple;
 		int index;
 		TupleBufferTupleSource its;
+		Iterator<List<?>> memory;
 		int limit = Integer.MAX_VALUE;
 		
-		@Override
-		public int compareTo(SortedSublist o) {
-			//reverse the comparison, so that removal of the lowest is a low cost operation
-			return -comparator.compare(this.tuple, o.tuple);
+		/**
+		 * Advance to the next tuple, which will be null when this sublist is exhausted 
+		 */
+		void next() throws TeiidComponentException, TeiidProcessingException {
+			tuple = null;
+			if (memory != null) {
+				if (memory.hasNext()) {
+					tuple = memory.next();
+				}
+				return;
+			}
+			if (limit < its.getCurrentIndex()) {
+				return; //special case for still reading the output tuplebuffer
+			}
+			tuple = its.nextTuple();
 		}
 		
 		@Override
@@ -88,6 +107,91 @@ public class SortUtility {
 			return index + " " + tuple; //$NON-NLS-1$
 		}
 	}
+	
+	/**
+	 * A tree of losers for a k-way merge.  Each internal node holds the loser of the
+	 * comparison between its children and the root holds the overall winner, so that 
+	 * replacing the winner requires only log(k) comparisons along a single path.
+	 * <br/>
+	 * Ties are broken in favor of the master sublist.  A stable merge then favors the lower index, 
+	 * otherwise as with the previous list based merge a waiting sublist wins ties against the 
+	 * one just advanced.
+	 */
+	private class LoserTree {
+		private SortedSublist[] sublists;
+		private int[] tree;
+		private int master;
+		private boolean stable;
+		
+		LoserTree(SortedSublist[] sublists, int master, boolean stable) {
+			this.sublists = sublists;
+			this.master = master;
+			this.stable = stable;
+			int k = sublists.length;
+			this.tree = new int[k];
+			if (k == 1) {
+				return;
+			}
+			//leaf i is at position k + i
+			int[] winners = new int[2*k];
+			for (int i = 0; i < k; i++) {
+				winners[k + i] = i;
+			}
+			for (int n = k - 1; n >= 1; n--) {
+				int left = winners[2*n];
+				int right = winners[2*n + 1];
+				if (wins(left, right, left < right)) {
+					winners[n] = left;
+					tree[n] = right;
+				} else {
+					winners[n] = right;
+					tree[n] = left;
+				}
+			}
+			tree[0] = winners[1];
+		}
+		
+		SortedSublist getWinner() {
+			return sublists[tree[0]];
+		}
+		
+		/**
+		 * Replay the matches for the winner after it has been advanced
+		 */
+		void replay() {
+			int winner = tree[0];
+			for (int n = (winner + sublists.length) >> 1; n >= 1; n >>= 1) {
+				if (wins(tree[n], winner, !stable || tree[n] < winner)) {
+					int loser = winner;
+					winner = tree[n];
+					tree[n] = loser;
+				}
+			}
+			tree[0] = winner;
+		}
+		
+		private boolean wins(int i, int j, boolean tie) {
+			List<?> first = sublists[i].tuple;
+			List<?> second = sublists[j].tuple;
+			if (first == null) {
+				return false;
+			}
+			if (second == null) {
+				return true;
+			}
+			int compare = comparator.compare(first, second);
+			if (compare != 0) {
+				return compare < 0;
+			}
+			if (i == master) {
+				return true;
+			}
+			if (j == master) {
+				return false;
+			}
+			return tie;
+		}
+	}
 
 	//constructor state
     private TupleSource source;
@@ -115,6 +219,10 @@ public class SortUtility {
 	private TupleBuffer workingBuffer;
 	private long[] attempts = new long[2];
 	private boolean nonBlocking;
+	private int parallelism;
+	private Executor executor;
+	private CommandContext context;
+	private MemorySort memorySort;
 	
 	private static boolean STABLE_SORT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.requireStableSort", false); //$NON-NLS-1$
 	
@@ -256,6 +364,10 @@ public class SortUtility {
 	 * creates sorted sublists stored in tuplebuffers
 	 */
     protected void initialSort(boolean onePass) throws TeiidComponentException, TeiidProcessingException {
+    	if (this.memorySort != null) {
+    		memorySort(onePass); //resume a parallel sort
+    		return;
+    	}
     	outer: while (!doneReading) {
     		
     		if (this.source != null) {
@@ -303,57 +415,70 @@ public class SortUtility {
         }
     	
 		//sub-phase 2 - perform a memory sort on the workingbuffer/source
-    	int totalReservedBuffers = 0;
+    	memorySort(onePass);
+    }
+    
+    private void memorySort(boolean onePass) throws TeiidComponentException, TeiidProcessingException {
+    	boolean blocked = false;
         try {
-    		int maxRows = this.batchSize;
-    		Collection<List<?>> workingTuples = null;
-            boolean done = false;
-			/*
-			 * we can balance the work between the initial / multi-pass sort based upon the row count
-			 * and an updated estimate of the batch memory size 
-			 */
-			this.workingBuffer.close();
-			schemaSize = Math.max(1, this.workingBuffer.getRowSizeEstimate()*this.batchSize);
-			long memorySpaceNeeded = workingBuffer.getRowCount()*(long)this.workingBuffer.getRowSizeEstimate();
-			if (onePass) {
-				//one pass just needs small sub-lists
-				memorySpaceNeeded = Math.min(memorySpaceNeeded, bufferManager.getMaxProcessingSize());
-			}
-			totalReservedBuffers = bufferManager.reserveBuffers(Math.min(bufferManager.getMaxProcessingSize(), (int)Math.min(memorySpaceNeeded, Integer.MAX_VALUE)), BufferReserveMode.FORCE);
-			if (totalReservedBuffers != memorySpaceNeeded) {
-				int processingSublists = Math.max(2, bufferManager.getMaxProcessingSize()/schemaSize);
-				int desiredSpace = (int)Math.min(Integer.MAX_VALUE, (workingBuffer.getRowCount()/processingSublists + (workingBuffer.getRowCount()%processingSublists))*(long)this.workingBuffer.getRowSizeEstimate());
-				if (desiredSpace > totalReservedBuffers) {
-					totalReservedBuffers += bufferManager.reserveBuffers(desiredSpace - totalReservedBuffers, BufferReserveMode.NO_WAIT);
-					//TODO: wait to force 2/3 pass processing
-				} else if (memorySpaceNeeded <= Integer.MAX_VALUE) {
-					totalReservedBuffers += bufferManager.reserveBuffers((int)memorySpaceNeeded - totalReservedBuffers, BufferReserveMode.NO_WAIT);
+        	MemorySort ms = this.memorySort;
+        	if (ms == null) {
+        		ms = new MemorySort();
+	    		ms.maxRows = this.batchSize;
+				/*
+				 * we can balance the work between the initial / multi-pass sort based upon the row count
+				 * and an updated estimate of the batch memory size 
+				 */
+				this.workingBuffer.close();
+				schemaSize = Math.max(1, this.workingBuffer.getRowSizeEstimate()*this.batchSize);
+				long memorySpaceNeeded = workingBuffer.getRowCount()*(long)this.workingBuffer.getRowSizeEstimate();
+				if (onePass) {
+					//one pass just needs small sub-lists
+					memorySpaceNeeded = Math.min(memorySpaceNeeded, bufferManager.getMaxProcessingSize());
 				}
-				if (totalReservedBuffers > schemaSize) {
-					int additional = totalReservedBuffers%schemaSize;
-					totalReservedBuffers-=additional;
-					//release any excess
-		            bufferManager.releaseBuffers(additional);
+				ms.reserved = bufferManager.reserveBuffers(Math.min(bufferManager.getMaxProcessingSize(), (int)Math.min(memorySpaceNeeded, Integer.MAX_VALUE)), BufferReserveMode.FORCE);
+				this.memorySort = ms;
+				if (ms.reserved != memorySpaceNeeded) {
+					int processingSublists = Math.max(2, bufferManager.getMaxProcessingSize()/schemaSize);
+					int desiredSpace = (int)Math.min(Integer.MAX_VALUE, (workingBuffer.getRowCount()/processingSublists + (workingBuffer.getRowCount()%processingSublists))*(long)this.workingBuffer.getRowSizeEstimate());
+					if (desiredSpace > ms.reserved) {
+						ms.reserved += bufferManager.reserveBuffers(desiredSpace - ms.reserved, BufferReserveMode.NO_WAIT);
+						//TODO: wait to force 2/3 pass processing
+					} else if (memorySpaceNeeded <= Integer.MAX_VALUE) {
+						ms.reserved += bufferManager.reserveBuffers((int)memorySpaceNeeded - ms.reserved, BufferReserveMode.NO_WAIT);
+					}
+					if (ms.reserved > schemaSize) {
+						int additional = ms.reserved%schemaSize;
+						ms.reserved-=additional;
+						//release any excess
+			            bufferManager.releaseBuffers(additional);
+					}
 				}
-			}
-			TupleBufferTupleSource ts = workingBuffer.createIndexedTupleSource(source != null);
-			ts.setReverse((!stableSort || mode == Mode.DUP_REMOVE) && workingBuffer.getRowCount() > this.batchSize);
-			processed+=this.workingBuffer.getRowCount();
-			maxRows = Math.max(1, (totalReservedBuffers/schemaSize))*batchSize;
-            if (mode == Mode.SORT) {
+				ms.ts = workingBuffer.createIndexedTupleSource(source != null);
+				ms.ts.setReverse((!stableSort || mode == Mode.DUP_REMOVE) && workingBuffer.getRowCount() > this.batchSize);
+				processed+=this.workingBuffer.getRowCount();
+				ms.maxRows = Math.max(1, (ms.reserved/schemaSize))*batchSize;
+        	} else if (ms.parallelSort != null) {
+        		//throws a BlockedException if the slices are still being sorted
+        		ms.parallelSort.finish();
+        		ms.parallelSort = null;
+        	}
+            boolean parallel = isParallel();
+            Collection<List<?>> workingTuples = null;
+            if (mode == Mode.SORT || parallel) {
             	workingTuples = new ArrayList<List<?>>();
             } else {
             	workingTuples = new TreeSet<List<?>>(comparator);
             }
-            outer: while (!done) {
-                while(!done) {
-		        	if (workingTuples.size() >= maxRows) {
+            outer: while (!ms.done) {
+                while(!ms.done) {
+		        	if (workingTuples.size() >= ms.maxRows) {
 	        			break;
 		        	}
-	            	List<?> tuple = ts.nextTuple();
+	            	List<?> tuple = ms.ts.nextTuple();
 	            	
 	            	if (tuple == null) {
-	            		done = true;
+	            		ms.done = true;
 	            		if(workingTuples.isEmpty()) {
 				        	break outer;
 				        }
@@ -364,6 +489,14 @@ public class SortUtility {
 		
 		        TupleBuffer sublist = createTupleBuffer();
 		        activeTupleBuffers.add(sublist);
+		        if (parallel) {
+		        	ms.parallelSort = new ParallelSort((List<List<?>>)workingTuples, sublist);
+		        	workingTuples.clear();
+		        	ms.parallelSort.start();
+		        	ms.parallelSort.finish();
+		        	ms.parallelSort = null;
+		        	continue;
+		        }
 		        if (this.mode == Mode.SORT) {
 		        	//perform a stable sort
 		    		Collections.sort((List<List<?>>)workingTuples, comparator);
@@ -375,15 +508,15 @@ public class SortUtility {
 		        sublist.saveBatch();
             }
         } catch (BlockedException e) {
-        	Assertion.failed("should not block during memory sublist sorting"); //$NON-NLS-1$
+        	if (this.memorySort == null || this.memorySort.parallelSort == null) {
+        		Assertion.failed("should not block during memory sublist sorting"); //$NON-NLS-1$
+        	}
+        	blocked = true;
+        	throw e;
         } finally {
-    		bufferManager.releaseBuffers(totalReservedBuffers);
-    		if (this.workingBuffer != null) {
-    			if (this.source != null) {
-    				this.workingBuffer.remove();
-    			}
-        		this.workingBuffer = null;
-    		}
+        	if (!blocked) {
+        		releaseMemorySort();
+        	}
         }
     	
     	if (this.activeTupleBuffers.isEmpty()) {
@@ -392,6 +525,19 @@ public class SortUtility {
         this.phase = MERGE;
     }
 
+	private void releaseMemorySort() {
+		if (this.memorySort != null) {
+			bufferManager.releaseBuffers(this.memorySort.reserved);
+			this.memorySort = null;
+		}
+		if (this.workingBuffer != null) {
+			if (this.source != null) {
+				this.workingBuffer.remove();
+			}
+			this.workingBuffer = null;
+		}
+	}
+
     public void setWorkingBuffer(TupleBuffer workingBuffer) {
 		this.workingBuffer = workingBuffer;
 	}
@@ -438,8 +584,6 @@ public class SortUtility {
         
         try {
         	while(this.activeTupleBuffers.size() > 1) {    		
-	    		ArrayList<SortedSublist> sublists = new ArrayList<SortedSublist>(activeTupleBuffers.size());
-	            
 	            TupleBuffer merged = createTupleBuffer();
 
 	            desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
@@ -453,6 +597,7 @@ public class SortUtility {
 	            	LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", maxSortIndex, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$
 	            }
 	        	// initialize the sublists with the min value
+	            SortedSublist[] sublists = new SortedSublist[maxSortIndex];
 	            for(int i = 0; i<maxSortIndex; i++) { 
 	             	TupleBuffer activeID = activeTupleBuffers.get(i);
 	             	SortedSublist sortedSublist = new SortedSublist();
@@ -462,18 +607,11 @@ public class SortUtility {
 	            	if (activeID == output) {
 	            		sortedSublist.limit = output.getRowCount();
 	            	}
-	            	incrementWorkingTuple(sublists, sortedSublist);
+	            	sortedSublist.next();
+	            	sublists[i] = sortedSublist;
 	            }
 	            
-	            // iteratively process the lowest tuple
-	            while (sublists.size() > 0) {
-	            	SortedSublist sortedSublist = sublists.remove(sublists.size() - 1);
-	        		merged.addTuple(sortedSublist.tuple);
-	                if (this.output != null && masterSortIndex < maxSortIndex && sortedSublist.index != masterSortIndex) {
-	                	this.output.addTuple(sortedSublist.tuple); //a new distinct row
-	            	}
-	            	incrementWorkingTuple(sublists, sortedSublist);
-	            }                
+	            merge(sublists, merged, (this.output != null && masterSortIndex < maxSortIndex)?masterSortIndex:-1, false);
 	
 	            // Remove merged sublists
 	            for(int i=0; i<maxSortIndex; i++) {
@@ -516,40 +654,148 @@ public class SortUtility {
     	this.phase = INITIAL_SORT;
     }
 
-	private void incrementWorkingTuple(ArrayList<SortedSublist> subLists, SortedSublist sortedSublist) throws TeiidComponentException, TeiidProcessingException {
+	/**
+	 * Merge the sorted sublists into the merged buffer.  In the dup removal modes
+	 * only the first of each set of equal tuples is kept.
+	 * @param master the index of the sublist holding the existing output, or -1.  
+	 * Merged tuples not from the master sublist are new distinct rows and are added to the output. 
+	 * @param stable true if ties should be taken in sublist order
+	 */
+	private void merge(SortedSublist[] sublists, TupleBuffer merged, int master, boolean stable) throws TeiidComponentException, TeiidProcessingException {
+		LoserTree tree = new LoserTree(sublists, master, stable);
+		boolean dupRemove = this.mode != Mode.SORT;
+		List<?> last = null;
 		while (true) {
-			sortedSublist.tuple = null;
-			if (sortedSublist.limit < sortedSublist.its.getCurrentIndex()) {
-				return; //special case for still reading the output tuplebuffer
+			SortedSublist sortedSublist = tree.getWinner();
+			List<?> tuple = sortedSublist.tuple;
+			if (tuple == null) {
+				break; //all sublists are exhausted
 			}
-			sortedSublist.tuple = sortedSublist.its.nextTuple();
-	        if (sortedSublist.tuple == null) {
-	        	return; // done with this sublist
-	        }
-			int index = Collections.binarySearch(subLists, sortedSublist);
-			if (index < 0) {
-				subLists.add(-index - 1, sortedSublist);
-				return;
+			//equal tuples are adjacent in the merged order, so only the last needs to be checked
+			//this also maintains the distinct flag of the comparator for sort mode
+			boolean duplicate = last != null && (dupRemove || comparator.isDistinct()) && comparator.compare(last, tuple) == 0;
+			if (!dupRemove || !duplicate) {
+				merged.addTuple(tuple);
+				if (master != -1 && sortedSublist.index != master) {
+                	this.output.addTuple(tuple); //a new distinct row
+            	}
+				last = tuple;
 			}
-			if (mode == Mode.SORT) {
-				subLists.add(index, sortedSublist);
-				return;
-			} 
-			/* In dup removal mode we need to ensure that a sublist other than the master is incremented
-			 */
-			if (mode == Mode.DUP_REMOVE && this.output != null && sortedSublist.index == masterSortIndex) {
-				SortedSublist dup = subLists.get(index);
-				subLists.set(index, sortedSublist);
-				sortedSublist = dup;
+			sortedSublist.next();
+			tree.replay();
+		}
+	}
+	
+	private boolean isParallel() {
+		return this.parallelism > 1 && this.executor != null;
+	}
+	
+	/**
+	 * State for the memory sort of the working buffer into sublists, which is retained
+	 * if the processing thread yields while a parallel sort is in progress. 
+	 */
+	private static class MemorySort {
+		TupleBufferTupleSource ts;
+		int reserved;
+		int maxRows;
+		boolean done;
+		ParallelSort parallelSort;
+	}
+	
+	/**
+	 * Sorts the working tuples into a sublist using up to parallelism threads.  The tuples
+	 * are split into slices that are each sorted independently with their own comparator, 
+	 * with the processing thread taking part, and then merged into the sublist.  The tuples 
+	 * are already accounted for in the memory reserved for the working set, so no additional 
+	 * reservation is needed.
+	 */
+	private class ParallelSort implements Runnable {
+		private List<?>[][] slices;
+		private ListNestedSortComparator[] comparators;
+		private TupleBuffer sublist;
+		private AtomicInteger next = new AtomicInteger();
+		private AtomicInteger remaining;
+		private AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+		private CommandContext context = SortUtility.this.context;
+		
+		ParallelSort(List<List<?>> workingTuples, TupleBuffer sublist) {
+			int sliceCount = Math.max(1, Math.min(parallelism, workingTuples.size() / (2 * batchSize)));
+			this.slices = new List<?>[sliceCount][];
+			this.comparators = new ListNestedSortComparator[sliceCount];
+			int start = 0;
+			for (int i = 0; i < sliceCount; i++) {
+				int end = start + (workingTuples.size() - start) / (sliceCount - i);
+				slices[i] = workingTuples.subList(start, end).toArray(new List<?>[end - start]);
+				comparators[i] = comparator.copy();
+				start = end;
 			}
+			this.remaining = new AtomicInteger(sliceCount);
+			this.sublist = sublist;
 		}
-	} 
+		
+		void start() {
+			for (int i = 1; i < slices.length; i++) {
+				try {
+					executor.execute(this);
+				} catch (RejectedExecutionException e) {
+					break; //the remaining slices will be sorted by the processing thread
+				}
+			}
+			//work on slices that have not been claimed
+			run();
+		}
+		
+		@Override
+		public void run() {
+			int i = 0;
+			while ((i = next.getAndIncrement()) < slices.length) {
+				try {
+					Arrays.sort(slices[i], comparators[i]);
+				} catch (RuntimeException e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					if (remaining.decrementAndGet() == 0 && context != null) {
+						context.moreWork();
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Merge the sorted slices into the sublist, or yield if slices are still being sorted by other threads
+		 */
+		void finish() throws TeiidComponentException, TeiidProcessingException {
+			if (remaining.get() > 0) {
+				throw BlockedException.block("Blocking on parallel sort"); //$NON-NLS-1$
+			}
+			RuntimeException e = failure.get();
+			if (e != null) {
+				throw e;
+			}
+			SortedSublist[] sublists = new SortedSublist[slices.length];
+			for (int i = 0; i < slices.length; i++) {
+				if (!comparators[i].isDistinct()) {
+					comparator.setDistinct(false);
+				}
+				SortedSublist sortedSublist = new SortedSublist();
+				sortedSublist.memory = Arrays.asList(slices[i]).iterator();
+				sortedSublist.index = i;
+				sortedSublist.next();
+				sublists[i] = sortedSublist;
+			}
+			merge(sublists, sublist, -1, true);
+			sublist.saveBatch();
+		}
+	}
 
     public boolean isDistinct() {
     	return this.comparator.isDistinct();
     }
 
 	public void remove() {
+		if (this.memorySort != null) {
+			releaseMemorySort();
+		}
 		if (workingBuffer != null && source != null) {
 			workingBuffer.remove();
 			workingBuffer = null;
@@ -569,6 +815,17 @@ public class SortUtility {
 		this.output = null;
 	}
 
+	/**
+	 * Allow the initial sorted sublists to be sorted with up to the sort parallelism number of threads
+	 * from the context executor.  A parallelism of 1 or less sorts serially.
+	 * @param context notified when a parallel sort that the processing thread yielded on completes
+	 */
+	public void setParallelism(CommandContext context) {
+		this.parallelism = context.getSortParallelism();
+		this.executor = context.getExecutor();
+		this.context = context;
+	}
+	
 	public void setNonBlocking(boolean b) {
 		this.nonBlocking = b;
 	}
@@ -271,6 +271,7 @@ class SourceState {
     		}
 		    this.sortUtility = new SortUtility(ts, expressions, Collections.nCopies(expressions.size(), OrderBy.ASC), 
 		    		sortOption == SortOption.SORT_DISTINCT?Mode.DUP_REMOVE_SORT:Mode.SORT, this.source.getBufferManager(), this.source.getConnectionID(), source.getElements());
+		    this.sortUtility.setParallelism(this.source.getContext());
 		    this.markDistinct(sortOption == SortOption.SORT_DISTINCT && expressions.size() == this.getOuterVals().size());
 		    if (ts == null) {
 		    	this.sortUtility.setWorkingBuffer(this.buffer);
@@ -22,7 +22,9 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedList;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -37,14 +39,27 @@ import org.teiid.query.util.CommandContext;
 
 
 public class UnionAllNode extends RelationalNode {
+	
+	private static class PrefetchedBatch {
+		int source;
+		TupleBatch batch;
+		boolean reserved;
+	}
 
     private static final int SMALL_LIMIT = 10;
+    static final int PREFETCH_BATCHES = 4;
 	private boolean[] sourceDone;
     private boolean[] sourceOpen;
     
     private int outputRow = 1;
     private int reserved;
     private int schemaSize;
+    
+    //parallel state
+    private boolean[] sourceReserved;
+    private LinkedList<PrefetchedBatch> prefetched;
+    private int[] prefetchCount;
+    private int nextSource;
 	
 	public UnionAllNode(int nodeID) {
 		super(nodeID);
@@ -56,6 +71,10 @@ public class UnionAllNode extends RelationalNode {
         sourceDone = null;
         sourceOpen = null;
         outputRow = 1;   
+        sourceReserved = null;
+        prefetched = null;
+        prefetchCount = null;
+        nextSource = 0;
     }    
     
     @Override
@@ -103,6 +122,7 @@ public class UnionAllNode extends RelationalNode {
     		}
     		
     		//we use the 2x multiple here because the default strategy can proactively execute unneeded results
+    		//union parallelism is not used in this case, since prefetching all branches would defeat the limit
     		if (toOpen < this.getContext().getUserRequestSourceConcurrency()*2) {
     			if (reserved == 0) {
     	        	reserved = getBufferManager().reserveBuffers((toOpen) * schemaSize, BufferReserveMode.FORCE);
@@ -122,6 +142,15 @@ public class UnionAllNode extends RelationalNode {
 		if (reserved == 0) {
         	reserved = getBufferManager().reserveBuffers((getChildCount()) * schemaSize, BufferReserveMode.FORCE);
         }
+		
+		//up to the parallelism (capped at the request source concurrency) branches may 
+		//execute at once - keep each of them busy by prefetching
+    	if (this.getContext().getUnionParallelism() > 0 && this.getChildCount() > 1) {
+    		sourceReserved = new boolean[this.getChildCount()];
+    		Arrays.fill(sourceReserved, true);
+    		prefetched = new LinkedList<PrefetchedBatch>();
+    		prefetchCount = new int[this.getChildCount()];
+    	}
     	
         // Open the children
         super.open();
@@ -130,6 +159,10 @@ public class UnionAllNode extends RelationalNode {
     public TupleBatch nextBatchDirect() 
         throws BlockedException, TeiidComponentException, TeiidProcessingException {
 
+    	if (prefetched != null) {
+    		return nextBatchParallel();
+    	}
+    	
         // Walk through all children and for each one that isn't done, try to retrieve a batch
         // When all sources are done, set the termination flag on that batch
         
@@ -222,6 +255,86 @@ public class UnionAllNode extends RelationalNode {
         return outputBatch;
     }    
     
+    /**
+     * Poll every source, queuing up to {@link #PREFETCH_BATCHES} batches per source 
+     * so that all sources are kept busy, then return the batches in arrival order.  
+     * The first queued batch for a source is covered by the reservation made when the 
+     * source was opened, additional batches are only queued if buffer space can be reserved.
+     */
+    private TupleBatch nextBatchParallel() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+    	RelationalNode[] children = getChildren();
+    	int childCount = getChildCount();
+    	for (int j = 0; j < childCount; j++) {
+    		int i = (nextSource + j) % childCount;
+    		if (sourceDone[i] || prefetchCount[i] >= PREFETCH_BATCHES) {
+    			continue;
+    		}
+    		boolean reserve = prefetchCount[i] > 0;
+    		if (reserve) {
+    			int granted = getBufferManager().reserveBuffers(schemaSize, BufferReserveMode.NO_WAIT);
+    			if (granted < schemaSize) {
+    				getBufferManager().releaseBuffers(granted);
+    				continue;
+    			}
+    			reserved += schemaSize;
+    		}
+    		TupleBatch batch = null;
+    		try {
+    			batch = children[i].nextBatch();
+    		} catch (BlockedException e) {
+    			// no problem - try the next one
+    		}
+    		if (batch != null && batch.getTerminationFlag()) {
+    			sourceDone[i] = true;
+    			if (sourceReserved[i]) {
+    				sourceReserved[i] = false;
+    				releaseReserve();
+    			}
+    		}
+    		if (batch != null && batch.getRowCount() > 0) {
+    			PrefetchedBatch next = new PrefetchedBatch();
+    			next.source = i;
+    			next.batch = batch;
+    			next.reserved = reserve;
+    			prefetched.add(next);
+    			prefetchCount[i]++;
+    		} else if (reserve) {
+    			releaseReserve();
+    		}
+    	}
+    	PrefetchedBatch next = prefetched.poll();
+    	boolean done = prefetched.isEmpty();
+    	for (int i = 0; i < childCount && done; i++) {
+    		done = sourceDone[i];
+    	}
+    	if (next == null) {
+    		if (!done) {
+    			throw BlockedException.block(getContext().getRequestId(), "Blocking on union source.", getID()); //$NON-NLS-1$
+    		}
+    		TupleBatch outputBatch = new TupleBatch(outputRow, Collections.EMPTY_LIST);
+            outputBatch.setTerminationFlag(true);
+            return outputBatch;
+    	}
+    	prefetchCount[next.source]--;
+    	if (next.reserved) {
+    		next.reserved = false;
+    		releaseReserve();
+    	}
+    	//start with the following source next time so that no source is starved 
+    	nextSource = (next.source + 1) % childCount;
+    	TupleBatch outputBatch = new TupleBatch(outputRow, next.batch.getTuples());
+    	outputBatch.setTerminationFlag(done);
+    	outputRow += outputBatch.getRowCount();
+    	return outputBatch;
+    }
+
+	private void releaseReserve() {
+		if (reserved > 0) {
+			getBufferManager().releaseBuffers(schemaSize);
+			reserved-=schemaSize;
+		}
+	}
+    
     @Override
     public void closeDirect() {
     	if (reserved > 0) {
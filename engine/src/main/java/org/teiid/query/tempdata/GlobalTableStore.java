@@ -52,6 +52,13 @@ public interface GlobalTableStore {
 	Serializable getAddress();
 	
 	List<?> updateMatViewRow(String matTableName, List<?> tuple, boolean delete) throws TeiidComponentException;
+	
+	/**
+	 * Apply a set of row changes to the materialized table so that readers see either
+	 * all or none of them.
+	 * @return the number of rows affected
+	 */
+	int updateMatViewRows(String matTableName, List<? extends List<?>> tuples, List<? extends List<?>> deletes) throws TeiidComponentException;
 
 	TempTable createMatTable(String tableName, GroupSymbol group)
 	throws TeiidComponentException, QueryMetadataException, TeiidProcessingException;
@@ -22,22 +22,34 @@
 
 package org.teiid.query.tempdata;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.QueryMetadataException;
@@ -48,6 +60,9 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.language.SQLConstants;
@@ -61,6 +76,7 @@ import org.teiid.metadata.Table;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.ReplicatedObject;
 import org.teiid.query.mapping.relational.QueryNode;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.SupportConstants;
 import org.teiid.query.metadata.TempMetadataAdapter;
@@ -75,6 +91,7 @@ import org.teiid.query.rewriter.QueryRewriter;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Create;
+import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
@@ -85,6 +102,18 @@ import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<String> {
 	
 	private static final String TEIID_FBI = "teiid:fbi"; //$NON-NLS-1$
+	
+	/**
+	 * VDB property naming the directory used to checkpoint internal materialized views
+	 */
+	public static final String MATVIEW_SNAPSHOT_DIRECTORY = "matview-snapshot-directory"; //$NON-NLS-1$
+	private static final String SNAPSHOT_SUFFIX = ".snapshot"; //$NON-NLS-1$
+	private static final int SNAPSHOT_VERSION = 1;
+	/**
+	 * A single thread so that snapshot writes and restores do not overlap
+	 */
+	private static final Executor SNAPSHOT_EXECUTOR = ExecutorUtils.newFixedThreadPool(1, "Matview Snapshot"); //$NON-NLS-1$
+	
 
 	public enum MatState {
 		NEEDS_LOADING,
@@ -100,6 +129,11 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		private long ttl = -1;
 		private boolean valid;
 		private boolean asynch; //sub state of loading
+		private boolean restoring; //sub state of loading
+		private Object changeValue; //high water mark of the change tracking column
+		private long refreshTime = -1;
+		private int refreshRowCount = -1;
+		private boolean incremental;
 		private Map<RequestID, WeakReference<RequestWorkItem>> waiters = new HashMap<RequestID, WeakReference<RequestWorkItem>>(2);
 		
 		protected MatTableInfo() {}
@@ -121,6 +155,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 				if ((!firstPass && localAddress instanceof Comparable<?> && ((Comparable)localAddress).compareTo(possibleLoadingAddress) < 0)
 						|| (refresh && asynch)) {
 					this.asynch = false;
+					this.restoring = false;
 					this.loadingAddress = possibleLoadingAddress; //ties go to the lowest address
 					return true;
 				}
@@ -150,6 +185,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 				this.valid = valid;
 			}
 			this.state = state;
+			this.restoring = false;
 			this.updateTime = System.currentTimeMillis();
 			for (WeakReference<RequestWorkItem> request : waiters.values()) {
 				RequestWorkItem workItem = request.get();
@@ -160,6 +196,29 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			waiters.clear();
 		}
 		
+		/**
+		 * Move from NEEDS_LOADING to LOADING on behalf of a snapshot restore, 
+		 * so that queries wait for the restore rather than loading from the source. 
+		 */
+		private synchronized boolean startRestore() {
+			if (state != MatState.NEEDS_LOADING) {
+				return false;
+			}
+			this.loadingAddress = localAddress;
+			setState(MatState.LOADING, null);
+			this.restoring = true;
+			return true;
+		}
+		
+		/**
+		 * Allow a load from the source if the restore did not complete
+		 */
+		private synchronized void failedRestore() {
+			if (restoring) {
+				setState(MatState.NEEDS_LOADING, null);
+			}
+		}
+		
 		public synchronized void setAsynchLoad() {
 			assert state == MatState.LOADING;
 			asynch = true;
@@ -193,6 +252,47 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			return vdbMetaData;
 		}
 
+		public synchronized Object getChangeValue() {
+			return changeValue;
+		}
+		
+		/**
+		 * Set the high water mark of the change tracking column.  Unless replace is true,
+		 * the value is only moved forward.
+		 */
+		public synchronized void setChangeValue(Object value, boolean replace) {
+			if (replace || (value != null && (changeValue == null || Constant.COMPARATOR.compare(value, changeValue) > 0))) {
+				this.changeValue = value;
+			}
+		}
+		
+		public synchronized void refreshed(long refreshTime, int refreshRowCount, boolean incremental) {
+			this.refreshTime = refreshTime;
+			this.refreshRowCount = refreshRowCount;
+			this.incremental = incremental;
+		}
+		
+		/**
+		 * @return the time in milliseconds taken by the last load or refresh, or -1 if unknown
+		 */
+		public synchronized long getRefreshTime() {
+			return refreshTime;
+		}
+		
+		/**
+		 * @return the number of rows touched by the last load or refresh, or -1 if unknown
+		 */
+		public synchronized int getRefreshRowCount() {
+			return refreshRowCount;
+		}
+		
+		/**
+		 * @return true if the last refresh applied only changes
+		 */
+		public synchronized boolean isIncremental() {
+			return incremental;
+		}
+		
 		public synchronized void addWaiter(RequestWorkItem waiter) {
 			waiters.put(waiter.getRequestID(), new WeakReference<RequestWorkItem>(waiter));
 		}
@@ -205,11 +305,34 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 	private QueryMetadataInterface metadata;
 	private Serializable localAddress;
 	private VDBMetaData vdbMetaData;
+	private File snapshotDirectory;
+	private Executor snapshotExecutor = SNAPSHOT_EXECUTOR;
 	
 	public GlobalTableStoreImpl(BufferManager bufferManager, VDBMetaData vdbMetaData, QueryMetadataInterface metadata) {
 		this.bufferManager = bufferManager;
 		this.vdbMetaData = vdbMetaData;
 		this.metadata = new TempMetadataAdapter(metadata, new TempMetadataStore());
+		if (vdbMetaData != null) {
+			String dir = vdbMetaData.getPropertyValue(MATVIEW_SNAPSHOT_DIRECTORY);
+			if (dir != null) {
+				this.snapshotDirectory = new File(dir);
+			}
+		}
+	}
+	
+	/**
+	 * Set the directory where loaded internal materialized views are checkpointed.  
+	 * May be null to disable snapshots.
+	 */
+	public void setSnapshotDirectory(File snapshotDirectory) {
+		this.snapshotDirectory = snapshotDirectory;
+	}
+	
+	/**
+	 * Set the executor used to write and restore snapshots off of the load and deploy paths
+	 */
+	public void setSnapshotExecutor(Executor snapshotExecutor) {
+		this.snapshotExecutor = snapshotExecutor;
 	}
 
 	public synchronized MatTableInfo getMatTableInfo(final String tableName) {
@@ -388,8 +511,42 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 
 	@Override
 	public void loaded(String matTableName, TempTable table) {
+		boolean snapshot = snapshotDirectory != null && vdbMetaData != null && matTableName.startsWith(RelationalPlanner.MAT_PREFIX);
+		if (snapshot) {
+			//mark the table as active so that row updates will clone rather than modify it while it's written
+			table.getActive().incrementAndGet();
+		}
 		swapTempTable(matTableName, table);
-		this.getMatTableInfo(matTableName).setState(MatState.LOADED, true);
+		MatTableInfo info = this.getMatTableInfo(matTableName);
+		info.setState(MatState.LOADED, true);
+		if (snapshot) {
+			long updateTime = 0;
+			Object changeValue = null;
+			synchronized (info) {
+				updateTime = info.updateTime;
+				changeValue = info.changeValue;
+			}
+			writeSnapshotAsynch(matTableName, table, updateTime, changeValue);
+		}
+	}
+	
+	private void writeSnapshotAsynch(final String matTableName, final TempTable table, final long updateTime, final Object changeValue) {
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writeSnapshot(matTableName, table, updateTime, changeValue);
+				} finally {
+					table.getActive().decrementAndGet();
+				}
+			}
+		};
+		try {
+			snapshotExecutor.execute(task);
+		} catch (RejectedExecutionException e) {
+			table.getActive().decrementAndGet();
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31155, matTableName, getSnapshotFile(matTableName)));
+		}
 	}
 	
 	private void swapTempTable(String tempTableName, TempTable tempTable) {
@@ -416,6 +573,38 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 		return null;
 	}
+	
+	@Override
+	public int updateMatViewRows(String matTableName,
+			List<? extends List<?>> tuples, List<? extends List<?>> deletes)
+			throws TeiidComponentException {
+		TempTable tempTable = tableStore.getTempTable(matTableName);
+		if (tempTable == null) {
+			return 0;
+		}
+		TempMetadataID id = tableStore.getMetadataStore().getTempGroupID(matTableName);
+		synchronized (id) {
+			//clone at most once for the whole set of changes
+			boolean clone = tempTable.getActive().get() != 0;
+			if (clone) {
+				tempTable = tempTable.clone();
+			}
+			int count = 0;
+			for (List<?> tuple : deletes) {
+				if (tempTable.updateTuple(tuple, true) != null) {
+					count++;
+				}
+			}
+			for (List<?> tuple : tuples) {
+				tempTable.updateTuple(tuple, false);
+				count++;
+			}
+			if (clone) {
+				swapTempTable(matTableName, tempTable);
+			}
+			return count;
+		}
+	}
 
 	public TempTableStore getTempTableStore() {
 		return this.tableStore;
@@ -478,7 +667,343 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 		return pkColumns;
 	}
+	
+	/**
+	 * Add the hash and bitmap indexes declared by the extension properties of the group
+	 */
+	static void addValueIndexes(QueryMetadataInterface metadata, Object groupID, List<ElementSymbol> allColumns, TempTable table) 
+			throws TeiidComponentException {
+		addValueIndexes(metadata, groupID, allColumns, table, MaterializationMetadataRepository.HASH_INDEXES, ValueIndexes.Type.HASH);
+		addValueIndexes(metadata, groupID, allColumns, table, MaterializationMetadataRepository.BITMAP_INDEXES, ValueIndexes.Type.BITMAP);
+	}
+
+	private static void addValueIndexes(QueryMetadataInterface metadata, Object groupID, List<ElementSymbol> allColumns, TempTable table,
+			String property, ValueIndexes.Type type) throws TeiidComponentException {
+		String columnNames = metadata.getExtensionProperty(groupID, property, false);
+		if (columnNames == null) {
+			return;
+		}
+		String groupName = metadata.getFullName(groupID);
+		for (String name : StringUtil.split(columnNames, ",")) { //$NON-NLS-1$
+			Object columnID = metadata.getElementID(groupName + ElementSymbol.SEPARATOR + name.trim());
+			ElementSymbol column = allColumns.get(metadata.getPosition(columnID) - 1);
+			if (!table.addValueIndex(column, type)) {
+				LogManager.logWarning(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31154, type, name.trim(), groupName));
+			}
+		}
+	}
+
+	//begin snapshot methods
+	
+	/**
+	 * Restore the internal materialized views checkpointed for this vdb.  Snapshots 
+	 * are only used if they match the vdb version and the current view definition.
+	 * The restored tables have the update time of the snapshot, so the normal ttl and 
+	 * refresh logic will bring them up to date.
+	 * @return the number of tables restored
+	 */
+	public int restoreSnapshots() {
+		int count = 0;
+		for (File file : getSnapshotFiles()) {
+			if (restoreSnapshot(file, null)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Restore the snapshots using the snapshot executor, so that deployment is not delayed.  
+	 * <br/>
+	 * The header of each snapshot is validated before this method returns and the view is 
+	 * marked as loading, so that queries wait for the restore rather than loading from the source.  
+	 * If the restore fails the view may then be loaded as normal.
+	 */
+	public void restoreSnapshotsAsynch() {
+		for (final File file : getSnapshotFiles()) {
+			final String stateId = readSnapshotHeader(file);
+			if (stateId == null || !getMatTableInfo(stateId).startRestore()) {
+				continue;
+			}
+			try {
+				snapshotExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						restoreSnapshot(file, stateId);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				getMatTableInfo(stateId).failedRestore();
+				LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31157, file));
+			}
+		}
+	}
+	
+	private List<File> getSnapshotFiles() {
+		if (snapshotDirectory == null || vdbMetaData == null) {
+			return Collections.emptyList();
+		}
+		File[] files = snapshotDirectory.listFiles();
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		String prefix = getSnapshotPrefix();
+		List<File> result = new ArrayList<File>();
+		for (File file : files) {
+			if (file.getName().startsWith(prefix) && file.getName().endsWith(SNAPSHOT_SUFFIX)) {
+				result.add(file);
+			}
+		}
+		return result;
+	}
+
+	private String getSnapshotPrefix() {
+		return getVdbSnapshotPrefix() + vdbMetaData.getVersion() + '_';
+	}
+	
+	private String getVdbSnapshotPrefix() {
+		return toFileName(vdbMetaData.getName()) + '_';
+	}
+	
+	private static String toFileName(String name) {
+		StringBuilder result = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+				result.append(c);
+			} else {
+				result.append('_');
+			}
+		}
+		return result.toString();
+	}
+	
+	private File getSnapshotFile(String matTableName) {
+		return new File(snapshotDirectory, getSnapshotPrefix() + toFileName(matTableName) + SNAPSHOT_SUFFIX);
+	}
+	
+	/**
+	 * Determine if the given version of this vdb is still deployed.  Snapshots of prior versions
+	 * are only removed once the version is no longer deployed.  
+	 * By default all versions are considered deployed so that no snapshot is removed.
+	 */
+	protected boolean isDeployed(int vdbVersion) {
+		return true;
+	}
+	
+	/**
+	 * Remove the snapshots of the table for prior versions of the vdb that are no longer deployed
+	 */
+	private void deleteSupersededSnapshots(String matTableName) {
+		String vdbPrefix = getVdbSnapshotPrefix();
+		String suffix = '_' + toFileName(matTableName) + SNAPSHOT_SUFFIX;
+		File[] files = snapshotDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (!name.startsWith(vdbPrefix) || !name.endsWith(suffix) || name.length() <= vdbPrefix.length() + suffix.length()) {
+				continue;
+			}
+			String version = name.substring(vdbPrefix.length(), name.length() - suffix.length());
+			try {
+				int snapshotVersion = Integer.parseInt(version);
+				if (snapshotVersion < vdbMetaData.getVersion() && !isDeployed(snapshotVersion) && file.delete()) {
+					LogManager.logDetail(LogConstants.CTX_MATVIEWS, "removed superseded snapshot", file); //$NON-NLS-1$
+				}
+			} catch (NumberFormatException e) {
+				//not a snapshot of this vdb
+			}
+		}
+	}
+	
+	private void writeSnapshot(String matTableName, TempTable table, long updateTime, Object changeValue) {
+		File file = getSnapshotFile(matTableName);
+		File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		ObjectOutputStream oos = null;
+		boolean success = false;
+		try {
+			Object viewId = this.metadata.getGroupID(matTableName.substring(RelationalPlanner.MAT_PREFIX.length()));
+			String definitionHash = getDefinitionHash(viewId);
+			snapshotDirectory.mkdirs();
+			oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			oos.writeInt(SNAPSHOT_VERSION);
+			oos.writeObject(vdbMetaData.getName());
+			oos.writeInt(vdbMetaData.getVersion());
+			oos.writeObject(matTableName);
+			oos.writeObject(definitionHash);
+			oos.writeLong(updateTime);
+			oos.writeObject(changeValue);
+			table.writeTo(oos);
+			oos.close();
+			oos = null;
+			//replace the old snapshot only once the new one is complete
+			success = temp.renameTo(file);
+			if (!success && file.delete()) {
+				success = temp.renameTo(file);
+			}
+			if (!success) {
+				LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31155, matTableName, file));
+			} else {
+				deleteSupersededSnapshots(matTableName);
+			}
+		} catch (Exception e) {
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31155, matTableName, file));
+		} finally {
+			if (oos != null) {
+				try {
+					oos.close();
+				} catch (IOException e) {
+				}
+			}
+			if (!success) {
+				temp.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Read and validate the snapshot header
+	 * @return the mat table name or null if the snapshot is not usable
+	 */
+	private String readSnapshotHeader(File file) {
+		ObjectInputStream ois = null;
+		try {
+			ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			return readSnapshotHeader(ois, file);
+		} catch (Exception e) {
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31157, file));
+			return null;
+		} finally {
+			if (ois != null) {
+				try {
+					ois.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
 
+	private String readSnapshotHeader(ObjectInputStream ois, File file) throws IOException, ClassNotFoundException, 
+			TeiidComponentException, TeiidProcessingException {
+		if (ois.readInt() != SNAPSHOT_VERSION) {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "ignoring snapshot with a different format", file); //$NON-NLS-1$
+			return null;
+		}
+		String vdbName = (String)ois.readObject();
+		int vdbVersion = ois.readInt();
+		String stateId = (String)ois.readObject();
+		String definitionHash = (String)ois.readObject();
+		if (!vdbMetaData.getName().equals(vdbName) || vdbMetaData.getVersion() != vdbVersion || !stateId.startsWith(RelationalPlanner.MAT_PREFIX)) {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "ignoring snapshot for a different vdb", file, vdbName, vdbVersion); //$NON-NLS-1$
+			return null;
+		}
+		Object viewId = this.metadata.getGroupID(stateId.substring(RelationalPlanner.MAT_PREFIX.length()));
+		if (!getDefinitionHash(viewId).equals(definitionHash)) {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "ignoring snapshot of a modified view", file); //$NON-NLS-1$
+			return null;
+		}
+		return stateId;
+	}
+	
+	/**
+	 * @param restoringId if not null, the mat table that was marked as restoring for this snapshot
+	 */
+	private boolean restoreSnapshot(File file, String restoringId) {
+		ObjectInputStream ois = null;
+		TempTable tempTable = null;
+		boolean success = false;
+		try {
+			ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			String stateId = readSnapshotHeader(ois, file);
+			if (stateId == null || (restoringId != null && !restoringId.equals(stateId))) {
+				return false;
+			}
+			Object viewId = this.metadata.getGroupID(stateId.substring(RelationalPlanner.MAT_PREFIX.length()));
+			long updateTime = ois.readLong();
+			Object changeValue = ois.readObject();
+			GroupSymbol group = new GroupSymbol(stateId);
+			group.setMetadataID(getGlobalTempTableMetadataId(viewId));
+			tempTable = this.createMatTable(stateId, group);
+			tempTable.readFrom(ois);
+			if (Boolean.valueOf(this.metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_COMPRESSED, false))) {
+				tempTable.compress();
+			}
+			MatTableInfo info = this.getMatTableInfo(stateId);
+			synchronized (info) {
+				if (restoringId != null ? !info.restoring : info.state != MatState.NEEDS_LOADING) {
+					//already loaded or loading by other means
+					return false;
+				}
+				swapTempTable(stateId, tempTable);
+				info.setState(MatState.LOADED, true);
+				info.updateTime = updateTime;
+				info.changeValue = changeValue;
+			}
+			LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31156, stateId, tempTable.getRowCount(), new Timestamp(updateTime)));
+			tempTable = null;
+			success = true;
+			return true;
+		} catch (Exception e) {
+			LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31157, file));
+			return false;
+		} finally {
+			if (!success && restoringId != null) {
+				getMatTableInfo(restoringId).failedRestore();
+			}
+			if (tempTable != null) {
+				tempTable.remove();
+			}
+			if (ois != null) {
+				try {
+					ois.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Compute a hash of everything that affects the contents or structure of the materialized table
+	 */
+	private String getDefinitionHash(Object viewId) throws TeiidComponentException, TeiidProcessingException {
+		StringBuilder definition = new StringBuilder();
+		definition.append(metadata.getFullName(viewId)).append('\n');
+		definition.append(metadata.getVirtualPlan(viewId).getQuery()).append('\n');
+		for (Object columnId : metadata.getElementIDsInGroupID(viewId)) {
+			definition.append(metadata.getFullName(columnId)).append(' ').append(metadata.getElementType(columnId)).append('\n');
+		}
+		Object pk = metadata.getPrimaryKey(viewId);
+		if (pk != null) {
+			appendKey(definition, "primary", pk); //$NON-NLS-1$
+		}
+		for (Object key : metadata.getUniqueKeysInGroup(viewId)) {
+			appendKey(definition, "unique", key); //$NON-NLS-1$
+		}
+		for (Object index : metadata.getIndexesInGroup(viewId)) {
+			appendKey(definition, "index", index); //$NON-NLS-1$
+		}
+		definition.append(metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.HASH_INDEXES, false)).append('\n');
+		definition.append(metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.BITMAP_INDEXES, false)).append('\n');
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+			return PropertiesUtils.toHex(digest.digest(definition.toString().getBytes("UTF-8"))); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new TeiidComponentException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new TeiidComponentException(e);
+		}
+	}
+
+	private void appendKey(StringBuilder definition, String type, Object key) throws TeiidComponentException, QueryMetadataException {
+		definition.append(type);
+		for (Object columnId : metadata.getElementIDsInKey(key)) {
+			definition.append(' ').append(metadata.getFullName(columnId));
+		}
+		definition.append('\n');
+	}
+	
 	//begin replication methods
 	
 	@Override
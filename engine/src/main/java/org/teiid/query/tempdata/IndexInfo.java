@@ -45,7 +45,7 @@ class IndexInfo extends BaseIndexInfo<TempTable> {
 		super(table, projectedCols, condition, orderBy, primary);
 	}
 
-	TupleBrowser createTupleBrowser() throws TeiidComponentException {
+	TupleBrowser createTupleBrowser(boolean readOnly) throws TeiidComponentException {
 		boolean direction = OrderBy.ASC;
 		if (ordering != null) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Using index for ordering"); //$NON-NLS-1$
@@ -53,7 +53,7 @@ class IndexInfo extends BaseIndexInfo<TempTable> {
 		}
 		if (valueTs != null) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Using index value set"); //$NON-NLS-1$
-			return new TupleBrowser(this.table.getTree(), valueTs, direction);
+			return new TupleBrowser(this.table.getTree(), valueTs, direction, readOnly);
 		}
 		if (!valueSet.isEmpty()) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Using index value set"); //$NON-NLS-1$
@@ -61,12 +61,12 @@ class IndexInfo extends BaseIndexInfo<TempTable> {
 				sortValueSet(direction);
 			}
 			CollectionTupleSource cts = new CollectionTupleSource(valueSet.iterator());
-			return new TupleBrowser(this.table.getTree(), cts, direction);
+			return new TupleBrowser(this.table.getTree(), cts, direction, readOnly);
 		}
 		if (lower != null || upper != null) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Using index for range query", lower, upper); //$NON-NLS-1$
 		} 
-		return new TupleBrowser(this.table.getTree(), lower, upper, direction);
+		return new TupleBrowser(this.table.getTree(), lower, upper, direction, readOnly);
 	}
 	
 }
\ No newline at end of file
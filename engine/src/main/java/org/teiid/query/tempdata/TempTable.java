@@ -28,6 +28,7 @@ import java.io.ObjectOutputStream;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -180,9 +181,6 @@ public class TempTable implements Cloneable, SearchableTable {
 			this.condition = condition;
 			this.project = shouldProject();
 			this.reserved = reserveBuffers();
-			if (updatable) {
-				lock.readLock().lock();
-			}
 		}
 
 		@Override
@@ -207,9 +205,6 @@ public class TempTable implements Cloneable, SearchableTable {
 		
 		@Override
 		public void closeSource() {
-			if (updatable) {
-				lock.readLock().unlock();
-			}
 			bm.releaseBuffers(reserved);
 			reserved = 0;
 			browser.closeSource();
@@ -252,6 +247,7 @@ public class TempTable implements Cloneable, SearchableTable {
 			lock.writeLock().lock();
 			boolean success = false;
 			try {
+				detachSnapshot();
 				while (currentTuple != null || (currentTuple = ts.nextTuple()) != null) {
 					if (crit == null || eval.evaluate(crit, currentTuple)) {
 						tuplePassed(currentTuple);
@@ -283,8 +279,15 @@ public class TempTable implements Cloneable, SearchableTable {
 					}
 				} finally {
 					bm.releaseBuffers(reserved);
-					lock.writeLock().unlock();
-					close();
+					if (updateCount > 0) {
+						invalidateSnapshot();
+					}
+					try {
+						//a modifying browser releases its page while the lock is still held
+						close();
+					} finally {
+						lock.writeLock().unlock();
+					}
 				}
 			}
 			return updateCount;
@@ -326,6 +329,8 @@ public class TempTable implements Cloneable, SearchableTable {
 	private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 	private boolean updatable = true;
 	private LinkedHashMap<List<ElementSymbol>, TempTable> indexTables;
+	private ValueIndexes valueIndexes;
+	private int valueIndexesReserved;
 	
 	private int keyBatchSize;
 	private int leafBatchSize;
@@ -336,6 +341,12 @@ public class TempTable implements Cloneable, SearchableTable {
 	private int uniqueColIndex;
 	
 	private AtomicInteger activeReaders = new AtomicInteger();
+	
+	//read only view of the last committed state for readers of an updatable table
+	private volatile TempTable snapshot;
+	private int snapshotReaders;
+	private boolean removed;
+	private Object snapshotLock = new Object();
 
 	TempTable(TempMetadataID tid, BufferManager bm, List<ElementSymbol> columns, int primaryKeyLength, String sessionID) {
 		this.tid = tid;
@@ -393,7 +404,15 @@ public class TempTable implements Cloneable, SearchableTable {
 				}
 			}
 			clone.tree = tree.clone();
+			if (valueIndexes != null) {
+				clone.valueIndexes = valueIndexes.share();
+			}
+			clone.valueIndexesReserved = 0;
 			clone.activeReaders = new AtomicInteger();
+			clone.snapshot = null;
+			clone.snapshotReaders = 0;
+			clone.removed = false;
+			clone.snapshotLock = new Object();
 			return clone;
 		} catch (CloneNotSupportedException e) {
 			 throw new TeiidRuntimeException(e);
@@ -406,18 +425,247 @@ public class TempTable implements Cloneable, SearchableTable {
 		return activeReaders;
 	}
 	
+	/**
+	 * Get the read only snapshot of the committed state, creating it if needed.
+	 * Readers of an existing snapshot do not wait on an in progress write.
+	 */
+	private TempTable acquireSnapshot() {
+		synchronized (snapshotLock) {
+			if (snapshot != null) {
+				snapshotReaders++;
+				snapshot.snapshotReaders++;
+				return snapshot;
+			}
+		}
+		lock.readLock().lock();
+		try {
+			synchronized (snapshotLock) {
+				if (snapshot == null) {
+					snapshot = createView();
+				}
+				snapshotReaders++;
+				snapshot.snapshotReaders++;
+				return snapshot;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Create a read only view that shares the storage of this table.  The storage
+	 * is only copied if a write happens while the view is being read, see {@link #detachSnapshot()}.
+	 */
+	private TempTable createView() {
+		try {
+			TempTable view = (TempTable) super.clone();
+			view.lock = new ReentrantReadWriteLock();
+			view.updatable = false;
+			view.valueIndexesReserved = 0;
+			view.activeReaders = new AtomicInteger();
+			view.snapshot = null;
+			view.snapshotReaders = 0;
+			view.removed = false;
+			view.snapshotLock = new Object();
+			return view;
+		} catch (CloneNotSupportedException e) {
+			 throw new TeiidRuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Called with the write lock held prior to a modification.  If the snapshot shares 
+	 * the storage of this table and is still being read, this table continues with a 
+	 * copy on write clone of the storage and the snapshot keeps the original.  
+	 * Otherwise the snapshot is simply dropped, so a write following a completed read 
+	 * does not copy anything.
+	 */
+	private void detachSnapshot() {
+		synchronized (snapshotLock) {
+			if (snapshot == null || snapshot.tree != this.tree) {
+				return;
+			}
+			if (snapshot.snapshotReaders == 0) {
+				snapshot = null;
+				return;
+			}
+		}
+		//new readers may still use the existing snapshot while the clone is created
+		TempTable copy = clone();
+		if (copy.indexTables != null) {
+			for (TempTable indexTable : copy.indexTables.values()) {
+				indexTable.lock = this.lock;
+			}
+		}
+		this.tree = copy.tree;
+		this.indexTables = copy.indexTables;
+		this.valueIndexes = copy.valueIndexes;
+	}
+	
+	private void releaseSnapshot(TempTable view) {
+		synchronized (snapshotLock) {
+			view.snapshotReaders--;
+			if (--snapshotReaders > 0 || !removed) {
+				return;
+			}
+			removed = false;
+		}
+		removeStorage();
+	}
+	
+	/**
+	 * Called after a modification so that subsequent readers see the new state.
+	 * Existing readers continue to use their snapshot. 
+	 */
+	private void invalidateSnapshot() {
+		synchronized (snapshotLock) {
+			snapshot = null;
+		}
+	}
+	
+	/**
+	 * Allow the pages to be modified in place if no snapshot is being read.
+	 */
+	void clearClonedFlags() {
+		synchronized (snapshotLock) {
+			if (snapshotReaders == 0) {
+				snapshot = null;
+				tree.clearClonedFlags();
+			}
+		}
+	}
+	
 	void addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
 		List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
 		if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
 			return;
 		}
-		TempTable indexTable = createIndexTable(indexColumns, unique);
-		//TODO: ordered insert optimization
-		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
-		indexTable.insert(ts, indexTable.getColumns(), false, null);
-		indexTable.getTree().compact();
+		lock.writeLock().lock();
+		try {
+			detachSnapshot();
+			TempTable indexTable = createIndexTable(indexColumns, unique);
+			//TODO: ordered insert optimization
+			TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
+			indexTable.insert(ts, indexTable.getColumns(), false, null);
+			indexTable.getTree().compact();
+			invalidateSnapshot();
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
+	/**
+	 * Encode the leaf pages of the table and its indexes to reduce their memory footprint
+	 */
+	void compress() throws TeiidComponentException {
+		lock.writeLock().lock();
+		try {
+			detachSnapshot();
+			tree.compressLeaves();
+			if (indexTables != null) {
+				for (TempTable index : this.indexTables.values()) {
+					index.tree.compressLeaves();
+				}
+			}
+			invalidateSnapshot();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Add a memory resident hash or bitmap index on the given column.
+	 * @return false if the column type cannot be indexed in this way
+	 */
+	boolean addValueIndex(ElementSymbol column, ValueIndexes.Type type) throws TeiidComponentException {
+		if (!ValueIndexes.isIndexable(column.getType())) {
+			return false;
+		}
+		Integer index = columnMap.get(column);
+		if (index == null) {
+			return false;
+		}
+		lock.writeLock().lock();
+		try {
+			ValueIndexes newIndexes = null;
+			if (valueIndexes == null) {
+				newIndexes = new ValueIndexes(columns, columnMap, tree.getKeyLength());
+			} else {
+				newIndexes = valueIndexes.copyDefinitions();
+			}
+			newIndexes.addIndex(index, type);
+			valueIndexes = newIndexes;
+			//reserve up front rather than building indexes that cannot be kept
+			if (!reserveValueIndexes(newIndexes.getSizeEstimate(tree.getRowCount()))) {
+				return true;
+			}
+			TupleBrowser browser = new TupleBrowser(this.tree, null, null, OrderBy.ASC);
+			List<?> next = null;
+			while ((next = browser.nextTuple()) != null) {
+				newIndexes.insert(next);
+			}
+			invalidateSnapshot();
+		} catch (TeiidProcessingException e) {
+			throw new TeiidComponentException(e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		return true;
+	}
+	
+	/**
+	 * Get the value indexes so that they may be modified
+	 * @return the indexes or null if there are none, or if they were 
+	 * dropped as their memory could not be reserved
+	 */
+	private ValueIndexes getValueIndexes() {
+		if (valueIndexes != null) {
+			reserveValueIndexes();
+		}
+		return valueIndexes;
+	}
+	
+	private boolean reserveValueIndexes() {
+		return reserveValueIndexes(valueIndexes == null ? 0 : valueIndexes.getSizeEstimate());
+	}
+	
+	/**
+	 * Keep the memory reserved for the value indexes in line with their estimated size.
+	 * The reservation is held for the life of the table rather than the current request, 
+	 * so it is made without a thread local context.
+	 * <br>
+	 * The value indexes are only an optimization, so rather than exceeding the buffer 
+	 * limits they are dropped if the memory cannot be reserved.  Queries then fall back 
+	 * to the primary and secondary indexes.
+	 * @return false if the value indexes were dropped
+	 */
+	private boolean reserveValueIndexes(long estimate) {
+		if (estimate <= valueIndexesReserved && estimate * 2 >= valueIndexesReserved) {
+			return true;
+		}
+		//leave room for growth so that the reservation is not adjusted for each row
+		int desired = (int)Math.min(Integer.MAX_VALUE, estimate + (estimate >> 2));
+		CommandContext.pushThreadLocalContext(null);
+		try {
+			if (desired > valueIndexesReserved) {
+				valueIndexesReserved += bm.reserveBuffers(desired - valueIndexesReserved, BufferReserveMode.NO_WAIT);
+				if (valueIndexesReserved < estimate) {
+					LogManager.logWarning(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31158, tid.getID()));
+					valueIndexes = null;
+					bm.releaseBuffers(valueIndexesReserved);
+					valueIndexesReserved = 0;
+					return false;
+				}
+			} else {
+				bm.releaseBuffers(valueIndexesReserved - desired);
+				valueIndexesReserved = desired;
+			}
+		} finally {
+			CommandContext.popThreadLocalContext();
+		}
+		return true;
+	}
+	
 	private TempTable createIndexTable(List<ElementSymbol> indexColumns,
 			boolean unique) {
 		List<ElementSymbol> allColumns = new ArrayList<ElementSymbol>(indexColumns);
@@ -434,8 +682,8 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		if (indexTables == null) {
 			indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-			indexTables.put(indexColumns, indexTable);
 		}
+		indexTables.put(indexColumns, indexTable);
 		indexTable.setUpdatable(this.updatable);
 		return indexTable;
 	}
@@ -445,6 +693,38 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 
 	public TupleSource createTupleSource(final List<? extends Expression> projectedCols, final Criteria condition, OrderBy orderBy) throws TeiidComponentException, TeiidProcessingException {
+		if (updatable) {
+			//read from a snapshot rather than holding the lock for the duration of the read
+			final TempTable readSnapshot = acquireSnapshot();
+			boolean success = false;
+			try {
+				final TupleSource ts = readSnapshot.createTupleSource(projectedCols, condition, orderBy);
+				success = true;
+				return new TupleSource() {
+					boolean closed;
+					
+					@Override
+					public List<?> nextTuple() throws TeiidComponentException,
+							TeiidProcessingException {
+						return ts.nextTuple();
+					}
+					
+					@Override
+					public void closeSource() {
+						if (closed) {
+							return;
+						}
+						closed = true;
+						ts.closeSource();
+						releaseSnapshot(readSnapshot);
+					}
+				};
+			} finally {
+				if (!success) {
+					releaseSnapshot(readSnapshot);
+				}
+			}
+		}
 		//special handling for count(*)
 		boolean agg = false;
 		for (Expression singleElementSymbol : projectedCols) {
@@ -462,16 +742,25 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		IndexInfo primary = new IndexInfo(this, projectedCols, condition, orderBy, true);
 		IndexInfo ii = primary;
-		if (indexTables != null && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
+		if ((indexTables != null || valueIndexes != null) && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Considering indexes on table", this, "for query", projectedCols, condition, orderBy); //$NON-NLS-1$ //$NON-NLS-2$
 			int rowCost = this.tree.getRowCount();
 			long bestCost = estimateCost(orderBy, ii, rowCost);
-			for (TempTable table : this.indexTables.values()) {
-				IndexInfo secondary = new IndexInfo(table, projectedCols, condition, orderBy, false);
-				long cost = estimateCost(orderBy, secondary, rowCost);
-				if (cost < bestCost) {
-					ii = secondary;
-					bestCost = cost;
+			if (indexTables != null) {
+				for (TempTable table : this.indexTables.values()) {
+					IndexInfo secondary = new IndexInfo(table, projectedCols, condition, orderBy, false);
+					long cost = estimateCost(orderBy, secondary, rowCost);
+					if (cost < bestCost) {
+						ii = secondary;
+						bestCost = cost;
+					}
+				}
+			}
+			if (valueIndexes != null && condition != null) {
+				List<List<?>> keys = getValueIndexKeys(condition, orderBy, primary, rowCost, bestCost);
+				if (keys != null) {
+					primary.valueTs = new CollectionTupleSource(keys.iterator());
+					return createTupleSource(projectedCols, condition, orderBy, primary, agg);
 				}
 			}
 			LogManager.logDetail(LogConstants.CTX_DQP, "Choose index", ii.table, "covering:", ii.coveredCriteria,"ordering:", ii.ordering); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -498,11 +787,38 @@ public class TempTable implements Cloneable, SearchableTable {
 		return createTupleSource(projectedCols, condition, orderBy, ii, agg);
 	}
 
+	/**
+	 * Combine the hash and bitmap index matches for the condition.
+	 * @return the sorted keys of the matching rows or null if the value indexes 
+	 * are not cheaper than the best tree index
+	 */
+	private List<List<?>> getValueIndexKeys(Criteria condition, OrderBy orderBy, IndexInfo primary, int rowCost, long bestCost) {
+		lock.readLock().lock();
+		try {
+			BitSet matches = valueIndexes.getMatches(condition);
+			if (matches == null) {
+				return null;
+			}
+			long matchCount = matches.cardinality();
+			long cost = matchCount * (64 - Long.numberOfLeadingZeros(rowCost - 1));
+			if (matchCount > 1 && orderBy != null && primary.ordering == null) {
+				cost += matchCount * (64 - Long.numberOfLeadingZeros(matchCount - 1));
+			}
+			if (cost >= bestCost) {
+				return null;
+			}
+			LogManager.logDetail(LogConstants.CTX_DQP, "Using value indexes with", matchCount, "matches"); //$NON-NLS-1$ //$NON-NLS-2$
+			return valueIndexes.getKeys(matches, primary.ordering != null ? primary.ordering : OrderBy.ASC);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
 	private TupleSource createTupleSource(
 			final List<? extends Expression> projectedCols,
 			final Criteria condition, OrderBy orderBy, IndexInfo ii, boolean agg)
 			throws TeiidComponentException, TeiidProcessingException {
-		TupleBrowser browser = ii.createTupleBrowser();
+		TupleBrowser browser = ii.createTupleBrowser(true);
 		TupleSource ts = new QueryTupleSource(browser, columnMap, agg?getColumns():projectedCols, condition);
 		
 		boolean usingQueryTupleSource = false;
@@ -520,12 +836,6 @@ public class TempTable implements Cloneable, SearchableTable {
 				}
 				success = true;
 				return new CollectionTupleSource(Arrays.asList(Collections.nCopies(projectedCols.size(), count)).iterator());
-			} else if (updatable) {
-				tb = bm.createTupleBuffer(projectedCols, sessionID, TupleSourceType.PROCESSOR);
-				List<?> next = null;
-				while ((next = ts.nextTuple()) != null) {
-					tb.addTuple(next);
-				}
 			} else {
 				usingQueryTupleSource = true;
 				success = true;
@@ -585,7 +895,7 @@ public class TempTable implements Cloneable, SearchableTable {
 	private TupleBrowser createTupleBrower(Criteria condition, boolean direction) throws TeiidComponentException {
 		IndexInfo ii = new IndexInfo(this, null, condition, null, true);
 		ii.ordering = direction;
-		return ii.createTupleBrowser();
+		return ii.createTupleBrowser(false);
 	}
 	
 	public int getRowCount() {
@@ -593,24 +903,49 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	public int truncate(boolean force) {
-		this.tid.getTableData().dataModified(tree.getRowCount());
-		return tree.truncate(force);
+		lock.writeLock().lock();
+		try {
+			detachSnapshot();
+			this.tid.getTableData().dataModified(tree.getRowCount());
+			invalidateSnapshot();
+			if (valueIndexes != null) {
+				valueIndexes = valueIndexes.copyDefinitions();
+				reserveValueIndexes();
+			}
+			return tree.truncate(force);
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 	
 	public void remove() {
 		lock.writeLock().lock();
 		try {
 			tid.getTableData().removed();
-			tree.remove();
-			if (this.indexTables != null) {
-				for (TempTable indexTable : this.indexTables.values()) {
-					indexTable.remove();
+			synchronized (snapshotLock) {
+				snapshot = null;
+				if (snapshotReaders > 0) {
+					//the storage is shared with the snapshot, so wait for the last reader
+					removed = true;
+					return;
 				}
 			}
+			removeStorage();
 		} finally {
 			lock.writeLock().unlock();
 		}
 	}
+
+	private void removeStorage() {
+		tree.remove();
+		valueIndexes = null;
+		reserveValueIndexes();
+		if (this.indexTables != null) {
+			for (TempTable indexTable : this.indexTables.values()) {
+				indexTable.remove();
+			}
+		}
+	}
 	
 	@Override
 	public Object matchesPkColumn(int pkIndex, Expression ex) {
@@ -686,8 +1021,17 @@ public class TempTable implements Cloneable, SearchableTable {
     }
 	
 	public TupleSource update(Criteria crit, final SetClauseList update) throws TeiidComponentException, ExpressionEvaluationException, TeiidProcessingException {
+		lock.writeLock().lock();
+		try {
+			detachSnapshot();
+			return update(crit, update, createTupleBrower(crit, OrderBy.ASC));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	private TupleSource update(Criteria crit, final SetClauseList update, final TupleBrowser browser) throws TeiidComponentException, ExpressionEvaluationException, TeiidProcessingException {
 		final boolean primaryKeyChangePossible = canChangePrimaryKey(update);
-		final TupleBrowser browser = createTupleBrower(crit, OrderBy.ASC);
 		UpdateProcessor up = new UpdateProcessor(crit, browser, true) {
 			
 			protected TupleBuffer changeSet;
@@ -710,6 +1054,10 @@ public class TempTable implements Cloneable, SearchableTable {
     				changeSet.addTuple(newTuple);
     			} else {
     				browser.update(newTuple);
+    				ValueIndexes indexes = getValueIndexes();
+    				if (indexes != null) {
+    					indexes.update(tuple, newTuple);
+    				}
     			}
 			}
 			
@@ -762,7 +1110,16 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	public TupleSource delete(Criteria crit) throws TeiidComponentException, ExpressionEvaluationException, TeiidProcessingException {
-		final TupleBrowser browser = createTupleBrower(crit, OrderBy.ASC);
+		lock.writeLock().lock();
+		try {
+			detachSnapshot();
+			return delete(crit, createTupleBrower(crit, OrderBy.ASC));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	private TupleSource delete(Criteria crit, final TupleBrowser browser) throws TeiidComponentException, ExpressionEvaluationException, TeiidProcessingException {
 		UpdateProcessor up = new UpdateProcessor(crit, browser, true) {
 			@Override
 			protected void tuplePassed(List tuple)
@@ -787,12 +1144,21 @@ public class TempTable implements Cloneable, SearchableTable {
 		if (tree.insert(list, ordered?InsertMode.ORDERED:InsertMode.NEW, -1) != null) {
 			 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30238, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30238, this.tid.getID()));
 		}
+		ValueIndexes indexes = getValueIndexes();
+		if (indexes != null) {
+			indexes.insert(list);
+		}
 	}
 	
 	private void deleteTuple(List<?> tuple) throws TeiidComponentException {
-		if (tree.remove(tuple) == null) {
+		List<?> result = tree.remove(tuple);
+		if (result == null) {
 			throw new AssertionError("Delete failed"); //$NON-NLS-1$
 		}
+		ValueIndexes indexes = getValueIndexes();
+		if (indexes != null) {
+			indexes.remove(result);
+		}
 	}
 	
 	void writeTo(ObjectOutputStream oos) throws TeiidComponentException, IOException {
@@ -812,6 +1178,15 @@ public class TempTable implements Cloneable, SearchableTable {
 					entry.getValue().writeTo(oos);
 				}
 			}
+			if (this.valueIndexes == null) {
+				oos.writeInt(0);
+			} else {
+				oos.writeInt(this.valueIndexes.getIndexes().size());
+				for (ValueIndexes.ValueIndex index : this.valueIndexes.getIndexes().values()) {
+					oos.writeInt(index.column);
+					oos.writeInt(index.type.ordinal());
+				}
+			}
 		} finally {
 			this.lock.readLock().unlock();
 		}
@@ -831,11 +1206,18 @@ public class TempTable implements Cloneable, SearchableTable {
 			TempTable tt = this.createIndexTable(indexColumns, unique);
 			tt.readFrom(ois);
 		}
+		int numValueIdx = ois.readInt();
+		for (int i = 0; i < numValueIdx; i++) {
+			int colIndex = ois.readInt();
+			ValueIndexes.Type type = ValueIndexes.Type.values()[ois.readInt()];
+			addValueIndex(this.columns.get(colIndex), type);
+		}
 	}
 	
 	List<?> updateTuple(List<?> tuple, boolean remove) throws TeiidComponentException {
 		try {
 			lock.writeLock().lock();
+			detachSnapshot();
 			if (remove) {
 				List<?> result = tree.remove(tuple);
 				if (result == null) {
@@ -847,27 +1229,49 @@ public class TempTable implements Cloneable, SearchableTable {
 						index.tree.remove(tuple);
 					}
 				}
+				ValueIndexes indexes = getValueIndexes();
+				if (indexes != null) {
+					indexes.remove(result);
+				}
 				tid.getTableData().dataModified(1);
 				return result;
 			} 
 			List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
 			if (indexTables != null) {
 				for (TempTable index : this.indexTables.values()) {
-					tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-					index.tree.insert(tuple, InsertMode.UPDATE, -1);
+					int[] indexes = RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns);
+					if (result != null) {
+						//the indexed values may have changed
+						index.tree.remove(RelationalNode.projectTuple(indexes, result));
+					}
+					index.tree.insert(RelationalNode.projectTuple(indexes, tuple), InsertMode.UPDATE, -1);
+				}
+			}
+			ValueIndexes indexes = getValueIndexes();
+			if (indexes != null) {
+				if (result != null) {
+					indexes.update(result, tuple);
+				} else {
+					indexes.insert(tuple);
 				}
 			}
 			tid.getTableData().dataModified(1);
 			return result;
 		} finally {
+			invalidateSnapshot();
 			lock.writeLock().unlock();
 		}
 	}
 	
 	private void updateTuple(List<?> tuple) throws TeiidComponentException {
-		if (tree.insert(tuple, InsertMode.UPDATE, -1) == null) {
+		List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
+		if (result == null) {
 			throw new AssertionError("Update failed"); //$NON-NLS-1$
 		}
+		ValueIndexes indexes = getValueIndexes();
+		if (indexes != null) {
+			indexes.update(result, tuple);
+		}
 	}
 	
 	void setPreferMemory(boolean preferMemory) {
@@ -30,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
@@ -65,6 +66,7 @@ import org.teiid.logging.LogManager;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -82,6 +84,7 @@ import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.GroupSymbol;
 import org.teiid.query.sql.symbol.Reference;
+import org.teiid.query.tempdata.GlobalTableStoreImpl.MatState;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.util.CommandContext;
 import org.teiid.translator.CacheDirective.Scope;
@@ -131,6 +134,9 @@ public class TempTableDataManager implements ProcessorDataManager {
     private BufferManager bufferManager;
 	private SessionAwareCache<CachedResults> cache;
     private RequestExecutor executor;
+    private AtomicLong matViewLoadCount = new AtomicLong();
+    private AtomicLong matViewIncrementalRefreshCount = new AtomicLong();
+    private AtomicLong matViewIncrementalRefreshRowCount = new AtomicLong();
     
     private EventDistributor eventDistributor;
 	
@@ -149,6 +155,27 @@ public class TempTableDataManager implements ProcessorDataManager {
 		this.eventDistributor = eventDistributor;
 	}
     
+    /**
+     * @return the number of full loads of internal materialized views
+     */
+    public long getMatViewLoadCount() {
+		return matViewLoadCount.get();
+	}
+    
+    /**
+     * @return the number of incremental refreshes of internal materialized views
+     */
+    public long getMatViewIncrementalRefreshCount() {
+		return matViewIncrementalRefreshCount.get();
+	}
+    
+    /**
+     * @return the number of rows applied by incremental refreshes of internal materialized views
+     */
+    public long getMatViewIncrementalRefreshRowCount() {
+		return matViewIncrementalRefreshRowCount.get();
+	}
+    
 	public TupleSource registerRequest(
 		CommandContext context,
 		Command command,
@@ -358,6 +385,12 @@ public class TempTableDataManager implements ProcessorDataManager {
 			String matTableName = metadata.getFullName(matTableId);
 			LogManager.logDetail(LogConstants.CTX_MATVIEWS, "processing refreshmatview for", matViewName); //$NON-NLS-1$
 			boolean invalidate = Boolean.TRUE.equals(((Constant)proc.getParameter(3).getExpression()).getValue());
+			if (!invalidate) {
+				TupleSource ts = refreshIncrementally(context, groupID, matTableName, globalStore);
+				if (ts != null) {
+					return ts;
+				}
+			}
 			boolean needsLoading = globalStore.needsLoading(matTableName, globalStore.getAddress(), true, true, invalidate);
 			if (!needsLoading) {
 				return CollectionTupleSource.createUpdateCountTupleSource(-1);
@@ -450,6 +483,114 @@ public class TempTableDataManager implements ProcessorDataManager {
 		return null;
 	}
 
+	/**
+	 * Apply only the rows whose change tracking column is at or after the last seen value.
+	 * Rows with a change value equal to the high water mark are read again, since rows committed 
+	 * with the same value after the last refresh would otherwise be missed - reapplying them is harmless 
+	 * as they are upserted by primary key.
+	 * <br/>
+	 * Only logical deletes via the delete column are seen, rows removed from the source are not 
+	 * detected and will remain until the next full load.
+	 * @return null if a full load is required instead
+	 */
+	private TupleSource refreshIncrementally(final CommandContext context, final Object groupID, 
+			final String matTableName, final GlobalTableStore globalStore) 
+			throws TeiidComponentException, TeiidProcessingException {
+		final QueryMetadataInterface metadata = context.getMetadata();
+		Object changeColumn = getColumn(metadata, groupID, MaterializationMetadataRepository.MATVIEW_CHANGE_COLUMN);
+		if (changeColumn == null || metadata.getPrimaryKey(groupID) == null) {
+			return null;
+		}
+		final MatTableInfo info = globalStore.getMatTableInfo(matTableName);
+		final Object changeValue = info.getChangeValue();
+		TempTable tempTable = globalStore.getTempTable(matTableName);
+		if (changeValue == null || !info.isValid() || info.getState() != MatState.LOADED || tempTable == null
+				|| tempTable.getColumns().size() != metadata.getElementIDsInGroupID(groupID).size()) {
+			return null;
+		}
+		final int changeIndex = metadata.getPosition(changeColumn) - 1;
+		Object deleteColumn = getColumn(metadata, groupID, MaterializationMetadataRepository.MATVIEW_DELETE_COLUMN);
+		final int deleteIndex = deleteColumn == null ? -1 : metadata.getPosition(deleteColumn) - 1;
+		final String matViewName = metadata.getFullName(groupID);
+		LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31152, matViewName, changeValue));
+		
+		String queryString = Reserved.SELECT + " * " + Reserved.FROM + ' ' + matViewName + ' ' + Reserved.WHERE + ' ' + //$NON-NLS-1$
+			metadata.getFullName(changeColumn) + " >= ? " + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$
+		final long start = System.currentTimeMillis();
+		final QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(queryString, matViewName.toUpperCase(), context, changeValue);
+		final TupleSource ts = new BatchCollector.BatchProducerTupleSource(qp);
+		final int batchSize = bufferManager.getProcessorBatchSize();
+		return new ProxyTupleSource() {
+			List<List<?>> tuples = new ArrayList<List<?>>();
+			List<List<?>> deletes = new ArrayList<List<?>>();
+			Object maxValue = changeValue;
+			int rowCount;
+
+			@Override
+			protected TupleSource createTupleSource()
+					throws TeiidComponentException,
+					TeiidProcessingException {
+				List<?> tuple = null;
+				while ((tuple = ts.nextTuple()) != null) {
+					tuple = new ArrayList<Object>(tuple); //ensure the list is serializable
+					Object value = tuple.get(changeIndex);
+					if (value != null && Constant.COMPARATOR.compare(value, maxValue) > 0) {
+						maxValue = value;
+					}
+					boolean delete = deleteIndex >= 0 && Boolean.TRUE.equals(tuple.get(deleteIndex));
+					if (delete) {
+						deletes.add(tuple);
+					} else {
+						tuples.add(tuple);
+					}
+					if (eventDistributor != null) {
+						eventDistributor.updateMatViewRow(context.getVdbName(), context.getVdbVersion(), metadata.getName(metadata.getModelID(groupID)), metadata.getName(groupID), tuple, delete);
+					}
+					if (tuples.size() + deletes.size() >= batchSize) {
+						flush();
+					}
+				}
+				flush();
+				info.setChangeValue(maxValue, false);
+				long time = System.currentTimeMillis() - start;
+				info.refreshed(time, rowCount, true);
+				matViewIncrementalRefreshCount.getAndIncrement();
+				matViewIncrementalRefreshRowCount.getAndAdd(rowCount);
+				LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31153, matViewName, rowCount, time));
+				return CollectionTupleSource.createUpdateCountTupleSource(rowCount);
+			}
+
+			private void flush() throws TeiidComponentException {
+				if (tuples.isEmpty() && deletes.isEmpty()) {
+					return;
+				}
+				rowCount += globalStore.updateMatViewRows(matTableName, tuples, deletes);
+				tuples.clear();
+				deletes.clear();
+			}
+			
+			@Override
+			public void closeSource() {
+				super.closeSource();
+				qp.closeProcessing();
+			}
+			
+		};
+	}
+	
+	/**
+	 * Get the view column named by the given extension property
+	 * @return the column id or null if the property is not set
+	 */
+	private static Object getColumn(QueryMetadataInterface metadata, Object groupID, String property) 
+			throws TeiidComponentException, QueryMetadataException {
+		String name = metadata.getExtensionProperty(groupID, property, false);
+		if (name == null) {
+			return null;
+		}
+		return metadata.getElementID(metadata.getFullName(groupID) + ElementSymbol.SEPARATOR + name);
+	}
+
 	private Object validateMatView(QueryMetadataInterface metadata,	String viewName) throws TeiidComponentException,
 			TeiidProcessingException {
 		try {
@@ -639,8 +780,16 @@ public class TempTableDataManager implements ProcessorDataManager {
 		final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata); 
 		final TempTable table = globalStore.createMatTable(tableName, group);
 		table.setUpdatable(false);
+		final Object viewId = ((TempMetadataID)group.getMetadataID()).getOriginalMetadataID();
+		Object changeColumn = null;
+		if (viewId != null) {
+			changeColumn = getColumn(metadata, viewId, MaterializationMetadataRepository.MATVIEW_CHANGE_COLUMN);
+		}
+		final int changeIndex = changeColumn == null ? -1 : metadata.getPosition(changeColumn) - 1;
+		final long start = System.currentTimeMillis();
 		return new ProxyTupleSource() {
 			TupleSource insertTupleSource;
+			MaxValueTupleSource changeTupleSource;
 			boolean success;
 			QueryProcessor qp;
 			boolean closed;
@@ -655,6 +804,10 @@ public class TempTableDataManager implements ProcessorDataManager {
 						String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
 						qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
 						insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						if (changeIndex >= 0) {
+							changeTupleSource = new MaxValueTupleSource(insertTupleSource, changeIndex);
+							insertTupleSource = changeTupleSource;
+						}
 					}
 					table.insert(insertTupleSource, allColumns, false, null);
 					table.getTree().compact();
@@ -670,6 +823,12 @@ public class TempTableDataManager implements ProcessorDataManager {
 						List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
 						table.addIndex(columns, true);
 					}
+					if (viewId != null) {
+						GlobalTableStoreImpl.addValueIndexes(metadata, viewId, allColumns, table);
+						if (Boolean.valueOf(metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_COMPRESSED, false))) {
+							table.compress();
+						}
+					}
 					CacheHint hint = table.getCacheHint();
 					if (hint != null && table.getPkLength() > 0) {
 						table.setUpdatable(hint.isUpdatable(false));
@@ -677,6 +836,12 @@ public class TempTableDataManager implements ProcessorDataManager {
 					if (determinism.compareTo(Determinism.VDB_DETERMINISTIC) < 0 && (hint == null || hint.getScope() == null || Scope.VDB.compareTo(hint.getScope()) <= 0)) {
 						LogManager.logInfo(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31143, determinism, tableName)); //$NON-NLS-1$
 					}
+					MatTableInfo info = globalStore.getMatTableInfo(tableName);
+					if (changeTupleSource != null) {
+						info.setChangeValue(changeTupleSource.maxValue, true);
+					}
+					info.refreshed(System.currentTimeMillis() - start, rowCount, false);
+					matViewLoadCount.getAndIncrement();
 					globalStore.loaded(tableName, table);
 					success = true;
 					LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30014, tableName, rowCount));
@@ -709,6 +874,38 @@ public class TempTableDataManager implements ProcessorDataManager {
 		};
 	}
 
+	/**
+	 * Tracks the max value of a column as tuples are read
+	 */
+	private static class MaxValueTupleSource implements TupleSource {
+		private TupleSource ts;
+		private int index;
+		Object maxValue;
+		
+		public MaxValueTupleSource(TupleSource ts, int index) {
+			this.ts = ts;
+			this.index = index;
+		}
+		
+		@Override
+		public List<?> nextTuple() throws TeiidComponentException,
+				TeiidProcessingException {
+			List<?> tuple = ts.nextTuple();
+			if (tuple != null) {
+				Object value = tuple.get(index);
+				if (value != null && (maxValue == null || Constant.COMPARATOR.compare(value, maxValue) > 0)) {
+					maxValue = value;
+				}
+			}
+			return tuple;
+		}
+		
+		@Override
+		public void closeSource() {
+			ts.closeSource();
+		}
+	}
+
 	public Object lookupCodeValue(CommandContext context, String codeTableName,
 			String returnElementName, String keyElementName, Object keyValue)
 			throws BlockedException, TeiidComponentException,
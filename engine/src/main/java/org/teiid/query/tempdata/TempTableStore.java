@@ -168,7 +168,7 @@ public class TempTableStore {
     			current.retainAll(tables.values());
 				for (TempTable table : current) {
 					table.getActive().set(0);
-					table.getTree().clearClonedFlags();
+					table.clearClonedFlags();
 				}
     		}
 			for (TransactionCallback callback : callbacks) {
@@ -349,7 +349,8 @@ public class TempTableStore {
 				LogManager.logDetail(LogConstants.CTX_DQP, "binding global temp table to session", group); //$NON-NLS-1$
 				QueryMetadataInterface metadata = context.getMetadata();
 				Create create = GlobalTableStoreImpl.getCreateCommand(group, false, metadata);
-				tts.addTempTable(tempTableID, create, buffer, true, context);
+				TempTable tempTable = tts.addTempTable(tempTableID, create, buffer, true, context);
+				GlobalTableStoreImpl.addValueIndexes(metadata, group.getMetadataID(), create.getColumnSymbols(), tempTable);
 			}
 			return getTempTable(tempTableID, command, buffer, delegate, forUpdate, context);
 		}
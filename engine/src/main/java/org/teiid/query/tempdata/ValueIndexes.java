@@ -0,0 +1,631 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.tempdata;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.processor.relational.ListNestedSortComparator;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Memory resident hash and bitmap indexes on single columns of a {@link TempTable}.
+ * <br>
+ * Each row is assigned a dense ordinal so that the matches from several indexes, 
+ * including those of OR criteria, can be combined as bitmaps before the primary 
+ * tree is searched.  A hash index is intended for equality probes against high 
+ * cardinality columns and a bitmap index for low cardinality columns.
+ * <br>
+ * The ordinal structures and each column index are split into segments that are 
+ * shared between a table and its clones.  Only the segments that a write touches 
+ * are copied, so the cost of modifying a clone does not grow with the table.
+ */
+class ValueIndexes {
+	
+	enum Type {
+		HASH,
+		BITMAP
+	}
+	
+	private static final Set<Class<?>> INDEXABLE_TYPES = new HashSet<Class<?>>(Arrays.asList(
+			DataTypeManager.DefaultDataClasses.STRING,
+			DataTypeManager.DefaultDataClasses.CHAR,
+			DataTypeManager.DefaultDataClasses.BOOLEAN,
+			DataTypeManager.DefaultDataClasses.BYTE,
+			DataTypeManager.DefaultDataClasses.SHORT,
+			DataTypeManager.DefaultDataClasses.INTEGER,
+			DataTypeManager.DefaultDataClasses.LONG,
+			DataTypeManager.DefaultDataClasses.BIG_INTEGER,
+			DataTypeManager.DefaultDataClasses.FLOAT,
+			DataTypeManager.DefaultDataClasses.DOUBLE,
+			DataTypeManager.DefaultDataClasses.BIG_DECIMAL,
+			DataTypeManager.DefaultDataClasses.DATE,
+			DataTypeManager.DefaultDataClasses.TIME,
+			DataTypeManager.DefaultDataClasses.TIMESTAMP));
+	
+	/**
+	 * Hash and bitmap lookups rely upon equals, so only types where equals 
+	 * agrees with the comparison used by the engine may be indexed.
+	 */
+	static boolean isIndexable(Class<?> type) {
+		if (type == DataTypeManager.DefaultDataClasses.STRING && Constant.COLLATION_LOCALE != null) {
+			return false;
+		}
+		return INDEXABLE_TYPES.contains(type);
+	}
+	
+	static Object normalize(Object value) {
+		if (value instanceof String) {
+			if (DataTypeManager.PAD_SPACE) {
+				return FunctionMethods.rightTrim((String)value, ' ', false);
+			}
+		} else if (value instanceof BigDecimal) {
+			BigDecimal bd = (BigDecimal)value;
+			if (bd.signum() == 0) {
+				return BigDecimal.ZERO;
+			}
+			return bd.stripTrailingZeros();
+		}
+		return value;
+	}
+	
+	/**
+	 * Rough heap bytes per row for the key and ordinal structures, plus the bytes per key column
+	 */
+	private static final int ROW_OVERHEAD = 96;
+	private static final int KEY_COLUMN_OVERHEAD = 24;
+	/**
+	 * Rough heap bytes per row for each index
+	 */
+	private static final int INDEX_ENTRY_OVERHEAD = 48;
+	
+	private static final int KEY_SEGMENT_SHIFT = 10;
+	private static final int KEY_SEGMENT_SIZE = 1 << KEY_SEGMENT_SHIFT;
+	private static final int KEY_SEGMENT_MASK = KEY_SEGMENT_SIZE - 1;
+	
+	/**
+	 * A hash map split into segments by key hash.  A shared map only copies 
+	 * the segments that are modified, so the cost of a write after a share is 
+	 * bounded by the segment size rather than the size of the map.
+	 * <br>
+	 * Values are not copied with their segment, so mutable values must be 
+	 * copied by the caller before they are modified.
+	 */
+	static class SegmentedMap<K, V> {
+		
+		static final int SEGMENT_SIZE = 512;
+		
+		private HashMap<K, V>[] segments;
+		private boolean[] owned;
+		private int size;
+		
+		SegmentedMap() {
+			this(1);
+		}
+		
+		@SuppressWarnings("unchecked")
+		private SegmentedMap(int segmentCount) {
+			segments = new HashMap[segmentCount];
+			owned = new boolean[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				segments[i] = new HashMap<K, V>();
+				owned[i] = true;
+			}
+		}
+		
+		/**
+		 * Create a copy that shares all segments with this instance.
+		 */
+		SegmentedMap<K, V> share() {
+			SegmentedMap<K, V> result = new SegmentedMap<K, V>(0);
+			result.segments = segments.clone();
+			result.owned = new boolean[segments.length];
+			result.size = size;
+			Arrays.fill(owned, false);
+			return result;
+		}
+		
+		private int segment(Object key) {
+			int h = key == null ? 0 : key.hashCode();
+			h ^= h >>> 16;
+			h *= 0x85ebca6b;
+			h ^= h >>> 13;
+			return h & (segments.length - 1);
+		}
+		
+		/**
+		 * Get the segment so that it may be modified
+		 */
+		private HashMap<K, V> getWritable(int segment) {
+			HashMap<K, V> result = segments[segment];
+			if (!owned[segment]) {
+				result = new HashMap<K, V>(result);
+				segments[segment] = result;
+				owned[segment] = true;
+			}
+			return result;
+		}
+		
+		V get(Object key) {
+			return segments[segment(key)].get(key);
+		}
+		
+		void put(K key, V value) {
+			if (getWritable(segment(key)).put(key, value) == null && ++size > segments.length * SEGMENT_SIZE) {
+				grow();
+			}
+		}
+		
+		void remove(Object key) {
+			int segment = segment(key);
+			if (segments[segment].containsKey(key)) {
+				getWritable(segment).remove(key);
+				size--;
+			}
+		}
+		
+		int size() {
+			return size;
+		}
+		
+		int getOwnedSegmentCount() {
+			int result = 0;
+			for (boolean o : owned) {
+				if (o) {
+					result++;
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * Double the segment count, which like a {@link HashMap} resize is 
+		 * amortized over the growth.
+		 */
+		private void grow() {
+			HashMap<K, V>[] old = segments;
+			SegmentedMap<K, V> result = new SegmentedMap<K, V>(old.length << 1);
+			for (HashMap<K, V> segment : old) {
+				for (Map.Entry<K, V> entry : segment.entrySet()) {
+					result.segments[result.segment(entry.getKey())].put(entry.getKey(), entry.getValue());
+				}
+			}
+			segments = result.segments;
+			owned = result.owned;
+		}
+		
+	}
+	
+	static class ValueIndex {
+		
+		final Type type;
+		final int column;
+		/**
+		 * Maps each normalized value to a BitSet for a bitmap index.  For a hash
+		 * index a value maps to an Integer ordinal, or for duplicates to an int[] 
+		 * with the count in the first position. 
+		 */
+		SegmentedMap<Object, Object> values = new SegmentedMap<Object, Object>();
+		/**
+		 * The values whose BitSet or int[] was created by this instance since 
+		 * it was last shared, and may be modified in place 
+		 */
+		private HashSet<Object> ownedValues = new HashSet<Object>();
+		
+		ValueIndex(Type type, int column) {
+			this.type = type;
+			this.column = column;
+		}
+		
+		ValueIndex share() {
+			ValueIndex result = new ValueIndex(type, column);
+			result.values = values.share();
+			ownedValues = new HashSet<Object>();
+			return result;
+		}
+		
+		/**
+		 * Get the BitSet or int[] for the value so that it may be modified
+		 */
+		private Object getWritable(Object value, Object existing) {
+			if (existing == null || existing instanceof Integer || !ownedValues.add(value)) {
+				return existing;
+			}
+			Object result = null;
+			if (existing instanceof BitSet) {
+				result = ((BitSet)existing).clone();
+			} else {
+				result = ((int[])existing).clone();
+			}
+			values.put(value, result);
+			return result;
+		}
+		
+		void add(Object value, int ordinal) {
+			value = normalize(value);
+			Object existing = values.get(value);
+			if (type == Type.BITMAP) {
+				BitSet bits = (BitSet)getWritable(value, existing);
+				if (bits == null) {
+					bits = new BitSet();
+					values.put(value, bits);
+					ownedValues.add(value);
+				}
+				bits.set(ordinal);
+				return;
+			}
+			if (existing == null) {
+				values.put(value, ordinal);
+				return;
+			}
+			int[] ordinals = null;
+			if (existing instanceof Integer) {
+				ordinals = new int[4];
+				ordinals[0] = 1;
+				ordinals[1] = (Integer)existing;
+				ownedValues.add(value);
+			} else {
+				ordinals = (int[])getWritable(value, existing);
+				if (ordinals[0] + 1 == ordinals.length) {
+					ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+				}
+			}
+			ordinals[++ordinals[0]] = ordinal;
+			values.put(value, ordinals);
+		}
+		
+		void remove(Object value, int ordinal) {
+			value = normalize(value);
+			Object existing = values.get(value);
+			if (existing instanceof BitSet) {
+				BitSet bits = (BitSet)getWritable(value, existing);
+				bits.clear(ordinal);
+				if (bits.isEmpty()) {
+					values.remove(value);
+				}
+			} else if (existing instanceof Integer) {
+				if (((Integer)existing).intValue() == ordinal) {
+					values.remove(value);
+				}
+			} else if (existing != null) {
+				int[] ordinals = (int[])getWritable(value, existing);
+				for (int i = 1; i <= ordinals[0]; i++) {
+					if (ordinals[i] == ordinal) {
+						ordinals[i] = ordinals[ordinals[0]--];
+						break;
+					}
+				}
+				if (ordinals[0] == 1) {
+					values.put(value, ordinals[1]);
+				}
+			}
+		}
+		
+		void match(Object value, BitSet result) {
+			Object existing = values.get(normalize(value));
+			if (existing instanceof BitSet) {
+				result.or((BitSet)existing);
+			} else if (existing instanceof Integer) {
+				result.set((Integer)existing);
+			} else if (existing != null) {
+				int[] ordinals = (int[])existing;
+				for (int i = 1; i <= ordinals[0]; i++) {
+					result.set(ordinals[i]);
+				}
+			}
+		}
+		
+	}
+	
+	private List<ElementSymbol> columns;
+	private Map<Expression, Integer> columnMap;
+	private int keyLength;
+	private LinkedHashMap<Integer, ValueIndex> indexes = new LinkedHashMap<Integer, ValueIndex>();
+	/**
+	 * The key of each ordinal in segments of {@link #KEY_SEGMENT_SIZE}, null for a free ordinal 
+	 */
+	private List<?>[][] keySegments = new List<?>[0][];
+	private boolean[] keySegmentsOwned = new boolean[0];
+	private int[] freeCounts = new int[0];
+	/**
+	 * The first key segment that may have a free ordinal
+	 */
+	private int firstFree;
+	private int ordinalCount;
+	private SegmentedMap<List<?>, Integer> ordinals = new SegmentedMap<List<?>, Integer>();
+	
+	ValueIndexes(List<ElementSymbol> columns, Map<Expression, Integer> columnMap, int keyLength) {
+		this.columns = columns;
+		this.columnMap = columnMap;
+		this.keyLength = keyLength;
+	}
+	
+	/**
+	 * Create an empty copy with the same index definitions
+	 */
+	ValueIndexes copyDefinitions() {
+		ValueIndexes result = new ValueIndexes(columns, columnMap, keyLength);
+		for (ValueIndex index : indexes.values()) {
+			result.addIndex(index.column, index.type);
+		}
+		return result;
+	}
+	
+	/**
+	 * Create a copy that shares all of its structures with this instance.
+	 * Either instance then copies only the segments that it modifies.
+	 */
+	ValueIndexes share() {
+		ValueIndexes result = new ValueIndexes(columns, columnMap, keyLength);
+		for (Map.Entry<Integer, ValueIndex> entry : indexes.entrySet()) {
+			result.indexes.put(entry.getKey(), entry.getValue().share());
+		}
+		result.keySegments = keySegments.clone();
+		result.keySegmentsOwned = new boolean[keySegments.length];
+		Arrays.fill(keySegmentsOwned, false);
+		result.freeCounts = freeCounts.clone();
+		result.firstFree = firstFree;
+		result.ordinalCount = ordinalCount;
+		result.ordinals = ordinals.share();
+		return result;
+	}
+	
+	private void setKey(int ordinal, List<?> key) {
+		int segment = ordinal >> KEY_SEGMENT_SHIFT;
+		if (!keySegmentsOwned[segment]) {
+			keySegments[segment] = keySegments[segment].clone();
+			keySegmentsOwned[segment] = true;
+		}
+		keySegments[segment][ordinal & KEY_SEGMENT_MASK] = key;
+	}
+	
+	private int allocateOrdinal() {
+		for (; firstFree < freeCounts.length; firstFree++) {
+			if (freeCounts[firstFree] == 0) {
+				continue;
+			}
+			List<?>[] segment = keySegments[firstFree];
+			int end = Math.min(KEY_SEGMENT_SIZE, ordinalCount - (firstFree << KEY_SEGMENT_SHIFT));
+			for (int i = 0; i < end; i++) {
+				if (segment[i] == null) {
+					freeCounts[firstFree]--;
+					return (firstFree << KEY_SEGMENT_SHIFT) + i;
+				}
+			}
+		}
+		int ordinal = ordinalCount++;
+		if ((ordinal >> KEY_SEGMENT_SHIFT) == keySegments.length) {
+			keySegments = Arrays.copyOf(keySegments, keySegments.length + 1);
+			keySegments[keySegments.length - 1] = new List<?>[KEY_SEGMENT_SIZE];
+			keySegmentsOwned = Arrays.copyOf(keySegmentsOwned, keySegments.length);
+			keySegmentsOwned[keySegments.length - 1] = true;
+			freeCounts = Arrays.copyOf(freeCounts, keySegments.length);
+		}
+		return ordinal;
+	}
+	
+	/**
+	 * @return the estimated heap bytes used
+	 */
+	long getSizeEstimate() {
+		return getSizeEstimate(ordinalCount);
+	}
+	
+	/**
+	 * @return the estimated heap bytes used for the given number of rows
+	 */
+	long getSizeEstimate(int rowCount) {
+		return (long)rowCount * (ROW_OVERHEAD + KEY_COLUMN_OVERHEAD * keyLength + INDEX_ENTRY_OVERHEAD * indexes.size());
+	}
+	
+	void addIndex(int column, Type type) {
+		indexes.put(column, new ValueIndex(type, column));
+	}
+	
+	Map<Integer, ValueIndex> getIndexes() {
+		return indexes;
+	}
+	
+	SegmentedMap<List<?>, Integer> getOrdinals() {
+		return ordinals;
+	}
+	
+	void insert(List<?> tuple) {
+		List<?> key = new ArrayList<Object>(tuple.subList(0, keyLength));
+		int ordinal = allocateOrdinal();
+		setKey(ordinal, key);
+		ordinals.put(key, ordinal);
+		for (ValueIndex index : indexes.values()) {
+			index.add(tuple.get(index.column), ordinal);
+		}
+	}
+	
+	void remove(List<?> tuple) {
+		List<?> key = tuple.subList(0, keyLength);
+		Integer ordinal = ordinals.get(key);
+		if (ordinal == null) {
+			return;
+		}
+		ordinals.remove(key);
+		for (ValueIndex index : indexes.values()) {
+			index.remove(tuple.get(index.column), ordinal);
+		}
+		setKey(ordinal, null);
+		int segment = ordinal >> KEY_SEGMENT_SHIFT;
+		freeCounts[segment]++;
+		firstFree = Math.min(firstFree, segment);
+	}
+	
+	/**
+	 * Update the indexed values for a row with an unchanged key 
+	 */
+	void update(List<?> oldTuple, List<?> newTuple) {
+		Integer ordinal = ordinals.get(oldTuple.subList(0, keyLength));
+		if (ordinal == null) {
+			insert(newTuple);
+			return;
+		}
+		for (ValueIndex index : indexes.values()) {
+			Object oldValue = oldTuple.get(index.column);
+			Object newValue = newTuple.get(index.column);
+			if (oldValue == newValue || (oldValue != null && normalize(oldValue).equals(normalize(newValue)))) {
+				continue;
+			}
+			index.remove(oldValue, ordinal);
+			index.add(newValue, ordinal);
+		}
+	}
+	
+	/**
+	 * Get the ordinals of a superset of the rows matching the criteria, 
+	 * or null if the indexes cannot be used.  
+	 */
+	BitSet getMatches(Criteria condition) {
+		BitSet result = null;
+		for (Criteria crit : Criteria.separateCriteriaByAnd(condition)) {
+			BitSet matches = getConjunctMatches(crit);
+			if (matches == null) {
+				continue;
+			}
+			if (result == null) {
+				result = matches;
+			} else {
+				result.and(matches);
+			}
+		}
+		return result;
+	}
+
+	private BitSet getConjunctMatches(Criteria crit) {
+		if (crit instanceof CompareCriteria) {
+			CompareCriteria cc = (CompareCriteria)crit;
+			if (cc.getOperator() != CompareCriteria.EQ) {
+				return null;
+			}
+			ValueIndex index = getIndex(cc.getLeftExpression());
+			if (index == null || !isValue(index, cc.getRightExpression())) {
+				return null;
+			}
+			BitSet result = new BitSet();
+			Object value = ((Constant)cc.getRightExpression()).getValue();
+			if (value != null) {
+				index.match(value, result);
+			}
+			return result;
+		}
+		if (crit instanceof SetCriteria) {
+			SetCriteria sc = (SetCriteria)crit;
+			ValueIndex index = getIndex(sc.getExpression());
+			if (index == null || sc.isNegated()) {
+				return null;
+			}
+			for (Object value : sc.getValues()) {
+				if (!isValue(index, (Expression)value)) {
+					return null;
+				}
+			}
+			BitSet result = new BitSet();
+			for (Object value : sc.getValues()) {
+				Object val = ((Constant)value).getValue();
+				if (val != null) {
+					index.match(val, result);
+				}
+			}
+			return result;
+		}
+		if (crit instanceof IsNullCriteria) {
+			IsNullCriteria inc = (IsNullCriteria)crit;
+			ValueIndex index = getIndex(inc.getExpression());
+			if (index == null || inc.isNegated()) {
+				return null;
+			}
+			BitSet result = new BitSet();
+			index.match(null, result);
+			return result;
+		}
+		if (crit instanceof CompoundCriteria) {
+			CompoundCriteria cc = (CompoundCriteria)crit;
+			if (cc.getOperator() != CompoundCriteria.OR) {
+				return getMatches(cc);
+			}
+			BitSet result = new BitSet();
+			for (Criteria child : cc.getCriteria()) {
+				BitSet matches = getMatches(child);
+				if (matches == null) {
+					return null;
+				}
+				result.or(matches);
+			}
+			return result;
+		}
+		return null;
+	}
+	
+	private ValueIndex getIndex(Expression ex) {
+		Integer column = columnMap.get(ex);
+		if (column == null) {
+			return null;
+		}
+		return indexes.get(column);
+	}
+	
+	private boolean isValue(ValueIndex index, Expression ex) {
+		return ex instanceof Constant && ex.getType() == columns.get(index.column).getType();
+	}
+	
+	/**
+	 * Get the keys of the given rows sorted in key order
+	 */
+	List<List<?>> getKeys(BitSet matches, boolean direction) {
+		List<List<?>> result = new ArrayList<List<?>>(matches.cardinality());
+		for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+			result.add(keySegments[i >> KEY_SEGMENT_SHIFT][i & KEY_SEGMENT_MASK]);
+		}
+		int[] sortOn = new int[keyLength];
+		for (int i = 0; i < sortOn.length; i++) {
+			sortOn[i] = i;
+		}
+		Collections.sort(result, new ListNestedSortComparator(sortOn, direction));
+		return result;
+	}
+	
+}
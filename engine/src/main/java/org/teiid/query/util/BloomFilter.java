@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.util;
+
+import org.teiid.core.util.ArgCheck;
+
+/**
+ * A simple Bloom filter over the {@link Object#hashCode()} of the added values.
+ * <br/>
+ * The filter may report false positives, but never false negatives, so it should
+ * only be used with values whose equality is consistent with hashCode.
+ * <br/>
+ * Bit indexes are computed by double hashing - the 32 bit hashCode is mixed into 
+ * a 64 bit value whose lower and upper halves are combined as h1 + i*h2 for each 
+ * of the hash functions.
+ */
+public class BloomFilter {
+	
+	private static final double LN2 = Math.log(2);
+	private static final int MAX_HASH_COUNT = 16;
+	/**
+	 * Limit the filter to 8 MB of bits
+	 */
+	private static final long MAX_BITS = 1l << 26;
+	
+	private final long[] bits;
+	private final int bitSize;
+	private final int hashCount;
+	
+	/**
+	 * Create a filter sized for the expected number of insertions and the desired
+	 * false positive probability.
+	 * @param expectedInsertions
+	 * @param fpp
+	 */
+	public BloomFilter(int expectedInsertions, double fpp) {
+		ArgCheck.isTrue(fpp > 0 && fpp < 1, "fpp must be between 0 and 1"); //$NON-NLS-1$
+		expectedInsertions = Math.max(1, expectedInsertions);
+		long m = (long)Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2));
+		m = Math.max(64, Math.min(MAX_BITS, m));
+		this.bitSize = (int)m;
+		this.bits = new long[(bitSize + 63) >>> 6];
+		this.hashCount = (int)Math.max(1, Math.min(MAX_HASH_COUNT, Math.round((double)m / expectedInsertions * LN2)));
+	}
+	
+	/**
+	 * Add the value to the filter.  null values are ignored.
+	 * @param value
+	 */
+	public void put(Object value) {
+		if (value == null) {
+			return;
+		}
+		long hash = mix(value.hashCode());
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32);
+		for (int i = 0; i < hashCount; i++) {
+			int index = index(h1 + i * h2);
+			bits[index >>> 6] |= 1l << index;
+		}
+	}
+	
+	/**
+	 * @param value
+	 * @return false if the value has definitely not been added to the filter.  
+	 * null values are never contained. 
+	 */
+	public boolean mightContain(Object value) {
+		if (value == null) {
+			return false;
+		}
+		long hash = mix(value.hashCode());
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32);
+		for (int i = 0; i < hashCount; i++) {
+			int index = index(h1 + i * h2);
+			if ((bits[index >>> 6] & (1l << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private int index(int combined) {
+		if (combined < 0) {
+			combined = ~combined;
+		}
+		return combined % bitSize;
+	}
+	
+	/**
+	 * The finalization step of the 64 bit murmur3 hash
+	 */
+	static long mix(int hashCode) {
+		long k = hashCode * 0x9E3779B97F4A7C15l;
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdl;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53l;
+		k ^= k >>> 33;
+		return k;
+	}
+	
+	/**
+	 * @return the backing bits, which must not be modified
+	 */
+	public long[] getBits() {
+		return bits;
+	}
+	
+	public int getBitSize() {
+		return bitSize;
+	}
+	
+	public int getHashCount() {
+		return hashCount;
+	}
+	
+}
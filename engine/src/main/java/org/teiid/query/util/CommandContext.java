@@ -157,6 +157,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	    private boolean resultSetCacheEnabled = true;
 	    
 	    private int userRequestSourceConcurrency;
+	    private int unionParallelism;
+	    private int sortParallelism;
+	    private int dependentBloomFilterThreshold;
 	    private Subject subject;
 	    private HashSet<Object> dataObjects;
 
@@ -261,6 +264,16 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     	}
         return globalState.processorID.get();
     }
+    
+    /**
+     * Notify the work item for this context, if any, that more work is available
+     */
+    public void moreWork() {
+    	RequestWorkItem workItem = getWorkItem();
+    	if (workItem != null) {
+    		workItem.moreWork();
+    	}
+    }
 
     /**
      * @param object
@@ -606,6 +619,46 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		this.globalState.userRequestSourceConcurrency = userRequestSourceConcurrency;
 	}
 	
+	/**
+	 * @return the number of union all branches to execute at once, or 0 to 
+	 * use the default serial strategy.  The value is capped at the user request 
+	 * source concurrency, which also bounds how many branch source queries run at once.
+	 * It is not used for a union under a row limit that only opens the branches 
+	 * needed to satisfy the limit.
+	 */
+	public int getUnionParallelism() {
+		return this.globalState.unionParallelism;
+	}
+	
+	public void setUnionParallelism(int unionParallelism) {
+		this.globalState.unionParallelism = unionParallelism;
+	}
+	
+	/**
+	 * @return the number of threads that may be used to sort the initial runs
+	 * of a single sort, or 0 to sort serially.
+	 */
+	public int getSortParallelism() {
+		return this.globalState.sortParallelism;
+	}
+	
+	public void setSortParallelism(int sortParallelism) {
+		this.globalState.sortParallelism = sortParallelism;
+	}
+	
+	/**
+	 * @return the number of independent values above which a dependent join
+	 * will filter the dependent side with a bloom filter rather than with 
+	 * set criteria, or 0 to disable bloom filtering.
+	 */
+	public int getDependentBloomFilterThreshold() {
+		return this.globalState.dependentBloomFilterThreshold;
+	}
+	
+	public void setDependentBloomFilterThreshold(int dependentBloomFilterThreshold) {
+		this.globalState.dependentBloomFilterThreshold = dependentBloomFilterThreshold;
+	}
+	
 	@Override
 	public Subject getSubject() {
 		return this.globalState.subject;
@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.client.BatchSerializer;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+@SuppressWarnings("nls")
+public class TestColumnarBatch {
+	
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, 
+		DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.DOUBLE, DataTypeManager.DefaultDataClasses.BOOLEAN};
+	
+	private List<List<?>> helpCreateRows(int count) {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < count; i++) {
+			if (i % 3 == 0) {
+				rows.add(Arrays.asList(null, null, null, null));
+			} else {
+				rows.add(Arrays.asList(i, String.valueOf(i), i/2.0, i%2==0));
+			}
+		}
+		return rows;
+	}
+
+	@Test public void testAddAndGet() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 1);
+		List<List<?>> rows = helpCreateRows(100);
+		batch.addAll(rows);
+		assertEquals(rows, batch);
+		assertEquals(rows.hashCode(), batch.hashCode());
+		assertTrue(batch.getPrimitiveColumn(0) instanceof int[]);
+		assertTrue(batch.getPrimitiveColumn(2) instanceof double[]);
+		assertNull(batch.getPrimitiveColumn(1));
+		assertNull(batch.getPrimitiveColumn(3));
+		assertTrue(batch.isNull(99, 0));
+		assertFalse(batch.isNull(98, 0));
+		assertEquals(Arrays.asList(null, null, null, null), batch.remove(99));
+		assertEquals(99, batch.size());
+	}
+	
+	@Test public void testTypeMismatch() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		batch.add(Arrays.asList(1, "a", 1.0, true));
+		batch.add(Arrays.asList(2L, "b", null, false));
+		assertNull(batch.getPrimitiveColumn(0));
+		assertEquals(Arrays.asList(1, "a", 1.0, true), batch.get(0));
+		assertEquals(Arrays.asList(2L, "b", null, false), batch.get(1));
+	}
+	
+	@Test public void testSnapshot() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		List<List<?>> rows = helpCreateRows(3);
+		batch.addAll(rows);
+		ColumnarBatch snapshot = batch.snapshot();
+		batch.add(Arrays.asList(4, "4", 4.0, false));
+		batch.clear();
+		assertEquals(rows, snapshot);
+		snapshot.add(Arrays.asList(5, "5", 5.0, true));
+		assertEquals(4, snapshot.size());
+		assertEquals(0, batch.size());
+		
+		ColumnarBatch projected = snapshot.project(new int[] {2, 0});
+		assertEquals(Arrays.asList(5.0, 5), projected.get(3));
+		assertEquals(Arrays.asList(null, null), projected.get(0));
+	}
+	
+	@Test public void testSnapshotIsolation() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 8);
+		List<List<?>> rows = helpCreateRows(3);
+		batch.addAll(rows);
+		ColumnarBatch snapshot = batch.snapshot();
+		//the replacement row must not overwrite the slot the snapshot still reads
+		batch.remove(2);
+		batch.add(Arrays.asList(4, "4", 4.0, false));
+		assertEquals(rows, snapshot);
+		batch.set(0, Arrays.asList(5, null, null, null));
+		assertEquals(rows, snapshot);
+		assertEquals(5, batch.get(0).get(0));
+		
+		ColumnarBatch projected = batch.project(new int[] {0});
+		batch.set(1, Arrays.asList(6, "1", 0.5, false));
+		assertEquals(Arrays.asList(5), projected.get(0));
+		assertEquals(Arrays.asList(rows.get(1).get(0)), projected.get(1));
+		projected.set(0, Arrays.asList(7));
+		assertEquals(5, batch.get(0).get(0));
+		
+		//removing a row other than the last shifts the following rows
+		snapshot = batch.snapshot();
+		List<?> removed = batch.remove(0);
+		assertEquals(Arrays.asList(5, null, null, null), removed);
+		assertEquals(Arrays.asList(Arrays.asList(6, "1", 0.5, false), Arrays.asList(4, "4", 4.0, false)), batch);
+		assertEquals(removed, snapshot.get(0));
+		assertEquals(3, snapshot.size());
+	}
+	
+	@Test public void testRemove() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		List<List<?>> rows = new ArrayList<List<?>>(helpCreateRows(130));
+		batch.addAll(rows);
+		for (int i = 0; i < 100; i += 7) {
+			assertEquals(rows.remove(i), batch.remove(i));
+		}
+		assertEquals(rows, batch);
+	}
+	
+	@Test public void testRetainedRow() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		batch.addAll(helpCreateRows(3));
+		List<?> row = batch.get(1);
+		batch.set(1, Arrays.asList(4, "4", 4.0, false));
+		//the retained row is a copy rather than a view of the storage
+		assertEquals(Arrays.asList(1, "1", 0.5, false), row);
+		assertEquals(Arrays.asList(4, "4", 4.0, false), batch.get(1));
+	}
+	
+	@Test public void testCursor() {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		batch.addAll(helpCreateRows(3));
+		TupleBatch tb = new TupleBatch(5, batch);
+		assertSame(tb.getTransientTuple(5), tb.getTransientTuple(6));
+		assertEquals(Arrays.asList(2, "2", 1.0, true), tb.getTransientTuple(7));
+		assertEquals(tb.getTuple(6), tb.getTransientTuple(6));
+	}
+	
+	@Test public void testSerialization() throws Exception {
+		ColumnarBatch batch = new ColumnarBatch(TYPES, 4);
+		List<List<?>> rows = helpCreateRows(21);
+		batch.addAll(rows);
+		String[] types = new String[TYPES.length];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = DataTypeManager.getDataTypeName(TYPES[i]);
+		}
+		ByteArrayOutputStream columnar = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(columnar);
+		BatchSerializer.writeBatch(oos, types, batch);
+		oos.close();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		oos = new ObjectOutputStream(expected);
+		BatchSerializer.writeBatch(oos, types, rows);
+		oos.close();
+		assertArrayEquals(expected.toByteArray(), columnar.toByteArray());
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(columnar.toByteArray()));
+		assertEquals(rows, BatchSerializer.readBatch(ois, types));
+	}
+	
+	@Test public void testTupleBuffer() throws Exception {
+		ElementSymbol x = new ElementSymbol("x");
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		ElementSymbol y = new ElementSymbol("y");
+		y.setType(DataTypeManager.DefaultDataClasses.STRING);
+		TupleBuffer tb = BufferManagerFactory.getStandaloneBufferManager().createTupleBuffer(Arrays.asList(x, y), "x", TupleSourceType.PROCESSOR);
+		tb.setBatchSize(4);
+		for (int i = 0; i < 10; i++) {
+			tb.addTuple(Arrays.asList(i, String.valueOf(i)));
+		}
+		TupleBatch batch = tb.getBatch(1);
+		assertTrue(batch.getTuples() instanceof ColumnarBatch);
+		assertEquals(Arrays.asList(3, "3"), batch.getTuple(4));
+		batch = tb.getBatch(9);
+		assertTrue(batch.getTuples() instanceof ColumnarBatch);
+		tb.addTuple(Arrays.asList(10, "10"));
+		assertEquals(2, batch.getRowCount());
+		tb.truncateTo(9);
+		assertEquals(Arrays.asList(8, "8"), tb.getBatch(9).getTuple(9));
+		assertEquals(9, tb.getRowCount());
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.impl.SizeUtility;
+import org.teiid.core.types.DataTypeManager;
+
+@SuppressWarnings("nls")
+public class TestCompressedBatch {
+	
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, 
+		DataTypeManager.DefaultDataClasses.STRING, DataTypeManager.DefaultDataClasses.LONG, DataTypeManager.DefaultDataClasses.STRING};
+	
+	private static final String[] TYPE_NAMES = new String[] {DataTypeManager.DefaultDataTypes.INTEGER, 
+		DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.STRING};
+	
+	private List<List<?>> helpCreateRows(int count) {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < count; i++) {
+			rows.add(Arrays.asList(1000000 + i, i % 5 == 0 ? null : "region" + (i % 5), i < count / 2 ? 7l : null, "unique" + i));
+		}
+		return rows;
+	}
+
+	@Test public void testEncoding() {
+		List<List<?>> rows = helpCreateRows(1000);
+		CompressedBatch batch = CompressedBatch.compress(rows, TYPE_NAMES);
+		assertEquals(rows, batch);
+		//frame of reference
+		assertEquals(2000, batch.getEncodedBytes(0));
+		assertNull(batch.getObjects(0));
+		//dictionary
+		assertEquals(1000, batch.getEncodedBytes(1));
+		assertEquals(5, batch.getObjects(1).length);
+		//run length
+		assertEquals(2, batch.getObjects(2).length);
+		//plain
+		assertEquals(1000, batch.getObjects(3).length);
+		assertEquals(0, batch.getEncodedBytes(3));
+		
+		assertSame(batch, CompressedBatch.compress(batch, TYPE_NAMES));
+	}
+	
+	@Test public void testSmallestEncoding() {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 1000; i++) {
+			rows.add(Arrays.asList((i / 4) % 2 == 0 ? "a" : "b", i % 2 == 0 ? 0 : 1000000));
+		}
+		CompressedBatch batch = CompressedBatch.compress(rows, new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.INTEGER});
+		assertEquals(rows, batch);
+		//dictionary rather than 250 runs
+		assertEquals(1000, batch.getEncodedBytes(0));
+		assertEquals(2, batch.getObjects(0).length);
+		//dictionary rather than a wide frame of reference
+		assertEquals(1000, batch.getEncodedBytes(1));
+		assertEquals(2, batch.getObjects(1).length);
+	}
+	
+	@Test public void testNoBenefit() {
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 10; i++) {
+			rows.add(Arrays.asList("unique" + i));
+		}
+		assertNull(CompressedBatch.compress(rows, new String[] {DataTypeManager.DefaultDataTypes.STRING}));
+	}
+	
+	@Test public void testSizeEstimate() {
+		List<List<?>> rows = helpCreateRows(1000);
+		SizeUtility su = new SizeUtility(TYPES);
+		long size = su.getBatchSize(false, rows);
+		long compressedSize = su.getBatchSize(false, CompressedBatch.compress(rows, TYPE_NAMES));
+		assertTrue(compressedSize < size / 2);
+	}
+	
+}
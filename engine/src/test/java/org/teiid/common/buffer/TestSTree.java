@@ -183,5 +183,50 @@ public class TestSTree {
 			assertNull(tb.nextTuple());
 		}
 	}
+
+	@Test public void testCompressLeaves() throws TeiidComponentException, TeiidProcessingException {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		ElementSymbol e2 = new ElementSymbol("y");
+		e2.setType(String.class);
+		List<ElementSymbol> elements = Arrays.asList(e1, e2);
+		STree map = bm.createSTree(elements, "1", 1);
+		
+		int size = 10000;
+		for (int i = 0; i < size; i++) {
+			assertNull(map.insert(Arrays.asList(i, String.valueOf(i % 10)), InsertMode.ORDERED, size));
+		}
+		map.compact();
+		map.compressLeaves();
+		
+		TupleBrowser tb = new TupleBrowser(map, null, null, true);
+		for (int i = 0; i < size; i++) {
+			assertEquals(Arrays.asList(i, String.valueOf(i % 10)), tb.nextTuple());
+		}
+		assertNull(tb.nextTuple());
+		
+		//modify while browsing
+		tb = new TupleBrowser(map, null, null, true, false);
+		List<?> tuple = null;
+		while ((tuple = tb.nextTuple()) != null) {
+			if (((Integer)tuple.get(0)) % 2 == 0) {
+				tb.removed();
+				assertNotNull(map.remove(tuple));
+			}
+		}
+		assertEquals(size/2, map.getRowCount());
+		assertNull(map.insert(Arrays.asList(0, "a"), InsertMode.NEW, -1));
+		map.compressLeaves();
+		
+		tb = new TupleBrowser(map, null, null, true);
+		assertEquals(Arrays.asList(0, "a"), tb.nextTuple());
+		for (int i = 1; i < size; i+=2) {
+			assertEquals(Arrays.asList(i, String.valueOf(i % 10)), tb.nextTuple());
+		}
+		assertNull(tb.nextTuple());
+	}
 	
+
 }
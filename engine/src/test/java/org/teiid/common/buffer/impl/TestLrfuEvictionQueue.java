@@ -24,10 +24,12 @@ package org.teiid.common.buffer.impl;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
 
 public class TestLrfuEvictionQueue {
 	
@@ -41,4 +43,83 @@ public class TestLrfuEvictionQueue {
 		}
 	}
 
+	@Test public void testAdmission() {
+		AtomicLong clock = new AtomicLong();
+		//a single stripe so that the candidate is the same for both entries
+		LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(clock, 1);
+		BaseCacheEntry hot = new BaseCacheEntry(new CacheKey(1l, 0, 0));
+		BaseCacheEntry cold = new BaseCacheEntry(new CacheKey(2l, 0, 0));
+		assertTrue(q.admit(cold));
+		for (int i = 0; i < 3; i++) {
+			clock.incrementAndGet();
+			q.recordAccess(hot);
+		}
+		q.add(hot);
+		assertFalse(q.admit(cold));
+		q.recordProbationaryAccess(cold);
+		assertEquals(0, cold.getKey().getOrderingValue());
+		q.add(cold);
+		assertSame(cold, q.firstEntry(false));
+		q.remove(cold);
+		for (int i = 0; i < 4; i++) {
+			q.recordAccess(cold);
+		}
+		//hot is now the eviction candidate and accessed less
+		assertTrue(q.admit(cold));
+	}
+	
+	@Test public void testAdaptiveHalfLife() {
+		AtomicLong clock = new AtomicLong(1);
+		LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(clock);
+		long initial = q.getHalfLife();
+		BaseCacheEntry entry = new BaseCacheEntry(new CacheKey(1l, 0, 0));
+		for (int i = 0; i < 10000; i++) {
+			clock.addAndGet(100);
+			q.recordAccess(entry);
+		}
+		assertTrue(q.getHalfLife() < initial);
+		q.setHalfLife(initial);
+		for (int i = 0; i < 10000; i++) {
+			clock.addAndGet(100);
+			q.recordAccess(entry);
+		}
+		assertEquals(initial, q.getHalfLife());
+	}
+
+	@Test public void testStripedOrdering() {
+		LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(new AtomicLong(), 4);
+		Random r = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			q.add(new BaseCacheEntry(new CacheKey((long)i, 0, r.nextInt(1000))));
+		}
+		assertEquals(100, q.getSize());
+		long last = -1;
+		for (BaseCacheEntry entry : q.getEvictionQueue()) {
+			assertTrue(entry.getKey().getOrderingValue() >= last);
+			last = entry.getKey().getOrderingValue();
+		}
+		last = -1;
+		for (int i = 0; i < 50; i++) {
+			BaseCacheEntry entry = q.firstEntry(true);
+			assertTrue(entry.getKey().getOrderingValue() >= last);
+			last = entry.getKey().getOrderingValue();
+		}
+		assertEquals(50, q.getSize());
+		q.getEvictionQueue().clear();
+		assertEquals(0, q.getSize());
+		assertNull(q.firstEntry(false));
+	}
+
+	@Test public void testTick() {
+		AtomicLong clock = new AtomicLong();
+		LrfuEvictionQueue<BaseCacheEntry> q = new LrfuEvictionQueue<BaseCacheEntry>(clock);
+		long last = 0;
+		for (int i = 1; i <= 64; i++) {
+			long tick = q.tick();
+			assertTrue(tick > last);
+			last = tick;
+		}
+		assertEquals(64, clock.get());
+	}
+	
 }
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.teiid.common.buffer.FileStore;
+import org.teiid.common.buffer.impl.OffHeapStorageManager.OffHeapFileStore;
+
+public class TestOffHeapStorageManager {
+	
+	private OffHeapStorageManager getStorageManager(MemoryStorageManager msm) {
+		OffHeapStorageManager ohsm = new OffHeapStorageManager(msm);
+		ohsm.setLogChunkSize(10);
+		ohsm.setMaxSpace(4096);
+		return ohsm;
+	}
+	
+    @Test public void testOverflow() throws Exception {
+    	MemoryStorageManager msm = new MemoryStorageManager();
+    	OffHeapStorageManager ohsm = getStorageManager(msm);
+        FileStore store = ohsm.createFileStore("0"); //$NON-NLS-1$
+        TestFileStorageManager.writeBytes(store);
+        assertEquals(0, msm.getCreated());
+        assertEquals(2048, ohsm.getUsedSpace());
+        
+        //spans the memory and overflow portions
+        byte[] bytes = TestFileStorageManager.writeBytes(store, 3000);
+        assertEquals(1, msm.getCreated());
+        assertEquals(4096, ohsm.getUsedSpace());
+        assertEquals(5048, store.getLength());
+        
+        byte[] bytesRead = new byte[2048];
+        store.readFully(3000, bytesRead, 0, bytesRead.length);
+        assertArrayEquals(bytes, bytesRead);
+        
+        store.remove();
+        assertEquals(0, ohsm.getUsedSpace());
+        assertEquals(1, msm.getRemoved());
+    }
+    
+    @Test public void testTruncateReleasesMemory() throws Exception {
+    	MemoryStorageManager msm = new MemoryStorageManager();
+    	OffHeapStorageManager ohsm = getStorageManager(msm);
+        OffHeapFileStore store = (OffHeapFileStore)ohsm.createFileStore("0"); //$NON-NLS-1$
+        OffHeapFileStore store1 = (OffHeapFileStore)ohsm.createFileStore("1"); //$NON-NLS-1$
+        store.setLength(4096);
+        store1.setLength(2048);
+        assertEquals(4096, store.getMemoryLength());
+        assertEquals(0, store1.getMemoryLength());
+        
+        store.setLength(1500);
+        assertEquals(2048, store.getMemoryLength());
+        assertEquals(2048, ohsm.getUsedSpace());
+        
+        //can't use memory until the overflow is truncated
+        store1.setLength(4096);
+        assertEquals(0, store1.getMemoryLength());
+        
+        store1.setLength(0);
+        store1.setLength(4096);
+        assertEquals(2048, store1.getMemoryLength());
+        assertEquals(4096, ohsm.getUsedSpace());
+        //chunks should be reused
+        assertEquals(4096, ohsm.getAllocatedSpace());
+    }
+
+    @Test public void testShutdown() throws Exception {
+    	MemoryStorageManager msm = new MemoryStorageManager();
+    	OffHeapStorageManager ohsm = getStorageManager(msm);
+        FileStore store = ohsm.createFileStore("0"); //$NON-NLS-1$
+        FileStore store1 = ohsm.createFileStore("1"); //$NON-NLS-1$
+        store.setLength(2048);
+        store1.setLength(1024);
+        store1.remove();
+        assertEquals(3072, ohsm.getAllocatedSpace());
+        
+        ohsm.shutdown();
+        assertEquals(0, ohsm.getUsedSpace());
+        assertEquals(0, ohsm.getAllocatedSpace());
+        
+        //no further direct memory is used
+        FileStore store2 = ohsm.createFileStore("2"); //$NON-NLS-1$
+        TestFileStorageManager.writeBytes(store2);
+        assertEquals(0, ohsm.getAllocatedSpace());
+        assertEquals(1, msm.getCreated());
+    }
+
+}
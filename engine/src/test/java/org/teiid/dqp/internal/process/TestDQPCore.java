@@ -25,7 +25,11 @@ package org.teiid.dqp.internal.process;
 import static org.junit.Assert.*;
 
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -405,6 +409,81 @@ public class TestDQPCore {
         assertEquals(10, item.resultsBuffer.getRowCount());
     }
     
+    @Test public void testStreamingWindow() throws Exception {
+        String sql = "SELECT A.IntKey FROM BQT1.SmallA as A"; //$NON-NLS-1$
+        String userName = "1"; //$NON-NLS-1$
+        String sessionid = "1"; //$NON-NLS-1$
+        
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setCursorType(ResultSet.TYPE_FORWARD_ONLY);
+        reqMsg.setStreamingWindow(3);
+        agds.setRows(50);
+        DQPWorkContext.getWorkContext().getSession().setSessionId(sessionid);
+        DQPWorkContext.getWorkContext().getSession().setUserName(userName);
+        ((BufferManagerImpl)core.getBufferManager()).setProcessorBatchSize(5);
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        ResultsMessage rm = message.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        assertEquals(3, rm.getStreamingWindow());
+        assertEquals(1, rm.getFirstRow());
+        
+        //issue all of the requests with the same begin row, the server should determine the successive batches
+        LinkedList<Future<ResultsMessage>> outstanding = new LinkedList<Future<ResultsMessage>>();
+        int next = rm.getLastRow() + 1;
+        int finalRow = rm.getFinalRow();
+        while (finalRow == -1 || next <= finalRow) {
+        	while (outstanding.size() < 3) {
+        		outstanding.add(core.processCursorRequest(reqMsg.getExecutionId(), rm.getLastRow() + 1, 10));
+        	}
+        	rm = outstanding.removeFirst().get(500000, TimeUnit.MILLISECONDS);
+        	assertNull(rm.getException());
+        	assertEquals(next, rm.getFirstRow());
+        	assertEquals(rm.getLastRow() - rm.getFirstRow() + 1, rm.getResultsList().size());
+        	next = rm.getLastRow() + 1;
+        	finalRow = rm.getFinalRow();
+        }
+        assertEquals(50, finalRow);
+        //the remaining requests are answered as past the end of the results
+        for (Future<ResultsMessage> future : outstanding) {
+        	rm = future.get(500000, TimeUnit.MILLISECONDS);
+        	assertEquals(0, rm.getResultsList().size());
+        	assertEquals(finalRow, rm.getFinalRow());
+        }
+    }
+    
+    @Test public void testStreamingWindowClose() throws Exception {
+        String sql = "SELECT A.IntKey FROM BQT1.SmallA as A"; //$NON-NLS-1$
+        
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setCursorType(ResultSet.TYPE_FORWARD_ONLY);
+        reqMsg.setStreamingWindow(3);
+        agds.setRows(50);
+        ((BufferManagerImpl)core.getBufferManager()).setProcessorBatchSize(5);
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        ResultsMessage rm = message.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        assertEquals(3, rm.getStreamingWindow());
+        RequestWorkItem item = core.getRequestWorkItem(DQPWorkContext.getWorkContext().getRequestID(reqMsg.getExecutionId()));
+        
+        //close with credits outstanding, each must still be answered
+        List<Future<ResultsMessage>> outstanding = new ArrayList<Future<ResultsMessage>>();
+        outstanding.add(core.processCursorRequest(reqMsg.getExecutionId(), rm.getLastRow() + 1, 10));
+        outstanding.add(core.processCursorRequest(reqMsg.getExecutionId(), rm.getLastRow() + 1, 10));
+        core.closeRequest(reqMsg.getExecutionId());
+        for (Future<ResultsMessage> future : outstanding) {
+        	future.get(5000, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < 500 && core.safeGetWorkItem(item.requestID) != null; i++) {
+        	Thread.sleep(10);
+        }
+        assertNull(core.safeGetWorkItem(item.requestID));
+        
+        //a credit arriving after the close is answered rather than left waiting
+        ResultsFuture<ResultsMessage> late = new ResultsFuture<ResultsMessage>();
+        item.requestMore(rm.getLastRow() + 1, 10, late.getResultsReceiver());
+        assertNotNull(late.get(5000, TimeUnit.MILLISECONDS).getException());
+    }
+    
     @Test public void testBufferReuse1() throws Exception {
     	//the sql should return 100 rows
         String sql = "SELECT IntKey FROM texttable('1112131415' columns intkey integer width 2 no row delimiter) t " +
@@ -647,6 +726,52 @@ public class TestDQPCore {
         assertEquals(1, this.core.getRsCache().getCacheHitCount());
     }
     
+    @Test public void testRsCachePrefix() throws Exception {
+    	agds.setUseIntCounter(true);
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select intkey FROM vqt.SmallA order by intkey"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size());
+        List<?>[] all = rm.getResultsList().toArray(new List<?>[10]);
+        int executeCount = agds.getExecuteCount().get();
+        
+        //a limited form of the cached query should not execute
+        reqMsg = exampleRequestMessage("SELECT intkey FROM vqt.SmallA ORDER BY intkey LIMIT 2, 3"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(Arrays.asList(all[2], all[3], all[4]), rm.getResultsList());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+        assertEquals(executeCount, agds.getExecuteCount().get());
+        
+        //past the end of the results
+        reqMsg = exampleRequestMessage("select intkey FROM vqt.SmallA order by intkey offset 9 rows"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(Arrays.asList(all[9]), rm.getResultsList());
+        assertEquals(executeCount, agds.getExecuteCount().get());
+    }
+    
+    @Test public void testRsCacheCoalescing() throws Exception {
+    	agds.setSleep(100);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        String sql = "select intkey FROM vqt.SmallA"; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        Future<ResultsMessage> first = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        reqMsg = exampleRequestMessage(sql);
+        reqMsg.setExecutionId(101);
+        reqMsg.setUseResultSetCache(true);
+        Future<ResultsMessage> second = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        assertEquals(10, first.get(5000, TimeUnit.MILLISECONDS).getResultsList().size());
+        assertEquals(10, second.get(5000, TimeUnit.MILLISECONDS).getResultsList().size());
+        //the second request should have waited on the first
+        assertEquals(1, agds.getExecuteCount().get());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+    
     @Test public void testLobConcurrency() throws Exception {
     	RequestMessage reqMsg = exampleRequestMessage("select to_bytes(stringkey, 'utf-8') FROM BQT1.SmallA"); 
         reqMsg.setTxnAutoWrapMode(RequestMessage.TXN_WRAP_OFF);
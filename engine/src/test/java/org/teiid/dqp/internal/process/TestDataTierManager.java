@@ -44,6 +44,7 @@ import org.teiid.dqp.message.AtomicRequestMessage;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.AutoGenDataService;
 import org.teiid.dqp.service.FakeBufferService;
+import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.parser.QueryParser;
@@ -54,6 +55,7 @@ import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
 import org.teiid.translator.CacheDirective;
 import org.teiid.translator.CacheDirective.Invalidation;
+import org.teiid.translator.CacheDirective.Scope;
 
 @SuppressWarnings("nls")
 public class TestDataTierManager {
@@ -322,6 +324,51 @@ public class TestDataTierManager {
     	assertFalse(rrp.doNotCache);
     }
     
+    @Test public void testFragmentCaching() throws Exception {
+    	QueryMetadataInterface metadata = RealMetadataFactory.exampleBQTCached();
+    	vdb.getModel("BQT1").addProperty(DataTierManagerImpl.FRAGMENT_CACHE_TTL, "60000"); //$NON-NLS-1$ //$NON-NLS-2$
+    	helpSetupDataTierManager();
+    	this.rm.getRsCache().setTupleBufferCache(dtm.getBufferManager());
+    	Command command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	RegisterRequestParameter rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	TupleSource ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertTrue(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	ts.closeSource();
+    	assertEquals(1, this.rm.getRsCache().getCachePutCount());
+    	
+    	//vdb scoped, so usable from another session
+    	command = helpSetupRequest("SELECT stringkey from bqt1.smalla", 1, metadata).getCommand();
+    	this.context.getSession().setSessionId("different");
+    	rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertFalse(ts instanceof CachingTupleSource);
+    	assertEquals(10, pullTuples(ts, -1));
+    	assertEquals(1, connectorManager.getExecuteCount().get());
+    	
+    	//nondeterministic functions prevent caching
+    	command = helpSetupRequest("SELECT stringkey, rand() from bqt1.smalla", 1, metadata).getCommand();
+    	rrp = new RegisterRequestParameter();
+    	rrp.connectorBindingId = "x";
+    	ts = dtm.registerRequest(context, command, "BQT1", rrp);
+    	assertFalse(ts instanceof CachingTupleSource);
+    	ts.closeSource();
+    }
+    
+    @Test public void testFragmentCacheDirectiveScope() throws Exception {
+    	vdb.getModel("BQT1").addProperty(DataTierManagerImpl.FRAGMENT_CACHE_TTL, "1000"); //$NON-NLS-1$ //$NON-NLS-2$
+    	CacheDirective cd = DataTierManagerImpl.getFragmentCacheDirective(vdb, "BQT1", Determinism.USER_DETERMINISTIC); //$NON-NLS-1$
+    	assertEquals(Scope.USER, cd.getScope());
+    	assertEquals(Long.valueOf(1000), cd.getTtl());
+    	vdb.getModel("BQT1").addProperty(DataTierManagerImpl.FRAGMENT_CACHE_SCOPE, "session"); //$NON-NLS-1$ //$NON-NLS-2$
+    	cd = DataTierManagerImpl.getFragmentCacheDirective(vdb, "BQT1", Determinism.DETERMINISTIC); //$NON-NLS-1$
+    	assertEquals(Scope.SESSION, cd.getScope());
+    	assertNull(DataTierManagerImpl.getFragmentCacheDirective(vdb, "BQT2", Determinism.DETERMINISTIC)); //$NON-NLS-1$
+    	assertNull(DataTierManagerImpl.getFragmentCacheDirective(vdb, "BQT1", Determinism.COMMAND_DETERMINISTIC)); //$NON-NLS-1$
+    }
+    
     @Test public void testCancelWithCaching() throws Exception {
     	QueryMetadataInterface metadata = RealMetadataFactory.exampleBQTCached();
     	CacheDirective cd = new CacheDirective();
@@ -118,8 +118,40 @@ public class TestRequest {
         assertNotNull(request.context.getTransactionContext());
     }
 
+    @Test public void testUnionParallelismCapped() throws Exception {
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        RequestMessage message = new RequestMessage(QUERY);
+        DQPWorkContext workContext = RealMetadataFactory.buildWorkContext(metadata, RealMetadataFactory.example1VDB());
+        workContext.getSession().getSessionVariables().put(Request.UNION_PARALLELISM, 100);
+        
+        Request request = helpProcessMessage(message, null, workContext, 4);
+        //the session value may not exceed the configured source concurrency
+        assertEquals(4, request.context.getUnionParallelism());
+        assertEquals(4, request.context.getUserRequestSourceConcurrency());
+        
+        workContext.getSession().getSessionVariables().put(Request.UNION_PARALLELISM, 2);
+        request = helpProcessMessage(new RequestMessage(QUERY), null, workContext, 4);
+        assertEquals(2, request.context.getUnionParallelism());
+        assertEquals(4, request.context.getUserRequestSourceConcurrency());
+    }
+    
+    @Test public void testSortParallelismCapped() throws Exception {
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        RequestMessage message = new RequestMessage(QUERY);
+        DQPWorkContext workContext = RealMetadataFactory.buildWorkContext(metadata, RealMetadataFactory.example1VDB());
+        workContext.getSession().getSessionVariables().put(Request.SORT_PARALLELISM, 100);
+        
+        Request request = helpProcessMessage(message, null, workContext, 4);
+        assertEquals(4, request.context.getSortParallelism());
+    }
+
     private Request helpProcessMessage(RequestMessage message, SessionAwareCache<PreparedPlan> cache, DQPWorkContext workContext) throws TeiidComponentException,
                                                            TeiidProcessingException {
+    	return helpProcessMessage(message, cache, workContext, 0);
+    }
+    
+    private Request helpProcessMessage(RequestMessage message, SessionAwareCache<PreparedPlan> cache, DQPWorkContext workContext, int userRequestConcurrency) throws TeiidComponentException,
+                                                           TeiidProcessingException {
         Request request = null;
         if (cache != null) {
         	request = new PreparedStatementRequest(cache);
@@ -134,6 +166,7 @@ public class TestRequest {
 				new FakeDataManager(), new FakeTransactionService(), TEMP_TABLE_STORE, workContext, null);
         DefaultAuthorizationValidator drav = new DefaultAuthorizationValidator();
         request.setAuthorizationValidator(drav);
+        request.setUserRequestConcurrency(userRequestConcurrency);
         request.processRequest();
         return request;
     }
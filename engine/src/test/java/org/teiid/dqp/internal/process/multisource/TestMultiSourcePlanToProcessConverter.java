@@ -96,6 +96,8 @@ public class TestMultiSourcePlanToProcessConverter {
     }
 
     private static final boolean DEBUG = false;
+    
+    private int dependentBloomFilterThreshold;
 
     public ProcessorPlan helpTestMultiSourcePlan(QueryMetadataInterface metadata, String userSql, String multiModel, int sourceCount, ProcessorDataManager dataMgr, List<?>[] expectedResults, VDBMetaData vdb) throws Exception {
     	return helpTestMultiSourcePlan(metadata, userSql, multiModel, sourceCount, dataMgr, expectedResults, vdb, null, null);
@@ -145,6 +147,7 @@ public class TestMultiSourcePlanToProcessConverter {
         CommandContext context = new CommandContext("test", "user", null, vdb.getName(), vdb.getVersion(), false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         context.setDQPWorkContext(workContext);
         context.setOptions(options);
+        context.setDependentBloomFilterThreshold(dependentBloomFilterThreshold);
         ProcessorPlan plan = QueryOptimizer.optimizePlan(command, wrapper, idGenerator, finder, analysis, context);
                         
         if(DEBUG) {
@@ -448,6 +451,31 @@ public class TestMultiSourcePlanToProcessConverter {
         helpTestMultiSourcePlan(metadata, userSql, multiModel, sources, dataMgr, expected, RealMetadataFactory.exampleMultiBindingVDB());
     }
     
+    @Test public void testMultiDependentJoinBloomFilter() throws Exception {
+        QueryMetadataInterface metadata = RealMetadataFactory.exampleMultiBinding();
+        
+        final String userSql = "SELECT b.SOURCE_NAME, b.a, b.b FROM MultiModel.Phys a inner join MultiModel.Phys b makedep on (a.a = b.a) where a.SOURCE_NAME = 'a'"; //$NON-NLS-1$
+        final String multiModel = "MultiModel"; //$NON-NLS-1$
+        final int sources = 2;
+        //the leading source name column is projected as a constant, so the filter column must be found in the original select
+        final List<?>[] expected = 
+            new List<?>[] { Arrays.asList("a", "x", "1"),
+                         Arrays.asList("a", "y", "2"),
+                         Arrays.asList("b", "x", "1"),
+                         Arrays.asList("b", "y", "2")};
+                         
+        final HardcodedDataManager dataMgr = new HardcodedDataManager();
+        dataMgr.addData("SELECT g_0.a AS c_0 FROM MultiModel.Phys AS g_0 ORDER BY c_0",  //$NON-NLS-1$
+                        new List<?>[] { Arrays.asList("x"), Arrays.asList("y")});
+        dataMgr.addData("SELECT g_0.a, g_0.b FROM MultiModel.Phys AS g_0",  //$NON-NLS-1$
+                        new List<?>[] { Arrays.asList("x", "1"), Arrays.asList("y", "2"), Arrays.asList("z", "3")});
+        dependentBloomFilterThreshold = 1;
+        helpTestMultiSourcePlan(metadata, userSql, multiModel, sources, dataMgr, expected, RealMetadataFactory.exampleMultiBindingVDB());
+        for (Command c : dataMgr.getCommandHistory()) {
+        	assertFalse(c.toString().contains("WHERE"));
+        }
+    }
+    
     @Test public void testSingleReplacementInDynamicCommand() throws Exception {
         final QueryMetadataInterface metadata = RealMetadataFactory.exampleMultiBinding();
         final String userSql = "exec Virt.sq1('a')"; //$NON-NLS-1$
@@ -173,6 +173,53 @@ public class TestFunctionTree {
     	String hello = "hello";
     	assertEquals(hello, fd.invokeFunction(new Object[] {new BinaryType(hello.getBytes())}, null, null));
     }
+    
+    public static int sum(Integer... vals) {
+    	int result = 0;
+    	for (int i : vals) {
+			result += i;
+		}
+    	return result;
+    }
+    
+    @Test public void testVarArgs() throws Exception {
+    	FunctionMethod method = new FunctionMethod(
+    			"dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "sum",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
+	 	    	Arrays.asList(new FunctionParameter("in", DataTypeManager.DefaultDataTypes.INTEGER)), //$NON-NLS-1$ 
+	 	    	new FunctionParameter("output", DataTypeManager.DefaultDataTypes.INTEGER), //$NON-NLS-1$
+	 	    	true, Determinism.DETERMINISTIC);
+    	method.setVarArgs(true);
+    	FunctionTree sys = RealMetadataFactory.SFM.getSystemFunctions();
+    	FunctionLibrary fl = new FunctionLibrary(sys, new FunctionTree("foo", new UDFSource(Arrays.asList(method)), true));
+    	FunctionDescriptor fd = fl.findFunction("dummy", new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER});
+    	//invoke repeatedly to ensure the argument handling is not stateful
+    	for (int i = 0; i < 3; i++) {
+    		assertEquals(6 + i, fd.invokeFunction(new Object[] {1, 2, 3 + i}, null, null));
+    	}
+    	assertEquals(1, fd.invokeFunction(new Object[] {1}, null, null));
+    }
+    
+    public static int length(byte[]... vals) {
+    	int result = 0;
+    	for (byte[] val : vals) {
+			result += val.length;
+		}
+    	return result;
+    }
+    
+    @Test public void testVarbinaryVarArgs() throws Exception {
+    	FunctionMethod method = new FunctionMethod(
+    			"dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "length",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ 
+	 	    	Arrays.asList(new FunctionParameter("in", DataTypeManager.DefaultDataTypes.VARBINARY)), //$NON-NLS-1$ 
+	 	    	new FunctionParameter("output", DataTypeManager.DefaultDataTypes.INTEGER), //$NON-NLS-1$
+	 	    	true, Determinism.DETERMINISTIC);
+    	method.setVarArgs(true);
+    	FunctionTree sys = RealMetadataFactory.SFM.getSystemFunctions();
+    	FunctionLibrary fl = new FunctionLibrary(sys, new FunctionTree("foo", new UDFSource(Arrays.asList(method)), true));
+    	FunctionDescriptor fd = fl.findFunction("dummy", new Class<?>[] {DataTypeManager.DefaultDataClasses.VARBINARY, DataTypeManager.DefaultDataClasses.VARBINARY});
+    	//each wrapped argument is unwrapped before being packed into the byte[][]
+    	assertEquals(5, fd.invokeFunction(new Object[] {new BinaryType(new byte[2]), new BinaryType(new byte[3])}, null, null));
+    }
 	
 /*
 
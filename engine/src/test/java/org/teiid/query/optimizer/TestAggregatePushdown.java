@@ -22,11 +22,15 @@
 
 package org.teiid.query.optimizer;
 
+import static org.junit.Assert.*;
 import static org.teiid.query.optimizer.TestOptimizer.*;
 
 import org.junit.Test;
+import org.teiid.client.plan.PlanNode;
+import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.function.FunctionTree;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer.ComparisonMode;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -1342,4 +1346,37 @@ public class TestAggregatePushdown {
         TestOptimizer.helpPlan("SELECT A.e1 FROM pm1.g1 A, (select e2 from pm2.g1) B WHERE A.e2 = 1 OR B.e2 IS NULL GROUP BY A.e1", RealMetadataFactory.example1Cached(), null, capFinder,  //$NON-NLS-1$
             new String[]{"SELECT g_0.e2 FROM pm2.g1 AS g_0", "SELECT g_0.e2, g_0.e1 FROM pm1.g1 AS g_0 GROUP BY g_0.e2, g_0.e1"}, ComparisonMode.EXACT_COMMAND_STRING); 
     }
+    
+    @Test public void testHashGroupingChosen() throws Exception {
+    	TransformationMetadata metadata = RealMetadataFactory.example1();
+    	RealMetadataFactory.setCardinality("pm1.g1", 100000, metadata);
+    	metadata.getElementID("pm1.g1.e1").setDistinctValues(10);
+    	String sql = "SELECT e1, max(e2) FROM pm1.g1 GROUP BY e1";
+    	String[] expected = new String[] {"SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1"};
+        ProcessorPlan plan = TestOptimizer.helpPlan(sql, metadata, expected);
+        assertEquals("HASH", getGroupingMode(plan.getDescriptionProperties()));
+        
+        //distinct aggregates are not hashed
+        plan = TestOptimizer.helpPlan("SELECT e1, count(distinct e2) FROM pm1.g1 GROUP BY e1", metadata, expected);
+        assertNull(getGroupingMode(plan.getDescriptionProperties()));
+        
+        //without cardinality information the input is sorted
+        plan = TestOptimizer.helpPlan(sql, RealMetadataFactory.example1Cached(), expected);
+        assertNull(getGroupingMode(plan.getDescriptionProperties()));
+    }
+
+	private String getGroupingMode(PlanNode node) {
+		for (PlanNode.Property property : node.getProperties()) {
+			if (property.getName().equals(AnalysisRecord.PROP_GROUPING_MODE)) {
+				return property.getValues().get(0);
+			}
+			if (property.getPlanNode() != null) {
+				String result = getGroupingMode(property.getPlanNode());
+				if (result != null) {
+					return result;
+				}
+			}
+		}
+		return null;
+	}
 }
@@ -46,6 +46,7 @@ import org.teiid.query.optimizer.relational.rules.RuleChooseDependent;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.relational.AccessNode;
 import org.teiid.query.processor.relational.DependentAccessNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
 import org.teiid.query.processor.relational.RelationalNode;
 import org.teiid.query.processor.relational.RelationalPlan;
 import org.teiid.query.sql.lang.Command;
@@ -603,14 +604,15 @@ public class TestDependentJoins {
             0,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
-            2,      // MergeJoinStrategy
+            1,      // MergeJoinStrategy
             0,      // Null
             0,      // PlanExecution
             1,      // Project
             0,      // Select
             0,      // Sort
             0       // UnionAll
-        });         
+        });
+        TestOptimizer.checkNodeTypes(plan, new int[] {1}, new Class[] {HashJoinStrategy.class});         
     } 
 
     /**
@@ -388,6 +388,8 @@ public class TestOptimizer {
                 } 
             } else if (strategy instanceof NestedTableJoinStrategy) {
             	updateCounts(NestedTableJoinStrategy.class, counts, types);
+            } else if (strategy instanceof HashJoinStrategy) {
+            	updateCounts(HashJoinStrategy.class, counts, types);
             }
             if (((JoinNode)relationalNode).isDependent()) {
                 updateCounts(DependentJoin.class, counts, types);
@@ -3122,7 +3124,7 @@ public class TestOptimizer {
             0,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
-            1,      // MergeJoinStrategy
+            0,      // MergeJoinStrategy
             0,      // Null
             0,      // PlanExecution
             3,      // Project
@@ -3130,6 +3132,45 @@ public class TestOptimizer {
             0,      // Sort
             0       // UnionAll
         });         
+        //neither side can be sorted by the source
+        checkNodeTypes(plan, new int[] {1}, new Class[] {HashJoinStrategy.class});
+    } 
+    
+    @Test public void testUseHashJoin() throws Exception {
+        String sql = "SELECT pm1.g1.e1 FROM pm1.g1, pm2.g2 WHERE pm1.g1.e1 = pm2.g2.e1";//$NON-NLS-1$
+
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_COMPARE_EQ, true);
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+        capFinder.addCapabilities("pm2", caps); //$NON-NLS-1$
+
+        QueryMetadataInterface metadata = RealMetadataFactory.example1();
+        RealMetadataFactory.setCardinality("pm1.g1", RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY + 500, metadata);
+        RealMetadataFactory.setCardinality("pm2.g2", RuleChooseDependent.DEFAULT_INDEPENDENT_CARDINALITY + 1000, metadata);
+    
+        ProcessorPlan plan = helpPlan(sql, metadata,  
+            null, capFinder,
+            new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm2.g2.e1 FROM pm2.g2" }, SHOULD_SUCCEED); //$NON-NLS-1$ //$NON-NLS-2$
+        checkNodeTypes(plan, new int[] {
+            2,      // Access
+            0,      // DependentAccess
+            0,      // DependentSelect
+            0,      // DependentProject
+            0,      // DupRemove
+            0,      // Grouping
+            0,      // NestedLoopJoinStrategy
+            0,      // MergeJoinStrategy
+            0,      // Null
+            0,      // PlanExecution
+            1,      // Project
+            0,      // Select
+            0,      // Sort
+            0       // UnionAll
+        });
+        checkNodeTypes(plan, new int[] {1}, new Class[] {HashJoinStrategy.class});
+        JoinNode joinNode = (JoinNode)((RelationalPlan)plan).getRootNode().getChildren()[0];
+        assertTrue(((HashJoinStrategy)joinNode.getJoinStrategy()).isBuildLeft());
     } 
 
     /** should be one dependent join */
@@ -3161,14 +3202,15 @@ public class TestOptimizer {
             0,      // DupRemove
             0,      // Grouping
             0,      // NestedLoopJoinStrategy
-            2,      // MergeJoinStrategy
+            0,      // MergeJoinStrategy
             0,      // Null
             0,      // PlanExecution
             1,      // Project
             0,      // Select
             0,      // Sort
             0       // UnionAll
-        });         
+        });
+        checkNodeTypes(plan, new int[] {2}, new Class[] {HashJoinStrategy.class});         
     } 
 
     @Test public void testLargeSetCriteria() {
@@ -1238,4 +1238,30 @@ public class TestDependentJoins {
 		TestProcessor.helpProcess(plan, dataManager, expected);
     }
     
+    @Test public void testBloomFilter() throws Exception {
+        String sql = "SELECT pm1.g1.e1, pm2.g1.e2 FROM pm1.g1, pm2.g1 WHERE pm1.g1.e1 = pm2.g1.e1 option makedep pm2.g1"; //$NON-NLS-1$
+        
+        List<?>[] expected = new List<?>[] { 
+            Arrays.asList("a", 1), //$NON-NLS-1$
+            Arrays.asList("b", 2), //$NON-NLS-1$
+        };    
+        
+        BasicSourceCapabilities caps = TestOptimizer.getTypicalCapabilities();
+        caps.setCapabilitySupport(Capability.QUERY_FROM_JOIN_INNER, false);
+        caps.setCapabilitySupport(Capability.QUERY_ORDERBY, false);
+        caps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+        ProcessorPlan plan = TestProcessor.helpGetPlan(sql, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(caps));
+        
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT g_0.e1 FROM pm1.g1 AS g_0", new List<?>[] {Arrays.asList("a"), Arrays.asList("b")});
+        //a single unrestricted query rather than a query per value
+        dataManager.addData("SELECT g_0.e1, g_0.e2 FROM pm2.g1 AS g_0", new List<?>[] {Arrays.asList("a", 1), Arrays.asList("b", 2), Arrays.asList("c", 3), Arrays.asList(null, 4)});
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setDependentBloomFilterThreshold(1);
+        TestProcessor.helpProcess(plan, cc, dataManager, expected);
+        for (Command c : dataManager.getCommandHistory()) {
+        	assertFalse(c.toString().contains("WHERE"));
+        }
+    }
+    
 }
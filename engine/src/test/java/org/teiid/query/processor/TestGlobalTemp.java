@@ -62,5 +62,31 @@ public class TestGlobalTemp {
 		harness.execute("insert into temp (s) values ('a')", new List<?>[] {Arrays.asList(1)});
 		harness.execute("select * from temp", new List<?>[] {Arrays.asList(1, "a")});
 	}
+	
+	@Test public void testValueIndexes() throws Exception {
+		TempTableTestHarness harness = new TempTableTestHarness();
+		TransformationMetadata metadata = RealMetadataFactory.fromDDL("create global temporary table temp (x serial, s string, c integer) options (updatable true, "
+				+ "\"teiid_rel:HASH_INDEXES\" 's', \"teiid_rel:BITMAP_INDEXES\" 'c');" +
+				"", "x", "y");
+		HardcodedDataManager dm = new HardcodedDataManager();
+		harness.setUp(metadata, dm);
+		
+		for (int i = 0; i < 100; i++) {
+			harness.execute("insert into temp (s, c) values ('v" + i + "', " + (i % 3) + ")", new List<?>[] {Arrays.asList(1)});
+		}
+		harness.execute("select x from temp where s = 'v5'", new List<?>[] {Arrays.asList(6)});
+		harness.execute("select x from temp where s in ('v5', 'v6') and c = 0", new List<?>[] {Arrays.asList(7)});
+		harness.execute("select count(*) from temp where c = 1 or s = 'v0'", new List<?>[] {Arrays.asList(34)});
+		harness.execute("select count(*) from temp where c in (1, 2) and c = 2", new List<?>[] {Arrays.asList(33)});
+		harness.execute("select x from temp where c is null", new List<?>[0]);
+		
+		harness.execute("update temp set c = null, s = 'x' where s = 'v5'", new List<?>[] {Arrays.asList(1)});
+		harness.execute("delete from temp where c = 0", new List<?>[] {Arrays.asList(34)});
+		harness.execute("select x from temp where c is null or s = 'v5'", new List<?>[] {Arrays.asList(6)});
+		harness.execute("select count(*) from temp where c = 2", new List<?>[] {Arrays.asList(32)});
+		harness.execute("select x from temp where s = 'x' and c is null", new List<?>[] {Arrays.asList(6)});
+		harness.execute("insert into temp (s, c) values ('v3', 0)", new List<?>[] {Arrays.asList(1)});
+		harness.execute("select x from temp where s = 'v3' or c = 0", new List<?>[] {Arrays.asList(101)});
+	}
 
 }
@@ -27,8 +27,11 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -36,16 +39,23 @@ import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.FileUtils;
+import org.teiid.core.util.UnitTestUtil;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
+import org.teiid.query.metadata.CompositeMetadataStore;
+import org.teiid.query.metadata.SystemMetadata;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
+import org.teiid.query.parser.TestDDLParser;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
+import org.teiid.query.tempdata.GlobalTableStoreImpl.MatState;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.tempdata.TempTableDataManager;
 import org.teiid.query.tempdata.TempTableStore;
@@ -175,5 +185,167 @@ public class TestMaterialization {
 		TempMetadataID id = this.globalStore.getGlobalTempTableMetadataId(metadata.getGroupID("MatView.vgroup2a"));
 		assertEquals("SELECT MatView.VGroup2a.*, ucase(x) FROM MatView.VGroup2a option nocache MatView.VGroup2a", id.getQueryNode().getQuery());
 	}
+	
+	@Test public void testIncrementalRefresh() throws Exception {
+		CompositeMetadataStore cms = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+		cms.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string, version integer, deleted boolean);", "x").asMetadataStore());
+		cms.merge(TestDDLParser.helpParse("create view v (id integer primary key, val string, version integer, deleted boolean) options (materialized true, "
+				+ "\"teiid_rel:MATVIEW_CHANGE_COLUMN\" 'version', \"teiid_rel:MATVIEW_DELETE_COLUMN\" 'deleted') as select * from x.src;", "y").asMetadataStore());
+		TransformationMetadata actualMetadata = RealMetadataFactory.createTransformationMetadata(cms, "vdb");
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+		hdm = new HardcodedDataManager();
+		hdm.addData("SELECT x.src.id, x.src.val, x.src.version, x.src.deleted FROM x.src", new List[] {Arrays.asList(1, "a", 1, false), Arrays.asList(2, "b", 2, false)});
+		//the change criteria is evaluated by the engine with the default capabilities
+		//id 4 has the same version as the last load, but was committed after it
+		hdm.addData("SELECT x.src.version, x.src.id, x.src.val, x.src.deleted FROM x.src", new List[] {Arrays.asList(3, 1, "c", false), Arrays.asList(4, 2, "b", true), Arrays.asList(3, 3, "d", false), Arrays.asList(2, 4, "e", false)});
+		dataManager = new TempTableDataManager(hdm, bm, null);
+		
+		execute("SELECT id, val from y.v order by id", Arrays.asList(1, "a"), Arrays.asList(2, "b"));
+		String matTableName = RelationalPlanner.MAT_PREFIX + "Y.V";
+		MatTableInfo info = globalStore.getMatTableInfo(matTableName);
+		assertEquals(2, info.getChangeValue());
+		assertFalse(info.isIncremental());
+		
+		execute("call sysadmin.refreshMatView('y.v', false)", Arrays.asList(4));
+		assertEquals(4, info.getChangeValue());
+		assertTrue(info.isIncremental());
+		assertEquals(4, info.getRefreshRowCount());
+		execute("SELECT id, val from y.v order by id", Arrays.asList(1, "c"), Arrays.asList(3, "d"), Arrays.asList(4, "e"));
+		
+		//the rows at the high water mark are read again, but the delete has already been applied
+		execute("call sysadmin.refreshMatView('y.v', false)", Arrays.asList(0));
+		assertEquals(4, info.getChangeValue());
+		assertEquals(1, dataManager.getMatViewLoadCount());
+		assertEquals(2, dataManager.getMatViewIncrementalRefreshCount());
+		assertEquals(4, dataManager.getMatViewIncrementalRefreshRowCount());
+		
+		//invalidation forces a full load
+		execute("call sysadmin.refreshMatView('y.v', true)", Arrays.asList(2));
+		assertFalse(info.isIncremental());
+		assertEquals(2, info.getChangeValue());
+	}
     
+	@Test public void testSnapshot() throws Exception {
+		File dir = UnitTestUtil.getTestScratchFile("matview-snapshots");
+		FileUtils.removeDirectoryAndChildren(dir);
+		TransformationMetadata actualMetadata = helpCreateSnapshotMetadata("select * from x.src");
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+		metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+		hdm = new HardcodedDataManager();
+		hdm.addData("SELECT x.src.id, x.src.val FROM x.src", new List[] {Arrays.asList(1, "a"), Arrays.asList(2, "b")});
+		dataManager = new TempTableDataManager(hdm, bm, null);
+		
+		execute("SELECT id, val from y.v order by id", Arrays.asList(1, "a"), Arrays.asList(2, "b"));
+		assertEquals(1, hdm.getCommandHistory().size());
+		String matTableName = RelationalPlanner.MAT_PREFIX + "Y.V";
+		long updateTime = globalStore.getMatTableInfo(matTableName).getUpdateTime();
+		
+		//simulate a restart
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+		assertEquals(1, globalStore.restoreSnapshots());
+		assertEquals(updateTime, globalStore.getMatTableInfo(matTableName).getUpdateTime());
+		execute("SELECT id, val from y.v where id = 2", Arrays.asList(2, "b"));
+		assertEquals(1, hdm.getCommandHistory().size());
+		
+		//a modified view definition should not use the snapshot
+		actualMetadata = helpCreateSnapshotMetadata("select * from x.src where id > 1");
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+		assertEquals(0, globalStore.restoreSnapshots());
+		
+		//a load by a later vdb version keeps the snapshot of the prior version while it is deployed
+		actualMetadata.getVdbMetaData().setVersion(2);
+		final boolean[] deployed = new boolean[] {true};
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata) {
+			@Override
+			protected boolean isDeployed(int vdbVersion) {
+				return deployed[0];
+			}
+		};
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+		metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+		hdm.addData("SELECT x.src.id, x.src.val FROM x.src WHERE x.src.id > 1", new List[] {Arrays.asList(2, "b")});
+		execute("SELECT id, val from y.v order by id", Arrays.asList(2, "b"));
+		assertEquals(2, dir.list().length);
+		
+		//and removes it once undeployed
+		deployed[0] = false;
+		execute("call sysadmin.refreshMatView('y.v', true)", Arrays.asList(1));
+		String[] files = dir.list();
+		assertEquals(1, files.length);
+		assertEquals("vdb_2__MAT_Y.V.snapshot", files[0]);
+	}
+	
+	@Test public void testSnapshotRestoreAsynch() throws Exception {
+		File dir = UnitTestUtil.getTestScratchFile("matview-snapshots-asynch");
+		FileUtils.removeDirectoryAndChildren(dir);
+		TransformationMetadata actualMetadata = helpCreateSnapshotMetadata("select * from x.src");
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+		metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+		hdm = new HardcodedDataManager();
+		hdm.addData("SELECT x.src.id, x.src.val FROM x.src", new List[] {Arrays.asList(1, "a"), Arrays.asList(2, "b")});
+		dataManager = new TempTableDataManager(hdm, bm, null);
+		execute("SELECT id, val from y.v order by id", Arrays.asList(1, "a"), Arrays.asList(2, "b"));
+		
+		//simulate a restart where the restore has not yet run
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		globalStore.restoreSnapshotsAsynch();
+		assertEquals(1, tasks.size());
+		String matTableName = RelationalPlanner.MAT_PREFIX + "Y.V";
+		MatTableInfo info = globalStore.getMatTableInfo(matTableName);
+		assertEquals(MatState.LOADING, info.getState());
+		//a query should wait rather than load
+		assertFalse(globalStore.needsLoading(matTableName, globalStore.getAddress(), true, false, false));
+		
+		tasks.get(0).run();
+		assertEquals(MatState.LOADED, info.getState());
+		execute("SELECT id, val from y.v where id = 2", Arrays.asList(2, "b"));
+		assertEquals(1, hdm.getCommandHistory().size());
+		
+		//a failed restore allows a normal load
+		tasks.clear();
+		globalStore = new GlobalTableStoreImpl(bm, actualMetadata.getVdbMetaData(), actualMetadata);
+		globalStore.setSnapshotDirectory(dir);
+		globalStore.setSnapshotExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		globalStore.restoreSnapshotsAsynch();
+		info = globalStore.getMatTableInfo(matTableName);
+		assertEquals(MatState.LOADING, info.getState());
+		FileUtils.removeDirectoryAndChildren(dir);
+		tasks.get(0).run();
+		assertEquals(MatState.NEEDS_LOADING, info.getState());
+		assertTrue(globalStore.needsLoading(matTableName, globalStore.getAddress(), true, false, false));
+	}
+
+	private TransformationMetadata helpCreateSnapshotMetadata(String query) throws Exception {
+		CompositeMetadataStore cms = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+		cms.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string);", "x").asMetadataStore());
+		cms.merge(TestDDLParser.helpParse("create view v (id integer primary key, val string) options (materialized true) as " + query + ";", "y").asMetadataStore());
+		return RealMetadataFactory.createTransformationMetadata(cms, "vdb");
+	}
+
 }
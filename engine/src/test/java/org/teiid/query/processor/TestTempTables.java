@@ -44,6 +44,7 @@ import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.SessionAwareCache;
@@ -55,6 +56,7 @@ import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.TestOptimizer.ComparisonMode;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
+import org.teiid.query.tempdata.TempTable;
 import org.teiid.query.tempdata.TempTableDataManager;
 import org.teiid.query.unittest.RealMetadataFactory;
 
@@ -172,6 +174,71 @@ public class TestTempTables extends TempTableTestHarness {
 		synch.afterCompletion(Status.STATUS_COMMITTED);
 	}
 
+	@Test public void testSnapshotReads() throws Exception {
+		GlobalTableStoreImpl gtsi = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), RealMetadataFactory.example1Cached().getVdbMetaData(), RealMetadataFactory.example1Cached());
+		tempStore = gtsi.getTempTableStore();
+		metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+		execute("create local temporary table x (e1 string, e2 integer)", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		for (int i = 0; i < 100; i++) {
+			execute("insert into x (e2, e1) select e2, e1 from pm1.g1", new List[] {Arrays.asList(6)}); //$NON-NLS-1$
+		}
+		TempTable table = gtsi.getTempTable("X");
+		TupleSource ts = table.createTupleSource(table.getColumns(), null, null);
+		assertNotNull(ts.nextTuple());
+		
+		//writes proceed and are not seen by the open reader
+		gtsi.updateMatViewRow("X", Arrays.asList(2), true);
+		execute("delete from x where e2 = 1", new List[] {Arrays.asList(200)}); //$NON-NLS-1$
+		execute("select count(*) from x", new List[] {Arrays.asList(399)});
+		
+		TupleSource ts1 = table.createTupleSource(table.getColumns(), null, null);
+		
+		//the storage should remain until the readers are done
+		execute("drop table x", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		int count = 1;
+		while (ts.nextTuple() != null) {
+			count++;
+		}
+		ts.closeSource();
+		assertEquals(600, count);
+		count = 0;
+		while (ts1.nextTuple() != null) {
+			count++;
+		}
+		ts1.closeSource();
+		assertEquals(399, count);
+	}
+	
+	@Test public void testSnapshotReadsInterleavedWithWrites() throws Exception {
+		GlobalTableStoreImpl gtsi = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), RealMetadataFactory.example1Cached().getVdbMetaData(), RealMetadataFactory.example1Cached());
+		tempStore = gtsi.getTempTableStore();
+		metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+		execute("create local temporary table x (e1 string, e2 integer, primary key (e2))", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+		execute("insert into x (e2, e1) values (0, 'a')", new List[] {Arrays.asList(1)}); //$NON-NLS-1$
+		TempTable table = gtsi.getTempTable("X");
+		//completed reads followed by writes
+		for (int i = 1; i < 20; i++) {
+			execute("select count(*) from x where e2 >= 0", new List[] {Arrays.asList(i)}); //$NON-NLS-1$
+			execute("insert into x (e2, e1) values (" + i + ", 'a')", new List[] {Arrays.asList(1)}); //$NON-NLS-1$
+		}
+		//an open reader keeps the state from before the following writes
+		TupleSource ts = table.createTupleSource(table.getColumns(), null, null);
+		assertNotNull(ts.nextTuple());
+		execute("update x set e1 = 'b' where e2 < 10", new List[] {Arrays.asList(10)}); //$NON-NLS-1$
+		execute("delete from x where e2 >= 15", new List[] {Arrays.asList(5)}); //$NON-NLS-1$
+		execute("select count(*) from x where e1 = 'b'", new List[] {Arrays.asList(10)}); //$NON-NLS-1$
+		execute("select count(*) from x where e1 = 'a'", new List[] {Arrays.asList(5)}); //$NON-NLS-1$
+		int count = 1;
+		List<?> tuple = null;
+		while ((tuple = ts.nextTuple()) != null) {
+			assertEquals("a", tuple.get(1)); //$NON-NLS-1$
+			count++;
+		}
+		ts.closeSource();
+		assertEquals(20, count);
+		execute("select count(*) from x", new List[] {Arrays.asList(15)}); //$NON-NLS-1$
+	}
+
 	private void setupTransaction(int isolation) throws RollbackException, SystemException {
 		txn = Mockito.mock(Transaction.class);
 		Mockito.doAnswer(new Answer<Void>() {
@@ -38,6 +38,7 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.eval.CompiledExpression;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.symbol.Constant;
@@ -522,5 +523,26 @@ public class TestCriteriaEvaluator {
     	CompareCriteria crit = new CompareCriteria(new Constant(new BigDecimal("3.10")), CompareCriteria.EQ, new Constant(new BigDecimal("3.1"))); //$NON-NLS-1$ //$NON-NLS-2$
     	assertTrue(Evaluator.evaluate(crit));
     }
+    
+    @Test public void testCompiledCriteriaNulls() throws Exception {
+        ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        Map elementMap = new HashMap();
+        elementMap.put(e1, 0);
+        elementMap.put(e2, 1);
+        Criteria crit = new CompoundCriteria(CompoundCriteria.AND, 
+        		new CompoundCriteria(CompoundCriteria.OR, new CompareCriteria(e1, CompareCriteria.EQ, new Constant(1)), new CompareCriteria(e2, CompareCriteria.GT, new Constant(2))), 
+        		new NotCriteria(new SetCriteria(e2, Arrays.asList(new Constant(5), new Constant(6)))));
+        Evaluator eval = new Evaluator(elementMap, null, new CommandContext());
+        CompiledExpression compiled = eval.compile(crit);
+        Integer[] values = new Integer[] {null, 1, 3, 5};
+        for (Integer v1 : values) {
+        	for (Integer v2 : values) {
+        		List<Integer> tuple = Arrays.asList(v1, v2);
+        		assertEquals(tuple.toString(), eval.evaluateTVL(crit, tuple), compiled.evaluate(tuple));
+        		assertEquals(tuple.toString(), eval.evaluate(crit, tuple), compiled.evaluateCriteria(tuple));
+        	}
+        }
+    }
 
 }
@@ -82,7 +82,10 @@ public class TestExpressionEvaluator {
         if (valueList != null) {
         	tuple = Arrays.asList(valueList);
         }
-        return new Evaluator(elements, dataMgr, context).evaluate(expr, tuple);
+        Evaluator eval = new Evaluator(elements, dataMgr, context);
+        Object result = eval.evaluate(expr, tuple);
+        assertEquals("Compiled result did not match", result, eval.compile(expr).evaluate(tuple)); //$NON-NLS-1$
+        return result;
     }
     
     @Test public void testCaseExpression1() {
@@ -34,6 +34,7 @@ import java.util.Map;
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
@@ -420,6 +421,74 @@ public class TestGroupingNode {
         helpProcess(mgr, node, context, expected, null);
     }
 
+    @Test public void testHashGrouping() throws Exception {
+        BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+        
+        GroupingNode node = getHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        helpProcess(mgr, node, context, getHashGroupingExpected(), null);
+    }
+    
+    /**
+     * Only some of the groups will fit in memory, the rest must be sorted and merged
+     */
+    @Test public void testHashGroupingOverflow() throws Exception {
+    	BufferManagerImpl mgr = BufferManagerFactory.initBufferManager(new BufferManagerImpl() {
+    		boolean reserved;
+    		@Override
+    		public int reserveBuffers(int count, BufferReserveMode mode) {
+    			if (mode == BufferReserveMode.NO_WAIT) {
+    				if (reserved) {
+    					return 0;
+    				}
+    				reserved = true;
+    				count /= 4;
+    			}
+    			return super.reserveBuffers(count, mode);
+    		}
+    	});
+        mgr.setProcessorBatchSize(2);
+        
+        GroupingNode node = getHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        helpProcess(mgr, node, context, getHashGroupingExpected(), null);
+    }
+    
+	private GroupingNode getHashGroupingNode() {
+		GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("MAX", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+        
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1); 
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setHashGrouping(true);
+		return node;
+	}
+
+	private List[] getHashGroupingExpected() {
+		return new List[] {
+            Arrays.asList(new Object[] { null, new Integer(1), new Long(3), new Integer(3) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1), new Long(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1), new Long(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4), new Long(5), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1), new Long(0), new Integer(0) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(2), new Long(5), new Integer(3) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1), new Long(3), new Integer(3) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2), new Long(7), new Integer(4) })
+        };
+	}
+    
 	private GroupingNode getExampleGroupingNode() {
 		GroupingNode node = new GroupingNode(1);
         List outputElements = new ArrayList();
@@ -1031,4 +1031,153 @@ public class TestJoinNode {
         helpTestJoinDirect(expected, 100, 100000);
     }
     
+    @Test public void testHashJoin() throws Exception {
+        this.joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 1, 1 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+        };
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy();
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 100000);
+    }
+    
+    @Test public void testHashJoinBuildLeft() throws Exception {
+        this.joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { 1, 1 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+        };
+        helpCreateJoin();
+        HashJoinStrategy hjs = new HashJoinStrategy();
+        hjs.setBuildLeft(true);
+        this.joinStrategy = hjs;
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 100000);
+    }
+    
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        this.joinType = JoinType.JOIN_LEFT_OUTER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { 5, null }),
+            Arrays.asList(new Object[] { 3, null }),
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 2, 2 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 1, 1 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 4, 4 }),
+            Arrays.asList(new Object[] { 10, null }),
+            Arrays.asList(new Object[] { 11, null }),
+            Arrays.asList(new Object[] { 11, null }),
+        };
+        helpCreateJoin();
+        HashJoinStrategy hjs = new HashJoinStrategy();
+        //should be ignored for an outer join
+        hjs.setBuildLeft(true);
+        this.joinStrategy = hjs;
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 10, 100000);
+    }
+    
+    /**
+     * With no memory available both sides will be partitioned, which does not preserve the probe order
+     */
+    @Test public void testHashJoinPartitioned() throws Exception {
+        this.joinType = JoinType.JOIN_LEFT_OUTER;
+        int rows = 100;
+        List[] data = new List[rows];
+        for(int i=0; i<rows; i++) { 
+            data[i] = new ArrayList();
+            data[i].add(i%10==0?null:(i*17) % 47);
+        }
+        this.leftTuples = data;
+        this.rightTuples = createTuples2();
+        
+        helpCreateJoin();
+        List<List<?>> expectedRows = helpCollectJoin(4, 100000);
+        
+        helpCreateJoin();
+        HashJoinStrategy hjs = new HashJoinStrategy();
+        this.joinStrategy = hjs;
+        this.join.setJoinStrategy(joinStrategy);
+        List<List<?>> actual = helpCollectJoin(4, 1);
+        assertTrue(hjs.isPartitioned());
+        assertEquals(countRows(expectedRows), countRows(actual));
+    }
+    
+    /**
+     * Partitions that still cannot be reserved are split again
+     */
+    @Test public void testHashJoinRecursivePartitioning() throws Exception {
+        int rows = 20000;
+        List[] data = new List[rows];
+        for(int i=0; i<rows; i++) { 
+            data[i] = new ArrayList();
+            data[i].add((i*17) % 9973);
+        }
+        this.leftTuples = data;
+        this.rightTuples = data;
+        
+        helpCreateJoin();
+        List<List<?>> expectedRows = helpCollectJoin(4, 1000000);
+        
+        helpCreateJoin();
+        HashJoinStrategy hjs = new HashJoinStrategy();
+        this.joinStrategy = hjs;
+        this.join.setJoinStrategy(joinStrategy);
+        List<List<?>> actual = helpCollectJoin(4, 1);
+        assertTrue(hjs.isPartitioned());
+        assertTrue(hjs.getMaxLevel() > 0);
+        assertEquals(countRows(expectedRows), countRows(actual));
+    }
+
+	private Map<List<?>, Integer> countRows(List<List<?>> rows) {
+		Map<List<?>, Integer> counts = new HashMap<List<?>, Integer>();
+		for (List<?> row : rows) {
+			Integer count = counts.get(row);
+			counts.put(row, count == null ? 1 : count + 1);
+		}
+		return counts;
+	}
+    
+    private List<List<?>> helpCollectJoin(int batchSize, int processingBytes) throws TeiidComponentException, TeiidProcessingException {
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, batchSize);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        join.addChild(leftNode);
+        join.addChild(rightNode);
+        
+        leftNode.initialize(context, mgr, dataMgr);
+        rightNode.initialize(context, mgr, dataMgr);
+        join.initialize(context, mgr, dataMgr);
+        join.open();
+        List<List<?>> result = new ArrayList<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = join.nextBatch();
+                result.addAll(batch.getTuples());
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch(BlockedException e) {
+                // ignore and retry
+            }
+        }
+        join.close();
+        return result;
+    }
+    
 }
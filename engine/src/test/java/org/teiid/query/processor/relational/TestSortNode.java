@@ -25,11 +25,17 @@ package org.teiid.query.processor.relational;
 import static org.junit.Assert.*;
 import static org.teiid.query.optimizer.TestOptimizer.*;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -44,6 +50,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.ExecutorUtils;
 import org.teiid.language.SortSpecification.NullOrdering;
 import org.teiid.query.optimizer.TestOptimizer.ComparisonMode;
 import org.teiid.query.optimizer.TestOptimizer.DupRemoveSortNode;
@@ -64,10 +71,18 @@ public class TestSortNode {
     
     public static final int BATCH_SIZE = 100;
     
+    private int processingBytes = 10000;
+    private int sortParallelism;
+    private Executor executor;
+    
     private void helpTestSort(List elements, List[] data, List sortElements, List sortTypes, List[] expected, Mode mode) throws TeiidComponentException, TeiidProcessingException {
-        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(10000, BATCH_SIZE);
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, BATCH_SIZE);
         long reserve = mgr.getReserveBatchBytes();
         CommandContext context = new CommandContext ("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setSortParallelism(sortParallelism);
+        if (executor != null) {
+        	context.setExecutor(executor);
+        }
         
         BlockingFakeRelationalNode dataNode = new BlockingFakeRelationalNode(2, data);
         dataNode.setReturnPeriod(3);
@@ -310,6 +325,138 @@ public class TestSortNode {
         helpTestAllSorts(1);
     }       
     
+    @Test public void testParallelSort() throws Exception {
+    	ExecutorService service = Executors.newFixedThreadPool(2);
+    	try {
+	    	executor = service;
+	    	sortParallelism = 4;
+	    	processingBytes = 1 << 20;
+	        helpTestAllSorts(100);
+	        helpTestAllSorts(3);
+	        processingBytes = 10000;
+	        helpTestAllSorts(100);
+    	} finally {
+    		service.shutdownNow();
+    	}
+    }
+    
+    @Test public void testParallelSortStable() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1, es2), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        int rows = 10000;
+        for (int i = 0; i < rows; i++) {
+        	tsid.addTuple(Arrays.asList((i*51) % 11, i));
+        }
+        tsid.close();
+    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setStableSort(true);
+    	su.setBatchSize(100);
+    	CommandContext context = new CommandContext();
+    	context.setExecutor(ExecutorUtils.getDirectExecutor());
+    	context.setSortParallelism(4);
+    	su.setParallelism(context);
+    	TupleBuffer out = su.sort();
+    	assertEquals(rows, out.getRowCount());
+    	TupleSource ts = out.createIndexedTupleSource();
+    	List<?> last = ts.nextTuple();
+    	for (int i = 1; i < rows; i++) {
+    		List<?> tuple = ts.nextTuple();
+    		int compare = ((Integer)last.get(0)).compareTo((Integer)tuple.get(0));
+    		assertTrue(compare < 0 || (compare == 0 && (Integer)last.get(1) < (Integer)tuple.get(1)));
+    		last = tuple;
+    	}
+    	assertFalse(su.isDistinct());
+    }
+    
+    /**
+     * A value that holds up the first comparison made off of the processing thread
+     */
+    static class GatedValue implements Comparable<GatedValue>, Serializable {
+		private static final long serialVersionUID = 1L;
+		static Thread processingThread;
+    	static CountDownLatch started;
+    	static CountDownLatch release;
+    	
+    	int value;
+    	
+    	GatedValue(int value) {
+    		this.value = value;
+		}
+    	
+    	@Override
+    	public int compareTo(GatedValue o) {
+    		if (Thread.currentThread() != processingThread && started.getCount() > 0) {
+    			started.countDown();
+    			try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+    		}
+    		return value - o.value;
+    	}
+    }
+    
+    @Test public void testParallelSortYields() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.OBJECT);
+        BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        int rows = 1000;
+        for (int i = 0; i < rows; i++) {
+        	tsid.addTuple(Arrays.asList(new GatedValue((i*51) % 997)));
+        }
+        tsid.close();
+        GatedValue.processingThread = Thread.currentThread();
+        GatedValue.started = new CountDownLatch(1);
+        GatedValue.release = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+        Executor executor = new Executor() {
+        	@Override
+        	public void execute(Runnable command) {
+        		if (!threads.isEmpty()) {
+        			throw new RejectedExecutionException();
+        		}
+        		Thread t = new Thread(command);
+        		threads.add(t);
+        		t.start();
+        		try {
+        			//ensure that the other thread has claimed a slice
+					GatedValue.started.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+        	}
+        };
+    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setBatchSize(100);
+    	CommandContext context = new CommandContext();
+    	context.setExecutor(executor);
+    	context.setSortParallelism(4);
+    	su.setParallelism(context);
+    	try {
+    		su.sort();
+    		fail();
+    	} catch (BlockedException e) {
+    		//the processing thread should not wait on the slice being sorted by the other thread
+    	}
+    	GatedValue.release.countDown();
+    	threads.get(0).join();
+    	TupleBuffer out = su.sort();
+    	assertEquals(rows, out.getRowCount());
+    	TupleSource ts = out.createIndexedTupleSource();
+    	GatedValue last = (GatedValue)ts.nextTuple().get(0);
+    	for (int i = 1; i < rows; i++) {
+    		GatedValue value = (GatedValue)ts.nextTuple().get(0);
+    		assertTrue(last.value <= value.value);
+    		last = value;
+    	}
+    }
+    
     @Test public void testDupRemove() throws Exception {
     	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
         es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
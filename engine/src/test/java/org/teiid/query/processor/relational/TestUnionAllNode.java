@@ -44,10 +44,13 @@ import org.teiid.query.util.CommandContext;
 /**
  */
 public class TestUnionAllNode {
+	
+	private int unionParallelism;
 
     public void helpTestUnion(RelationalNode[] children, RelationalNode union, List[] expected) throws TeiidComponentException, TeiidProcessingException {
         BufferManager mgr = BufferManagerFactory.getTestBufferManager(1, 2);
         CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setUnionParallelism(unionParallelism);
         FakeDataManager fdm = new FakeDataManager();
         for(int i=0; i<children.length; i++) {
             union.addChild(children[i]);
@@ -225,4 +228,38 @@ public class TestUnionAllNode {
         helpTestUnionConfigs(3, 1, 6, 1, expected);       
     }    
 
+    @Test public void testParallel() throws TeiidComponentException, TeiidProcessingException {
+        //all sources are open and polled in turn
+        List expected[] = new List[] {
+            Arrays.asList(new Object[] { new Integer(0) }),    
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(0) }),    
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(0) }),    
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+        };
+        unionParallelism = 2;
+        helpTestUnionConfigs(3, -1, 3, 1, expected);
+    }
+    
+    @Test public void testParallelBlocking() throws TeiidComponentException, TeiidProcessingException {
+        //batches are returned in arrival order
+        List expected[] = new List[] {
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(0) }),    
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(0) }),    
+            Arrays.asList(new Object[] { new Integer(1) }),    
+            Arrays.asList(new Object[] { new Integer(2) }),    
+            Arrays.asList(new Object[] { new Integer(0) }),    
+        };
+        unionParallelism = 3;
+        helpTestUnionConfigs(3, 2, 3, 1, expected);
+    }
+
 }
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+@SuppressWarnings("nls")
+public class TestValueIndexes {
+	
+	private ElementSymbol x = new ElementSymbol("x");
+	private ElementSymbol s = new ElementSymbol("s");
+	private ElementSymbol c = new ElementSymbol("c");
+	
+	private ValueIndexes createIndexes() {
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		s.setType(DataTypeManager.DefaultDataClasses.STRING);
+		c.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		Map<Expression, Integer> columnMap = new HashMap<Expression, Integer>();
+		columnMap.put(x, 0);
+		columnMap.put(s, 1);
+		columnMap.put(c, 2);
+		ValueIndexes indexes = new ValueIndexes(Arrays.asList(x, s, c), columnMap, 1);
+		indexes.addIndex(1, ValueIndexes.Type.HASH);
+		indexes.addIndex(2, ValueIndexes.Type.BITMAP);
+		for (int i = 0; i < 10; i++) {
+			indexes.insert(Arrays.asList(i, "v" + i, i % 3));
+		}
+		return indexes;
+	}
+	
+	private int count(ValueIndexes indexes, ElementSymbol column, Object value) {
+		BitSet matches = indexes.getMatches(new CompareCriteria(column, CompareCriteria.EQ, new Constant(value)));
+		return matches.cardinality();
+	}
+	
+	@Test public void testShareCopiesOnlyModifiedIndexes() {
+		ValueIndexes indexes = createIndexes();
+		ValueIndexes copy = indexes.share();
+		
+		List<?> old = Arrays.asList(1, "v1", 1);
+		copy.update(old, Arrays.asList(1, "v1", 0));
+		
+		//the unchanged column is still shared
+		assertEquals(0, copy.getIndexes().get(1).values.getOwnedSegmentCount());
+		assertEquals(1, copy.getIndexes().get(2).values.getOwnedSegmentCount());
+		assertEquals(0, copy.getOrdinals().getOwnedSegmentCount());
+		assertEquals(5, count(copy, c, 0));
+		assertEquals(2, count(copy, c, 1));
+		assertEquals(4, count(indexes, c, 0));
+		assertEquals(3, count(indexes, c, 1));
+		
+		//the original may then be modified independently
+		indexes.remove(old);
+		assertEquals(0, count(indexes, s, "v1"));
+		assertEquals(1, count(copy, s, "v1"));
+		copy.insert(Arrays.asList(10, "v10", 1));
+		assertEquals(0, count(indexes, s, "v10"));
+		assertEquals(1, count(copy, s, "v10"));
+	}
+	
+	/**
+	 * A write after a share should copy only the segments that it touches
+	 */
+	@Test public void testShareCopiesOnlyModifiedSegments() {
+		ValueIndexes indexes = createIndexes();
+		for (int i = 10; i < 100000; i++) {
+			indexes.insert(Arrays.asList(i, "v" + i, i % 3));
+		}
+		ValueIndexes copy = indexes.share();
+		ValueIndexes.SegmentedMap<List<?>, Integer> ordinals = copy.getOrdinals();
+		assertTrue(ordinals.size() > ValueIndexes.SegmentedMap.SEGMENT_SIZE * 64);
+		
+		copy.remove(Arrays.asList(5, "v5", 2));
+		copy.insert(Arrays.asList(100000, "v100000", 1));
+		assertTrue(ordinals.getOwnedSegmentCount() <= 2);
+		assertTrue(copy.getIndexes().get(1).values.getOwnedSegmentCount() <= 2);
+		
+		//the freed ordinal is reused
+		assertEquals(1, count(copy, s, "v100000"));
+		assertEquals(indexes.getSizeEstimate(), copy.getSizeEstimate());
+		assertEquals(1, count(copy, c, 1) - count(indexes, c, 1));
+		assertEquals(-1, count(copy, c, 2) - count(indexes, c, 2));
+		assertEquals(1, count(indexes, s, "v5"));
+		assertEquals(0, count(indexes, s, "v100000"));
+		assertEquals(0, count(copy, s, "v5"));
+	}
+	
+	/**
+	 * The indexes are dropped rather than exceeding the buffer limits
+	 */
+	@Test public void testDroppedWithoutMemory() throws Exception {
+		createIndexes();
+		List<List<?>> rows = new ArrayList<List<?>>();
+		for (int i = 0; i < 10000; i++) {
+			rows.add(Arrays.asList(i, "v" + i, i % 3));
+		}
+		BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(1 << 22, 16);
+		TempTable table = new TempTable(new TempMetadataID("t", Collections.<TempMetadataID>emptyList()), bm, Arrays.asList(x, s, c), 1, "1");
+		table.insert(new CollectionTupleSource(rows.iterator()), Arrays.asList(x, s, c), false, null);
+		long reserve = bm.getReserveBatchBytes();
+		assertTrue(table.addValueIndex(c, ValueIndexes.Type.BITMAP));
+		assertTrue(bm.getReserveBatchBytes() < reserve);
+		
+		//growing the table past the remaining reserve drops the indexes
+		rows.clear();
+		for (int i = 10000; i < 40000; i++) {
+			rows.add(Arrays.asList(i, "v" + i, i % 3));
+		}
+		table.insert(new CollectionTupleSource(rows.iterator()), Arrays.asList(x, s, c), false, null);
+		assertEquals(reserve, bm.getReserveBatchBytes());
+		assertEquals(40000, table.getRowCount());
+	}
+	
+	@Test public void testSizeEstimate() {
+		ValueIndexes indexes = createIndexes();
+		long size = indexes.getSizeEstimate();
+		assertTrue(size > 0);
+		indexes.insert(Arrays.asList(10, "v10", 1));
+		assertTrue(indexes.getSizeEstimate() > size);
+		assertEquals(0, indexes.copyDefinitions().getSizeEstimate());
+	}
+
+}
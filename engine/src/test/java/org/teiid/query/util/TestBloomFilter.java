@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TestBloomFilter {
+
+	@Test public void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(10000, .01);
+		for (int i = 0; i < 10000; i++) {
+			filter.put(i);
+			filter.put("a" + i);
+		}
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(filter.mightContain(i));
+			assertTrue(filter.mightContain("a" + i));
+		}
+	}
+	
+	@Test public void testFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter(10000, .01);
+		for (int i = 0; i < 10000; i++) {
+			filter.put(i);
+		}
+		int falsePositives = 0;
+		for (int i = 10000; i < 110000; i++) {
+			if (filter.mightContain(i)) {
+				falsePositives++;
+			}
+		}
+		//allow for some variance from the expected 1%
+		assertTrue(String.valueOf(falsePositives), falsePositives < 2000);
+	}
+	
+	@Test public void testNulls() {
+		BloomFilter filter = new BloomFilter(0, .01);
+		filter.put(null);
+		assertFalse(filter.mightContain(null));
+		assertFalse(filter.mightContain(1));
+		assertEquals(64, filter.getBitSize());
+	}
+	
+	@Test(expected=IllegalArgumentException.class) public void testInvalidFpp() {
+		new BloomFilter(10, 1);
+	}
+	
+}
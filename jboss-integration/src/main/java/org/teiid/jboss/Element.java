@@ -65,6 +65,7 @@ enum Element {
 	MAX_OPEN_FILES_ATTRIBUTE("max-open-files", "buffer-service-max-open-files"),
 	MEMORY_BUFFER_SPACE_ATTRIBUTE("memory-buffer-space", "buffer-service-memory-buffer-space"),
 	MEMORY_BUFFER_OFFHEAP_ATTRIBUTE("memory-buffer-off-heap", "buffer-service-memory-buffer-off-heap"),
+	OFFHEAP_STORAGE_SPACE_ATTRIBUTE("off-heap-storage-space", "buffer-service-off-heap-storage-space"),
 	MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE("max-storage-object-size", "buffer-service-max-storage-object-size"),
 	INLINE_LOBS("inline-lobs", "buffer-service-inline-lobs"),
 	ENCRYPT_FILES_ATTRIBUTE("encrypt-files", "buffer-service-encrypt-files"),
@@ -94,6 +95,7 @@ enum Element {
 	TRANSPORT_MAX_SOCKET_THREADS_ATTRIBUTE("max-socket-threads", "max-socket-threads"),
 	TRANSPORT_IN_BUFFER_SIZE_ATTRIBUTE("input-buffer-size", "input-buffer-size"),
 	TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE("output-buffer-size", "output-buffer-size"),
+	TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE("message-compression", "message-compression"),
 	
 	AUTHENTICATION_ELEMENT("authentication"),
 	AUTHENTICATION_SECURITY_DOMAIN_ATTRIBUTE("security-domain", "authentication-security-domain"),	
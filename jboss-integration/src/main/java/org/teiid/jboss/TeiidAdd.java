@@ -138,6 +138,7 @@ class TeiidAdd extends AbstractAddStepHandler {
 		TeiidConstants.MAX_OPEN_FILES_ATTRIBUTE,
 		TeiidConstants.MEMORY_BUFFER_SPACE_ATTRIBUTE,
 		TeiidConstants.MEMORY_BUFFER_OFFHEAP_ATTRIBUTE,
+		TeiidConstants.OFFHEAP_STORAGE_SPACE_ATTRIBUTE,
 		TeiidConstants.MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE,
 		TeiidConstants.ENCRYPT_FILES_ATTRIBUTE,
 		
@@ -500,6 +501,9 @@ class TeiidAdd extends AbstractAddStepHandler {
     	if (MEMORY_BUFFER_OFFHEAP_ATTRIBUTE.isDefined(node, context)) {
     		bufferManger.setMemoryBufferOffHeap(MEMORY_BUFFER_OFFHEAP_ATTRIBUTE.asBoolean(node, context));
     	} 
+    	if (OFFHEAP_STORAGE_SPACE_ATTRIBUTE.isDefined(node, context)) {
+    		bufferManger.setOffHeapStorageSpace(OFFHEAP_STORAGE_SPACE_ATTRIBUTE.asLong(node, context));
+    	}
     	if (MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE.isDefined(node, context)) {
     		bufferManger.setMaxStorageObjectSize(MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE.asInt(node, context));
     	}
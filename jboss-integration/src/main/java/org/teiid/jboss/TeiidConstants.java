@@ -69,6 +69,7 @@ public class TeiidConstants {
 	public static TeiidAttribute MAX_OPEN_FILES_ATTRIBUTE = new TeiidAttribute(Element.MAX_OPEN_FILES_ATTRIBUTE, new ModelNode(64), ModelType.INT, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute MEMORY_BUFFER_SPACE_ATTRIBUTE = new TeiidAttribute(Element.MEMORY_BUFFER_SPACE_ATTRIBUTE, new ModelNode(-1), ModelType.INT, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute MEMORY_BUFFER_OFFHEAP_ATTRIBUTE = new TeiidAttribute(Element.MEMORY_BUFFER_OFFHEAP_ATTRIBUTE, new ModelNode(false), ModelType.BOOLEAN, true, false, MeasurementUnit.NONE);
+	public static TeiidAttribute OFFHEAP_STORAGE_SPACE_ATTRIBUTE = new TeiidAttribute(Element.OFFHEAP_STORAGE_SPACE_ATTRIBUTE, new ModelNode(0), ModelType.LONG, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE = new TeiidAttribute(Element.MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE, new ModelNode(8388608), ModelType.INT, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute INLINE_LOBS = new TeiidAttribute(Element.INLINE_LOBS, new ModelNode(true), ModelType.BOOLEAN, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute ENCRYPT_FILES_ATTRIBUTE = new TeiidAttribute(Element.ENCRYPT_FILES_ATTRIBUTE, new ModelNode(false), ModelType.BOOLEAN, true, false, MeasurementUnit.NONE);
@@ -98,6 +99,7 @@ public class TeiidConstants {
 	public static TeiidAttribute TRANSPORT_MAX_SOCKET_THREADS_ATTRIBUTE = new TeiidAttribute(Element.TRANSPORT_MAX_SOCKET_THREADS_ATTRIBUTE, new ModelNode(0), ModelType.INT, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute TRANSPORT_IN_BUFFER_SIZE_ATTRIBUTE = new TeiidAttribute(Element.TRANSPORT_IN_BUFFER_SIZE_ATTRIBUTE, new ModelNode(0), ModelType.INT, true, false, MeasurementUnit.NONE);
 	public static TeiidAttribute TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE = new TeiidAttribute(Element.TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE, new ModelNode(0), ModelType.INT, true, false, MeasurementUnit.NONE);
+	public static TeiidAttribute TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE = new TeiidAttribute(Element.TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE, new ModelNode(false), ModelType.BOOLEAN, true, false, MeasurementUnit.NONE);
 	
 	//AUTHENTICATION_ELEMENT("authentication",false, false, MeasurementUnit.NONE);
 	public static TeiidAttribute AUTHENTICATION_SECURITY_DOMAIN_ATTRIBUTE = new TeiidAttribute(Element.AUTHENTICATION_SECURITY_DOMAIN_ATTRIBUTE, null, ModelType.STRING, true, false, MeasurementUnit.NONE);	
@@ -1650,10 +1650,17 @@ class EngineStatistics extends TeiidOperationHandler {
 			stats.setDiskReadCount(bufferMgrSvc.getDiskReadCount());
 			stats.setCacheReadCount(bufferMgrSvc.getCacheReadCount());
 			stats.setCacheWriteCount(bufferMgrSvc.getCacheWriteCount());
+			stats.setMemoryBufferHitCount(bufferMgrSvc.getMemoryBufferHitCount());
+			stats.setAdmissionRejectionCount(bufferMgrSvc.getAdmissionRejectionCount());
+			stats.setOffHeapStorageUsedInKB(bufferMgrSvc.getOffHeapStorageUsedKB());
 			stats.setDiskSpaceUsedInMB(bufferMgrSvc.getUsedDiskBufferSpaceMB());
 			stats.setActivePlanCount(engine.getActivePlanCount());
 			stats.setWaitPlanCount(engine.getWaitingPlanCount());
 			stats.setMaxWaitPlanWaterMark(engine.getMaxWaitingPlanWatermark());
+			TempTableDataManager dataTierMgr = engine.getDataTierManager();
+			stats.setMatViewLoadCount(dataTierMgr.getMatViewLoadCount());
+			stats.setMatViewIncrementalRefreshCount(dataTierMgr.getMatViewIncrementalRefreshCount());
+			stats.setMatViewIncrementalRefreshRowCount(dataTierMgr.getMatViewIncrementalRefreshRowCount());
 			VDBMetadataMapper.EngineStatisticsMetadataMapper.INSTANCE.wrap(stats, context.getResult());
 		} catch (AdminException e) {
 			throw new OperationFailedException(new ModelNode().set(e.getMessage()));
@@ -139,6 +139,7 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
     	TRANSPORT_MAX_SOCKET_THREADS_ATTRIBUTE.marshallAsAttribute(node, false, writer);
     	TRANSPORT_IN_BUFFER_SIZE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
     	TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+    	TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE.marshallAsAttribute(node, false, writer);
     	
     	// authentication
     	if (like(node, Element.AUTHENTICATION_ELEMENT)) {
@@ -196,6 +197,7 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
 		MAX_OPEN_FILES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		MEMORY_BUFFER_SPACE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		MEMORY_BUFFER_OFFHEAP_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		OFFHEAP_STORAGE_SPACE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		ENCRYPT_FILES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 	}
@@ -392,6 +394,9 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
     			case TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE:
     				node.get(element.getModelName()).set(Integer.parseInt(attrValue));
     				break;
+    			case TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
                 default: 
                     throw ParseUtils.unexpectedAttribute(reader, i);    				
     			}
@@ -616,6 +621,9 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
     			case MEMORY_BUFFER_OFFHEAP_ATTRIBUTE:
     				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
     				break;
+    			case OFFHEAP_STORAGE_SPACE_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Long.parseLong(attrValue));
+    				break;
     			case MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE:
     				node.get(element.getModelName()).set(Integer.parseInt(attrValue));
     				break;
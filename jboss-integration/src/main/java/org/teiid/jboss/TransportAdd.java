@@ -66,6 +66,7 @@ class TransportAdd extends AbstractAddStepHandler {
 		TeiidConstants.TRANSPORT_MAX_SOCKET_THREADS_ATTRIBUTE,
 		TeiidConstants.TRANSPORT_IN_BUFFER_SIZE_ATTRIBUTE,
 		TeiidConstants.TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE,
+		TeiidConstants.TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE,
 		
 		TeiidConstants.AUTHENTICATION_SECURITY_DOMAIN_ATTRIBUTE,
 		TeiidConstants.AUTHENTICATION_MAX_SESSIONS_ALLOWED_ATTRIBUTE,
@@ -219,6 +220,10 @@ class TransportAdd extends AbstractAddStepHandler {
     	
     	if (TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE.isDefined(node, context)) {
     		socket.setOutputBufferSize(TRANSPORT_OUT_BUFFER_SIZE_ATTRIBUTE.asInt(node, context));
+    	}
+    	
+    	if (TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE.isDefined(node, context)) {
+    		socket.setMessageCompression(TRANSPORT_MESSAGE_COMPRESSION_ATTRIBUTE.asBoolean(node, context));
     	}		   
     	
     	SSLConfiguration ssl = new SSLConfiguration();
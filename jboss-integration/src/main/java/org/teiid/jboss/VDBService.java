@@ -153,7 +153,7 @@ class VDBService extends AbstractVDBDeployer implements Service<RuntimeVDB> {
 				VDBMetaData vdbInstance = cvdb.getVDB();
 				if (vdbInstance.getStatus().equals(Status.ACTIVE)) {
 					// add object replication to temp/matview tables
-					GlobalTableStore gts = CompositeGlobalTableStore.createInstance(cvdb, getBuffermanager(), objectReplicatorInjector.getValue());
+					GlobalTableStore gts = CompositeGlobalTableStore.createInstance(cvdb, getBuffermanager(), objectReplicatorInjector.getValue(), getVDBRepository());
 
 					vdbInstance.addAttchment(GlobalTableStore.class, gts);
 					vdbService.install();
@@ -48,10 +48,18 @@ import org.teiid.runtime.RuntimePlugin;
 
 public class CompositeGlobalTableStore implements GlobalTableStore {
 
-	public static GlobalTableStore createInstance(CompositeVDB vdb, BufferManager bufferManager, ObjectReplicator replicator) {
-		VDBMetaData vdbMetadata = vdb.getVDB();
+	public static GlobalTableStore createInstance(CompositeVDB vdb, BufferManager bufferManager, ObjectReplicator replicator, final VDBRepository vdbRepository) {
+		final VDBMetaData vdbMetadata = vdb.getVDB();
 		QueryMetadataInterface metadata = vdbMetadata.getAttachment(TransformationMetadata.class);
-		GlobalTableStore gts = new GlobalTableStoreImpl(bufferManager, vdbMetadata, metadata);
+		GlobalTableStoreImpl impl = new GlobalTableStoreImpl(bufferManager, vdbMetadata, metadata) {
+			@Override
+			protected boolean isDeployed(int vdbVersion) {
+				return vdbRepository.getVDB(vdbMetadata.getName(), vdbVersion) != null;
+			}
+		};
+		//restore local snapshots in the background, queries against the restoring views will wait for the restore
+		impl.restoreSnapshotsAsynch();
+		GlobalTableStore gts = impl;
 		if (replicator != null) {
 			try {
 				gts = replicator.replicate(vdbMetadata.getFullName(), GlobalTableStore.class, gts, 300000);
@@ -134,6 +142,13 @@ public class CompositeGlobalTableStore implements GlobalTableStore {
 			boolean delete) throws TeiidComponentException {
 		return getStoreForTable(matTableName).updateMatViewRow(matTableName, tuple, delete);
 	}
+	
+	@Override
+	public int updateMatViewRows(String matTableName,
+			List<? extends List<?>> tuples, List<? extends List<?>> deletes)
+			throws TeiidComponentException {
+		return getStoreForTable(matTableName).updateMatViewRows(matTableName, tuples, deletes);
+	}
 
 	@Override
 	public TempTable createMatTable(String matTableName, GroupSymbol group)
@@ -67,11 +67,11 @@ public interface ODBCClientRemote {
 
 	//	RowDescription (B)
 	//	NoData (B)
-	void sendResultSetDescription(List<PgColInfo> cols);
+	void sendResultSetDescription(List<PgColInfo> cols, int[] resultColumnFormat);
 	
 	//	DataRow (B)
 	//	CommandComplete (B)
-	void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, int rowCount, boolean describeRows);
+	void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, int rowCount, boolean describeRows, int[] resultColumnFormat);
 	
 	void sendCommandComplete(String sql, Integer count);	
 
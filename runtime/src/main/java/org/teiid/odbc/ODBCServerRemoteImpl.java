@@ -331,7 +331,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		if (rows < 1) {
 			throw new SQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40112, cursorName, rows));
 		}
-		this.client.sendResults("FETCH", cursor.rs, cursor.prepared.columnMetadata, completion, rows, true); //$NON-NLS-1$
+		this.client.sendResults("FETCH", cursor.rs, cursor.prepared.columnMetadata, completion, rows, true, null); //$NON-NLS-1$
 	}
 	
 	private void cursorMove(String prepareName, final int rows, final ResultsFuture<Integer> completion) throws SQLException {
@@ -415,7 +415,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
     			try {
 	                if (future.get()) {
                 		List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
-                        client.sendResults(sql, stmt.getResultSet(), cols, completion, -1, true);
+                        client.sendResults(sql, stmt.getResultSet(), cols, completion, -1, true, null);
 	                } else {
 	                	client.sendUpdateCount(sql, stmt.getUpdateCount());
 	                	setEncoding();
@@ -591,7 +591,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 
 	private void sendCursorResults(final Portal cursor, final int fetchSize) {
 		ResultsFuture<Integer> result = new ResultsFuture<Integer>();
-		this.client.sendResults(null, cursor.rs, cursor.prepared.columnMetadata, result, fetchSize, false);
+		this.client.sendResults(null, cursor.rs, cursor.prepared.columnMetadata, result, fetchSize, false, cursor.resultColumnFormat);
 		result.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
 			public void onCompletion(ResultsFuture<Integer> future) {
 				try {
@@ -759,7 +759,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 		
 		// followed by a RowDescription message describing the rows that will be returned when the statement  
 		// is eventually executed (or a NoData message if the statement will not return rows).
-		this.client.sendResultSetDescription(query.columnMetadata);
+		this.client.sendResultSetDescription(query.columnMetadata, null);
 	}
 	
 	private void errorOccurred(String error) {
@@ -788,7 +788,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 			errorOccurred(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40078, bindName));
 		}
 		else {
-			this.client.sendResultSetDescription(query.prepared.columnMetadata);
+			this.client.sendResultSetDescription(query.prepared.columnMetadata, query.resultColumnFormat);
 		}
 	}
 
@@ -32,6 +32,7 @@ import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.common.buffer.impl.EncryptedStorageManager;
+import org.teiid.common.buffer.impl.OffHeapStorageManager;
 import org.teiid.common.buffer.impl.FileStorageManager;
 import org.teiid.common.buffer.impl.MemoryStorageManager;
 import org.teiid.common.buffer.impl.SplittableStorageManager;
@@ -69,7 +70,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
     private long memoryBufferSpace = -1;
     private int maxStorageObjectSize = BufferFrontedFileStoreCache.DEFAuLT_MAX_OBJECT_SIZE;
     private boolean memoryBufferOffHeap;
+    private long offHeapStorageSpace;
 	private FileStorageManager fsm;
+	private OffHeapStorageManager ohsm;
 	private BufferFrontedFileStoreCache fsc;
 	private int workingMaxReserveKb;
 	
@@ -112,6 +115,11 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 if (encryptFiles) {
                 	sm = new EncryptedStorageManager(ssm);
                 }
+                if (offHeapStorageSpace > 0) {
+                	ohsm = new OffHeapStorageManager(sm);
+                	ohsm.setMaxSpace(offHeapStorageSpace*MB);
+                	sm = ohsm;
+                }
                 fsc = new BufferFrontedFileStoreCache();
                 fsc.setBufferManager(this.bufferMgr);
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
@@ -150,6 +158,10 @@ public class BufferServiceImpl implements BufferService, Serializable {
     		bufferMgr.shutdown();
     		bufferMgr = null;
     	}
+    	if (ohsm != null) {
+    		ohsm.shutdown();
+    		ohsm = null;
+    	}
 
         // Delete the buffer directory
         if (bufferDir != null) {
@@ -242,6 +254,14 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public void setMemoryBufferSpace(int memoryBufferSpace) {
 		this.memoryBufferSpace = memoryBufferSpace;
 	}
+    
+    public void setOffHeapStorageSpace(long offHeapStorageSpace) {
+		this.offHeapStorageSpace = offHeapStorageSpace;
+	}
+    
+    public long getOffHeapStorageSpace() {
+		return offHeapStorageSpace;
+	}
 
     public void setMaxStorageObjectSize(int maxStorageObjectSize) {
 		this.maxStorageObjectSize = maxStorageObjectSize;
@@ -283,6 +303,13 @@ public class BufferServiceImpl implements BufferService, Serializable {
     	return 0;
     }
     
+    public long getOffHeapStorageUsedKB() {
+    	if (ohsm != null) {
+    		return ohsm.getUsedSpace() >> 10;
+    	}
+    	return 0;
+    }
+    
     public long getCacheReadCount() {
     	return bufferMgr.getReadCount();
     }
@@ -294,6 +321,21 @@ public class BufferServiceImpl implements BufferService, Serializable {
 	public long getReadAttempts() {
 		return bufferMgr.getReadAttempts();
 	}
+	
+	public long getMemoryBufferHitCount() {
+		if (fsc != null) {
+			return fsc.getMemoryBufferHits();
+		}
+		return 0;
+	}
+	
+	public long getAdmissionRejectionCount() {
+		long result = bufferMgr.getAdmissionRejections();
+		if (fsc != null) {
+			result += fsc.getAdmissionRejections();
+		}
+		return result;
+	}
 
     public int getMemoryBufferSpace() {
 		return (int)memoryBufferSpace;
@@ -23,6 +23,7 @@
 package org.teiid.transport;
 
 import java.io.BufferedOutputStream;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.StreamCorruptedException;
@@ -35,14 +36,15 @@ import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
 import org.jboss.netty.handler.codec.serialization.CompatibleObjectDecoder;
 import org.jboss.netty.handler.codec.serialization.CompatibleObjectEncoder;
-import org.jboss.netty.handler.codec.serialization.ObjectEncoder;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.FileStoreInputStreamFactory;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.types.InputStreamFactory.StreamFactoryReference;
 import org.teiid.core.types.Streamable;
 import org.teiid.core.util.ExternalizeUtil;
+import org.teiid.net.socket.Handshake;
 import org.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
+import org.teiid.netty.handler.codec.serialization.CompressionUtil;
 import org.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
 
 
@@ -76,6 +78,7 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
 	public static final long MAX_LOB_SIZE = 1l << 32;
 
     private final ClassLoader classLoader;
+    private final int maxObjectSize;
     
     private Object result;
     private int streamIndex;
@@ -84,6 +87,7 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
     private StorageManager storageManager;
     private FileStore store;
     private StreamCorruptedException error;
+    private boolean compress;
 
     /**
      * Creates a new decoder with the specified maximum object size.
@@ -98,6 +102,7 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
     public ObjectDecoder(int maxObjectSize, ClassLoader classLoader, StorageManager storageManager) {
     	super(maxObjectSize, 0, 4, 0, 4);
         this.classLoader = classLoader;
+        this.maxObjectSize = maxObjectSize;
         this.storageManager = storageManager;
     }
 
@@ -108,12 +113,31 @@ public class ObjectDecoder extends LengthFieldBasedFrameDecoder {
     		ChannelBuffer frame = (ChannelBuffer) super.decode(ctx, channel, buffer);
             if (frame == null) {
                 return null;
+            }
+            byte flag = compress?frame.readByte():CompressionUtil.UNCOMPRESSED;
+            InputStream payload = new ChannelBufferInputStream(frame);
+            if (compress) {
+            	if (flag == CompressionUtil.DEFLATED) {
+            		payload = CompressionUtil.inflate(payload, maxObjectSize);
+            	} else if (flag != CompressionUtil.UNCOMPRESSED) {
+            		throw new StreamCorruptedException("invalid compression flag: " + flag); //$NON-NLS-1$
+            	}
             }
 	        CompactObjectInputStream cois = new CompactObjectInputStream(
-	                new ChannelBufferInputStream(frame), classLoader);
+	                payload, classLoader);
 	        result = cois.readObject();
 	        streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
 	        streamIndex = 0;
+	        if (compress) {
+	        	payload.close(); //releases the inflater
+	        } else if (result instanceof Handshake && ((Handshake)result).isCompress()) {
+	        	//the client accepted compression, all subsequent messages in both directions use it
+	        	compress = true;
+	        	ObjectEncoder encoder = ctx.getPipeline().get(ObjectEncoder.class);
+	        	if (encoder != null) {
+	        		encoder.setCompress(true);
+	        	}
+	        }
     	}
     	while (streamIndex < streams.size()) {
 	    	if (buffer.readableBytes() < 2) {
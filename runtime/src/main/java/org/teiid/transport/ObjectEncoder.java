@@ -26,11 +26,15 @@ import static org.jboss.netty.buffer.ChannelBuffers.*;
 import static org.jboss.netty.channel.Channels.*;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.jboss.netty.channel.ChannelDownstreamHandler;
 import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelHandlerContext;
@@ -40,7 +44,9 @@ import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.stream.ChunkedInput;
 import org.jboss.netty.handler.stream.ChunkedStream;
 import org.teiid.core.util.ExternalizeUtil;
+import org.teiid.core.util.MultiArrayOutputStream;
 import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
+import org.teiid.netty.handler.codec.serialization.CompressionUtil;
 import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
 
 
@@ -51,6 +57,11 @@ import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
  * compatible with the standard {@link ObjectInputStream}.  Please use
  * {@link ObjectDecoder} or {@link ObjectDecoderInputStream} to ensure the
  * interoperability with this encoder.
+ * <p>
+ * Messages are serialized into the segments of a {@link MultiArrayOutputStream}, which are 
+ * wrapped rather than copied into the outgoing buffer.  This only avoids the copies made while 
+ * encoding - result batches are still serialized from their row form rather than written 
+ * from the bytes held by the buffer manager.
  *
  * @author The Netty Project (netty-dev@lists.jboss.org)
  * @author Trustin Lee (tlee@redhat.com)
@@ -60,7 +71,7 @@ import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
  * @apiviz.landmark
  * @apiviz.has org.jboss.netty.handler.codec.serialization.ObjectEncoderOutputStream - - - compatible with
  */
-@ChannelPipelineCoverage("all")
+@ChannelPipelineCoverage("one")
 public class ObjectEncoder implements ChannelDownstreamHandler {
 	
 	public static class FailedWriteException extends Exception {
@@ -77,10 +88,40 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
 		}
 	}
 	
+	/**
+	 * Shared counters of the work performed for message compression
+	 */
+	public static class CompressionStats {
+		private AtomicLong compressedMessages = new AtomicLong();
+		private AtomicLong uncompressedBytes = new AtomicLong();
+		private AtomicLong compressedBytes = new AtomicLong();
+		private AtomicLong compressionNanos = new AtomicLong();
+		
+		public long getCompressedMessages() {
+			return compressedMessages.get();
+		}
+		
+		public long getUncompressedBytes() {
+			return uncompressedBytes.get();
+		}
+		
+		public long getCompressedBytes() {
+			return compressedBytes.get();
+		}
+		
+		public long getCompressionNanos() {
+			return compressionNanos.get();
+		}
+	}
+	
     private static final byte[] LENGTH_PLACEHOLDER = new byte[4];
+    private static final byte[] COMPRESSED_LENGTH_PLACEHOLDER = new byte[5];
 	private static final int CHUNK_SIZE = (1 << 16) - 1;
 
     private final int estimatedLength;
+    private volatile boolean compress;
+    private int compressionThreshold = CompressionUtil.DEFAULT_THRESHOLD;
+    private CompressionStats stats;
 
     /**
      * Creates a new encoder with the estimated length of 512 bytes.
@@ -94,10 +135,9 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
      *
      * @param estimatedLength
      *        the estimated byte length of the serialized form of an object.
-     *        If the length of the serialized form exceeds this value, the
-     *        internal buffer will be expanded automatically at the cost of
-     *        memory bandwidth.  If this value is too big, it will also waste
-     *        memory bandwidth.  To avoid unnecessary memory copy or allocation
+     *        If the length of the serialized form exceeds this value, 
+     *        additional segments will be allocated.  If this value is too big, 
+     *        it will waste memory bandwidth.  To avoid unnecessary allocation
      *        cost, please specify the properly estimated value.
      */
     public ObjectEncoder(int estimatedLength) {
@@ -108,6 +148,22 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
         this.estimatedLength = estimatedLength;
     }
     
+    public ObjectEncoder(int estimatedLength, CompressionStats stats) {
+    	this(estimatedLength);
+    	this.stats = stats;
+    }
+    
+    /**
+     * Set after compression has been negotiated to prefix each message with a compression flag
+     */
+    public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+    
+    public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+    
     public void handleDownstream(
             final ChannelHandlerContext ctx, ChannelEvent evt) throws Exception {
         if (!(evt instanceof MessageEvent)) {
@@ -122,10 +178,11 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
             return;
         }
         
-        ChannelBufferOutputStream bout =
-            new ChannelBufferOutputStream(dynamicBuffer(
-                    estimatedLength, ctx.getChannel().getConfig().getBufferFactory()));
-        bout.write(LENGTH_PLACEHOLDER);
+        //serialize into segments rather than a single dynamic buffer, so that growth does not copy 
+        MultiArrayOutputStream bout = new MultiArrayOutputStream(estimatedLength);
+        boolean useCompression = compress;
+        int headerLength = useCompression?5:4;
+        bout.write(useCompression?COMPRESSED_LENGTH_PLACEHOLDER:LENGTH_PLACEHOLDER);
         final CompactObjectOutputStream oout = new CompactObjectOutputStream(bout);
         try {
 	        oout.writeObject(e.getMessage());
@@ -135,7 +192,10 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
         } catch (Throwable t) {
         	throw new FailedWriteException(e.getMessage(), t);
         }
-        ChannelBuffer encoded = bout.buffer();
+        if (useCompression && bout.getCount() - headerLength >= compressionThreshold) {
+        	bout = deflate(bout, headerLength);
+        }
+        ChannelBuffer encoded = wrap(bout);
         encoded.setInt(0, encoded.writerIndex() - 4);
         write(ctx, e.getFuture(), encoded, e.getRemoteAddress());
 		for (InputStream is : oout.getStreams()) {
@@ -143,6 +203,55 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
 		}
     }
     
+    /**
+     * Wrap the segments without copying.  The resulting composite allows for a gathering write.
+     */
+    static ChannelBuffer wrap(MultiArrayOutputStream bout) {
+    	byte[][] bufs = bout.getBuffers();
+    	if (bout.getCount() <= bufs[0].length) {
+    		return wrappedBuffer(bufs[0], 0, bout.getCount());
+    	}
+    	List<ChannelBuffer> buffers = new ArrayList<ChannelBuffer>();
+    	int remaining = bout.getCount();
+    	for (int i = 0; remaining > 0; i++) {
+    		int length = Math.min(remaining, bufs[i].length);
+    		buffers.add(wrappedBuffer(bufs[i], 0, length));
+    		remaining -= length;
+    	}
+    	return wrappedBuffer(true, buffers.toArray(new ChannelBuffer[buffers.size()]));
+    }
+    
+    private MultiArrayOutputStream deflate(MultiArrayOutputStream encoded, int headerLength) throws IOException {
+    	long start = System.nanoTime();
+    	int length = encoded.getCount() - headerLength;
+    	MultiArrayOutputStream bout = new MultiArrayOutputStream(Math.max(estimatedLength, length >> 2));
+    	bout.write(LENGTH_PLACEHOLDER);
+    	bout.write(CompressionUtil.DEFLATED);
+    	byte[] buffer = new byte[1 << 13];
+    	Deflater deflater = CompressionUtil.createDeflater();
+    	try {
+    		byte[][] bufs = encoded.getBuffers();
+    		int offset = headerLength;
+    		int remaining = encoded.getCount();
+    		for (int i = 0; remaining > 0; i++) {
+    			int segment = Math.min(remaining, bufs[i].length);
+    			CompressionUtil.deflate(deflater, bufs[i], offset, segment - offset, bout, buffer);
+    			remaining -= segment;
+    			offset = 0;
+			}
+    		CompressionUtil.finish(deflater, bout, buffer);
+    	} finally {
+    		deflater.end();
+    	}
+    	if (stats != null) {
+    		stats.compressedMessages.getAndIncrement();
+    		stats.uncompressedBytes.addAndGet(length);
+    		stats.compressedBytes.addAndGet(bout.getCount() - headerLength);
+    		stats.compressionNanos.addAndGet(System.nanoTime() - start);
+    	}
+    	return bout;
+    }
+    
     static class AnonymousChunkedStream extends ChunkedStream {
 
 		public AnonymousChunkedStream(InputStream in) {
@@ -29,14 +29,20 @@ import java.io.StreamCorruptedException;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.sql.Array;
 import java.sql.Blob;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.TimeZone;
 
 import javax.net.ssl.SSLEngine;
 
@@ -99,13 +105,15 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		private int rows2Send;
 		private int rowsSent = 0;
 		private int rowsInBuffer = 0;
+		private boolean[] binary;
 		String sql;
 
-		private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send) {
+		private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send, boolean[] binary) {
 			this.cols = cols;
 			this.rs = rs;
 			this.result = result;
 			this.rows2Send = rows2Send;
+			this.binary = binary;
 			initBuffer(maxBufferSize / 8);
 		}
 
@@ -116,6 +124,8 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			    	nextFuture = rs.submitNext();
 			    	synchronized (nextFuture) {
 				    	if (!nextFuture.isDone()) {
+				    		//let the client see what has been sent so far
+				    		flushPending();
 					    	nextFuture.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
 					    		@Override
 					    		public void onCompletion(ResultsFuture<Boolean> future) {
@@ -143,7 +153,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			boolean processNext = true;
 			try {
     			if (future.get()) {
-    				sendDataRow(rs, cols);
+    				sendDataRow(rs, cols, binary);
     				rowsSent++;
     				rowsInBuffer++;
     				boolean done = rowsSent == rows2Send;
@@ -177,11 +187,23 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		}
 	}
 
+	private static final long MILLIS_PER_DAY = 86400000;
+	private static final long SECONDS_PER_DAY = 86400;
+	//days from 1970-01-01 to 2000-01-01
+	private static final long PG_EPOCH_DAYS = 10957;
+	private static final int PG_TYPE_CHAR = 18;
+	private static final int PG_TYPE_OID = 26;
+	private static final int NUMERIC_POS = 0x0000;
+	private static final int NUMERIC_NEG = 0x4000;
+
 	public static final String DEFAULT_ENCODING = "UTF8";
 	public static final String CLIENT_ENCODING = "client_encoding";
 
     private ChannelBuffer dataOut;
 	private OutputStreamWriter writer;
+	//completed messages that have not yet been written to the channel
+	private List<ChannelBuffer> pending = new ArrayList<ChannelBuffer>();
+	private int pendingBytes;
 
     private Properties props;    
     private Charset encoding = Charset.forName("UTF-8");
@@ -338,21 +360,21 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	}
 
 	@Override
-	public void sendResultSetDescription(List<PgColInfo> cols) {
-		sendRowDescription(cols);
+	public void sendResultSetDescription(List<PgColInfo> cols, int[] resultColumnFormat) {
+		sendRowDescription(cols, getBinaryColumns(cols, resultColumnFormat));
 	}
 	
 	@Override
 	public void sendResults(String sql, ResultSetImpl rs, List<PgColInfo> cols,
-			ResultsFuture<Integer> result, int rowCount, boolean describeRows) {
+			ResultsFuture<Integer> result, int rowCount, boolean describeRows, int[] resultColumnFormat) {
 		if (nextFuture != null) {
 			sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
 		}
-    	
+    	boolean[] binary = getBinaryColumns(cols, resultColumnFormat);
     	if (describeRows) {
-    		sendRowDescription(cols);
+    		sendRowDescription(cols, binary);
     	}
-    	ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, rowCount);
+    	ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, rowCount, binary);
     	r.sql = sql;
     	r.run();    
 	}
@@ -372,6 +394,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	public void terminated() {
 		trace("channel being terminated");
 		// no need to send any reply; this is showing as malformed packet.
+		flushPending();
 		this.ctx.getChannel().close();
 	}
 	
@@ -379,6 +402,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	public void flush() {
 		this.dataOut = null;
 		this.writer = null;
+		flushPending();
 		Channels.write(this.ctx.getChannel(), null);
 	}
 
@@ -389,6 +413,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 	
 	private void terminate(Throwable t) {
 		trace("channel being terminated - ", t.getMessage());
+		flushPending();
 		this.ctx.getChannel().close();
 	}
 
@@ -424,14 +449,18 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		sendMessage();
 	}
 
-	private void sendDataRow(ResultSet rs, List<PgColInfo> cols) throws SQLException, IOException {
+	private void sendDataRow(ResultSet rs, List<PgColInfo> cols, boolean[] binary) throws SQLException, IOException {
 		startMessage('D', -1);
 		int lengthIndex = this.dataOut.writerIndex() - 4;
 		writeShort(cols.size());
 		for (int i = 0; i < cols.size(); i++) {
 			int dataBytesIndex = this.dataOut.writerIndex();
 			writeInt(-1);
-			getContent(rs, cols.get(i), i+1);
+			if (binary != null && binary[i]) {
+				getBinaryContent(rs, cols.get(i), i+1);
+			} else {
+				getContent(rs, cols.get(i), i+1);
+			}
 			writer.flush();
 			if (!rs.wasNull()) {
 				int bytes = this.dataOut.writerIndex() - dataBytesIndex - 4;
@@ -541,6 +570,231 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		}
 	}
 	
+	/**
+	 * Write the binary format of the value.  The character types have the same binary form as their text.
+	 * Timestamps are sent as float8 values since integer_datetimes is off.
+	 */
+	private void getBinaryContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
+		switch (col.type) {
+			case PG_TYPE_BOOL:
+				boolean b = rs.getBoolean(column);
+				if (!rs.wasNull()) {
+					write(b?1:0);
+				}
+				break;
+		    case PG_TYPE_INT2:
+		    	short s = rs.getShort(column);
+		    	if (!rs.wasNull()) {
+		    		writeShort(s);
+		    	}
+		    	break;
+		    case PG_TYPE_INT4:
+		    	int i = rs.getInt(column);
+		    	if (!rs.wasNull()) {
+		    		writeInt(i);
+		    	}
+		    	break;
+		    case PG_TYPE_INT8:
+		    	long l = rs.getLong(column);
+		    	if (!rs.wasNull()) {
+		    		dataOut.writeLong(l);
+		    	}
+		    	break;
+		    case PG_TYPE_FLOAT4:
+		    	float f = rs.getFloat(column);
+		    	if (!rs.wasNull()) {
+		    		writeInt(Float.floatToIntBits(f));
+		    	}
+		    	break;
+		    case PG_TYPE_FLOAT8:
+		    	double d = rs.getDouble(column);
+		    	if (!rs.wasNull()) {
+		    		dataOut.writeLong(Double.doubleToLongBits(d));
+		    	}
+		    	break;
+		    case PG_TYPE_NUMERIC:
+		    	BigDecimal bd = rs.getBigDecimal(column);
+		    	if (bd != null) {
+		    		writeNumeric(bd);
+		    	}
+		    	break;
+		    case PG_TYPE_DATE:
+		    	Date date = rs.getDate(column);
+		    	if (date != null) {
+		    		writeInt((int)(floorDiv(toLocalMillis(date.getTime()), MILLIS_PER_DAY) - PG_EPOCH_DAYS));
+		    	}
+		    	break;
+		    case PG_TYPE_TIME:
+		    	Time time = rs.getTime(column);
+		    	if (time != null) {
+		    		long local = toLocalMillis(time.getTime());
+		    		long millis = local - floorDiv(local, MILLIS_PER_DAY) * MILLIS_PER_DAY;
+		    		dataOut.writeLong(Double.doubleToLongBits(millis / 1000d));
+		    	}
+		    	break;
+		    case PG_TYPE_TIMESTAMP_NO_TMZONE:
+		    	Timestamp ts = rs.getTimestamp(column);
+		    	if (ts != null) {
+		    		long seconds = floorDiv(toLocalMillis(ts.getTime()), 1000) - PG_EPOCH_DAYS * SECONDS_PER_DAY;
+		    		dataOut.writeLong(Double.doubleToLongBits(seconds + ts.getNanos() / 1000000000d));
+		    	}
+		    	break;
+		    case PG_TYPE_BYTEA:
+		    	Blob blob = rs.getBlob(column);
+		    	if (blob != null) {
+		    		try {
+		    			write(ObjectConverterUtil.convertToByteArray(blob.getBinaryStream(), this.maxLobSize));
+		    		} catch(OutOfMemoryError e) {
+		    			throw new StreamCorruptedException("data too big: " + e.getMessage()); //$NON-NLS-1$ 
+		    		}
+		    	}
+		    	break;
+		    case PG_TYPE_CHARARRAY:
+		    case PG_TYPE_TEXTARRAY:
+		    case PG_TYPE_OIDARRAY:
+		    	Array array = rs.getArray(column);
+		    	if (array != null) {
+		    		Object values = array.getArray();
+		    		Object[] elements = new Object[java.lang.reflect.Array.getLength(values)];
+		    		for (int j = 0; j < elements.length; j++) {
+		    			elements[j] = java.lang.reflect.Array.get(values, j);
+		    		}
+		    		writeArray(elements, col.type == PG_TYPE_OIDARRAY?PG_TYPE_OID:(col.type == PG_TYPE_CHARARRAY?PG_TYPE_CHAR:PG_TYPE_TEXT));
+		    	}
+		    	break;
+		    case PG_TYPE_INT2VECTOR:
+		    case PG_TYPE_OIDVECTOR:
+		    	ArrayImpl vector = (ArrayImpl)rs.getObject(column);
+		    	if (vector != null) {
+		    		writeArray(vector.getValues(), col.type == PG_TYPE_INT2VECTOR?PG_TYPE_INT2:PG_TYPE_OID);
+		    	}
+		    	break;
+		    default:
+		    	getContent(rs, col, column);
+		}
+	}
+	
+	/**
+	 * Write a one dimensional array in the array_send format 
+	 */
+	private void writeArray(Object[] values, int elementType) {
+		boolean hasNulls = false;
+		for (Object o : values) {
+			if (o == null) {
+				hasNulls = true;
+				break;
+			}
+		}
+		writeInt(values.length == 0?0:1);
+		writeInt(hasNulls?1:0);
+		writeInt(elementType);
+		if (values.length == 0) {
+			return;
+		}
+		writeInt(values.length);
+		writeInt(1);
+		for (Object o : values) {
+			if (o == null) {
+				writeInt(-1);
+			} else if (elementType == PG_TYPE_INT2) {
+				writeInt(2);
+				writeShort(((Number)o).shortValue());
+			} else if (elementType == PG_TYPE_OID) {
+				writeInt(4);
+				writeInt(((Number)o).intValue());
+			} else {
+				byte[] bytes = o.toString().getBytes(this.encoding);
+				writeInt(bytes.length);
+				write(bytes);
+			}
+		}
+	}
+	
+	/**
+	 * Write the numeric_send format - base 10000 digits with a weight, sign, and display scale 
+	 */
+	private void writeNumeric(BigDecimal value) {
+		if (value.scale() < 0) {
+			value = value.setScale(0);
+		}
+		int scale = value.scale();
+		String unscaled = value.unscaledValue().abs().toString();
+		String integerPart = ""; //$NON-NLS-1$
+		String fractionPart = unscaled;
+		if (unscaled.length() > scale) {
+			integerPart = unscaled.substring(0, unscaled.length() - scale);
+			fractionPart = unscaled.substring(unscaled.length() - scale);
+		} 
+		//align the parts to base 10000 digits
+		StringBuilder sb = new StringBuilder();
+		for (int i = (4 - integerPart.length() % 4) % 4; i > 0; i--) {
+			sb.append('0');
+		}
+		sb.append(integerPart);
+		int integerDigits = sb.length() / 4;
+		for (int i = scale - fractionPart.length(); i > 0; i--) {
+			sb.append('0');
+		}
+		sb.append(fractionPart);
+		for (int i = (4 - sb.length() % 4) % 4; i > 0; i--) {
+			sb.append('0');
+		}
+		short[] digits = new short[sb.length() / 4];
+		for (int i = 0; i < digits.length; i++) {
+			digits[i] = Short.parseShort(sb.substring(i * 4, i * 4 + 4));
+		}
+		int weight = integerDigits - 1;
+		int start = 0;
+		int end = digits.length;
+		while (start < end && digits[start] == 0) {
+			start++;
+			weight--;
+		}
+		while (end > start && digits[end - 1] == 0) {
+			end--;
+		}
+		if (start == end) {
+			weight = 0;
+		}
+		writeShort(end - start);
+		writeShort(weight);
+		writeShort(value.signum() < 0?NUMERIC_NEG:NUMERIC_POS);
+		writeShort(scale);
+		for (int i = start; i < end; i++) {
+			writeShort(digits[i]);
+		}
+	}
+	
+	private static long toLocalMillis(long millis) {
+		return millis + TimeZone.getDefault().getOffset(millis);
+	}
+	
+	private static long floorDiv(long x, long y) {
+		long r = x / y;
+		if ((x % y != 0) && ((x ^ y) < 0)) {
+			r--;
+		}
+		return r;
+	}
+	
+	/**
+	 * Determine which columns should be sent in the binary format
+	 * @return null if all columns use the text format
+	 */
+	static boolean[] getBinaryColumns(List<PgColInfo> cols, int[] resultColumnFormat) {
+		if (cols == null || resultColumnFormat == null || resultColumnFormat.length == 0) {
+			return null;
+		}
+		boolean[] result = new boolean[cols.size()];
+		boolean any = false;
+		for (int i = 0; i < result.length; i++) {
+			int format = resultColumnFormat.length == 1?resultColumnFormat[0]:(i < resultColumnFormat.length?resultColumnFormat[i]:0);
+			result[i] = format == 1;
+			any |= result[i];
+		}
+		return any?result:null;
+	}
+	
 	public static void escapeQuote(Writer sb, String s) throws IOException {
 		sb.append('"');
 		for (int i = 0; i < s.length(); i++) {
@@ -564,6 +818,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		} catch (GeneralSecurityException e) {
 			LogManager.logError(LogConstants.CTX_ODBC, e, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40016));
 		}
+		flushPending();
 		ChannelBuffer buffer = ctx.getChannel().getConfig().getBufferFactory().getBuffer(1);
 		if (engine == null) {
 			buffer.writeByte('N');
@@ -598,7 +853,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		sendMessage();
 	}
 	
-	private void sendRowDescription(List<PgColInfo> cols) {
+	private void sendRowDescription(List<PgColInfo> cols, boolean[] binary) {
 		if (cols == null) {
 			//send NoData
 			startMessage('n');
@@ -607,7 +862,8 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		}
 		startMessage('T');
 		writeShort(cols.size());
-		for (PgColInfo info : cols) {
+		for (int i = 0; i < cols.size(); i++) {
+			PgColInfo info = cols.get(i);
 			writeString(info.name);
 			// rel ID
 			writeInt(info.reloid);
@@ -619,8 +875,8 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 			writeShort(getTypeSize(info.type, info.precision));
 			// pg_attribute.atttypmod
 			writeInt(info.mod);
-			// text
-			writeShort(0);
+			// text or binary
+			writeShort(binary != null && binary[i]?1:0);
 		}
 		sendMessage();
 	}
@@ -668,12 +924,14 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		startMessage('R');
 		writeInt(3);
 		sendMessage();
+		flushPending();
 	}
 	
 	private void sendAuthenticationGSS() {
 		startMessage('R');
 		writeInt(7);
 		sendMessage();
+		flushPending();
 	}
 	
 	private void sendAuthenticationGSSContinue(byte[] serviceToken)  {
@@ -681,6 +939,7 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		writeInt(8);
 		write(serviceToken);
 		sendMessage();
+		flushPending();
 	}	
 	
 	private void sendAuthenticationOk() {
@@ -707,6 +966,8 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		}
 		write((byte) c);
 		sendMessage();
+		//the client will wait for ready, so write everything
+		flushPending();
 	}
 
 	private void sendBackendKeyData(int processId, int screctKey) {
@@ -795,6 +1056,26 @@ public class PgBackendProtocol implements ChannelDownstreamHandler, ODBCClientRe
 		ChannelBuffer cb = this.dataOut;
 		this.dataOut = null;
 		this.writer = null;
+		//hold the message so that the responses to pipelined messages are written together
+		this.pending.add(cb);
+		this.pendingBytes += cb.readableBytes();
+		if (this.pendingBytes >= this.maxBufferSize) {
+			flushPending();
+		}
+	}
+	
+	private void flushPending() {
+		if (this.pending.isEmpty()) {
+			return;
+		}
+		ChannelBuffer cb = null;
+		if (this.pending.size() == 1) {
+			cb = this.pending.get(0);
+		} else {
+			cb = ChannelBuffers.wrappedBuffer(true, this.pending.toArray(new ChannelBuffer[this.pending.size()]));
+		}
+		this.pending.clear();
+		this.pendingBytes = 0;
 		Channels.write(this.ctx, this.message.getFuture(), cb, this.message.getRemoteAddress());
 	}
 
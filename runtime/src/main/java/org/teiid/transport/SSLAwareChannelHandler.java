@@ -142,6 +142,7 @@ public class SSLAwareChannelHandler extends SimpleChannelHandler implements Chan
 	private Map<Channel, ChannelListener> listeners = new ConcurrentHashMap<Channel, ChannelListener>();
 	private AtomicLong objectsRead = new AtomicLong(0);
 	private AtomicLong objectsWritten = new AtomicLong(0);
+	private ObjectEncoder.CompressionStats compressionStats = new ObjectEncoder.CompressionStats();
 	private volatile int maxChannels;
 	private int maxMessageSize = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid.maxMessageSize", DEFAULT_MAX_MESSAGE_SIZE); //$NON-NLS-1$
 	
@@ -233,7 +234,7 @@ public class SSLAwareChannelHandler extends SimpleChannelHandler implements Chan
 		}
 	    pipeline.addLast("decoder", new ObjectDecoder(maxMessageSize, classLoader, storageManager)); //$NON-NLS-1$
 	    pipeline.addLast("chunker", new ChunkedWriteHandler()); //$NON-NLS-1$
-	    pipeline.addLast("encoder", new ObjectEncoder()); //$NON-NLS-1$
+	    pipeline.addLast("encoder", new ObjectEncoder(512, compressionStats)); //$NON-NLS-1$
 	    pipeline.addLast("handler", this); //$NON-NLS-1$
 	    return pipeline;
 	}
@@ -246,6 +247,10 @@ public class SSLAwareChannelHandler extends SimpleChannelHandler implements Chan
 		return this.objectsWritten.get();
 	}
 	
+	public ObjectEncoder.CompressionStats getCompressionStats() {
+		return compressionStats;
+	}
+	
 	public int getConnectedChannels() {
 		return this.listeners.size();
 	}
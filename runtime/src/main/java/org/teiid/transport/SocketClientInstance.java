@@ -64,6 +64,7 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
     private ClientServiceRegistryImpl csr;
     private boolean usingEncryption; 
     private DhKeyGenerator keyGen;
+    private boolean messageCompression;
     private DQPWorkContext workContext = new DQPWorkContext();
         
     public SocketClientInstance(ObjectChannel objectSocket, ClientServiceRegistryImpl csr, boolean isClientEncryptionEnabled) {
@@ -79,6 +80,13 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
         }
     }
     
+    /**
+     * Set to offer message compression in the handshake
+     */
+    public void setMessageCompression(boolean messageCompression) {
+		this.messageCompression = messageCompression;
+	}
+    
     public void send(Message message, Serializable messageKey) {
     	message.setMessageKey(messageKey);
     	if (LogManager.isMessageToBeRecorded(LogConstants.CTX_TRANSPORT, MessageLevel.DETAIL)) {
@@ -137,6 +145,7 @@ public class SocketClientInstance implements ChannelListener, ClientInstance {
 	public void onConnection() throws CommunicationException {
         Handshake handshake = new Handshake();
         handshake.setAuthType(csr.getAuthenticationType());
+        handshake.setCompress(messageCompression);
         if (usingEncryption) {
             keyGen = new DhKeyGenerator();
             byte[] publicKey;
@@ -39,6 +39,7 @@ public class SocketConfiguration {
 	private String hostName;
 	private String name;
 	private WireProtocol protocol = WireProtocol.teiid;
+	private boolean messageCompression;
 	
 	public String getName() {
 		return name;
@@ -68,6 +69,17 @@ public class SocketConfiguration {
 		this.outputBufferSize = value;
 	}
 	
+	/**
+	 * Offer message compression to clients in the handshake.  Only applies to the teiid protocol.
+	 */
+	public void setMessageCompression(boolean messageCompression) {
+		this.messageCompression = messageCompression;
+	}
+	
+	public boolean isMessageCompression() {
+		return messageCompression;
+	}
+	
 	public void setSSLConfiguration(SSLConfiguration value) {
 		this.sslConfiguration = value;
 	}	
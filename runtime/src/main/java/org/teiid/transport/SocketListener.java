@@ -25,6 +25,7 @@ package org.teiid.transport;
 import java.net.InetSocketAddress;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.Channel;
@@ -49,9 +50,11 @@ public class SocketListener implements ChannelListenerFactory {
     private boolean isClientEncryptionEnabled;
     private ExecutorService nettyPool;
     private ClientServiceRegistryImpl csr;
+    private volatile boolean messageCompression;
     
     public SocketListener(InetSocketAddress address, SocketConfiguration config, ClientServiceRegistryImpl csr, StorageManager storageManager) {
 		this(address, config.getInputBufferSize(), config.getOutputBufferSize(), config.getMaxSocketThreads(), config.getSSLConfiguration(), csr, storageManager);
+		this.messageCompression = config.isMessageCompression();
 		LogManager.logDetail(LogConstants.CTX_TRANSPORT, RuntimePlugin.Util.getString("SocketTransport.1", new Object[] {config.getHostAddress().getHostAddress(), String.valueOf(config.getPortNumber())})); //$NON-NLS-1$
     }
     
@@ -96,6 +99,13 @@ public class SocketListener implements ChannelListenerFactory {
         this.serverChanel = bootstrap.bind(address);
     }
     
+    /**
+     * Set to offer message compression to newly connected clients
+     */
+    public void setMessageCompression(boolean messageCompression) {
+		this.messageCompression = messageCompression;
+	}
+    
     public int getPort() {
     	return ((InetSocketAddress)this.serverChanel.getLocalAddress()).getPort();
     }
@@ -109,6 +119,11 @@ public class SocketListener implements ChannelListenerFactory {
         SocketListenerStats stats = new SocketListenerStats();             
         stats.objectsRead = this.channelHandler.getObjectsRead();
         stats.objectsWritten = this.channelHandler.getObjectsWritten();
+        ObjectEncoder.CompressionStats compressionStats = this.channelHandler.getCompressionStats();
+        stats.compressedMessages = compressionStats.getCompressedMessages();
+        stats.uncompressedBytes = compressionStats.getUncompressedBytes();
+        stats.compressedBytes = compressionStats.getCompressedBytes();
+        stats.compressionTimeMillis = TimeUnit.NANOSECONDS.toMillis(compressionStats.getCompressionNanos());
         stats.sockets = this.channelHandler.getConnectedChannels();
         stats.maxSockets = this.channelHandler.getMaxConnectedChannels();
         return stats;
@@ -119,7 +134,9 @@ public class SocketListener implements ChannelListenerFactory {
     }
     
 	public ChannelListener createChannelListener(ObjectChannel channel) {
-		return new SocketClientInstance(channel, csr, this.isClientEncryptionEnabled);
+		SocketClientInstance instance = new SocketClientInstance(channel, csr, this.isClientEncryptionEnabled);
+		instance.setMessageCompression(this.messageCompression);
+		return instance;
 	}
 	
 	SSLAwareChannelHandler getChannelHandler() {
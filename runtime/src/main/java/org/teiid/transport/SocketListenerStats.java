@@ -34,6 +34,11 @@ public class SocketListenerStats implements Serializable {
     public long objectsRead = 0;
     public long objectsWritten = 0;
     
+    public long compressedMessages = 0;
+    public long uncompressedBytes = 0;
+    public long compressedBytes = 0;
+    public long compressionTimeMillis = 0;
+    
     public int sockets = 0;
     public int maxSockets = 0;
 }
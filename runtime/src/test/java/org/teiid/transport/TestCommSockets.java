@@ -64,6 +64,7 @@ public class TestCommSockets {
 	private InetSocketAddress addr;
 	private MemoryStorageManager storageManager;
 	private SessionServiceImpl service;
+	private boolean messageCompression;
 
 	@Before public void setUp() {
 		addr = new InetSocketAddress(0);
@@ -144,6 +145,38 @@ public class TestCommSockets {
 		assertTrue(Serializable.class.isAssignableFrom(fs.getReader().getClass()));
 	}
 
+	@Test public void testCompression() throws Exception {
+		messageCompression = true;
+		Properties p = new Properties();
+		p.setProperty("org.teiid.sockets.compress", "true");
+		SocketServerConnection conn = helpEstablishConnection(false, new SSLConfiguration(), p);
+		FakeService fs = conn.getService(FakeService.class);
+		//above the compression threshold in both directions
+		long compressed = listener.getStats().compressedMessages;
+		String value = new String(new char[1 << 14]);
+		assertEquals(value, fs.echo(value));
+		SocketListenerStats stats = listener.getStats();
+		assertEquals(compressed + 1, stats.compressedMessages);
+		assertTrue(stats.compressedBytes < stats.uncompressedBytes);
+		//lob streams follow compressed messages uncompressed
+		assertEquals((1 << 17) + 50, fs.lobMethod(new ByteArrayInputStream(new byte[1 << 17]), new StringReader(new String(new char[50]))));
+		assertEquals(2, storageManager.getCreated());
+		assertEquals(2, storageManager.getRemoved());
+		assertEquals("hello world", ObjectConverterUtil.convertToString(fs.getReader()));
+		conn.close();
+	}
+	
+	@Test public void testCompressionNotOffered() throws Exception {
+		Properties p = new Properties();
+		p.setProperty("org.teiid.sockets.compress", "true");
+		SocketServerConnection conn = helpEstablishConnection(false, new SSLConfiguration(), p);
+		FakeService fs = conn.getService(FakeService.class);
+		String value = new String(new char[1 << 14]);
+		assertEquals(value, fs.echo(value));
+		assertEquals(0, listener.getStats().compressedMessages);
+		conn.close();
+	}
+	
 	@Test public void testConnectWithoutClientEncryption() throws Exception {
 		SSLConfiguration config = new SSLConfiguration();
 		config.setMode(SSLConfiguration.DISABLED);
@@ -170,6 +203,7 @@ public class TestCommSockets {
 			server.registerClientService(FakeService.class, new TestSocketRemoting.FakeServiceImpl(), null);
 			storageManager = new MemoryStorageManager();
 			listener = new SocketListener(addr, 1024, 1024, 1, config, server, storageManager);
+			listener.setMessageCompression(messageCompression);
 			
 			SocketListenerStats stats = listener.getStats();
 			assertEquals(0, stats.maxSockets);
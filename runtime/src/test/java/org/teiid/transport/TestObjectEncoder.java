@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (C) 2008 Red Hat, Inc.
+ * Licensed to Red Hat, Inc. under one or more contributor 
+ * license agreements.  See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.transport;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.junit.Test;
+import org.teiid.common.buffer.impl.MemoryStorageManager;
+import org.teiid.core.util.MultiArrayOutputStream;
+import org.teiid.net.socket.Handshake;
+import org.teiid.transport.ObjectEncoder.CompressionStats;
+
+@SuppressWarnings("nls")
+public class TestObjectEncoder {
+	
+	private static List<String> largeMessage() {
+		List<String> large = new ArrayList<String>();
+		for (int i = 0; i < 100000; i++) {
+			large.add("value " + i);
+		}
+		return large;
+	}
+	
+	private static DecoderEmbedder<Object> newDecoder() {
+		return new DecoderEmbedder<Object>(new ObjectDecoder(1 << 25, TestObjectEncoder.class.getClassLoader(), new MemoryStorageManager()));
+	}
+	
+	private static ChannelBuffer encode(EncoderEmbedder<ChannelBuffer> encoder, Object message) {
+		assertTrue(encoder.offer(message));
+		ChannelBuffer encoded = encoder.poll();
+		assertEquals(encoded.readableBytes() - 4, encoded.getInt(0));
+		return encoded;
+	}
+	
+	private static Object decode(DecoderEmbedder<Object> decoder, ChannelBuffer encoded) {
+		assertTrue(decoder.offer(encoded));
+		return decoder.poll();
+	}
+	
+	@Test public void testWrap() throws Exception {
+		MultiArrayOutputStream bout = new MultiArrayOutputStream(4);
+		bout.write(new byte[] {1, 2, 3});
+		ChannelBuffer buffer = ObjectEncoder.wrap(bout);
+		assertTrue(buffer.hasArray());
+		assertEquals(3, buffer.readableBytes());
+		
+		//spans segments of 4, 8 and 16 bytes
+		for (int i = 3; i < 20; i++) {
+			bout.write(i + 1);
+		}
+		buffer = ObjectEncoder.wrap(bout);
+		assertFalse(buffer.hasArray());
+		assertEquals(20, buffer.readableBytes());
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i + 1, buffer.getByte(i));
+		}
+	}
+	
+	@Test public void testSingleSegment() throws Exception {
+		ChannelBuffer encoded = encode(new EncoderEmbedder<ChannelBuffer>(new ObjectEncoder(512)), "hello");
+		assertTrue(encoded.hasArray());
+		assertEquals("hello", decode(newDecoder(), encoded));
+	}
+	
+	@Test public void testMultipleSegments() throws Exception {
+		List<String> large = largeMessage();
+		ChannelBuffer encoded = encode(new EncoderEmbedder<ChannelBuffer>(new ObjectEncoder(512)), large);
+		assertFalse(encoded.hasArray());
+		assertEquals(large, decode(newDecoder(), encoded));
+	}
+	
+	@Test public void testCompressedMultipleSegments() throws Exception {
+		DecoderEmbedder<Object> decoder = newDecoder();
+		CompressionStats stats = new CompressionStats();
+		ObjectEncoder objectEncoder = new ObjectEncoder(512, stats);
+		objectEncoder.setCompressionThreshold(1024);
+		EncoderEmbedder<ChannelBuffer> encoder = new EncoderEmbedder<ChannelBuffer>(objectEncoder);
+		
+		//switches the decoder to expect the compression flag
+		Handshake handshake = new Handshake();
+		handshake.setCompress(true);
+		assertTrue(((Handshake)decode(decoder, encode(encoder, handshake))).isCompress());
+		objectEncoder.setCompress(true);
+		
+		//below the threshold is sent uncompressed
+		assertEquals("hello", decode(decoder, encode(encoder, "hello")));
+		assertEquals(0, stats.getCompressedMessages());
+		
+		//the serialized form spans many segments, all of which must be deflated
+		List<String> large = largeMessage();
+		ChannelBuffer encoded = encode(encoder, large);
+		assertEquals(1, stats.getCompressedMessages());
+		assertTrue(stats.getUncompressedBytes() > 512 << 4);
+		assertEquals(encoded.readableBytes() - 5, stats.getCompressedBytes());
+		assertTrue(stats.getCompressedBytes() < stats.getUncompressedBytes());
+		assertEquals(large, decode(decoder, encoded));
+	}
+
+}
@@ -29,15 +29,18 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.security.NoSuchAlgorithmException;
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.Properties;
 
 import javax.net.ssl.SSLContext;
@@ -51,6 +54,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.postgresql.Driver;
+import org.postgresql.PGStatement;
 import org.postgresql.core.v3.ExtendedQueryExectutorImpl;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.core.util.UnitTestUtil;
@@ -500,6 +504,29 @@ public static class AnonSSLSocketFactory extends SSLSocketFactory {
 	}
 	
 	
+	/**
+	 * After the prepare threshold the driver will use a named statement and request binary results
+	 */
+	@Test public void testBinaryResults() throws Exception {
+		PreparedStatement s = conn.prepareStatement("select cast(1 as integer), cast(2 as long), cast(3 as short), cast(1.5 as double), cast(-1234.5678 as bigdecimal), " +
+				"cast('2011-01-01 12:13:14.5' as timestamp), cast('2011-01-01' as date), to_bytes('abc', 'UTF-8'), 'x'");
+		((PGStatement)s).setPrepareThreshold(1);
+		for (int i = 0; i < 3; i++) {
+			ResultSet rs = s.executeQuery();
+			assertTrue(rs.next());
+			assertEquals(1, rs.getInt(1));
+			assertEquals(2, rs.getLong(2));
+			assertEquals(3, rs.getShort(3));
+			assertEquals(1.5, rs.getDouble(4), 0);
+			assertEquals(new BigDecimal("-1234.5678"), rs.getBigDecimal(5));
+			assertEquals(Timestamp.valueOf("2011-01-01 12:13:14.5"), rs.getTimestamp(6));
+			assertEquals(Date.valueOf("2011-01-01"), rs.getDate(7));
+			assertArrayEquals("abc".getBytes("UTF-8"), rs.getBytes(8));
+			assertEquals("x", rs.getString(9));
+			assertFalse(rs.next());
+		}
+	}
+	
 	@Test public void testClientIp() throws Exception {
 		Statement s = conn.createStatement();
 		assertTrue(s.execute("select * from objecttable('teiid_context' COLUMNS y string 'teiid_row.session.IPAddress') as X"));